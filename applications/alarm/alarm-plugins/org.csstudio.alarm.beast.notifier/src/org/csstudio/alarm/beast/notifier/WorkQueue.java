@@ -14,6 +14,7 @@ import java.util.Map.Entry;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
@@ -109,6 +110,9 @@ public class WorkQueue {
     private int count_pending = 0;
     private int count_thread = 0;
 
+    /** Number of scheduled actions that replaced a pending action */
+    private final AtomicLong count_replaced = new AtomicLong();
+
     /** Minimum allowed action priority if overflow occurs */
     private final EActionPriority overflow_level = EActionPriority.MAJOR;
 
@@ -208,13 +212,12 @@ public class WorkQueue {
                 || !overflowManager.isOverflowed()) {
             ActionID actionId = alarmHandler.getID();
             ScheduledActionTask newTask = new ScheduledActionTask(alarmHandler);
-            // TODO: action already scheduled ? => remove
-            if (scheduledActions.get(actionId) != null) { // replace
-                ScheduledActionTask oldTask = scheduledActions.get(actionId);
+            // Action already scheduled => replace
+            ScheduledActionTask oldTask = scheduledActions.put(actionId, newTask);
+            if (oldTask != null) {
                 oldTask.cancel();
-                scheduledActions.put(actionId, newTask);
+                count_replaced.incrementAndGet();
             } else {
-                scheduledActions.put(actionId, newTask);
                 incrementPendingActions();
             }
             int delay = noDelay ? 0 : (alarmHandler.getDelay() * 1000);
@@ -289,6 +292,11 @@ public class WorkQueue {
         return count_pending;
     }
 
+    /** @return Number of actions that replaced a pending action for the same ID */
+    public long countReplacedActions() {
+        return count_replaced.get();
+    }
+
     /** @return Number of currently running threads on the work queue */
     public int countRunningThreads() {
         return count_thread;
@@ -316,6 +324,7 @@ public class WorkQueue {
         System.out.println("Work work_queue size:");
         System.out.println(">>>> Pending actions: " + count_pending);
         System.out.println(">>>> Running threads: " + count_thread);
+        System.out.println(">>>> Replaced actions: " + count_replaced.get());
         System.out.println("Pending actions list:");
         for (ScheduledActionTask task : scheduledActions.values()) {
             System.out.println(task.getAlarmHandler().getScheduledAction());
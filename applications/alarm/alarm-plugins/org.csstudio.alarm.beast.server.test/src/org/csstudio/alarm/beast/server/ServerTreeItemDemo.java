@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.alarm.beast.server;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.csstudio.alarm.beast.SeverityLevel;
+
+/** Alarm storm benchmark for the {@link ServerTreeItem} hierarchy
+ *
+ *  <p>Flips all PVs of a large alarm tree into alarm and back,
+ *  measuring the time until the tree is consistent.
+ *
+ *  <p>Arguments: [areas systems pvs_per_system threads]
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ServerTreeItemDemo
+{
+    public static void main(final String[] args) throws Exception
+    {
+        final int areas = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int systems = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+        final int pvs_per_system = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        final int threads = args.length > 3 ? Integer.parseInt(args[3]) : 4;
+
+        final ServerTreeItem root = new ServerTreeItem(null, "Root", -1, null);
+        final List<AlarmPV> pvs = new ArrayList<>();
+        for (int a=0; a<areas; ++a)
+        {
+            final ServerTreeItem area = new ServerTreeItem(root, "Area" + a, -1, null);
+            for (int s=0; s<systems; ++s)
+            {
+                final ServerTreeItem system = new ServerTreeItem(area, "System" + s, -1, null);
+                for (int p=0; p<pvs_per_system; ++p)
+                    pvs.add(ServerTreeItemUnitTest.createPV(system, "pv" + a + "_" + s + "_" + p));
+            }
+        }
+        System.out.println("Alarm tree with " + pvs.size() + " PVs, " + threads + " threads");
+
+        final SeverityLevel[] storm = new SeverityLevel[]
+        {
+            SeverityLevel.MINOR, SeverityLevel.MAJOR, SeverityLevel.INVALID, SeverityLevel.OK
+        };
+        for (int run=0; run<10; ++run)
+            for (SeverityLevel severity : storm)
+            {
+                final long start = System.nanoTime();
+                final ExecutorService pool = Executors.newFixedThreadPool(threads);
+                final int chunk = (pvs.size() + threads - 1) / threads;
+                for (int t=0; t<threads; ++t)
+                {
+                    final List<AlarmPV> part = pvs.subList(Math.min(t*chunk, pvs.size()),
+                                                           Math.min((t+1)*chunk, pvs.size()));
+                    pool.submit(() ->
+                    {
+                        for (AlarmPV pv : part)
+                            ServerTreeItemUnitTest.setSeverity(pv, severity);
+                    });
+                }
+                pool.shutdown();
+                pool.awaitTermination(1, TimeUnit.MINUTES);
+                final double secs = (System.nanoTime() - start) / 1e9;
+                if (root.severity != severity)
+                    throw new Exception("Root is " + root.severity + " instead of " + severity);
+                System.out.format("%-8s: %8.3f sec, %10.0f updates/sec\n",
+                                  severity.name(), secs, pvs.size() / secs);
+            }
+    }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.alarm.beast.server;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+
+import org.csstudio.alarm.beast.SeverityLevel;
+import org.junit.Test;
+
+/** JUnit test of severity updates in the {@link ServerTreeItem} hierarchy
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ServerTreeItemUnitTest
+{
+    /** Create alarm PV that is enabled, not latching, without delays */
+    static AlarmPV createPV(final ServerTreeItem parent, final String name) throws Exception
+    {
+        final Instant now = Instant.now();
+        final AlarmPV pv = new AlarmPV(null, parent, -1, name, name,
+                true, false, false, 0, 0, 0, null,
+                SeverityLevel.OK, "", SeverityLevel.OK, "", "", now);
+        pv.updateSeverity();
+        return pv;
+    }
+
+    /** Have PV receive a new severity */
+    static void setSeverity(final AlarmPV pv, final SeverityLevel severity)
+    {
+        pv.getAlarmLogic().computeNewState(new AlarmState(severity, severity.name(), "", Instant.now()));
+    }
+
+    @Test
+    public void testSeverityUpdates() throws Exception
+    {
+        final ServerTreeItem root = new ServerTreeItem(null, "Root", -1, null);
+        final ServerTreeItem area = new ServerTreeItem(root, "Area", -1, null);
+        final ServerTreeItem system = new ServerTreeItem(area, "System", -1, null);
+        final ServerTreeItem empty = new ServerTreeItem(root, "Empty", -1, null);
+        final AlarmPV a = createPV(system, "a");
+        final AlarmPV b = createPV(system, "b");
+        final AlarmPV c = createPV(area, "c");
+
+        // All OK. Items without PVs are still UNDEFINED
+        assertThat(system.severity, equalTo(SeverityLevel.OK));
+        assertThat(area.severity, equalTo(SeverityLevel.OK));
+        assertThat(root.severity, equalTo(SeverityLevel.OK));
+        assertThat(empty.severity, equalTo(SeverityLevel.UNDEFINED));
+
+        setSeverity(a, SeverityLevel.MAJOR);
+        assertThat(system.severity, equalTo(SeverityLevel.MAJOR));
+        assertThat(area.severity, equalTo(SeverityLevel.MAJOR));
+        assertThat(root.severity, equalTo(SeverityLevel.MAJOR));
+
+        // Lower severity of other PVs doesn't change the maximum
+        setSeverity(b, SeverityLevel.MINOR);
+        setSeverity(c, SeverityLevel.MINOR);
+        assertThat(system.severity, equalTo(SeverityLevel.MAJOR));
+        assertThat(root.severity, equalTo(SeverityLevel.MAJOR));
+
+        // Maximum drops to the next highest child
+        setSeverity(a, SeverityLevel.OK);
+        assertThat(a.getAlarmLogic().getAlarmState().getSeverity(), equalTo(SeverityLevel.OK));
+        assertThat(system.severity, equalTo(SeverityLevel.MINOR));
+        assertThat(root.severity, equalTo(SeverityLevel.MINOR));
+
+        setSeverity(b, SeverityLevel.OK);
+        assertThat(system.severity, equalTo(SeverityLevel.OK));
+        assertThat(area.severity, equalTo(SeverityLevel.MINOR));
+
+        // Acknowledged alarm
+        c.getAlarmLogic().acknowledge(true);
+        assertThat(area.severity, equalTo(SeverityLevel.MINOR_ACK));
+        assertThat(root.severity, equalTo(SeverityLevel.MINOR_ACK));
+
+        // Disabled PV is not counted
+        setSeverity(c, SeverityLevel.INVALID);
+        assertThat(root.severity, equalTo(SeverityLevel.INVALID));
+        c.getAlarmLogic().setEnabled(false);
+        assertThat(area.severity, equalTo(SeverityLevel.OK));
+        assertThat(root.severity, equalTo(SeverityLevel.OK));
+        c.getAlarmLogic().setEnabled(true);
+        assertThat(root.severity, equalTo(SeverityLevel.INVALID));
+    }
+}
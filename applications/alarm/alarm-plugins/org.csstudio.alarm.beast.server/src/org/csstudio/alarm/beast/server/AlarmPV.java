@@ -59,6 +59,14 @@ public class AlarmPV extends TreeItem implements AlarmLogicListener, FilterListe
      */
     private volatile transient Filter filter;
 
+    /** Severity reported to parent, <code>null</code> when not counted.
+     *  Synchronized on logic
+     */
+    private transient SeverityLevel reported_severity = null;
+
+    /** Has the severity been reported to the parent? Synchronized on logic */
+    private transient boolean reported = false;
+
     /** Initialize alarm PV
      *  @param server Alarm server that handles this PV. Within JUnit tests, this may be <code>null</code>.
      *  @param id RDB ID
@@ -196,7 +204,7 @@ public class AlarmPV extends TreeItem implements AlarmLogicListener, FilterListe
         else
             logger.log(Level.INFO, "Skipping disabled {0}", getPathName());
 
-        getParent().maximizeSeverity();
+        updateSeverity();
     }
 
     /** Disconnect from control system */
@@ -270,8 +278,6 @@ public class AlarmPV extends TreeItem implements AlarmLogicListener, FilterListe
                 Messages.AlarmMessageDisconnected, "", Instant.now());
         logic.computeNewState(received);
         logger.log(Level.INFO, () -> getPathName() + " disconnected -> " + logic);
-
-        getParent().maximizeSeverity();
     }
 
     /** @see PVListener */
@@ -285,22 +291,47 @@ public class AlarmPV extends TreeItem implements AlarmLogicListener, FilterListe
                 VTypeHelper.toString(value),
                 VTypeHelper.getTimestamp(value));
 
-        final SeverityLevel old_severity = logic.getAlarmState().getSeverity();
         logic.computeNewState(received);
         logger.log(Level.FINE, () -> getPathName() + " received " + value + " -> " + logic);
+    }
 
-        if (logic.getAlarmState().getSeverity().equals(old_severity))
-            return;
-
-        // Whenever logic computes new state, maximize up parent tree
-        getParent().maximizeSeverity();
+    /** Report alarm severity to parent item.
+     *
+     *  <p>Only the change is passed up, and only if
+     *  the severity changed since it was last reported.
+     *  A disabled PV is not counted.
+     *
+     *  <p>Synchronizes on the logic, which is also locked while
+     *  changing the enablement, and updates the parent
+     *  after releasing that lock.
+     */
+    void updateSeverity()
+    {
+        final SeverityLevel old_severity, new_severity;
+        synchronized (logic)
+        {
+            new_severity = logic.isEnabled()
+                ? logic.getAlarmState().getSeverity()
+                : null;
+            if (reported  &&  new_severity == reported_severity)
+                return;
+            old_severity = reported_severity;
+            reported_severity = new_severity;
+            reported = true;
+        }
+        getParent().updateSeverity(old_severity, new_severity);
     }
 
     /** AlarmLogicListener: {@inheritDoc} */
     @Override
     public void alarmEnablementChanged(final boolean is_enabled)
     {
-        server.sendEnablementUpdate(this, is_enabled);
+        // Count or no longer count this PV in the parent tree.
+        // Re-enabling without a remembered state doesn't
+        // otherwise compute a new state.
+        updateSeverity();
+        if (server != null)
+            server.sendEnablementUpdate(this, is_enabled);
     }
 
     /** AlarmLogicListener: {@inheritDoc} */
@@ -308,6 +339,8 @@ public class AlarmPV extends TreeItem implements AlarmLogicListener, FilterListe
     public void alarmStateChanged(final AlarmState current, final AlarmState alarm)
     {
         logger.log(Level.FINE, () -> getPathName() + " changes to " + current + ", " + alarm);
+        // Whenever logic computes new state, update parent tree
+        updateSeverity();
         if (server != null)
             server.sendStateUpdate(this,
                     current.getSeverity(), current.getMessage(),
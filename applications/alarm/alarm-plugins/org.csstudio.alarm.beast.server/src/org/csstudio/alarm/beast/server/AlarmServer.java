@@ -229,7 +229,7 @@ public class AlarmServer implements Runnable
             alarm_tree.dump(out);
         }
 
-        out.println("Work queue size: " + work_queue.size());
+        out.println(work_queue);
 
         // Log memory usage in MB
         final double free = Runtime.getRuntime().freeMemory() / (1024.0*1024.0);
@@ -526,10 +526,8 @@ public class AlarmServer implements Runnable
         final AlarmPV pv = findPV(pv_name);
         if (pv != null)
         {
+            // Logic reports the new state, which updates the parent tree
             pv.getAlarmLogic().acknowledge(acknowledge);
-
-            // Likely changed the state, maximize up parent tree
-            pv.getParent().maximizeSeverity();
         }
     }
 
@@ -602,8 +600,9 @@ public class AlarmServer implements Runnable
     public void sendEnablementUpdate(final AlarmPV pv, final boolean enabled)
     {
         messenger.sendEnablementUpdate(pv, enabled);
-        // Handle in separate queue & thread
-        work_queue.execute(new Runnable()
+        // Handle in separate queue & thread.
+        // Only the most recent enablement of a PV needs to be written.
+        work_queue.executeReplacable(pv, new Runnable()
         {
             @Override
             public void run()
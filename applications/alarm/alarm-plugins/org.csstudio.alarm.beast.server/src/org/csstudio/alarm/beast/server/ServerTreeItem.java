@@ -19,6 +19,9 @@ public class ServerTreeItem extends TreeItem
 {
     private static final long serialVersionUID = -2991781205177465014L;
 
+    /** Severity levels, indexed by ordinal */
+    private static final SeverityLevel[] levels = SeverityLevel.values();
+
     protected volatile SeverityLevel severity = SeverityLevel.UNDEFINED;
 
     private final String severity_pv_name;
@@ -29,54 +32,68 @@ public class ServerTreeItem extends TreeItem
         this.severity_pv_name = severity_pv;
     }
 
-    /** Set severity of this item by maximizing over its child severities.
-     *  Recursively updates parent items.
-     */
-    public void maximizeSeverity()
-    {
-        boolean changed = false;
+    /** Number of child items at each severity level, synchronized on this */
+    private final int[] child_severities = new int[levels.length];
 
-        SeverityLevel new_severity = SeverityLevel.OK;
+    /** Has the severity been reported to the parent? Synchronized on this */
+    private boolean reported = false;
 
+    /** Update severity of this item after a child changed its severity.
+     *
+     *  <p>Child severities are counted per level, so the maximum
+     *  is determined without looking at all the child items.
+     *  Changes percolate towards the root until an item's severity
+     *  remains unchanged.
+     *
+     *  <p>The parent is updated after releasing the lock on this item.
+     *  Changes may thus reach the parent out of order, but the counts
+     *  add up to the same result.
+     *
+     *  @param old_child_severity Severity that the child reported before,
+     *                            <code>null</code> if not counted
+     *  @param new_child_severity Severity of the child,
+     *                            <code>null</code> if it should not be counted
+     */
+    void updateSeverity(final SeverityLevel old_child_severity, final SeverityLevel new_child_severity)
+    {
+        final SeverityLevel old_severity, new_severity;
+        final boolean changed;
         synchronized (this)
         {
-            final int n = getChildCount();
-            for (int i=0; i<n; ++i)
-            {
-                // Maximize severity of all child elements
-                final TreeItem child = getChild(i);
-                final SeverityLevel child_severity;
-                if (child instanceof AlarmPV)
-                {
-                    final AlarmPV pv = (AlarmPV) child;
-                    if (! pv.getAlarmLogic().isEnabled())
-                        continue;
-                    child_severity = pv.getAlarmLogic().getAlarmState().getSeverity();
-                }
-                else
-                    child_severity = ((ServerTreeItem) child).severity;
+            if (old_child_severity != null)
+                --child_severities[old_child_severity.ordinal()];
+            if (new_child_severity != null)
+                ++child_severities[new_child_severity.ordinal()];
 
-                if (child_severity.ordinal() > new_severity.ordinal())
-                    new_severity = child_severity;
-            }
-        }
+            new_severity = getMaximumChildSeverity();
+            if (reported  &&  new_severity == severity)
+                return;
 
-        if (new_severity != severity)
-        {
+            old_severity = reported ? severity : null;
+            changed = new_severity != severity;
             severity = new_severity;
-            changed = true;
+            reported = true;
         }
 
         // Percolate changes towards root
         final TreeItem parent = getParent();
         if (parent instanceof ServerTreeItem)
-            ((ServerTreeItem)parent).maximizeSeverity();
+            ((ServerTreeItem)parent).updateSeverity(old_severity, new_severity);
 
         // If _this_ node changed its severity, update optional severity PV
         if (changed)
             updateSeverityPV();
     }
 
+    /** @return Highest severity of child items, OK if there are none */
+    private SeverityLevel getMaximumChildSeverity()
+    {
+        for (int i=levels.length-1; i>0; --i)
+            if (child_severities[i] > 0)
+                return levels[i];
+        return SeverityLevel.OK;
+    }
+
     /** Write to optional severity PV */
     void updateSeverityPV()
     {
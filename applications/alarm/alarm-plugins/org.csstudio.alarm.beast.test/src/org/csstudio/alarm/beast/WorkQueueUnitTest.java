@@ -100,6 +100,51 @@ public class WorkQueueUnitTest
         assertEquals(0.0, seconds, 0.01);
     }
 
+    @Test
+    public void testExecuteReplacable() throws Exception
+    {
+        final WorkQueue queue = new WorkQueue();
+        queue.execute(() -> result += "Start ");
+        // Keyed commands replace the pending command for the same key,
+        // keeping its position in the queue
+        for (int i=0; i<3; ++i)
+        {
+            final int value = i;
+            queue.executeReplacable("a", () -> result += "a" + value + " ");
+            queue.executeReplacable("b", () -> result += "b" + value + " ");
+        }
+        queue.execute(() -> result += "End");
+        assertEquals(4, queue.size());
+        assertEquals(4, queue.getReplacementCount());
+
+        queue.performQueuedCommands();
+        assertEquals("Start a2 b2 End", result);
+        assertEquals(0, queue.size());
+        assertEquals(4, queue.getExecutedCount());
+        assertTrue(queue.getMaxLatency() >= queue.getAverageLatency());
+
+        // Once executed, the key can be queued again
+        queue.executeReplacable("a", () -> result += " again");
+        queue.performQueuedCommands();
+        assertEquals("Start a2 b2 End again", result);
+    }
+
+    @Test
+    public void testExecuteIfNotPending() throws Exception
+    {
+        final WorkQueue queue = new WorkQueue();
+        final Runnable command = () -> result += "X";
+        queue.executeIfNotPending(command);
+        queue.executeIfNotPending(command);
+        assertEquals(1, queue.size());
+        queue.performQueuedCommands(100);
+        assertEquals("X", result);
+
+        queue.executeIfNotPending(command);
+        queue.performQueuedCommands(100);
+        assertEquals("XX", result);
+    }
+
     // Meant to run in JProfiler, used to
     // determine queue performance
     @Ignore
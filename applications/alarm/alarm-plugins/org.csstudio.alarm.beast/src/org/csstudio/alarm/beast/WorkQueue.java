@@ -7,9 +7,15 @@
  ******************************************************************************/
 package org.csstudio.alarm.beast;
 
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 /** Queue that receives {@link Runnable}s and executes them.
@@ -21,6 +27,11 @@ import java.util.logging.Level;
  *  For example used to re-direct execution of commands to a 'main'
  *  thread, to assert that all interactions with a certain resource
  *  happen on the same thread.
+ *  <p>
+ *  Commands can be queued with a key, typically the object
+ *  that the command updates.
+ *  A keyed command replaces a command for the same key that is still
+ *  in the queue, so a noisy source only occupies one queue entry.
  *
  *  @author Kay Kasemir
  *  @author Jaka Bobnar - RDB batching
@@ -28,36 +39,46 @@ import java.util.logging.Level;
 @SuppressWarnings("nls")
 public class WorkQueue implements Executor
 {
-    /** Task queue */
-    final Queue<Runnable> tasks = new LinkedList<Runnable>();
-
-    // Compared these data structures for 'tasks':
-    //
-    // final Queue<Runnable> tasks = new LinkedList<Runnable>();
-    // final LinkedHashMap<Object, Runnable> tasks = new LinkedHashMap<Object, Runnable>();
-    //
-    // Considered LinkedHashSet, but didn't work:
-    // Inserting a 'new' ReplacableRunnable would simply keep
-    // an older entry, not update it.
-
-    // JProfile results for 100 tasks, replaced 4 times:
-    //
-    //                     LinkedList  LinkedHashMap
-    // execute                 4us         10us
-    // executeReplacable      44us         10us
-    // getOldestRunnable       1us         12us
-    //
-    // Linked list is obviously slower when asked to replaced an existing
-    // runnable for the same object because of the linear lookup.
-    // But how long is the list going to be?
-    // Usually only a few noisy PVs, so maybe just 2 or 3 entries
-    // that keep getting replaced.
-    // If the test is run with only 10 tasks in the queue,
-    // executeReplacable for the LinkedList takes only 11us,
-    // i.e. similar to LinkedHashMap
-    //
-    // -> Simple linked list is probably good enough for the
-    // common use case, plus uses less memory.
+    /** Entry in the queue */
+    private static class Task
+    {
+        /** Key or <code>null</code> */
+        final Object key;
+
+        /** Command, set to <code>null</code> when taken for execution */
+        final AtomicReference<Runnable> command;
+
+        /** Time when first queued, System.nanoTime() */
+        final long queued = System.nanoTime();
+
+        Task(final Object key, final Runnable command)
+        {
+            this.key = key;
+            this.command = new AtomicReference<>(command);
+        }
+    }
+
+    /** Task queue.
+     *  <p>
+     *  During alarm storms, thousands of PVs queue updates.
+     *  Using a concurrent queue plus a map of keyed tasks
+     *  avoids a linear lookup to replace a task as well as
+     *  contention between the threads that add tasks
+     *  and the thread that executes them.
+     */
+    final private BlockingQueue<Task> tasks = new LinkedBlockingQueue<>();
+
+    /** Tasks in the queue by key */
+    final private ConcurrentHashMap<Object, Task> keyed_tasks = new ConcurrentHashMap<>();
+
+    /** Maximum number of tasks to take from the queue in one batch */
+    final private static int BATCH_SIZE = 1000;
+
+    /** Statistics */
+    final private AtomicLong replaced = new AtomicLong(),
+                             executed = new AtomicLong(),
+                             total_latency = new AtomicLong(),
+                             max_latency = new AtomicLong();
 
     /** Thread that executes the queue. Set on first access */
     private Thread thread;
@@ -65,10 +86,32 @@ public class WorkQueue implements Executor
     /** @return Number of currently queued commands on the work queue */
     public int size()
     {
-        synchronized (tasks)
-        {
-            return tasks.size();
-        }
+        return tasks.size();
+    }
+
+    /** @return Number of commands that replaced a queued command for the same key */
+    public long getReplacementCount()
+    {
+        return replaced.get();
+    }
+
+    /** @return Number of executed commands */
+    public long getExecutedCount()
+    {
+        return executed.get();
+    }
+
+    /** @return Average time in seconds between queuing and executing a command */
+    public double getAverageLatency()
+    {
+        final long count = executed.get();
+        return count > 0 ? total_latency.get() / 1e9 / count : 0.0;
+    }
+
+    /** @return Maximum time in seconds between queuing and executing a command */
+    public double getMaxLatency()
+    {
+        return max_latency.get() / 1e9;
     }
 
     /** Add a command to the queue
@@ -78,16 +121,20 @@ public class WorkQueue implements Executor
     @Override
     public void execute(final Runnable command)
     {
-        synchronized (tasks)
-        {
-            // Hash: Use dummy key to add a new element
-            // tasks.put(new Object(), command);
-
-            // Queue:
-            tasks.add(command);
+        tasks.add(new Task(null, command));
+    }
 
-            tasks.notifyAll();
-        }
+    /** Add a command to the queue, replacing a command for the same key
+     *  that is still in the queue.
+     *  <p>
+     *  The replacement keeps the position of the command that it replaces.
+     *
+     *  @param key Key, for example the object that the command will update
+     *  @param command Command to be executed
+     */
+    public void executeReplacable(final Object key, final Runnable command)
+    {
+        queue(key, command, true);
     }
 
     /** Add a command to the queue but only if that same command is not already in the queue.
@@ -97,55 +144,84 @@ public class WorkQueue implements Executor
      */
     public void executeIfNotPending(final Runnable command)
     {
-        synchronized (tasks)
+        queue(command, command, false);
+    }
+
+    /** @param key Key
+     *  @param command Command to queue
+     *  @param replace Replace a pending command for the key, or keep it?
+     */
+    private void queue(final Object key, final Runnable command, final boolean replace)
+    {
+        keyed_tasks.compute(key, (k, task) ->
         {
-            if (!tasks.contains(command))
-            {
-                tasks.add(command);
-                tasks.notifyAll();
+            if (task != null)
+            {   // Command may have been taken for execution,
+                // in which case it can no longer be replaced
+                final Runnable pending = task.command.get();
+                if (pending != null)
+                {
+                    if (! replace)
+                        return task;
+                    if (task.command.compareAndSet(pending, command))
+                    {
+                        replaced.incrementAndGet();
+                        return task;
+                    }
+                }
             }
-        }
+            final Task added = new Task(key, command);
+            tasks.add(added);
+            return added;
+        });
     }
 
-    /** @return Oldest runnable in the queue or <code>null</code> */
-    private Runnable getOldestRunnable()
+    /** @param task Task taken from queue
+     *  @return Command to execute or <code>null</code> when there's nothing to do
+     */
+    private Runnable take(final Task task)
     {
-        synchronized (tasks)
-        {
-            // Hash: Need iterator to get oldest
-            //final Iterator<Runnable> iter = tasks.values().iterator();
-            //if (iter.hasNext())
-            //{
-            //    final Runnable result = iter.next();
-            //    iter.remove();
-            //    return result;
-            //}
-            //return null;
-
-            // Queue was designed for this
-            return tasks.poll();
-        }
+        final Runnable command = task.command.getAndSet(null);
+        if (task.key != null)
+            keyed_tasks.remove(task.key, task);
+        return command;
     }
 
-    /** Perform queued commands, return when done.
-     *  Returns 'immediately' if there are no queued commands.
+    /** Execute tasks
+     *  @param batch Tasks taken from the queue, will be cleared
      */
-    public void performQueuedCommands()
+    private void execute(final List<Task> batch)
     {
-        // Execute all tasks on queue
-        Runnable task = getOldestRunnable();
-        while (task != null)
+        for (Task task : batch)
         {
+            final Runnable command = take(task);
+            if (command == null)
+                continue;
+            final long latency = System.nanoTime() - task.queued;
+            total_latency.addAndGet(latency);
+            max_latency.accumulateAndGet(latency, Math::max);
+            executed.incrementAndGet();
             try
             {
-                task.run();
+                command.run();
             }
             catch (Throwable ex)
             {
                 Activator.getLogger().log(Level.SEVERE, "Work Queue Exception", ex);
             }
-            task = getOldestRunnable();
         }
+        batch.clear();
+    }
+
+    /** Perform queued commands, return when done.
+     *  Returns 'immediately' if there are no queued commands.
+     */
+    public void performQueuedCommands()
+    {
+        // Execute all tasks on queue, including those added meanwhile
+        final List<Task> batch = new ArrayList<>();
+        while (tasks.drainTo(batch, BATCH_SIZE) > 0)
+            execute(batch);
     }
 
     /** Perform queued commands. If there are none, wait a little, then check again.
@@ -158,39 +234,34 @@ public class WorkQueue implements Executor
     public void performQueuedCommands(final int millisecs)
     {
         assertOnThread();
-        Runnable task;
         // Wait in case there aren't any tasks in the queue
-        // Do this while sync'ed to not miss
-        // a notify.
-        synchronized (tasks)
-        {
-            task = getOldestRunnable();
-            if (task == null)
-            {
-                try
-                {
-                    tasks.wait(millisecs);
-                }
-                catch (InterruptedException ex)
-                {
-                    return;
-                }
-                task = getOldestRunnable();
-            }
-        }
-        // Execute all tasks on queue
-        while (task != null)
+        final List<Task> batch = new ArrayList<>();
+        if (tasks.drainTo(batch, BATCH_SIZE) <= 0)
         {
             try
             {
-                task.run();
+                final Task task = tasks.poll(millisecs, TimeUnit.MILLISECONDS);
+                if (task == null)
+                    return;
+                batch.add(task);
             }
-            catch (Throwable ex)
+            catch (InterruptedException ex)
             {
-                Activator.getLogger().log(Level.SEVERE, "Work Queue Exception", ex);
+                return;
             }
-            task = getOldestRunnable();
         }
+        // Execute all tasks on queue
+        execute(batch);
+        performQueuedCommands();
+    }
+
+    /** @return Queue statistics */
+    @Override
+    public String toString()
+    {
+        return String.format("Work queue size: %d, executed %d, replaced %d, latency avg. %.3f s, max. %.3f s",
+                             size(), getExecutedCount(), getReplacementCount(),
+                             getAverageLatency(), getMaxLatency());
     }
 
     /** Assert that the work queue is executed by the same original thread
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.swt.rtplot.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.csstudio.swt.rtplot.data.ArrayPlotDataProvider;
+import org.csstudio.swt.rtplot.data.PlotDataItem;
+import org.csstudio.swt.rtplot.data.SimpleDataItem;
+import org.csstudio.swt.rtplot.internal.util.LinearScreenTransform;
+import org.csstudio.swt.rtplot.internal.util.PixelColumnDecimation;
+import org.csstudio.swt.rtplot.internal.util.ScreenTransform;
+
+/** Headless benchmark of the trace data reduction
+ *  that precedes the drawing of each frame,
+ *  comparing serial and parallel processing of the traces.
+ *
+ *  <p>Arguments: [traces [points [width]]]
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PixelColumnDecimationDemo
+{
+    public static void main(final String[] args) throws Exception
+    {
+        final int traces = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        final int points = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        final int width = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+
+        final List<ArrayPlotDataProvider<Double>> data = new ArrayList<>();
+        for (int t=0; t<traces; ++t)
+        {
+            final ArrayPlotDataProvider<Double> trace = new ArrayPlotDataProvider<>();
+            for (int i=0; i<points; ++i)
+                trace.add(new SimpleDataItem<Double>((double) i, t + Math.sin(i * 0.001)));
+            data.add(trace);
+        }
+        final ScreenTransform<Double> transform = new LinearScreenTransform();
+        transform.config(0.0, (double) points, 0.0, width);
+
+        final ExecutorService pool = Executors.newWorkStealingPool();
+        System.out.println(traces + " traces x " + points + " points, " + width + " pixels, "
+                           + Runtime.getRuntime().availableProcessors() + " CPUs");
+        for (int run=0; run<5; ++run)
+        {
+            long start = System.nanoTime();
+            int reduced = 0;
+            for (ArrayPlotDataProvider<Double> trace : data)
+                reduced += decimate(trace, transform, width).size();
+            final double serial = (System.nanoTime() - start) / 1e6;
+
+            start = System.nanoTime();
+            final List<Future<List<PlotDataItem<Double>>>> results = new ArrayList<>();
+            for (ArrayPlotDataProvider<Double> trace : data)
+            {
+                final ScreenTransform<Double> copy = transform.copy();
+                results.add(pool.submit(() -> decimate(trace, copy, width)));
+            }
+            for (Future<List<PlotDataItem<Double>>> result : results)
+                result.get();
+            final double parallel = (System.nanoTime() - start) / 1e6;
+
+            System.out.format("Frame time: serial %8.1f ms, parallel %8.1f ms, %d samples to draw\n",
+                              serial, parallel, reduced);
+        }
+        pool.shutdown();
+    }
+
+    private static List<PlotDataItem<Double>> decimate(final ArrayPlotDataProvider<Double> data,
+                                                       final ScreenTransform<Double> transform, final int width)
+    {
+        data.getLock().lock();
+        try
+        {
+            return new PixelColumnDecimation<Double>().decimate(data, transform, 0, width);
+        }
+        finally
+        {
+            data.getLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.swt.rtplot.util;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.csstudio.swt.rtplot.data.ArrayPlotDataProvider;
+import org.csstudio.swt.rtplot.data.PlotDataItem;
+import org.csstudio.swt.rtplot.data.SimpleDataItem;
+import org.csstudio.swt.rtplot.internal.util.LinearScreenTransform;
+import org.csstudio.swt.rtplot.internal.util.PixelColumnDecimation;
+import org.csstudio.swt.rtplot.internal.util.ScreenTransform;
+import org.junit.Test;
+
+/** JUnit test of {@link PixelColumnDecimation}.
+ *  @author agent
+ */
+public class PixelColumnDecimationTest
+{
+    @Test
+    public void testDecimation()
+    {
+        // Saw tooth, 1000 samples per period, one gap
+        final ArrayPlotDataProvider<Double> data = new ArrayPlotDataProvider<>();
+        for (int i=0; i<100000; ++i)
+            data.add(new SimpleDataItem<Double>((double) i, i == 50500 ? Double.NaN : i % 1000));
+
+        // 100 pixels for all data
+        final ScreenTransform<Double> t = new LinearScreenTransform();
+        t.config(0.0, 100000.0, 0.0, 100.0);
+        final PixelColumnDecimation<Double> decimation = new PixelColumnDecimation<>();
+        List<PlotDataItem<Double>> reduced = decimation.decimate(data, t, 0, 100);
+        System.out.println(data.size() + " samples reduced to " + reduced.size());
+        assertTrue(reduced.size() <= 8 * 101);
+
+        // Order is preserved, first and last sample are kept
+        assertThat(reduced.get(0).getPosition(), equalTo(0.0));
+        assertThat(reduced.get(reduced.size()-1).getPosition(), equalTo(99999.0));
+        for (int i=1; i<reduced.size(); ++i)
+            assertTrue(reduced.get(i-1).getPosition() < reduced.get(i).getPosition());
+
+        // Value range and the gap are kept
+        boolean have_min = false, have_max = false, have_gap = false;
+        for (PlotDataItem<Double> item : reduced)
+        {
+            have_min |= item.getValue() == 0.0;
+            have_max |= item.getValue() == 999.0;
+            have_gap |= Double.isNaN(item.getValue());
+        }
+        assertTrue(have_min);
+        assertTrue(have_max);
+        assertTrue(have_gap);
+
+        // Zoomed in: Only visible range plus one sample on each side
+        t.config(999.5, 2000.5, 0.0, 1001.0);
+        reduced = decimation.decimate(data, t, 0, 1001);
+        assertThat(reduced.size(), equalTo(1003));
+        assertThat(reduced.get(0).getPosition(), equalTo(999.0));
+        assertThat(reduced.get(reduced.size()-1).getPosition(), equalTo(2001.0));
+
+        // Empty data
+        assertThat(decimation.decimate(new ArrayPlotDataProvider<Double>(), t, 0, 1000).size(), equalTo(0));
+    }
+}
@@ -343,10 +343,13 @@ public class RTPlot<XTYPE extends Comparable<XTYPE>> extends Composite
         plot.setUpdateThrottle(dormant_time, unit);
     }
 
-    /** Request a complete redraw of the plot */
+    /** Request a complete redraw of the plot.
+     *
+     *  <p>Must be called after the data of traces changed.
+     */
     public void requestUpdate()
     {
-        plot.requestUpdate();
+        plot.requestDataUpdate();
     }
 
     /** @param trace Trace to which an annotation should be added
@@ -24,6 +24,9 @@ import org.csstudio.swt.rtplot.Axis;
  *  Concurrently, the application might receive new or
  *  changed samples.
  *  All users of the sample sequence thus need to lock.
+ *  After changing the samples, the application needs to call
+ *  <code>RTPlot.requestUpdate()</code>, because the plot
+ *  caches information about the samples between redraws.
  *
  *  <p>Note that the <code>size()</code> and <code>get()</code>
  *  themselves might not lock. Practical use of the data requires
@@ -55,4 +58,45 @@ public interface PlotDataProvider<XTYPE extends Comparable<XTYPE>>
      *  @return The Sample of given index.
      */
     public PlotDataItem<XTYPE> get(int index);
+
+    /** Position of a sample.
+     *  <p>
+     *  Providers that do not keep a {@link PlotDataItem} per sample
+     *  can override this and the following accessors
+     *  to avoid creating an item for each access.
+     *  @param index Sample index
+     *  @return Position of the sample
+     *  @see PlotDataItem#getPosition()
+     */
+    default XTYPE getPosition(final int index)
+    {
+        return get(index).getPosition();
+    }
+
+    /** @param index Sample index
+     *  @return Value of the sample
+     *  @see PlotDataItem#getValue()
+     */
+    default double getValue(final int index)
+    {
+        return get(index).getValue();
+    }
+
+    /** @param index Sample index
+     *  @return Minimum of the sample, or {@link Double#NaN}
+     *  @see PlotDataItem#getMin()
+     */
+    default double getMin(final int index)
+    {
+        return get(index).getMin();
+    }
+
+    /** @param index Sample index
+     *  @return Maximum of the sample, or {@link Double#NaN}
+     *  @see PlotDataItem#getMax()
+     */
+    default double getMax(final int index)
+    {
+        return get(index).getMax();
+    }
 }
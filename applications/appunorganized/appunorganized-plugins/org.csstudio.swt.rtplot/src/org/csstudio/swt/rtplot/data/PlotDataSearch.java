@@ -31,7 +31,7 @@ public class PlotDataSearch<XTYPE extends Comparable<XTYPE>>
         {
             mid = (low + high) / 2;
             // Compare 'mid' sample with goal
-            cmp = data.get(mid).getPosition().compareTo(x);
+            cmp = data.getPosition(mid).compareTo(x);
             // See where to look next
             if (cmp == 0)
                 return true; // key found
@@ -9,6 +9,7 @@ package org.csstudio.swt.rtplot.internal;
 
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
 import org.csstudio.swt.rtplot.Activator;
@@ -60,6 +61,9 @@ public abstract class AxisPart<T extends Comparable<T>> extends PlotPart impleme
     /** Helper for computing the tick marks. */
     protected volatile Ticks<T> ticks;
 
+    /** Count of changes to the transformation */
+    final private AtomicLong transform_changes = new AtomicLong();
+
     /** Do we need to re-compute the ticks? */
     protected volatile boolean dirty_ticks = true;
 
@@ -209,10 +213,20 @@ public abstract class AxisPart<T extends Comparable<T>> extends PlotPart impleme
             this.ticks = Objects.requireNonNull(ticks);
             transform.config(range.getLow(), range.getHigh(), low_screen, high_screen);
         }
+        transform_changes.incrementAndGet();
         dirty_ticks = true;
         requestLayout();
     }
 
+    /** @return Count of changes to the transformation.
+     *          Read before {@link #getScreenTransform()}
+     *          to detect later changes of the transformation.
+     */
+    final public long getScreenTransformChanges()
+    {
+        return transform_changes.get();
+    }
+
     /** @return Transformation between values and pixels */
     final public ScreenTransform<T> getScreenTransform()
     {
@@ -252,6 +266,7 @@ public abstract class AxisPart<T extends Comparable<T>> extends PlotPart impleme
             range = new AxisRange<T>(low, high);
             transform.config(low, high, low_screen, high_screen);
         }
+        transform_changes.incrementAndGet();
         dirty_ticks = true;
         requestLayout();
         requestRefresh();
@@ -296,6 +311,7 @@ public abstract class AxisPart<T extends Comparable<T>> extends PlotPart impleme
         dirty_ticks = true;
         final AxisRange<T> safe_range = range;
         transform.config(safe_range.getLow(), safe_range.getHigh(), low, high);
+        transform_changes.incrementAndGet();
     }
 
     /** @return Pixel range on screen */
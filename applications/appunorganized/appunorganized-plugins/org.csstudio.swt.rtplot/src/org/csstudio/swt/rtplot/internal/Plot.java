@@ -17,6 +17,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Stack;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
@@ -490,6 +491,17 @@ public class Plot<XTYPE extends Comparable<XTYPE>> extends Canvas implements Pai
         update_throttle.trigger();
     }
 
+    /** Request a complete redraw of the plot
+     *  because the data of traces changed
+     */
+    final public void requestDataUpdate()
+    {
+        for (Trace<XTYPE> trace : traces)
+            if (trace instanceof TraceImpl)
+                ((TraceImpl<XTYPE>) trace).invalidateDecimated();
+        requestUpdate();
+    }
+
     /** Redraw the current image and cursors
      *
      *  <p>Like <code>redraw()</code>, but may be called
@@ -704,7 +716,23 @@ public class Plot<XTYPE extends Comparable<XTYPE>> extends Canvas implements Pai
 //        x_axis.setLabelFont(label_font);
 //        x_axis.setScaleFont(scale_font);
         x_axis.paint(gc, media, plot_bounds);
+        final long x_changes = x_axis.getScreenTransformChanges();
         final ScreenTransform<XTYPE> x_transform = x_axis.getScreenTransform();
+
+        // Reduce the samples of all traces in parallel
+        // while painting the axes,
+        // re-using reduced samples while data and X axis remain unchanged
+        final List<YAxisImpl<XTYPE>> trace_axes = new ArrayList<>();
+        final List<Trace<XTYPE>> trace_list = new ArrayList<>();
+        final List<Future<List<PlotDataItem<XTYPE>>>> trace_data = new ArrayList<>();
+        for (YAxisImpl<XTYPE> y_axis : y_axes)
+            for (Trace<XTYPE> trace : y_axis.getTraces())
+            {
+                trace_axes.add(y_axis);
+                trace_list.add(trace);
+                trace_data.add(plot_processor.decimate(trace, x_changes, x_transform, plot_bounds.x, plot_bounds.x + plot_bounds.width));
+            }
+
         for (YAxisImpl<XTYPE> y_axis : y_axes)
         {
 //            y_axis.setLabelFont(label_font);
@@ -715,9 +743,19 @@ public class Plot<XTYPE extends Comparable<XTYPE>> extends Canvas implements Pai
         gc.setClipping(plot_bounds);
         plot_area.paint(gc, media);
 
-        for (YAxisImpl<XTYPE> y_axis : y_axes)
-            for (Trace<XTYPE> trace : y_axis.getTraces())
-                trace_painter.paint(gc, media, plot_area.getBounds(), opacity, x_transform, y_axis, trace);
+        for (int i=0; i<trace_list.size(); ++i)
+        {
+            final Trace<XTYPE> trace = trace_list.get(i);
+            try
+            {
+                trace_painter.paint(gc, media, plot_area.getBounds(), opacity, x_transform,
+                                    trace_axes.get(i), trace, trace_data.get(i).get());
+            }
+            catch (Exception ex)
+            {
+                Activator.getLogger().log(Level.WARNING, "Cannot draw trace " + trace.getName(), ex);
+            }
+        }
 
         // Annotations use label font
         gc.setFont(label_font);
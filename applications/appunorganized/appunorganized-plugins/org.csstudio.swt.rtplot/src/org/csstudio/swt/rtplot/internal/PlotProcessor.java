@@ -11,6 +11,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -27,6 +28,8 @@ import org.csstudio.swt.rtplot.data.PlotDataProvider;
 import org.csstudio.swt.rtplot.data.PlotDataSearch;
 import org.csstudio.swt.rtplot.data.ValueRange;
 import org.csstudio.swt.rtplot.internal.util.Log10;
+import org.csstudio.swt.rtplot.internal.util.PixelColumnDecimation;
+import org.csstudio.swt.rtplot.internal.util.ScreenTransform;
 import org.csstudio.swt.rtplot.undo.AddAnnotationAction;
 import org.csstudio.swt.rtplot.undo.ChangeAxisRanges;
 import org.eclipse.swt.graphics.Point;
@@ -135,6 +138,59 @@ public class PlotProcessor<XTYPE extends Comparable<XTYPE>>
         });
     }
 
+    /** Submit background job to reduce the samples of a trace
+     *  to those that need to be drawn
+     *
+     *  <p>The reduced samples of a {@link TraceImpl} are cached
+     *  until its data or the horizontal axis change.
+     *
+     *  @param trace Trace to reduce
+     *  @param x_changes Count of horizontal axis changes for the transformation
+     *  @param x_transform Horizontal screen transformation
+     *  @param x_low Left edge of plot area in screen coordinates
+     *  @param x_high Right edge of plot area in screen coordinates
+     *  @return {@link Future} to reduced samples
+     *  @see PixelColumnDecimation
+     *  @see AxisPart#getScreenTransformChanges()
+     */
+    public Future<List<PlotDataItem<XTYPE>>> decimate(final Trace<XTYPE> trace,
+                                                      final long x_changes, final ScreenTransform<XTYPE> x_transform,
+                                                      final int x_low, final int x_high)
+    {
+        final TraceImpl<XTYPE> cache = (trace instanceof TraceImpl) ? (TraceImpl<XTYPE>) trace : null;
+        final long data_changes;
+        if (cache != null)
+        {
+            final List<PlotDataItem<XTYPE>> decimated = cache.getDecimated(x_changes, x_low, x_high);
+            if (decimated != null)
+                return CompletableFuture.completedFuture(decimated);
+            data_changes = cache.getDataChanges();
+        }
+        else
+            data_changes = 0;
+
+        // Each job uses its own copy of the (synchronized) transformation
+        final ScreenTransform<XTYPE> transform = x_transform.copy();
+        return thread_pool.submit(() ->
+        {
+            final PixelColumnDecimation<XTYPE> decimation = new PixelColumnDecimation<>();
+            final List<PlotDataItem<XTYPE>> decimated;
+            final PlotDataProvider<XTYPE> data = trace.getData();
+            data.getLock().lock();
+            try
+            {
+                decimated = decimation.decimate(data, transform, x_low, x_high);
+            }
+            finally
+            {
+                data.getLock().unlock();
+            }
+            if (cache != null)
+                cache.setDecimated(data_changes, x_changes, x_low, x_high, decimated);
+            return decimated;
+        });
+    }
+
     /** Round value range up/down to add a little room above & below the exact range.
      *  This results in "locking" to a nice looking range for a while
      *  until a new sample outside of the rounded range is added.
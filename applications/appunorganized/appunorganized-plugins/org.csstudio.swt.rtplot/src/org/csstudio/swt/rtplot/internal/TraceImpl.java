@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.csstudio.swt.rtplot.internal;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 
@@ -45,6 +46,19 @@ public class TraceImpl<XTYPE extends Comparable<XTYPE>> implements Trace<XTYPE>
 
     private volatile Optional<PlotDataItem<XTYPE>> selected_sample = Optional.empty();
 
+    /** Samples reduced to pixel columns, <code>null</code> when outdated.
+     *  SYNC on this for access to the reduced samples and their key.
+     *  @see PlotProcessor#decimate
+     */
+    private List<PlotDataItem<XTYPE>> decimated = null;
+
+    /** Horizontal axis changes and pixel range of the reduced samples */
+    private long decimated_x_changes;
+    private int decimated_x_low, decimated_x_high;
+
+    /** Count of data changes, to detect a change while reducing samples */
+    private long data_changes = 0;
+
 
     public TraceImpl(final String name,
             final String units,
@@ -200,6 +214,49 @@ public class TraceImpl<XTYPE extends Comparable<XTYPE>> implements Trace<XTYPE>
         return selected_sample;
     }
 
+    /** Mark reduced samples as outdated because the data changed */
+    synchronized void invalidateDecimated()
+    {
+        decimated = null;
+        ++data_changes;
+    }
+
+    /** @return Count of data changes, to be passed to {@link #setDecimated} */
+    synchronized long getDataChanges()
+    {
+        return data_changes;
+    }
+
+    /** @param x_changes Count of horizontal axis changes
+     *  @param x_low Left edge of plot area
+     *  @param x_high Right edge of plot area
+     *  @return Reduced samples for that horizontal axis or <code>null</code>
+     */
+    synchronized List<PlotDataItem<XTYPE>> getDecimated(final long x_changes, final int x_low, final int x_high)
+    {
+        if (decimated != null  &&  decimated_x_changes == x_changes  &&
+            decimated_x_low == x_low  &&  decimated_x_high == x_high)
+            return decimated;
+        return null;
+    }
+
+    /** @param data_changes Count of data changes when reduction started
+     *  @param x_changes Count of horizontal axis changes
+     *  @param x_low Left edge of plot area
+     *  @param x_high Right edge of plot area
+     *  @param samples Reduced samples, ignored if data changed meanwhile
+     */
+    synchronized void setDecimated(final long data_changes, final long x_changes, final int x_low, final int x_high,
+                                   final List<PlotDataItem<XTYPE>> samples)
+    {
+        if (data_changes != this.data_changes)
+            return;
+        decimated = samples;
+        decimated_x_changes = x_changes;
+        decimated_x_low = x_low;
+        decimated_x_high = x_high;
+    }
+
     /** @return Debug representation */
     @Override
     public String toString()
@@ -7,13 +7,14 @@
  ******************************************************************************/
 package org.csstudio.swt.rtplot.internal;
 
+import java.util.List;
+
 import org.csstudio.swt.rtplot.Axis;
 import org.csstudio.swt.rtplot.PointType;
 import org.csstudio.swt.rtplot.SWTMediaPool;
 import org.csstudio.swt.rtplot.Trace;
 import org.csstudio.swt.rtplot.TraceType;
 import org.csstudio.swt.rtplot.data.PlotDataItem;
-import org.csstudio.swt.rtplot.data.PlotDataProvider;
 import org.csstudio.swt.rtplot.internal.util.IntList;
 import org.csstudio.swt.rtplot.internal.util.ScreenTransform;
 import org.eclipse.swt.SWT;
@@ -32,6 +33,10 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
     // plus it works better when using dashed or wide lines,
     // but it requires an int[] array of varying size.
     // IntList turned out to be about 3x faster than ArrayList<Integer>.
+    //
+    // Samples are first reduced to the visible range
+    // and a few samples per pixel column, see PlotProcessor.decimate(),
+    // so drawing time depends on the plot width, not the data size.
 
     /** Initial {@link IntList} size */
     private static final int INITIAL_ARRAY_SIZE = 2048;
@@ -72,9 +77,11 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      *  @param opacity Opacity (0 .. 100 %) of 'area'
      *  @param x_transform Coordinate transform used by the x axis
      *  @param trace Trace, has reference to its value axis
+     *  @param data Samples of the trace, reduced to those that need to be drawn
      */
     final public void paint(final GC gc, final SWTMediaPool media, final Rectangle bounds, final int opacity,
-                            final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis, final Trace<XTYPE> trace)
+                            final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis, final Trace<XTYPE> trace,
+                            final List<PlotDataItem<XTYPE>> data)
     {
         x_min = bounds.x - OUTSIDE;
         x_max = bounds.x + bounds.width + OUTSIDE;
@@ -95,78 +102,61 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
         gc.setAdvanced(true);
         gc.setAntialias(SWT.ON);
 
-        // TODO Optimize drawing
-        //
-        // Determine first sample to draw via PlotDataSearch.findSampleLessOrEqual(),
-        // then end drawing when reaching right end of area.
-        //
-        // Loop only once, performing drawMinMax, drawStdDev, drawValueStaircase in one loop
-        //
-        // For now, main point is that this happens in non-UI thread,
-        // so the slower the better to test UI responsiveness.
-        final PlotDataProvider<XTYPE> data = trace.getData();
-        data.getLock().lock();
-        try
+        final TraceType type = trace.getType();
+        switch (type)
         {
-            final TraceType type = trace.getType();
-            switch (type)
-            {
-            case NONE:
-                break;
-            case AREA:
-                gc.setAlpha(alpha);
-                drawMinMaxArea(gc, x_transform, y_axis, data);
-                gc.setAlpha(255);
-                drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
-                drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            case AREA_DIRECT:
-                gc.setAlpha(alpha);
-                drawMinMaxArea(gc, x_transform, y_axis, data);
-                gc.setAlpha(255);
-                drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
-                drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            case LINES:
-                drawMinMaxLines(gc, x_transform, y_axis, data, trace.getWidth());
-                gc.setAlpha(alpha);
-                drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
-                gc.setAlpha(255);
-                drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            case LINES_DIRECT:
-                drawMinMaxLines(gc, x_transform, y_axis, data, trace.getWidth());
-                gc.setAlpha(alpha);
-                drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
-                gc.setAlpha(255);
-                drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            case SINGLE_LINE:
-                drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            case SINGLE_LINE_DIRECT:
-                drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
-                break;
-            }
-
-            final PointType point_type = trace.getPointType();
-            switch (point_type)
-            {
-            case NONE:
-                break;
-            case SQUARES:
-            case CIRCLES:
-            case DIAMONDS:
-            case XMARKS:
-            case TRIANGLES:
-                drawPoints(gc, x_transform, y_axis, data, point_type, trace.getPointSize());
-                break;
-            }
+        case NONE:
+            break;
+        case AREA:
+            gc.setAlpha(alpha);
+            drawMinMaxArea(gc, x_transform, y_axis, data);
+            gc.setAlpha(255);
+            drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
+            drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
+        case AREA_DIRECT:
+            gc.setAlpha(alpha);
+            drawMinMaxArea(gc, x_transform, y_axis, data);
+            gc.setAlpha(255);
+            drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
+            drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
+        case LINES:
+            drawMinMaxLines(gc, x_transform, y_axis, data, trace.getWidth());
+            gc.setAlpha(alpha);
+            drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
+            gc.setAlpha(255);
+            drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
+        case LINES_DIRECT:
+            drawMinMaxLines(gc, x_transform, y_axis, data, trace.getWidth());
+            gc.setAlpha(alpha);
+            drawStdDevLines(gc, x_transform, y_axis, data, trace.getWidth());
+            gc.setAlpha(255);
+            drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
+        case SINGLE_LINE:
+            drawValueStaircase(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
+        case SINGLE_LINE_DIRECT:
+            drawValueLines(gc, x_transform, y_axis, data, trace.getWidth());
+            break;
         }
-        finally
+
+        final PointType point_type = trace.getPointType();
+        switch (point_type)
         {
-            data.getLock().unlock();
+        case NONE:
+            break;
+        case SQUARES:
+        case CIRCLES:
+        case DIAMONDS:
+        case XMARKS:
+        case TRIANGLES:
+            drawPoints(gc, x_transform, y_axis, data, point_type, trace.getPointSize());
+            break;
         }
+
         gc.setLineWidth(old_width);
         gc.setBackground(old_bg);
         gc.setForeground(old_color);
@@ -181,7 +171,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      */
     final private void drawValueStaircase(final GC gc,
             final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data, final int line_width)
+            final List<PlotDataItem<XTYPE>> data, final int line_width)
     {
         final IntList value_poly = new IntList(INITIAL_ARRAY_SIZE);
         final int N = data.size();
@@ -225,7 +215,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      */
     final private void drawValueLines(final GC gc,
             final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data, final int line_width)
+            final List<PlotDataItem<XTYPE>> data, final int line_width)
     {
         final IntList value_poly = new IntList(INITIAL_ARRAY_SIZE);
         final int N = data.size();
@@ -263,7 +253,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      */
     final private void drawMinMaxArea(final GC gc,
             final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data)
+            final List<PlotDataItem<XTYPE>> data)
     {
         final IntList pos = new IntList(INITIAL_ARRAY_SIZE);
         final IntList min = new IntList(INITIAL_ARRAY_SIZE);
@@ -298,7 +288,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      */
     final private void drawMinMaxLines(final GC gc,
             final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data, final int line_width)
+            final List<PlotDataItem<XTYPE>> data, final int line_width)
     {
         final IntList min = new IntList(INITIAL_ARRAY_SIZE);
         final IntList max = new IntList(INITIAL_ARRAY_SIZE);
@@ -335,7 +325,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      *  @param line_width
      */
     final private void drawStdDevLines(final GC gc, final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data, final int line_width)
+            final List<PlotDataItem<XTYPE>> data, final int line_width)
     {
         final IntList lower_poly = new IntList(INITIAL_ARRAY_SIZE);
         final IntList upper_poly = new IntList(INITIAL_ARRAY_SIZE);
@@ -388,7 +378,7 @@ public class TracePainter<XTYPE extends Comparable<XTYPE>>
      */
     final private void drawPoints(final GC gc,
             final ScreenTransform<XTYPE> x_transform, final YAxisImpl<XTYPE> y_axis,
-            final PlotDataProvider<XTYPE> data, PointType point_type, final int size)
+            final List<PlotDataItem<XTYPE>> data, PointType point_type, final int size)
     {
         final int N = data.size();
         int last_x = -1, last_y = -1;
@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.swt.rtplot.internal.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.swt.rtplot.data.PlotDataItem;
+import org.csstudio.swt.rtplot.data.PlotDataProvider;
+import org.csstudio.swt.rtplot.data.PlotDataSearch;
+
+/** Reduce data to what can be drawn in the pixel columns of a plot
+ *
+ *  <p>Only samples within the visible horizontal range
+ *  are considered, plus one sample to the left and right.
+ *  Of all consecutive samples that fall into the same pixel column,
+ *  only the first and last sample are kept,
+ *  those with minimum and maximum value,
+ *  those with the lowest minimum and highest maximum,
+ *  and the first sample without value or without min/max
+ *  to preserve gaps.
+ *  Kept samples remain in their original order.
+ *
+ *  <p>Lines drawn through the reduced samples look the same
+ *  as lines drawn through all samples,
+ *  but the number of samples is bounded by the plot width.
+ *
+ *  <p>Not thread-safe, the result is re-used by the next call.
+ *
+ *  @param <XTYPE> Data type of horizontal axis
+ *  @author agent
+ */
+public class PixelColumnDecimation<XTYPE extends Comparable<XTYPE>>
+{
+    /** Maximum number of samples kept per column */
+    private static final int MAX_PER_COLUMN = 8;
+
+    final private PlotDataSearch<XTYPE> search = new PlotDataSearch<>();
+
+    /** Reduced samples */
+    final private List<PlotDataItem<XTYPE>> result = new ArrayList<>();
+
+    /** Indices of samples kept for current column, sorted */
+    final private int[] kept = new int[MAX_PER_COLUMN];
+    private int kept_count;
+
+    /** Current column */
+    private long column;
+    private int first, last, min_value, max_value, lowest_min, highest_max, no_value, no_range;
+    private double low_value, high_value, low_min, high_max;
+
+    /** Reduce samples
+     *  @param data Data, must already be locked
+     *  @param x_transform Horizontal screen transformation
+     *  @param x_low Left edge of plot in screen coordinates
+     *  @param x_high Right edge of plot in screen coordinates
+     *  @return Reduced samples, valid until next call
+     */
+    public List<PlotDataItem<XTYPE>> decimate(final PlotDataProvider<XTYPE> data,
+                                              final ScreenTransform<XTYPE> x_transform,
+                                              final int x_low, final int x_high)
+    {
+        result.clear();
+        final int N = data.size();
+        if (N <= 0)
+            return result;
+
+        // Locate visible range
+        XTYPE start = x_transform.inverse(x_low), end = x_transform.inverse(x_high);
+        if (start.compareTo(end) > 0)
+        {
+            final XTYPE tmp = start;
+            start = end;
+            end = tmp;
+        }
+        int i0 = search.findSampleLessOrEqual(data, start);
+        if (i0 < 0)
+            i0 = 0;
+        // Search may land on any of several samples with the same position
+        while (i0 > 0  &&  data.getPosition(i0-1).compareTo(start) >= 0)
+            --i0;
+        int i1 = search.findSampleGreaterOrEqual(data, end);
+        if (i1 < 0)
+            i1 = N-1;
+        while (i1 < N-1  &&  data.getPosition(i1+1).compareTo(end) <= 0)
+            ++i1;
+
+        // Only access the primitive data of each sample,
+        // PlotDataItems are only fetched for the kept samples
+        first = -1;
+        for (int i=i0; i<=i1; ++i)
+        {
+            final long x = Math.round(x_transform.transform(data.getPosition(i)));
+            if (first >= 0  &&  x != column)
+                flush(data);
+            if (first < 0)
+                start(x, i);
+            add(data, i);
+        }
+        flush(data);
+        return result;
+    }
+
+    /** Start new column
+     *  @param x Column
+     *  @param i Index of first sample in column
+     */
+    private void start(final long x, final int i)
+    {
+        column = x;
+        first = i;
+        min_value = max_value = lowest_min = highest_max = no_value = no_range = -1;
+        low_value = low_min = Double.POSITIVE_INFINITY;
+        high_value = high_max = Double.NEGATIVE_INFINITY;
+    }
+
+    /** Add sample to current column
+     *  @param data Data
+     *  @param i Index of sample
+     */
+    private void add(final PlotDataProvider<XTYPE> data, final int i)
+    {
+        last = i;
+        final double value = data.getValue(i);
+        if (Double.isNaN(value))
+        {
+            if (no_value < 0)
+                no_value = i;
+        }
+        else
+        {
+            if (value < low_value)
+            {
+                low_value = value;
+                min_value = i;
+            }
+            if (value > high_value)
+            {
+                high_value = value;
+                max_value = i;
+            }
+        }
+        final double min = data.getMin(i), max = data.getMax(i);
+        if (Double.isNaN(min)  ||  Double.isNaN(max))
+        {
+            if (no_range < 0)
+                no_range = i;
+        }
+        else
+        {
+            if (min < low_min)
+            {
+                low_min = min;
+                lowest_min = i;
+            }
+            if (max > high_max)
+            {
+                high_max = max;
+                highest_max = i;
+            }
+        }
+    }
+
+    /** Add kept samples of current column to result
+     *  @param data Data
+     */
+    private void flush(final PlotDataProvider<XTYPE> data)
+    {
+        if (first < 0)
+            return;
+        kept_count = 0;
+        keep(first);
+        keep(min_value);
+        keep(max_value);
+        keep(lowest_min);
+        keep(highest_max);
+        keep(no_value);
+        keep(no_range);
+        keep(last);
+        for (int k=0; k<kept_count; ++k)
+            result.add(data.get(kept[k]));
+        first = -1;
+    }
+
+    /** @param i Index of sample to keep, inserted sorted unless negative or duplicate */
+    private void keep(final int i)
+    {
+        if (i < 0)
+            return;
+        int pos = kept_count;
+        while (pos > 0  &&  kept[pos-1] > i)
+            --pos;
+        if (pos > 0  &&  kept[pos-1] == i)
+            return;
+        System.arraycopy(kept, pos, kept, pos+1, kept_count-pos);
+        kept[pos] = i;
+        ++kept_count;
+    }
+}
@@ -104,6 +104,17 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
      */
     private boolean dataRangedirty = false;
 
+    /**
+     * Max and min of the data, kept up to date as samples are added
+     * unless {@link #dataRangedirty}.
+     */
+    private double xMin, xMax, yMin, yMax;
+
+    /**
+     * this indicates if xDataMinMax and yDataMinMax need to be updated from xMin etc.
+     */
+    private boolean dataRangeChanged = false;
+
     private UpdateMode updateMode = UpdateMode.X_AND_Y;
 
     private PlotMode plotMode = PlotMode.LAST_N;
@@ -148,10 +159,53 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
     public synchronized void addSample(ISample sample){
         if(traceData.size() == traceData.getBufferSize() && plotMode == PlotMode.N_STOP)
             return;
-        traceData.add(sample);
+        add(sample);
         fireDataChange();
     }
 
+    /**
+     * Add sample to trace data, updating the max and min of the data.
+     * @param sample
+     */
+    private void add(ISample sample){
+        if(traceData.size() == traceData.getBufferSize()){
+            // The oldest sample will be dropped.
+            // Unless it was inside the max and min, or when the next sample
+            // becomes the head that contains NaN, the range must be recalculated.
+            ISample head = traceData.getHead();
+            ISample next = traceData.getElement(1);
+            if(head != null && !(head.getXValue()-head.getXMinusError() > xMin &&
+                                 head.getXValue()+head.getXPlusError() < xMax &&
+                                 head.getYValue()-head.getYMinusError() > yMin &&
+                                 head.getYValue()+head.getYPlusError() < yMax))
+                dataRangedirty = true;
+            if(next != null && (Double.isNaN(next.getXValue()) || Double.isNaN(next.getYValue())))
+                dataRangedirty = true;
+        }
+        traceData.add(sample);
+        if(traceData.size() == 1)
+            dataRangedirty = true;
+        if(dataRangedirty)
+            return;
+        if(xMin > sample.getXValue()-sample.getXMinusError())
+            xMin = sample.getXValue()-sample.getXMinusError();
+        if(xMax < sample.getXValue()+sample.getXPlusError())
+            xMax = sample.getXValue()+ sample.getXPlusError();
+        if(yMin > sample.getYValue() - sample.getYMinusError())
+            yMin = sample.getYValue() - sample.getYMinusError();
+        if(yMax < sample.getYValue() + sample.getYPlusError())
+            yMax = sample.getYValue() + sample.getYPlusError();
+        dataRangeChanged = true;
+    }
+
+    /**
+     * Remove all samples from trace data.
+     */
+    private void clear(){
+        traceData.clear();
+        dataRangedirty = true;
+    }
+
     /**Set the time stamp of currrent YData
      * @param timestamp timestamp of Y data in milliseconds.
      */
@@ -219,7 +273,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
     public void addDataPoint(double xValue) {
         double newXValue;
         if(!concatenate_data)
-            traceData.clear();
+            clear();
         if(chronological){
             if(xAxisDateEnabled){
                 newXValue = xValue;
@@ -233,7 +287,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
         }else{
             newXValue = currentXData;
         }
-            traceData.add(new Sample(newXValue, currentYData));
+            add(new Sample(newXValue, currentYData));
             currentXDataChanged = false;
             currentYDataChanged = false;
 //            currentYDataTimestampChanged = false;
@@ -299,7 +353,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
      */
     public void addDataArray() {
         if(!concatenate_data)
-            traceData.clear();
+            clear();
 
         if(chronological){
             double[] newXValueArray;
@@ -308,10 +362,12 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
                 for(int i=0; i<currentYDataArray.length; i++){
                     newXValueArray[i] = i;
                 }
-            else
+            else{
+                final double tailXValue = traceData.getTail().getXValue();
                 for(int i=1; i<currentYDataArray.length+1; i++){
-                    newXValueArray[i-1] = traceData.getTail().getXValue() + i;
+                    newXValueArray[i-1] = tailXValue + i;
                 }
+            }
             final int size;
             if (auto_size)
             {
@@ -322,7 +378,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
                 size = Math.min(traceData.getBufferSize(),
                     Math.min(newXValueArray.length, currentYDataArray.length));
             for(int i=0; i<size; i++){
-                traceData.add(new Sample(newXValueArray[i], currentYDataArray[i]));
+                add(new Sample(newXValueArray[i], currentYDataArray[i]));
             }
         }else{
             //newXValueArray = currentXDataArray;
@@ -339,7 +395,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
                 size = Math.min(traceData.getBufferSize(),
                     Math.min(currentXDataArray.length, currentYDataArray.length));
             for(int i=0; i<size; i++){
-                traceData.add(new Sample(currentXDataArray[i], currentYDataArray[i]));
+                add(new Sample(currentXDataArray[i], currentYDataArray[i]));
             }
         }
 
@@ -351,7 +407,7 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
 
 
     public synchronized void clearTrace(){
-        traceData.clear();
+        clear();
         fireDataChange();
     }
 
@@ -364,8 +420,10 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
      */
     public synchronized void setBufferSize(int bufferSize) {
         auto_size = bufferSize <= 0;
-        if (! auto_size)
+        if (! auto_size && traceData.getBufferSize() != bufferSize){
             traceData.setBufferSize(bufferSize, false);
+            dataRangedirty = true;
+        }
     }
 
     /**
@@ -405,22 +463,22 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
 
     @Override
     protected void innerUpdate() {
-        dataRangedirty = true;
+        // Data range is updated as samples are added
     }
 
     @Override
     protected void updateDataRange(){
-        if(!dataRangedirty)
-            return;
-        dataRangedirty = false;
-        if(getSize() > 0){
-            double xMin;
-            double xMax;
+        if(dataRangedirty){
+            dataRangedirty = false;
+            dataRangeChanged = false;
+            if(getSize() <= 0){
+                xDataMinMax = null;
+                yDataMinMax = null;
+                return;
+            }
             xMin = traceData.getHead().getXValue();
             xMax = xMin;
 
-            double yMin;
-            double yMax;
             yMin = traceData.getHead().getYValue();
             yMax = yMin;
             for(ISample dp : traceData){
@@ -434,13 +492,11 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
                 if(yMax < dp.getYValue() + dp.getYPlusError())
                     yMax = dp.getYValue() + dp.getYPlusError();
             }
-
-            xDataMinMax = new Range(xMin, xMax);
-            yDataMinMax = new Range(yMin, yMax);
-        }else {
-            xDataMinMax = null;
-            yDataMinMax = null;
-        }
+        }else if(!dataRangeChanged)
+            return;
+        dataRangeChanged = false;
+        xDataMinMax = new Range(xMin, xMax);
+        yDataMinMax = new Range(yMin, yMax);
     }
 
     /**
@@ -479,16 +535,26 @@ public class CircularBufferDataProvider extends AbstractDataProvider{
         this.updateDelay = updateDelay;
     }
 
+    /**
+     * Listeners are notified once for all changes that happen within the update delay.
+     * Without update delay, changes on the UI thread are combined into one
+     * notification at the end of the current UI cycle.
+     */
     @Override
     protected synchronized void fireDataChange() {
-        if(updateDelay >0){
-            innerUpdate();
-            if(!duringDelay){
-                Display.getCurrent().timerExec(updateDelay, fireUpdate);
-                duringDelay = true;
-            }
-        }else
+        final Display display = Display.getCurrent();
+        if(display == null){
             super.fireDataChange();
+            return;
+        }
+        innerUpdate();
+        if(!duringDelay){
+            if(updateDelay >0)
+                display.timerExec(updateDelay, fireUpdate);
+            else
+                display.asyncExec(fireUpdate);
+            duringDelay = true;
+        }
     }
 
     public void setConcatenate_data(boolean concatenate_data) {
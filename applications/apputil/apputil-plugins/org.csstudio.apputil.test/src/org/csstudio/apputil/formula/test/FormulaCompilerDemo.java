@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula.test;
+
+import org.csstudio.apputil.formula.CompiledFormula;
+import org.csstudio.apputil.formula.Formula;
+import org.csstudio.apputil.formula.VariableNode;
+
+/** Benchmark of interpreted vs. compiled formula throughput
+ *
+ *  <p>Arguments: [evaluations per run]
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class FormulaCompilerDemo
+{
+    /** Formulas that are typical for alarm filters and data browser */
+    final private static String[] formulas = new String[]
+    {
+        "a + b",
+        "0.5 * a * b - c / 2",
+        "a > 10 & b < 5 | c == 3",
+        "a > b ? sqrt(a) : b < c ? exp(b) : c * 2",
+        "max(a, b, c) - min(a, b, c)",
+        "sin(toRadians(a)) * hypot(b, c)",
+    };
+
+    public static void main(final String[] args) throws Exception
+    {
+        final int evaluations = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+        final VariableNode[] variables = new VariableNode[]
+        {
+            new VariableNode("a"), new VariableNode("b"), new VariableNode("c")
+        };
+        final double[] values = new double[variables.length];
+        for (String text : formulas)
+        {
+            final Formula formula = new Formula(text, variables);
+            final CompiledFormula compiled = formula.compile();
+            for (int run=0; run<5; ++run)
+            {
+                double sum = 0.0;
+                long start = System.nanoTime();
+                for (int i=0; i<evaluations; ++i)
+                {
+                    variables[0].setValue(i % 20);
+                    variables[1].setValue(i % 7);
+                    variables[2].setValue(i % 3);
+                    sum += formula.eval();
+                }
+                final double interpreted = evaluations / ((System.nanoTime() - start) / 1e9);
+
+                start = System.nanoTime();
+                for (int i=0; i<evaluations; ++i)
+                {
+                    values[0] = i % 20;
+                    values[1] = i % 7;
+                    values[2] = i % 3;
+                    sum -= compiled.eval(values);
+                }
+                final double compiled_rate = evaluations / ((System.nanoTime() - start) / 1e9);
+
+                System.out.format("%-40s: interpreted %8.2f M/s, compiled %8.2f M/s (check: %g)\n",
+                                  text, interpreted / 1e6, compiled_rate / 1e6, sum);
+            }
+        }
+    }
+}
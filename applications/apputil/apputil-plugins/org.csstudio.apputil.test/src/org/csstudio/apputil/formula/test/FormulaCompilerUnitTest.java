@@ -0,0 +1,130 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula.test;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.csstudio.apputil.formula.CompiledFormula;
+import org.csstudio.apputil.formula.Formula;
+import org.csstudio.apputil.formula.VariableNode;
+import org.junit.Test;
+
+/** Compare compiled with interpreted formula
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class FormulaCompilerUnitTest
+{
+    final private static String[] formulas = new String[]
+    {
+        "0",
+        "-3.14 + 2 - 1.10",
+        "1 + a * 3 - b / c",
+        "-a",
+        "a ^ b",
+        "a == b",
+        "a != b",
+        "a < b",
+        "a <= b",
+        "a > b",
+        "a >= b",
+        "!a",
+        "a & b",
+        "a | b",
+        "a ? (b) : c",
+        "a > b ? (a) : b < c ? (b) : c",
+        "!(a>1 ? 0 : 1)",
+        "min(a, b, c)",
+        "max(a, b, -2)",
+        "max(a, min(b, c), max(c, 2))",
+        "sqrt(a) + exp(b) + log(c) + sin(toRadians(a))",
+        "atan2(a, b) + hypot(b, c) + pow(a, c)",
+        "round(a) + abs(b)",
+        "2*PI*a + E",
+        "a & (b | c) & (a != c)",
+    };
+
+    final private static double[] values = new double[]
+    {
+        0.0, -0.0, 1.0, -1.0, 2.5, 1e300, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY
+    };
+
+    @Test
+    public void testCompiler() throws Exception
+    {
+        final VariableNode[] variables = new VariableNode[]
+        {
+            new VariableNode("a"), new VariableNode("b"), new VariableNode("c")
+        };
+        final double[] array = new double[variables.length];
+        for (String text : formulas)
+        {
+            final Formula formula = new Formula(text, variables);
+            final CompiledFormula compiled = formula.compile();
+            for (double a : values)
+                for (double b : values)
+                    for (double c : values)
+                    {
+                        array[0] = a;
+                        array[1] = b;
+                        array[2] = c;
+                        for (int i=0; i<variables.length; ++i)
+                            variables[i].setValue(array[i]);
+                        // Compare bits to distinguish -0.0 and 0.0, but accept any NaN
+                        final double expected = formula.eval(), result = compiled.eval(array);
+                        if (! (Double.isNaN(expected) && Double.isNaN(result)))
+                            assertThat(text + " for " + a + ", " + b + ", " + c,
+                                       Double.doubleToLongBits(result), equalTo(Double.doubleToLongBits(expected)));
+                    }
+        }
+    }
+
+    @Test
+    public void testDeterminedVariables() throws Exception
+    {
+        final Formula formula = new Formula("'IOC2049-102:BMIT:enabled' >= 10  &  x < 5", true);
+        final CompiledFormula compiled = formula.compile();
+        assertThat(formula.getVariables()[0].getName(), equalTo("IOC2049-102:BMIT:enabled"));
+        assertThat(compiled.eval(new double[] { 10, 4 }), equalTo(1.0));
+        assertThat(compiled.eval(new double[] { 9, 4 }), equalTo(0.0));
+        assertThat(compiled.eval(new double[] { 10, 5 }), equalTo(0.0));
+    }
+
+    @Test
+    public void testRandom() throws Exception
+    {
+        final CompiledFormula compiled = new Formula("rnd(10.0)").compile();
+        for (int i=0; i<50; ++i)
+        {
+            final double rnd = compiled.eval(new double[0]);
+            assertTrue(rnd >= 0.0);
+            assertTrue(rnd < 10.0);
+        }
+    }
+
+    /** Generated classes are unloaded once the formula is no longer used */
+    @Test(timeout=10000)
+    public void testUnload() throws Exception
+    {
+        CompiledFormula compiled = new Formula("2 * 3").compile();
+        assertThat(compiled.eval(new double[0]), equalTo(6.0));
+        final WeakReference<Class<?>> clazz = new WeakReference<>(compiled.getClass());
+        compiled = null;
+        while (clazz.get() != null)
+        {
+            System.gc();
+            Thread.sleep(100);
+        }
+        assertNull(clazz.get());
+    }
+}
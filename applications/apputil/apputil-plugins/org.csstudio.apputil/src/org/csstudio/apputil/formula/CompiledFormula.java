@@ -0,0 +1,27 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula;
+
+/** Formula that has been compiled into a generated class
+ *  <p>
+ *  Instead of the {@link VariableNode}s of the formula,
+ *  a compiled formula reads its variables from an array.
+ *  It has no state, so it may be evaluated by several
+ *  threads, each with their own array of values.
+ *
+ *  @see Formula#compile()
+ *  @author agent
+ */
+public interface CompiledFormula
+{
+    /** Evaluate the formula
+     *  @param values Values of the variables, same order as {@link Formula#getVariables()}
+     *  @return Value of the formula
+     */
+    public double eval(double[] values);
+}
@@ -176,6 +176,23 @@ public class Formula implements Node
         return tree.eval();
     }
 
+    /** Compile the formula into a generated class.
+     *  <p>
+     *  The compiled formula returns the same results as {@link #eval()},
+     *  but it reads variables from an array instead of the
+     *  {@link VariableNode}s, and avoids interpreting the node tree.
+     *  Each call generates a new class, so compile once
+     *  and then evaluate many times.
+     *  The class is unloaded when the compiled formula is no longer used.
+     *
+     *  @return {@link CompiledFormula}
+     *  @throws Exception on error
+     */
+    public CompiledFormula compile() throws Exception
+    {
+        return new FormulaCompiler(getVariables()).compile(tree);
+    }
+
     /** {@inheritDoc} */
     @Override
     public boolean hasSubnode(final Node node)
@@ -0,0 +1,551 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.apputil.formula;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.csstudio.apputil.formula.node.AddNode;
+import org.csstudio.apputil.formula.node.AndNode;
+import org.csstudio.apputil.formula.node.ConstantNode;
+import org.csstudio.apputil.formula.node.DivNode;
+import org.csstudio.apputil.formula.node.EqualNode;
+import org.csstudio.apputil.formula.node.GreaterEqualNode;
+import org.csstudio.apputil.formula.node.GreaterThanNode;
+import org.csstudio.apputil.formula.node.IfNode;
+import org.csstudio.apputil.formula.node.LessEqualNode;
+import org.csstudio.apputil.formula.node.LessThanNode;
+import org.csstudio.apputil.formula.node.MathFuncNode;
+import org.csstudio.apputil.formula.node.MaxNode;
+import org.csstudio.apputil.formula.node.MinNode;
+import org.csstudio.apputil.formula.node.MulNode;
+import org.csstudio.apputil.formula.node.NotEqualNode;
+import org.csstudio.apputil.formula.node.NotNode;
+import org.csstudio.apputil.formula.node.OrNode;
+import org.csstudio.apputil.formula.node.PwrNode;
+import org.csstudio.apputil.formula.node.RndNode;
+import org.csstudio.apputil.formula.node.SubNode;
+
+/** Compiler from a tree of formula {@link Node}s into a class
+ *  <p>
+ *  Generates the byte code of a class that implements
+ *  {@link CompiledFormula}, with variables read from the
+ *  array that is passed to <code>eval</code>.
+ *  Each class is defined by its own class loader,
+ *  so it is unloaded once the compiled formula is no longer used.
+ *  <p>
+ *  The byte code performs the same operations as the
+ *  <code>eval()</code> of the nodes, in the same order,
+ *  so results are identical.
+ *  The class file uses version 49, which does not
+ *  require stack map frames for the branches.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+class FormulaCompiler
+{
+    // JVM op codes
+    private static final int ICONST_0 = 0x03, DCONST_0 = 0x0e, DCONST_1 = 0x0f,
+                             BIPUSH = 0x10, SIPUSH = 0x11, LDC2_W = 0x14,
+                             DLOAD = 0x18, ALOAD_0 = 0x2a, ALOAD_1 = 0x2b, DALOAD = 0x31, DSTORE = 0x39,
+                             POP2 = 0x58, DADD = 0x63, DSUB = 0x67, DMUL = 0x6b, DDIV = 0x6f,
+                             DCMPL = 0x97, DCMPG = 0x98,
+                             IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IFGE = 0x9c, IFGT = 0x9d, IFLE = 0x9e,
+                             GOTO = 0xa7, DRETURN = 0xaf, RETURN = 0xb1,
+                             INVOKESPECIAL = 0xb7, INVOKESTATIC = 0xb8;
+
+    /** Name of the generated class */
+    private static final String CLASS_NAME = "org/csstudio/apputil/formula/GeneratedFormula";
+
+    /** Class loader for one generated class */
+    private static class FormulaClassLoader extends ClassLoader
+    {
+        FormulaClassLoader()
+        {
+            super(CompiledFormula.class.getClassLoader());
+        }
+
+        Class<?> define(final byte[] class_file)
+        {
+            return defineClass(CLASS_NAME.replace('/', '.'), class_file, 0, class_file.length);
+        }
+    }
+
+    /** Variables, index is the array slot */
+    final private VariableNode[] variables;
+
+    /** Constant pool */
+    final private ByteArrayOutputStream pool_buf = new ByteArrayOutputStream();
+    final private DataOutputStream pool = new DataOutputStream(pool_buf);
+    final private Map<String, Integer> pool_index = new HashMap<>();
+    private int pool_size = 1;
+
+    /** Code of the 'eval' method */
+    private byte[] code = new byte[256];
+    private int pc = 0;
+
+    /** Current and maximum size of the operand stack, in words */
+    private int stack = 0, max_stack = 0;
+
+    /** Local variable slots, 0 = this, 1 = values[] */
+    private int max_locals = 2;
+
+    /** @param variables Variables of the formula, may be <code>null</code> */
+    FormulaCompiler(final VariableNode[] variables)
+    {
+        this.variables = variables == null ? new VariableNode[0] : variables;
+    }
+
+    /** @param tree Formula tree
+     *  @return {@link CompiledFormula}
+     *  @throws Exception on error
+     */
+    CompiledFormula compile(final Node tree) throws Exception
+    {
+        generate(tree);
+        emit(DRETURN, -2);
+        if (pc > 0xFFFF)
+            throw new Exception("Formula too complex to compile");
+
+        final Class<?> clazz = new FormulaClassLoader().define(createClass(CLASS_NAME));
+        return (CompiledFormula) clazz.getDeclaredConstructor().newInstance();
+    }
+
+    /** Generate code that leaves the value of a node on the stack
+     *  @param node Node to compile
+     *  @throws Exception on error
+     */
+    private void generate(final Node node) throws Exception
+    {
+        if (node instanceof ConstantNode)
+            constant(((ConstantNode) node).getValue());
+        else if (node instanceof VariableNode)
+        {
+            final int slot = Arrays.asList(variables).indexOf(node);
+            if (slot < 0) // Constants like PI
+                constant(((VariableNode) node).getValue());
+            else
+                variable(slot);
+        }
+        else if (node instanceof AddNode)
+            arithmetic(((AddNode) node).getLeft(), ((AddNode) node).getRight(), DADD);
+        else if (node instanceof SubNode)
+            arithmetic(((SubNode) node).getLeft(), ((SubNode) node).getRight(), DSUB);
+        else if (node instanceof MulNode)
+            arithmetic(((MulNode) node).getLeft(), ((MulNode) node).getRight(), DMUL);
+        else if (node instanceof DivNode)
+            arithmetic(((DivNode) node).getLeft(), ((DivNode) node).getRight(), DDIV);
+        else if (node instanceof PwrNode)
+        {
+            generate(((PwrNode) node).getLeft());
+            generate(((PwrNode) node).getRight());
+            invokeMath("pow", 2);
+        }
+        // Comparisons use dcmpl resp. dcmpg so that NaN results in 0.0,
+        // except for '!=', which is 1.0 for NaN
+        else if (node instanceof EqualNode)
+            compare(((EqualNode) node).getLeft(), ((EqualNode) node).getRight(), DCMPL, IFNE);
+        else if (node instanceof NotEqualNode)
+            compare(((NotEqualNode) node).getLeft(), ((NotEqualNode) node).getRight(), DCMPL, IFEQ);
+        else if (node instanceof GreaterThanNode)
+            compare(((GreaterThanNode) node).getLeft(), ((GreaterThanNode) node).getRight(), DCMPL, IFLE);
+        else if (node instanceof GreaterEqualNode)
+            compare(((GreaterEqualNode) node).getLeft(), ((GreaterEqualNode) node).getRight(), DCMPL, IFLT);
+        else if (node instanceof LessThanNode)
+            compare(((LessThanNode) node).getLeft(), ((LessThanNode) node).getRight(), DCMPG, IFGE);
+        else if (node instanceof LessEqualNode)
+            compare(((LessEqualNode) node).getLeft(), ((LessEqualNode) node).getRight(), DCMPG, IFGT);
+        else if (node instanceof NotNode)
+            compare(((NotNode) node).getArgument(), new ConstantNode(0.0), DCMPL, IFNE);
+        else if (node instanceof AndNode)
+            logic(((AndNode) node).getLeft(), ((AndNode) node).getRight(), IFEQ);
+        else if (node instanceof OrNode)
+            logic(((OrNode) node).getLeft(), ((OrNode) node).getRight(), IFNE);
+        else if (node instanceof IfNode)
+        {
+            final IfNode ifnode = (IfNode) node;
+            isNonZero(ifnode.getCondition());
+            final int no = jump(IFEQ, -1);
+            generate(ifnode.getYes());
+            final int end = jump(GOTO, 0);
+            stack -= 2;
+            land(no);
+            generate(ifnode.getNo());
+            land(end);
+        }
+        else if (node instanceof MinNode)
+            select(((MinNode) node).getArguments(), DCMPG, IFGE);
+        else if (node instanceof MaxNode)
+            select(((MaxNode) node).getArguments(), DCMPL, IFLE);
+        else if (node instanceof RndNode)
+        {
+            generate(((RndNode) node).getArgument());
+            invokeMath("random", 0);
+            emit(DMUL, -2);
+        }
+        else if (node instanceof MathFuncNode)
+        {
+            final MathFuncNode func = (MathFuncNode) node;
+            final Node[] args = func.getArguments();
+            for (Node arg : args)
+                generate(arg);
+            final Class<?>[] types = new Class<?>[args.length];
+            Arrays.fill(types, double.class);
+            final Method method = Math.class.getDeclaredMethod(func.getFunction(), types);
+            if (method.getReturnType() == double.class)
+                invokeMath(func.getFunction(), args.length);
+            else
+            {   // MathFuncNode returns 0.0 for functions that don't return a double
+                for (int i=0; i<args.length; ++i)
+                    emit(POP2, -2);
+                emit(DCONST_0, 2);
+            }
+        }
+        else
+            throw new Exception("Cannot compile " + node.getClass().getName());
+    }
+
+    /** @param value Constant to push onto stack */
+    private void constant(final double value) throws IOException
+    {
+        if (Double.doubleToRawLongBits(value) == 0L)
+            emit(DCONST_0, 2);
+        else if (value == 1.0)
+            emit(DCONST_1, 2);
+        else
+        {
+            emit(LDC2_W, 2);
+            u2(doubleConstant(value));
+        }
+    }
+
+    /** @param slot Index of variable to push onto stack */
+    private void variable(final int slot) throws Exception
+    {
+        emit(ALOAD_1, 1);
+        if (slot <= 5)
+            emit(ICONST_0 + slot, 1);
+        else if (slot <= Byte.MAX_VALUE)
+        {
+            emit(BIPUSH, 1);
+            u1(slot);
+        }
+        else if (slot <= Short.MAX_VALUE)
+        {
+            emit(SIPUSH, 1);
+            u2(slot);
+        }
+        else
+            throw new Exception("Too many variables to compile");
+        emit(DALOAD, 0);
+    }
+
+    /** @param left Left argument
+     *  @param right Right argument
+     *  @param opcode Operation
+     */
+    private void arithmetic(final Node left, final Node right, final int opcode) throws Exception
+    {
+        generate(left);
+        generate(right);
+        emit(opcode, -2);
+    }
+
+    /** @param left Left argument
+     *  @param right Right argument
+     *  @param dcmp DCMPL or DCMPG
+     *  @param if_false Branch on result of dcmp when comparison fails
+     */
+    private void compare(final Node left, final Node right, final int dcmp, final int if_false) throws Exception
+    {
+        generate(left);
+        generate(right);
+        emit(dcmp, -3);
+        final int no = jump(if_false, -1);
+        emit(DCONST_1, 2);
+        final int end = jump(GOTO, 0);
+        stack -= 2;
+        land(no);
+        emit(DCONST_0, 2);
+        land(end);
+    }
+
+    /** Leave int on stack that's 0 if node evaluates to 0.0
+     *  @param node Node
+     */
+    private void isNonZero(final Node node) throws Exception
+    {
+        generate(node);
+        emit(DCONST_0, 2);
+        emit(DCMPL, -3);
+    }
+
+    /** Short-circuit '&' resp. '|'
+     *  @param left Left argument
+     *  @param right Right argument
+     *  @param decided IFEQ for '&', where a zero argument results in 0.0,
+     *                 IFNE for '|', where a non-zero argument results in 1.0
+     */
+    private void logic(final Node left, final Node right, final int decided) throws Exception
+    {
+        isNonZero(left);
+        final int left_decided = jump(decided, -1);
+        isNonZero(right);
+        final int right_decided = jump(decided, -1);
+        emit(decided == IFEQ ? DCONST_1 : DCONST_0, 2);
+        final int end = jump(GOTO, 0);
+        stack -= 2;
+        land(left_decided);
+        land(right_decided);
+        emit(decided == IFEQ ? DCONST_0 : DCONST_1, 2);
+        land(end);
+    }
+
+    /** Minimum resp. maximum
+     *  @param args Arguments
+     *  @param dcmp Comparison of new value with result so far
+     *  @param if_keep Branch on result of dcmp when result so far is kept
+     */
+    private void select(final Node[] args, final int dcmp, final int if_keep) throws Exception
+    {
+        final int result = max_locals, value = max_locals + 2;
+        max_locals += 4;
+        if (max_locals > 0xFF)
+            throw new Exception("Formula too complex to compile");
+        generate(args[0]);
+        local(DSTORE, result, -2);
+        for (int i=1; i<args.length; ++i)
+        {
+            generate(args[i]);
+            local(DSTORE, value, -2);
+            local(DLOAD, value, 2);
+            local(DLOAD, result, 2);
+            emit(dcmp, -3);
+            final int keep = jump(if_keep, -1);
+            local(DLOAD, value, 2);
+            local(DSTORE, result, -2);
+            land(keep);
+        }
+        local(DLOAD, result, 2);
+    }
+
+    /** @param function Name of java.lang.Math function
+     *  @param args Number of double arguments
+     */
+    private void invokeMath(final String function, final int args) throws IOException
+    {
+        final StringBuilder descriptor = new StringBuilder("(");
+        for (int i=0; i<args; ++i)
+            descriptor.append('D');
+        descriptor.append(")D");
+        emit(INVOKESTATIC, 2 - 2*args);
+        u2(methodRef("java/lang/Math", function, descriptor.toString()));
+    }
+
+    /** @param opcode DLOAD or DSTORE
+     *  @param slot Local variable slot
+     *  @param stack_change Change of stack size
+     */
+    private void local(final int opcode, final int slot, final int stack_change)
+    {
+        emit(opcode, stack_change);
+        u1(slot);
+    }
+
+    /** @param opcode Op code to add
+     *  @param stack_change Change of stack size
+     */
+    private void emit(final int opcode, final int stack_change)
+    {
+        u1(opcode);
+        stack += stack_change;
+        max_stack = Math.max(max_stack, stack);
+    }
+
+    /** @param opcode Branch op code to add
+     *  @param stack_change Change of stack size
+     *  @return Location to {@link #land(int)} the jump
+     */
+    private int jump(final int opcode, final int stack_change)
+    {
+        final int location = pc;
+        emit(opcode, stack_change);
+        u2(0);
+        return location;
+    }
+
+    /** Set target of a jump to the current location
+     *  @param location Location of the jump
+     */
+    private void land(final int location) throws Exception
+    {
+        final int offset = pc - location;
+        if (offset > Short.MAX_VALUE)
+            throw new Exception("Formula too complex to compile");
+        code[location+1] = (byte) (offset >> 8);
+        code[location+2] = (byte) offset;
+    }
+
+    private void u1(final int value)
+    {
+        if (pc >= code.length)
+            code = Arrays.copyOf(code, code.length * 2);
+        code[pc++] = (byte) value;
+    }
+
+    private void u2(final int value)
+    {
+        u1(value >> 8);
+        u1(value);
+    }
+
+    private int utf8(final String text) throws IOException
+    {
+        Integer index = pool_index.get("U" + text);
+        if (index == null)
+        {
+            pool.writeByte(1);
+            pool.writeUTF(text);
+            index = add("U" + text, 1);
+        }
+        return index;
+    }
+
+    private int classRef(final String name) throws IOException
+    {
+        Integer index = pool_index.get("C" + name);
+        if (index == null)
+        {
+            final int name_index = utf8(name);
+            pool.writeByte(7);
+            pool.writeShort(name_index);
+            index = add("C" + name, 1);
+        }
+        return index;
+    }
+
+    private int methodRef(final String owner, final String name, final String descriptor) throws IOException
+    {
+        final String key = "M" + owner + "." + name + descriptor;
+        Integer index = pool_index.get(key);
+        if (index == null)
+        {
+            final int owner_index = classRef(owner), name_index = utf8(name), descriptor_index = utf8(descriptor);
+            pool.writeByte(12);
+            pool.writeShort(name_index);
+            pool.writeShort(descriptor_index);
+            final int name_and_type = add("N" + key, 1);
+            pool.writeByte(10);
+            pool.writeShort(owner_index);
+            pool.writeShort(name_and_type);
+            index = add(key, 1);
+        }
+        return index;
+    }
+
+    private int doubleConstant(final double value) throws IOException
+    {
+        final String key = "D" + Double.doubleToRawLongBits(value);
+        Integer index = pool_index.get(key);
+        if (index == null)
+        {
+            pool.writeByte(6);
+            pool.writeDouble(value);
+            // Double constants occupy two entries
+            index = add(key, 2);
+        }
+        return index;
+    }
+
+    /** @param key Key of pool entry that was just written
+     *  @param entries Number of pool entries used
+     *  @return Index of the entry
+     */
+    private int add(final String key, final int entries) throws IOException
+    {
+        final int index = pool_size;
+        pool_size += entries;
+        if (pool_size > 0xFFFF)
+            throw new IOException("Formula too complex to compile");
+        pool_index.put(key, index);
+        return index;
+    }
+
+    /** @param name Class name
+     *  @return Class file
+     */
+    private byte[] createClass(final String name) throws IOException
+    {
+        final int this_class = classRef(name),
+                  super_class = classRef("java/lang/Object"),
+                  interface_class = classRef(CompiledFormula.class.getName().replace('.', '/')),
+                  super_init = methodRef("java/lang/Object", "<init>", "()V"),
+                  code_name = utf8("Code"),
+                  init_name = utf8("<init>"),
+                  init_descriptor = utf8("()V"),
+                  eval_name = utf8("eval"),
+                  eval_descriptor = utf8("([D)D");
+
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buf);
+        out.writeInt(0xCAFEBABE);
+        out.writeShort(0);
+        out.writeShort(49);
+        out.writeShort(pool_size);
+        pool.flush();
+        pool_buf.writeTo(out);
+        // public final class .. extends Object implements CompiledFormula
+        out.writeShort(0x0001 | 0x0010 | 0x0020);
+        out.writeShort(this_class);
+        out.writeShort(super_class);
+        out.writeShort(1);
+        out.writeShort(interface_class);
+        // No fields
+        out.writeShort(0);
+        out.writeShort(2);
+        // public constructor
+        final byte[] init = new byte[]
+        {
+            (byte) ALOAD_0,
+            (byte) INVOKESPECIAL, (byte) (super_init >> 8), (byte) super_init,
+            (byte) RETURN
+        };
+        writeMethod(out, init_name, init_descriptor, code_name, 1, 1, init, init.length);
+        // public double eval(double[] values)
+        writeMethod(out, eval_name, eval_descriptor, code_name, max_stack, max_locals, code, pc);
+        // No class attributes
+        out.writeShort(0);
+        out.flush();
+        return buf.toByteArray();
+    }
+
+    private static void writeMethod(final DataOutputStream out, final int name, final int descriptor,
+                                    final int code_name, final int max_stack, final int max_locals,
+                                    final byte[] code, final int length) throws IOException
+    {
+        out.writeShort(0x0001);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(code_name);
+        out.writeInt(12 + length);
+        out.writeShort(max_stack);
+        out.writeShort(max_locals);
+        out.writeInt(length);
+        out.write(code, 0, length);
+        // No exception table, no attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+}
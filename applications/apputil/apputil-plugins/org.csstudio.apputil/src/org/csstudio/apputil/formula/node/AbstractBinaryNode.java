@@ -23,6 +23,18 @@ abstract class AbstractBinaryNode implements Node
         this.right = right;
     }
 
+    /** @return Left argument */
+    public Node getLeft()
+    {
+        return left;
+    }
+
+    /** @return Right argument */
+    public Node getRight()
+    {
+        return right;
+    }
+
     /** {@inheritDoc} */
     @Override
     final public boolean hasSubnode(final Node node)
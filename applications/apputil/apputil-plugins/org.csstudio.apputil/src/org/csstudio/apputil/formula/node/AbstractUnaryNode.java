@@ -21,6 +21,12 @@ abstract class AbstractUnaryNode implements Node
         this.n = n;
     }
 
+    /** @return Argument */
+    public Node getArgument()
+    {
+        return n;
+    }
+
     /** {@inheritDoc} */
     @Override
     final public boolean hasSubnode(final Node node)
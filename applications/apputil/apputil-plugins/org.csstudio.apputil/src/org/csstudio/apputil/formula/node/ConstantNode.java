@@ -21,6 +21,12 @@ public class ConstantNode implements Node
         this.value = value;
     }
 
+    /** @return Value of the constant */
+    public double getValue()
+    {
+        return value;
+    }
+
     @Override
     public double eval()
     {
@@ -38,6 +38,18 @@ public class MathFuncNode implements Node
         method = Math.class.getDeclaredMethod(function, argcls);
     }
 
+    /** @return Name of the java.lang.Math.* function */
+    public String getFunction()
+    {
+        return function;
+    }
+
+    /** @return Argument nodes */
+    public Node[] getArguments()
+    {
+        return args;
+    }
+
     @Override
     public double eval()
     {
@@ -21,6 +21,12 @@ public class MaxNode implements Node
         this.args = args;
     }
 
+    /** @return Argument nodes */
+    public Node[] getArguments()
+    {
+        return args;
+    }
+
     @Override
     public double eval()
     {
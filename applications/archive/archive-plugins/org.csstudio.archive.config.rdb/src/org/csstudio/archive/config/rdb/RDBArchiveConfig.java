@@ -17,7 +17,9 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.csstudio.archive.config.ArchiveConfig;
 import org.csstudio.archive.config.ChannelConfig;
@@ -583,6 +585,14 @@ public class RDBArchiveConfig implements ImportableArchiveConfig
             result.close();
         }
 
+        return sortByName(channels);
+    }
+
+    /** @param channels Channels
+     *  @return Channels sorted by name
+     */
+    private ChannelConfig[] sortByName(final List<ChannelConfig> channels)
+    {
         final ChannelConfig[] chan_arr = channels.toArray(new ChannelConfig[channels.size()]);
         // Sort by channel name in Java.
         // SQL should already give sorted result, but handling of upper/lowercase
@@ -599,6 +609,49 @@ public class RDBArchiveConfig implements ImportableArchiveConfig
         return chan_arr;
     }
 
+    /** {@inheritDoc}
+     *
+     *  <p>Reads the channels of all groups, including the
+     *  last sample time of each channel, in one query
+     *  instead of one query per group and channel.
+     */
+    @Override
+    public ChannelConfig[][] getChannels(final EngineConfig engine, final GroupConfig[] groups, final boolean skip_last) throws Exception
+    {
+        final RDBEngineConfig rdb_engine = (RDBEngineConfig) engine;
+        // Channel lists by group ID
+        final Map<Integer, List<ChannelConfig>> channels_by_group = new HashMap<>();
+        for (GroupConfig group : groups)
+            channels_by_group.put(((RDBGroupConfig) group).getId(), new ArrayList<>());
+        try
+        (
+            final PreparedStatement statement = rdb.getConnection().prepareStatement(
+                skip_last ? sql.channel_sel_by_eng_id : sql.channel_sel_with_last_time_by_eng_id);
+        )
+        {
+            statement.setInt(1, rdb_engine.getId());
+            statement.setFetchSize(1000);
+            final ResultSet result = statement.executeQuery();
+            while (result.next())
+            {   // grp_id, channel_id, name, smpl_mode_id, smpl_val, smpl_per [, last sample time]
+                final List<ChannelConfig> channels = channels_by_group.get(result.getInt(1));
+                if (channels == null)
+                    continue;
+                final SampleMode sample_mode =
+                    getSampleMode(result.getInt(4), result.getDouble(5), result.getDouble(6));
+                final Instant last_sample_time = skip_last ? null : getLastSampleTime(result.getTimestamp(7));
+                channels.add(new RDBChannelConfig(result.getInt(2), result.getString(3),
+                                                  sample_mode, last_sample_time));
+            }
+            result.close();
+        }
+
+        final ChannelConfig[][] channels = new ChannelConfig[groups.length][];
+        for (int i=0; i<groups.length; ++i)
+            channels[i] = sortByName(channels_by_group.get(((RDBGroupConfig) groups[i]).getId()));
+        return channels;
+    }
+
     /** @param channel_id Channel ID in RDB
      *  @return Name of channel
      *  @throws Exception on error
@@ -639,25 +692,30 @@ public class RDBArchiveConfig implements ImportableArchiveConfig
         )
         {
             if (result.next())
-            {
-                final Timestamp stamp = result.getTimestamp(1);
-                if (stamp == null)
-                    return null;
-
-                if (rdb.getDialect() != Dialect.Oracle)
-                {
-                    // For Oracle, the time stamp is indeed the last time.
-                    // For others, it's only the seconds, not the nanoseconds.
-                    // Since this time stamp is only used to avoid going back in time,
-                    // add a second to assert that we are _after_ the last sample
-                    stamp.setTime(stamp.getTime() + 1000);
-                }
-                return TimestampHelper.fromSQLTimestamp(stamp);
-            }
+                return getLastSampleTime(result.getTimestamp(1));
         }
         return null;
     }
 
+    /** @param stamp Time stamp of last sample in archive or <code>null</code>
+     *  @return Time stamp or <code>null</code> if not in archive, yet
+     */
+    private Instant getLastSampleTime(final Timestamp stamp)
+    {
+        if (stamp == null)
+            return null;
+
+        if (rdb.getDialect() != Dialect.Oracle)
+        {
+            // For Oracle, the time stamp is indeed the last time.
+            // For others, it's only the seconds, not the nanoseconds.
+            // Since this time stamp is only used to avoid going back in time,
+            // add a second to assert that we are _after_ the last sample
+            stamp.setTime(stamp.getTime() + 1000);
+        }
+        return TimestampHelper.fromSQLTimestamp(stamp);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close()
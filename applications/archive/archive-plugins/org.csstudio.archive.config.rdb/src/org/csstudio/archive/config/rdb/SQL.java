@@ -34,6 +34,8 @@ public class SQL
 
     // 'channel' table
     final public String channel_sel_by_group_id;
+    final public String channel_sel_by_eng_id;
+    final public String channel_sel_with_last_time_by_eng_id;
     final public String channel_sel_by_id;
     final public String channel_sel_by_name;
     final public String channel_clear_grp_for_engine;
@@ -77,6 +79,16 @@ public class SQL
 
         // 'channel' table
         channel_sel_by_group_id = "SELECT channel_id, name, smpl_mode_id, smpl_val, smpl_per FROM " + schema + "channel WHERE grp_id=? ORDER BY name";
+        channel_sel_by_eng_id = "SELECT c.grp_id, c.channel_id, c.name, c.smpl_mode_id, c.smpl_val, c.smpl_per FROM " + schema + "channel c " +
+                                "JOIN " + schema + "chan_grp g ON c.grp_id = g.grp_id " +
+                                "WHERE g.eng_id=?";
+        // Sub-query for the last sample time of each channel,
+        // which like sel_last_sample_time_by_id can use the (channel_id, smpl_time) index
+        channel_sel_with_last_time_by_eng_id = "SELECT c.grp_id, c.channel_id, c.name, c.smpl_mode_id, c.smpl_val, c.smpl_per, " +
+                                               "(SELECT MAX(s.smpl_time) FROM " + schema + "sample s WHERE s.channel_id = c.channel_id) " +
+                                               "FROM " + schema + "channel c " +
+                                               "JOIN " + schema + "chan_grp g ON c.grp_id = g.grp_id " +
+                                               "WHERE g.eng_id=?";
         channel_sel_by_id = "SELECT name FROM " + schema + "channel WHERE channel_id=?";
         channel_sel_by_name = "SELECT channel_id FROM " + schema + "channel WHERE name=?";
         channel_clear_grp_for_engine =
@@ -41,6 +41,27 @@ public interface ArchiveConfig
      */
     public ChannelConfig[] getChannels(GroupConfig group, boolean skip_last) throws Exception;
 
+    /** Locate all channels of several groups of an engine
+     *
+     *  <p>Default implementation calls {@link #getChannels(GroupConfig, boolean)}
+     *  for each group.
+     *  Implementations should read the channels of all groups at once
+     *  when that requires fewer round trips to the configuration storage.
+     *
+     *  @param engine Engine of the groups
+     *  @param groups Groups for which to locate channels
+     *  @param skip_last Skip reading last sample time
+     *  @return {@link ChannelConfig} array for each group, in the order of <code>groups</code>
+     *  @throws Exception on error, e.g. RDB access problem
+     */
+    public default ChannelConfig[][] getChannels(EngineConfig engine, GroupConfig[] groups, boolean skip_last) throws Exception
+    {
+        final ChannelConfig[][] channels = new ChannelConfig[groups.length][];
+        for (int i=0; i<groups.length; ++i)
+            channels[i] = getChannels(groups[i], skip_last);
+        return channels;
+    }
+
     /** Must be called when configuration is no longer used to release resources */
     public void close();
 }
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.vtype.pv.PVPool;
+import org.csstudio.vtype.pv.local.LocalPVFactory;
+import org.junit.Test;
+
+/** JUnit test of the {@link ChannelStarter}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ChannelStarterUnitTest
+{
+    @Test
+    public void testRateLimit() throws Exception
+    {
+        PVPool.addPVFactory(new LocalPVFactory());
+
+        final List<ArchiveChannel> channels = new ArrayList<>();
+        for (int i=0; i<20; ++i)
+            channels.add(new MonitoredArchiveChannel("loc://starter" + i + "(" + i + ")",
+                                                     Enablement.Passive, 100, null, 0.0));
+
+        // 20 channels at 100 per second take about 0.2 seconds
+        final long start = System.nanoTime();
+        final ChannelStarter starter = new ChannelStarter(4, 100.0);
+        for (ArchiveChannel channel : channels)
+            starter.start(channel);
+        starter.await();
+        final double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println("Started " + channels.size() + " channels in " + secs + " sec");
+        assertTrue(secs > 0.15);
+
+        for (ArchiveChannel channel : channels)
+        {
+            assertThat(channel.isConnected(), equalTo(true));
+            channel.stop();
+        }
+    }
+
+    @Test
+    public void testError() throws Exception
+    {
+        // PV with unknown type fails to start
+        final ArchiveChannel failing = new MonitoredArchiveChannel("nosuch://starter",
+                                                                   Enablement.Passive, 100, null, 0.0);
+        final ChannelStarter starter = new ChannelStarter(2, 0.0);
+        starter.start(failing);
+        try
+        {
+            starter.await();
+            fail("Error was not reported");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage(), equalTo("nosuch://starter has unknown PV type 'nosuch'"));
+        }
+    }
+}
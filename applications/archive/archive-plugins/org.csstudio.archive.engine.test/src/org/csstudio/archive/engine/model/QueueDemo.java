@@ -12,8 +12,10 @@ import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
 
 import org.csstudio.apputil.ringbuffer.RingBuffer;
+import org.diirt.vtype.VType;
 import org.junit.Test;
 
 /** Simple benchmark of queues for the SampleBuffer.
@@ -27,6 +29,11 @@ import org.junit.Test;
  * ArrayList         :     48088144 values in 10.00 sec =    4808814.4 vals/sec
  * RingBuffer        :     48864698 values in 10.00 sec =    4886469.8 vals/sec
  *  </pre>
+ *  <p>
+ *  The SampleBuffer no longer locks the RingBuffer,
+ *  and keeps scalar numbers in primitive arrays.
+ *  {@link #testSampleBuffer()} compares it to the synchronized
+ *  RingBuffer of VTypes while a separate thread adds samples.
  *
  * @author Kay Kasemir
  */
@@ -149,4 +156,59 @@ public class QueueDemo
                 i, secs, i / secs);
     }
 
+    /** Add samples in one thread, remove in another */
+    private void runProducerConsumer(final String name, final Runnable add, final Supplier<Object> remove) throws Exception
+    {
+        final long start = System.currentTimeMillis();
+        final long run = start + RUNTIME;
+        final long[] added = new long[1];
+        final Thread producer = new Thread(() ->
+        {
+            while (run > System.currentTimeMillis())
+            {
+                add.run();
+                ++added[0];
+            }
+        }, "Producer");
+        producer.start();
+        long i = 0;
+        while (producer.isAlive())
+        {
+            if (remove.get() != null)
+                ++i;
+        }
+        final long end = System.currentTimeMillis();
+        final double secs = (end - start) / 1000.0;
+        System.out.format(
+                "%-18s: %12d values added, %12d removed in %.2f sec = %12.1f vals/sec\n",
+                name, added[0], i, secs, added[0] / secs);
+    }
+
+    /** Synchronized RingBuffer of VType vs. lock-free SampleBuffer */
+    @Test
+    public void testSampleBuffer() throws Exception
+    {
+        final VType value = TestHelper.newValue(3.14);
+
+        final RingBuffer<VType> ring = new RingBuffer<VType>(1000);
+        runProducerConsumer("Locked RingBuffer",
+            () ->
+            {
+                synchronized (ring)
+                {
+                    ring.add(value);
+                }
+            },
+            () ->
+            {
+                synchronized (ring)
+                {
+                    return ring.remove();
+                }
+            });
+
+        final SampleBuffer buffer = new SampleBuffer("Demo", null, 1000);
+        runProducerConsumer("SampleBuffer", () -> buffer.add(value), () -> buffer.remove());
+        System.out.println(buffer);
+    }
 }
@@ -8,8 +8,18 @@
 package org.csstudio.archive.engine.model;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.time.Instant;
+
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVString;
 import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VNumber;
 import org.diirt.vtype.VType;
 import org.junit.Test;
 
@@ -32,6 +42,32 @@ public class SampleBufferUnitTest
         assertEquals(0, buffer.getQueueSize());
     }
 
+    /** Numbers are kept as primitives, other types as-is */
+    @Test
+    public void testSampleTypes()
+    {
+        final Instant time = Instant.ofEpochSecond(1000, 42);
+        buffer.add(new ArchiveVNumber(time, AlarmSeverity.MINOR, "LOW", TestHelper.display, 3.14));
+        buffer.add(new ArchiveVNumber(time, AlarmSeverity.NONE, "OK", TestHelper.display, Long.valueOf(42)));
+        final VType text = new ArchiveVString(time, AlarmSeverity.NONE, "OK", "Hello");
+        buffer.add(text);
+        assertEquals(3, buffer.getQueueSize());
+
+        VType value = buffer.remove();
+        assertTrue(value instanceof VNumber);
+        assertEquals(Double.valueOf(3.14), ((VNumber) value).getValue());
+        assertEquals(time, VTypeHelper.getTimestamp(value));
+        assertEquals(AlarmSeverity.MINOR, VTypeHelper.getSeverity(value));
+        assertEquals("LOW", VTypeHelper.getMessage(value));
+        assertEquals("Eggs", ((Display) value).getUnits());
+
+        value = buffer.remove();
+        assertEquals(Long.valueOf(42), ((VNumber) value).getValue());
+
+        assertSame(text, buffer.remove());
+        assertEquals(0, buffer.getQueueSize());
+    }
+
     /** Check Overrun */
     @Test
     public void testOverrun()
@@ -53,6 +89,53 @@ public class SampleBufferUnitTest
         assertEquals(1.0, VTypeHelper.toDouble(value), 0.01);
     }
 
+    /** Reaching the high water mark is counted once per write run */
+    @Test
+    public void testHighWater()
+    {
+        buffer.setWriteThread(new WriteThread(), 0, 0.8);
+        for (int i=0; i<buffer.getCapacity(); ++i)
+            buffer.add(TestHelper.newValue(i));
+        assertEquals(1, buffer.getBufferStats().getHighWaterCount());
+
+        // Dropping below and rising above the mark again
+        // does not request another write until the write run
+        buffer.remove();
+        buffer.remove();
+        buffer.remove();
+        buffer.add(TestHelper.newValue(1));
+        buffer.add(TestHelper.newValue(2));
+        assertEquals(1, buffer.getBufferStats().getHighWaterCount());
+
+        // Latency is measured from the first sample added to the empty buffer
+        final long added = buffer.getFirstAddTime();
+        assertTrue(added != 0);
+        while (buffer.remove() != null)
+            ; // drain
+        buffer.updateLatency(added);
+        buffer.clearWriteRequest();
+        assertTrue(buffer.getBufferStats().getAverageLatency() > 0.0);
+
+        for (int i=0; i<buffer.getCapacity(); ++i)
+            buffer.add(TestHelper.newValue(i));
+        assertEquals(2, buffer.getBufferStats().getHighWaterCount());
+    }
+
+    /** Time stamp of oldest sample, used to spill buffers in time order */
+    @Test
+    public void testPeekTime()
+    {
+        assertNull(buffer.peekTime());
+        final Instant time = Instant.ofEpochSecond(1000, 42);
+        buffer.add(new ArchiveVNumber(time, AlarmSeverity.NONE, "OK", TestHelper.display, 1.0));
+        buffer.add(new ArchiveVString(time.plusSeconds(1), AlarmSeverity.NONE, "OK", "Text"));
+        assertEquals(time, buffer.peekTime());
+        buffer.remove();
+        assertEquals(time.plusSeconds(1), buffer.peekTime());
+        buffer.remove();
+        assertNull(buffer.peekTime());
+    }
+
     final private static long TEST_RUNS = 1000L;
 
     class FillThread extends Thread
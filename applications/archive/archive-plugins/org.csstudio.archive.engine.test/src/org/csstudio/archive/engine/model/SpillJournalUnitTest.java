@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.csstudio.archive.vtype.ArchiveVEnum;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VEnum;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VString;
+import org.diirt.vtype.VType;
+import org.junit.Test;
+
+/** JUnit test of the {@link SpillJournal}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class SpillJournalUnitTest
+{
+    @Test
+    public void testAddReplay() throws Exception
+    {
+        final File file = File.createTempFile("spill", ".journal");
+        final SpillJournal journal = new SpillJournal(file, 1024);
+        try
+        {
+            assertTrue(journal.isEmpty());
+            final Instant time = Instant.ofEpochSecond(1000, 42);
+            assertTrue(journal.add(0, new ArchiveVNumber(time, AlarmSeverity.MINOR, "LOW", TestHelper.display, 3.14)));
+            assertTrue(journal.add(1, new ArchiveVNumber(time, AlarmSeverity.NONE, "OK", TestHelper.display, 42L)));
+            assertTrue(journal.add(2, new ArchiveVEnum(time, AlarmSeverity.NONE, "OK", Arrays.asList("Off", "On"), 1)));
+            assertTrue(journal.add(0, new ArchiveVNumberArray(time, AlarmSeverity.NONE, "OK", TestHelper.display, 1.0, 2.0)));
+            assertTrue(journal.add(3, new ArchiveVString(time, AlarmSeverity.NONE, "OK", "Text")));
+            assertEquals(5, journal.getSampleCount());
+            System.out.println(journal);
+
+            VType sample = journal.read();
+            assertEquals(0, journal.getChannel());
+            assertEquals(Double.valueOf(3.14), ((VNumber) sample).getValue());
+            assertEquals(time, VTypeHelper.getTimestamp(sample));
+            assertEquals(AlarmSeverity.MINOR, VTypeHelper.getSeverity(sample));
+            assertEquals("LOW", VTypeHelper.getMessage(sample));
+
+            // Read again after rollback
+            journal.rollback();
+            sample = journal.read();
+            assertEquals(0, journal.getChannel());
+            journal.commit();
+            assertEquals(4, journal.getSampleCount());
+
+            sample = journal.read();
+            assertEquals(1, journal.getChannel());
+            assertEquals(Long.valueOf(42), ((VNumber) sample).getValue());
+            assertEquals("Eggs", ((VNumber) sample).getUnits());
+
+            sample = journal.read();
+            assertEquals(2, journal.getChannel());
+            assertEquals("On", ((VEnum) sample).getValue());
+
+            sample = journal.read();
+            assertEquals(0, journal.getChannel());
+            assertEquals(2, ((VNumberArray) sample).getData().size());
+
+            sample = journal.read();
+            assertEquals(3, journal.getChannel());
+            assertEquals("Text", ((VString) sample).getValue());
+
+            assertNull(journal.read());
+            journal.commit();
+            assertTrue(journal.isEmpty());
+            assertEquals(0, journal.getSampleCount());
+            assertEquals(0, journal.getSize());
+        }
+        finally
+        {
+            journal.close();
+        }
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testFull() throws Exception
+    {
+        final File file = File.createTempFile("spill", ".journal");
+        final SpillJournal journal = new SpillJournal(file, 200);
+        try
+        {
+            int added = 0;
+            while (journal.add(0, TestHelper.newValue(added)))
+                ++added;
+            assertTrue(added > 0);
+            assertEquals(1, journal.getDropped());
+            assertEquals(added, journal.getSampleCount());
+
+            // Each sample that doesn't fit is counted
+            for (int i=0; i<4; ++i)
+                assertFalse(journal.add(1, TestHelper.newValue(i)));
+            assertEquals(5, journal.getDropped());
+            assertEquals(added, journal.getSampleCount());
+
+            // Room after replay
+            while (journal.read() != null)
+                ;
+            journal.commit();
+            assertTrue(journal.add(0, TestHelper.newValue(42)));
+            assertEquals(1, journal.getSampleCount());
+        }
+        finally
+        {
+            journal.close();
+        }
+    }
+}
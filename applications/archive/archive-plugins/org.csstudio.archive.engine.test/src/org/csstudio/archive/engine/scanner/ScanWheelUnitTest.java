@@ -0,0 +1,207 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/** Unit test of the ScanWheel
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ScanWheelUnitTest
+{
+    /** Scannable item that counts invocations */
+    static class ScanItem implements Runnable
+    {
+        final AtomicInteger scans = new AtomicInteger();
+        final AtomicInteger active = new AtomicInteger();
+        final long delay;
+        volatile boolean concurrent = false;
+
+        ScanItem(final long delay)
+        {
+            this.delay = delay;
+        }
+
+        @Override
+        public void run()
+        {
+            if (active.incrementAndGet() > 1)
+                concurrent = true;
+            scans.incrementAndGet();
+            if (delay > 0)
+            {
+                try
+                {
+                    Thread.sleep(delay);
+                }
+                catch (InterruptedException ex)
+                {
+                    // Ignore
+                }
+            }
+            active.decrementAndGet();
+        }
+
+        /** @param count Number of scans to await */
+        void awaitScans(final int count) throws InterruptedException
+        {
+            while (scans.get() < count)
+                Thread.sleep(10);
+        }
+
+        /** Wait until item is being scanned */
+        void awaitActive() throws InterruptedException
+        {
+            while (active.get() < 1)
+                Thread.sleep(1);
+        }
+    }
+
+    /** Scan items on different periods */
+    @Test
+    public void testScan() throws Exception
+    {
+        final ScanWheel scanner = new ScanWheel(2);
+        final ScanItem fast = new ScanItem(0), slow = new ScanItem(0), never = new ScanItem(0);
+        scanner.add(fast, 0.2);
+        scanner.add(slow, 1.0);
+        // Beyond the first levels of the wheel
+        scanner.add(never, 60.0);
+        assertEquals(3, scanner.size());
+
+        scanner.start();
+        Thread.sleep(2100);
+        scanner.stop();
+
+        System.out.println("Fast scans: " + fast.scans.get() + ", slow scans: " + slow.scans.get());
+        assertTrue(Math.abs(fast.scans.get() - 10) <= 1);
+        assertTrue(Math.abs(slow.scans.get() - 2) <= 1);
+        assertEquals(0, never.scans.get());
+
+        final List<ScanStats> stats = scanner.getScanStats();
+        for (ScanStats period : stats)
+            System.out.println(period);
+        assertEquals(3, stats.size());
+        assertEquals(0.2, stats.get(0).getPeriod(), 0.001);
+        assertEquals(fast.scans.get(), stats.get(0).getScanCount());
+        assertEquals(0, stats.get(0).getMissedCount());
+        assertTrue(stats.get(0).getMaxLateness() < 0.1);
+        assertTrue(stats.get(0).getAverageJitter() < 0.05);
+
+        // No scans after stop
+        final int scans = fast.scans.get();
+        Thread.sleep(500);
+        assertEquals(scans, fast.scans.get());
+
+        // Restart
+        scanner.start();
+        Thread.sleep(500);
+        scanner.stop();
+        assertTrue(fast.scans.get() > scans);
+    }
+
+    /** Add and remove items */
+    @Test(timeout=10000)
+    public void testRemove() throws Exception
+    {
+        final ScanWheel scanner = new ScanWheel(1);
+        final ScanItem item = new ScanItem(0);
+        scanner.add(item, 1.0);
+        // Re-adding moves to the new period
+        scanner.add(item, 0.1);
+        assertEquals(1, scanner.size());
+        assertEquals(1, scanner.getScanStats().size());
+        assertEquals(0.1, scanner.getScanStats().get(0).getPeriod(), 0.001);
+
+        scanner.start();
+        item.awaitScans(3);
+        scanner.remove(item);
+        final int scans = item.scans.get();
+        Thread.sleep(500);
+        scanner.stop();
+        assertEquals(scans, item.scans.get());
+        assertEquals(0, scanner.size());
+        assertEquals(0, scanner.getScanStats().size());
+    }
+
+    /** Remove an item while it is being scanned */
+    @Test(timeout=10000)
+    public void testRemoveWhileScanning() throws Exception
+    {
+        final ScanWheel scanner = new ScanWheel(4);
+        final ScanItem item = new ScanItem(200);
+        scanner.add(item, 0.1);
+        scanner.start();
+
+        // Removal waits for the ongoing scan
+        item.awaitActive();
+        scanner.remove(item);
+        assertEquals(0, item.active.get());
+        final int scans = item.scans.get();
+
+        // Re-adding never scans the item concurrently with a previous scan
+        scanner.add(item, 0.1);
+        item.awaitActive();
+        scanner.add(item, 0.1);
+        item.awaitScans(scans + 3);
+        scanner.stop();
+        assertTrue(! item.concurrent);
+    }
+
+    /** Items that take longer than their period */
+    @Test
+    public void testMissedScans() throws Exception
+    {
+        final ScanWheel scanner = new ScanWheel(4);
+        final ScanItem item = new ScanItem(250);
+        scanner.add(item, 0.1);
+        scanner.start();
+        Thread.sleep(2000);
+        scanner.stop();
+
+        final ScanStats stats = scanner.getScanStats().get(0);
+        System.out.println(stats);
+        assertTrue(! item.concurrent);
+        assertTrue(stats.getMissedCount() > 0);
+        System.out.format("Idle: %.2f %%\n", scanner.getIdlePercentage());
+        assertTrue(scanner.getIdlePercentage() < 100.0);
+    }
+
+    /** Many items */
+    @Test
+    public void testManyItems() throws Exception
+    {
+        final int N = 100000;
+        final ScanWheel scanner = new ScanWheel(4);
+        final ScanItem[] items = new ScanItem[N];
+        for (int i=0; i<N; ++i)
+        {
+            items[i] = new ScanItem(0);
+            scanner.add(items[i], 0.5 * (1 + i % 4));
+        }
+        scanner.start();
+        Thread.sleep(2200);
+        scanner.stop();
+
+        for (ScanStats period : scanner.getScanStats())
+            System.out.println(period);
+        System.out.format("Idle: %.2f %%\n", scanner.getIdlePercentage());
+        for (int i=0; i<N; ++i)
+        {
+            final int expected = 4 / (1 + i % 4);
+            assertTrue(Math.abs(items[i].scans.get() - expected) <= 1);
+        }
+    }
+}
@@ -57,4 +57,24 @@ public class Messages
     final public static String HTTP_WriteError = "Write Error";
     final public static String HTTP_WritePeriod = "Write Period";
     final public static String HTTP_WriteState = "Write State";
+    final public static String HTTP_WriteDelay = "Write Delay";
+    final public static String HTTP_EarlyWrites = "Early Writes";
+    final public static String HTTP_Backoffs = "Backoffs";
+    final public static String HTTP_HighWater = "High Water";
+    final public static String HTTP_Spilled = "Spilled Samples";
+    final public static String HTTP_SpillSize = "Spill Size";
+    final public static String HTTP_ReplayRate = "Replay Rate";
+    final public static String HTTP_Latency = "Write Latency";
+    final public static String HTTP_ScanPeriods = "Scan Periods";
+    final public static String HTTP_ScanPeriod = "Scan Period";
+    final public static String HTTP_Scans = "Scans";
+    final public static String HTTP_MissedScans = "Missed Scans";
+    final public static String HTTP_Lateness = "Lateness";
+    final public static String HTTP_MaxLateness = "Max. Lateness";
+    final public static String HTTP_Jitter = "Jitter";
+    final public static String HTTP_Writer = "Writer";
+    final public static String HTTP_Startup = "Startup";
+    final public static String HTTP_StartupPhase = "Phase";
+    final public static String HTTP_Duration = "Duration";
+    final public static String HTTP_Writers = "Writers";
 }
@@ -49,6 +49,78 @@ public class Preferences
         return prefs.getInt(Activator.ID, "batch_size", batch_size, null);
     }
 
+    public static int getWriteThreads()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final int write_threads = 1;
+        if (prefs == null)
+            return write_threads;
+        return prefs.getInt(Activator.ID, "write_threads", write_threads, null);
+    }
+
+    public static int getScanThreads()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final int scan_threads = 2;
+        if (prefs == null)
+            return scan_threads;
+        return prefs.getInt(Activator.ID, "scan_threads", scan_threads, null);
+    }
+
+    public static int getConnectThreads()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final int connect_threads = 4;
+        if (prefs == null)
+            return connect_threads;
+        return prefs.getInt(Activator.ID, "connect_threads", connect_threads, null);
+    }
+
+    public static double getConnectRate()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final double connect_rate = 5000.0;
+        if (prefs == null)
+            return connect_rate;
+        return prefs.getDouble(Activator.ID, "connect_rate", connect_rate, null);
+    }
+
+    public static double getWriteHighWater()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final double high_water = 0.8;
+        if (prefs == null)
+            return high_water;
+        return prefs.getDouble(Activator.ID, "write_high_water", high_water, null);
+    }
+
+    public static double getWriteLowWater()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final double low_water = 0.1;
+        if (prefs == null)
+            return low_water;
+        return prefs.getDouble(Activator.ID, "write_low_water", low_water, null);
+    }
+
+    public static String getSpillDirectory()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final String spill_directory = "";
+        if (prefs == null)
+            return spill_directory;
+        return prefs.getString(Activator.ID, "spill_directory", spill_directory, null);
+    }
+
+    public static int getSpillSizeMB()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        final int spill_size = 100;
+        if (prefs == null)
+            return spill_size;
+        return prefs.getInt(Activator.ID, "spill_size", spill_size, null);
+    }
+
     public static double getBufferReserve()
     {
         final IPreferencesService prefs = Platform.getPreferencesService();
@@ -62,15 +62,6 @@ abstract public class ArchiveChannel extends PVListenerAdapter
      */
     private boolean is_running = false;
 
-    /** Do we need to log a 'write error' sample?
-     *  <p>
-     *  The sample buffer will indicate write errors.
-     *  While in error, we keep adding samples, which
-     *  will probably cause overrides.
-     *  When we can write again, we add one info sample.
-     */
-    private boolean need_write_error_sample = false;
-
     /** Do we need to log a 'first' sample?
      *  <p>
      *  After startup, or after a network disconnect,
@@ -384,11 +375,12 @@ abstract public class ArchiveChannel extends PVListenerAdapter
         if (!enabled)
             return false;
 
-        // Did we recover from write errors?
-        if (need_write_error_sample &&
-            SampleBuffer.isInErrorState() == false)
+        // Did we recover from write errors that lost samples?
+        // The sample buffer notes when samples are lost while in error.
+        // When we can write again, we add one info sample.
+        if (buffer.isWriterInErrorState() == false  &&
+            buffer.clearLostSamples())
         {
-            need_write_error_sample = false;
             Activator.getLogger().log(Level.FINE, "Wrote error sample for {0}", getName());
             addInfoToBuffer(ValueButcher.createWriteError());
             need_first_sample = true;
@@ -488,8 +480,6 @@ abstract public class ArchiveChannel extends PVListenerAdapter
             last_archived_value = value;
         }
         buffer.add(value);
-        if (SampleBuffer.isInErrorState())
-            need_write_error_sample = true;
         return true;
     }
 
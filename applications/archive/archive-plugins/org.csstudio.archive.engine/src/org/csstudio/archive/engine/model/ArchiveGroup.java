@@ -121,8 +121,11 @@ public class ArchiveGroup
         return enabled ;
     }
 
-    /** Start all the channels in group */
-    final void start() throws Exception
+    /** Start all the channels in group
+     *  @param starter {@link ChannelStarter} for the channels
+     *  @throws Exception on error
+     */
+    final void start(final ChannelStarter starter) throws Exception
     {
         if (is_running)
             return;
@@ -133,7 +136,7 @@ public class ArchiveGroup
             enabling_channel.getEnablement() == Enablement.Enabling)
             enable(false);
         for (ArchiveChannel channel : channels)
-            channel.start();
+            starter.start(channel);
     }
 
     /** Stop all the channels in group */
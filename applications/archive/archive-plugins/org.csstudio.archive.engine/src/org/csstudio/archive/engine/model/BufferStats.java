@@ -20,6 +20,10 @@ public class BufferStats
 
     private int overruns = 0;
 
+    private int high_water = 0;
+
+    private Average latency = new Average();
+
     /** @return Maximum queue size so far
      *  @see #reset()
      */
@@ -40,12 +44,29 @@ public class BufferStats
         return overruns;
     }
 
+    /** @return Number of times the buffer reached its high water mark. */
+    synchronized public final int getHighWaterCount()
+    {
+        return high_water;
+    }
+
+    /** @return (Exponential) moving average of the write latency in seconds,
+     *          i.e. time from adding a sample to an empty buffer
+     *          until the buffer was written.
+     */
+    synchronized public final double getAverageLatency()
+    {
+        return latency.get();
+    }
+
     /** Reset the statistics. */
     synchronized public void reset()
     {
         max_size = 0;
         average_size.reset();
         overruns = 0;
+        high_water = 0;
+        latency.reset();
     }
 
     /** Update the buffer stats.
@@ -58,6 +79,20 @@ public class BufferStats
         average_size.update(size);
     }
 
+    /** Add a high water mark event. */
+    synchronized public void addHighWater()
+    {
+        ++high_water;
+    }
+
+    /** Update the write latency.
+     *  @param seconds Time from adding first sample to empty buffer until written
+     */
+    synchronized public void updateLatency(final double seconds)
+    {
+        latency.update(seconds);
+    }
+
     /** Add an overrun. */
     synchronized public void addOverrun()
     {
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Starts archive channels in parallel, limiting the rate of new channels
+ *
+ *  <p>Channels are submitted by one thread, which is delayed
+ *  as necessary to keep below the rate limit.
+ *  A pool of threads then creates the PVs.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+class ChannelStarter
+{
+    /** Only delay when ahead of schedule by at least this time */
+    private static final long MIN_DELAY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    final private ExecutorService executor;
+
+    /** Nanoseconds between channel starts, 0 for no limit */
+    final private long period;
+
+    /** Time when the next channel may start */
+    private long next_start = System.nanoTime();
+
+    final private List<Future<?>> started = new ArrayList<>();
+
+    /** @param threads Number of threads
+     *  @param rate Maximum number of channels to start per second, 0 for no limit
+     */
+    public ChannelStarter(final int threads, final double rate)
+    {
+        final AtomicInteger count = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(Math.max(1, threads),
+            runnable -> new Thread(runnable, "ChannelStarter " + count.incrementAndGet()));
+        period = rate > 0 ? (long) (1e9 / rate) : 0;
+    }
+
+    /** Start a channel
+     *  @param channel Channel to start
+     *  @throws InterruptedException when interrupted while waiting for the rate limit
+     */
+    public void start(final ArchiveChannel channel) throws InterruptedException
+    {
+        if (period > 0)
+        {
+            final long now = System.nanoTime();
+            final long ahead = next_start - now;
+            if (ahead >= MIN_DELAY)
+                TimeUnit.NANOSECONDS.sleep(ahead);
+            next_start = Math.max(now, next_start) + period;
+        }
+        started.add(executor.submit(() ->
+        {
+            channel.start();
+            return null;
+        }));
+    }
+
+    /** Wait for all submitted channels to be started
+     *  @throws Exception Error from the first channel that failed to start
+     */
+    public void await() throws Exception
+    {
+        executor.shutdown();
+        try
+        {
+            for (Future<?> future : started)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException ex)
+                {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof Exception)
+                        throw (Exception) cause;
+                    throw ex;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+            started.clear();
+        }
+    }
+}
@@ -10,8 +10,10 @@ package org.csstudio.archive.engine.model;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Level;
 
 import org.csstudio.archive.config.ArchiveConfig;
 import org.csstudio.archive.config.ChannelConfig;
@@ -20,8 +22,8 @@ import org.csstudio.archive.config.GroupConfig;
 import org.csstudio.archive.config.SampleMode;
 import org.csstudio.archive.engine.Activator;
 import org.csstudio.archive.engine.Preferences;
-import org.csstudio.archive.engine.scanner.ScanThread;
-import org.csstudio.archive.engine.scanner.Scanner;
+import org.csstudio.archive.engine.scanner.ScanStats;
+import org.csstudio.archive.engine.scanner.ScanWheel;
 import org.csstudio.archive.vtype.ArchiveVString;
 import org.csstudio.archive.vtype.TimestampHelper;
 import org.diirt.vtype.AlarmSeverity;
@@ -40,8 +42,10 @@ public class EngineModel
     /** Name of this model */
     private String name = "Archive Engine";  //$NON-NLS-1$
 
-    /** Thread that writes to the <code>archive</code> */
-    final private WriteThread writer;
+    /** Threads that write to the <code>archive</code>,
+     *  each handling a subset of the channels
+     */
+    final private WriteThread[] writers;
 
     /** All the channels.
      *  <p>
@@ -62,10 +66,7 @@ public class EngineModel
     final List<ArchiveGroup> groups = new ArrayList<ArchiveGroup>();
 
     /** Scanner for scanned channels */
-    final Scanner scanner = new Scanner();
-
-    /** Thread that runs the scanner */
-    final ScanThread scan_thread = new ScanThread(scanner);
+    final ScanWheel scanner = new ScanWheel(Preferences.getScanThreads());
 
     /** Engine states */
     public enum State
@@ -88,6 +89,12 @@ public class EngineModel
     /** Start time of the model */
     private Instant start_time = null;
 
+    /** Duration in seconds of each startup phase, in order.
+     *  <p>
+     *  Accessed by HTTPD and main thread, so lock on the map
+     */
+    final private Map<String, Double> startup_phases = new LinkedHashMap<>();
+
     /** Write period in seconds */
     final private static int write_period = Preferences.getWritePeriodSecs();
 
@@ -97,16 +104,31 @@ public class EngineModel
     /** Write batch size */
     final private static int batch_size = Preferences.getBatchSize();
 
+    /** Number of write threads */
+    final private static int write_threads = Math.max(1, Preferences.getWriteThreads());
+
     /** Buffer reserve (N times what's ideally needed) */
     final private static double buffer_reserve = Preferences.getBufferReserve();
 
+    /** Number of threads that start channels */
+    final private static int connect_threads = Preferences.getConnectThreads();
+
+    /** Maximum number of channels to start per second */
+    final private static double connect_rate = Preferences.getConnectRate();
+
     /** Samples with time stamps this far ahead of the local time are ignored */
     final private static long ignored_future = Preferences.getIgnoredFutureSecs();
 
     /** Construct model that writes to archive */
+    @SuppressWarnings("nls")
     public EngineModel()
     {
-        writer = new WriteThread();
+        writers = new WriteThread[write_threads];
+        if (write_threads == 1)
+            writers[0] = new WriteThread();
+        else
+            for (int i=0; i<write_threads; ++i)
+                writers[i] = new WriteThread("WriteThread " + (i+1));
     }
 
     /** @return Name (description) */
@@ -133,6 +155,28 @@ public class EngineModel
         return batch_size;
     }
 
+    /** @return Number of write threads */
+    public int getWriterCount()
+    {
+        return writers.length;
+    }
+
+    /** @param index Write thread index, 0 ... <code>getWriterCount()-1</code>
+     *  @return Write thread
+     */
+    public WriteThread getWriter(final int index)
+    {
+        return writers[index];
+    }
+
+    /** @param name Channel name
+     *  @return Write thread for that channel
+     */
+    private WriteThread getWriterForChannel(final String name)
+    {
+        return writers[Math.floorMod(name.hashCode(), writers.length)];
+    }
+
     /** @return Current model state */
     public State getState()
     {
@@ -299,7 +343,7 @@ public class EngineModel
             channels.add(channel);
             channel_by_name.put(channel.getName(), channel);
         }
-        writer.addChannel(channel);
+        getWriterForChannel(channel.getName()).addChannel(channel);
 
         // Connect new or old channel to group
         channel.addGroup(group);
@@ -309,47 +353,100 @@ public class EngineModel
     }
 
     /** Start processing all channels and writing to archive. */
+    @SuppressWarnings("nls")
     public void start() throws Exception
     {
         start_time = Instant.now();
         state = State.RUNNING;
-        writer.start(write_period, batch_size);
-        for (ArchiveGroup group : groups)
+        for (WriteThread writer : writers)
+            writer.start(write_period, batch_size);
+        final long start = System.nanoTime();
+        final ChannelStarter starter = new ChannelStarter(connect_threads, connect_rate);
+        try
         {
-            group.start();
-            // Check for stop request.
-            // Unfortunately, we don't check inside group.start(),
-            // which could have run for some time....
-            if (state == State.SHUTDOWN_REQUESTED)
-                break;
+            for (ArchiveGroup group : groups)
+            {
+                group.start(starter);
+                // Check for stop request.
+                // Unfortunately, we don't check inside group.start(),
+                // which could have run for some time....
+                if (state == State.SHUTDOWN_REQUESTED)
+                    break;
+            }
+        }
+        finally
+        {
+            starter.await();
+        }
+        addStartupPhase("Start channels", start);
+        scanner.start();
+    }
+
+    /** @param phase Name of startup phase
+     *  @param start System.nanoTime() when phase started
+     */
+    private void addStartupPhase(final String phase, final long start)
+    {
+        final double secs = (System.nanoTime() - start) / 1e9;
+        Activator.getLogger().log(Level.INFO, "{0}: {1} seconds", new Object[] { phase, secs });
+        synchronized (startup_phases)
+        {
+            startup_phases.put(phase, secs);
         }
-        scan_thread.start();
     }
 
-    /** @return Timestamp of end of last write run */
+    /** @return Duration in seconds of each startup phase, in order */
+    public Map<String, Double> getStartupPhases()
+    {
+        synchronized (startup_phases)
+        {
+            return new LinkedHashMap<>(startup_phases);
+        }
+    }
+
+    /** @return Timestamp of end of last write run of any write thread */
     public Instant getLastWriteTime()
     {
-        return writer.getLastWriteTime();
+        Instant last = null;
+        for (WriteThread writer : writers)
+        {
+            final Instant time = writer.getLastWriteTime();
+            if (time != null  &&  (last == null  ||  time.isAfter(last)))
+                last = time;
+        }
+        return last;
     }
 
-    /** @return Average number of values per write run */
+    /** @return Average number of values per write run, summed over all write threads */
     public double getWriteCount()
     {
-        return writer.getWriteCount();
+        double count = 0.0;
+        for (WriteThread writer : writers)
+            count += writer.getWriteCount();
+        return count;
     }
 
-    /** @return  Average duration of write run in seconds */
+    /** @return  Average duration of write run in seconds, maximum of all write threads */
     public double getWriteDuration()
     {
-        return writer.getWriteDuration();
+        double duration = 0.0;
+        for (WriteThread writer : writers)
+            duration = Math.max(duration, writer.getWriteDuration());
+        return duration;
     }
 
-    /** @see Scanner#getIdlePercentage() */
+    /** @see ScanWheel#getIdlePercentage() */
     public double getIdlePercentage()
     {
         return scanner.getIdlePercentage();
     }
 
+    /** @see ScanWheel#getScanStats() */
+    public List<ScanStats> getScanStats()
+    {
+        return scanner.getScanStats();
+    }
+
     /** Ask the model to stop.
      *  Merely updates the model state.
      *  @see #getState()
@@ -374,7 +471,8 @@ public class EngineModel
     /** Reset engine statistics */
     public void reset()
     {
-        writer.reset();
+        for (WriteThread writer : writers)
+            writer.reset();
         scanner.reset();
         synchronized (this)
         {
@@ -389,17 +487,32 @@ public class EngineModel
     {
         state = State.STOPPING;
         Activator.getLogger().info("Stopping scanner");
-        // Stop scanning
-        scan_thread.stop();
-        // Assert that scanning has stopped before we add 'off' events
-        scan_thread.join();
+        // Stop scanning, which waits for ongoing scans
+        // to assert that scanning has stopped before we add 'off' events
+        scanner.stop();
         // Disconnect from network
         Activator.getLogger().info("Stopping archive groups");
         for (ArchiveGroup group : groups)
             group.stop();
         // Flush all values out
         Activator.getLogger().info("Stopping writer");
-        writer.shutdown();
+        Exception error = null;
+        for (WriteThread writer : writers)
+        {
+            try
+            {
+                writer.shutdown();
+            }
+            catch (Exception ex)
+            {   // Keep stopping the remaining writers, then report
+                if (error == null)
+                    error = ex;
+                else
+                    error.addSuppressed(ex);
+            }
+        }
+        if (error != null)
+            throw error;
         // Update state
         state = State.IDLE;
         start_time = null;
@@ -415,6 +528,11 @@ public class EngineModel
     public void readConfig(final ArchiveConfig config, final String name, final int port, final boolean skip_last) throws Exception
     {
         this.name = name;
+        synchronized (startup_phases)
+        {
+            startup_phases.clear();
+        }
+        long start = System.nanoTime();
         final EngineConfig engine = config.findEngine(name);
         if (engine == null)
             throw new Exception("Unknown engine '" + name + "'");
@@ -424,14 +542,18 @@ public class EngineModel
             throw new Exception("Engine running on port " + port +
                 " while configuration requires " + engine.getURL().toString());
 
-        // Get groups
+        // Get groups and their channels
         final GroupConfig[] engine_groups = config.getGroups(engine);
-        for (GroupConfig group_config : engine_groups)
+        final ChannelConfig[][] group_channels = config.getChannels(engine, engine_groups, skip_last);
+        addStartupPhase("Read configuration", start);
+
+        start = System.nanoTime();
+        for (int g=0; g<engine_groups.length; ++g)
         {
+            final GroupConfig group_config = engine_groups[g];
             final ArchiveGroup group = addGroup(group_config.getName());
             // Add channels to group
-            final ChannelConfig[] channel_configs = config.getChannels(group_config, skip_last);
-            for (ChannelConfig channel_config : channel_configs)
+            for (ChannelConfig channel_config : group_channels[g])
             {
                 Enablement enablement = Enablement.Passive;
                 if (channel_config.getName().equals(group_config.getEnablingChannel()))
@@ -442,6 +564,7 @@ public class EngineModel
                            mode, channel_config.getLastSampleTime());
             }
         }
+        addStartupPhase("Create channels", start);
     }
 
     /** Remove all channels and groups. */
@@ -7,22 +7,58 @@
  ******************************************************************************/
 package org.csstudio.archive.engine.model;
 
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 
-import org.csstudio.apputil.ringbuffer.RingBuffer;
 import org.csstudio.archive.engine.ThrottledLogger;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.MetaDataHelper;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VNumber;
 import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
 
 /** Buffer for the samples of one channel.
  *  <p>
  *  Assumes that one thread adds samples, while a different
  *  thread removes them.
  *  When the queue size is reached, older samples get dropped.
+ *  <p>
+ *  The queue is lock-free between the adding and the removing
+ *  thread: Both only coordinate via the atomic <code>head</code>
+ *  and volatile <code>tail</code> counters.
+ *  When the buffer is full, the adding thread drops the oldest
+ *  sample by advancing <code>head</code> with a compare-and-set,
+ *  which the removing thread uses to detect that the sample it
+ *  just read had been dropped.
+ *  <p>
+ *  Scalar numbers are kept in primitive columns
+ *  (time stamp, value, severity), together with the status text
+ *  and display meta data that are typically shared by all samples
+ *  of a channel.
+ *  Only arrays, strings, enums, ... are kept as {@link VType}.
  *
  *  @author Kay Kasemir
  */
 public class SampleBuffer
 {
+    /** Sample kind: Keep {@link VType} in <code>objects</code> */
+    final private static byte KIND_OBJECT = 0;
+
+    /** Sample kind: Number with 'double' value in <code>values</code> */
+    final private static byte KIND_DOUBLE = 1;
+
+    /** Sample kind: Number with 'long' value in <code>values</code> */
+    final private static byte KIND_LONG = 2;
+
+    /** Severities by ordinal */
+    final private static AlarmSeverity[] SEVERITIES = AlarmSeverity.values();
+
     /** Name of channel that writes to this buffer.
      *  (we keep only the name, not the full channel,
      *  to decouple stuff).
@@ -34,8 +70,83 @@ public class SampleBuffer
      */
     final private String retention;
 
-    /** The actual samples in a thread-save queue. */
-    final private RingBuffer<VType> samples;
+    /** Maximum number of samples in the buffer */
+    final private int capacity;
+
+    /** Kind of sample, KIND_* */
+    final private byte[] kinds;
+
+    /** Time stamp seconds */
+    final private long[] seconds;
+
+    /** Time stamp nanoseconds */
+    final private int[] nanos;
+
+    /** Value of numbers as long or double bits */
+    final private long[] values;
+
+    /** Severity ordinal of numbers */
+    final private byte[] severities;
+
+    /** Status of numbers */
+    final private String[] stati;
+
+    /** {@link Display} of numbers, or complete {@link VType} for other samples */
+    final private Object[] objects;
+
+    /** Count of samples that have been removed (or dropped).
+     *  Oldest sample is at index <code>head % capacity</code>.
+     *  Advanced by remove(), and by add() when dropping the oldest sample.
+     */
+    final private AtomicLong head = new AtomicLong();
+
+    /** Count of samples that have been added.
+     *  Next sample goes to index <code>tail % capacity</code>.
+     *  Only advanced by add(), after the sample has been placed.
+     */
+    private volatile long tail = 0;
+
+    /** Serializes threads that add samples.
+     *  Usually only the channel's PV thread adds samples,
+     *  but stop() or enablement changes may add info samples
+     *  from other threads.
+     *  The thread that removes samples never locks this.
+     */
+    final private Object add_lock = new Object();
+
+    /** Display of the most recently added number.
+     *  SYNC on add_lock
+     */
+    private Display last_display = null;
+
+    /** Display (sample) from which <code>last_display</code> was obtained.
+     *  SYNC on add_lock
+     */
+    private Display last_source = null;
+
+    /** Write thread to notify when reaching the high water mark, or <code>null</code> */
+    private volatile WriteThread write_thread = null;
+
+    /** Index of this buffer in its write thread */
+    private volatile int write_index = -1;
+
+    /** Were samples lost because of write errors?
+     *  Set when samples are dropped while the write thread is in error,
+     *  reset by the channel when it adds a 'write error' sample.
+     */
+    final private AtomicBoolean lost_samples = new AtomicBoolean();
+
+    /** Queue size that triggers the write thread */
+    private volatile int high_water;
+
+    /** Has this buffer requested a write since the last write run?
+     *  Set once when reaching the high water mark,
+     *  reset by the write thread after removing the samples.
+     */
+    final private AtomicBoolean write_requested = new AtomicBoolean();
+
+    /** System.nanoTime() when a sample was added to the empty buffer, 0 if not known */
+    final private AtomicLong first_add = new AtomicLong();
 
     /** Statistics */
     final private BufferStats stats = new BufferStats();
@@ -47,10 +158,10 @@ public class SampleBuffer
     final private static ThrottledLogger overrun_msg =
         new ThrottledLogger(Level.WARNING, "log_overrun"); //$NON-NLS-1$
 
-    /** Is the buffer in an error state because of RDB write errors?
+    /** Number of write threads that are in an error state because of RDB write errors.
      *  Note that this is global for all buffers, not per instance!
      */
-    private static volatile boolean error = false;
+    private static final AtomicInteger errors = new AtomicInteger();
 
     /** Create sample buffer of given capacity
      * @deprecated Use {@link #SampleBuffer(String,String,int)} instead*/
@@ -65,7 +176,47 @@ public class SampleBuffer
     {
         this.channel_name = channel_name;
         this.retention = retention;
-        samples = new RingBuffer<VType>(capacity);
+        this.capacity = capacity;
+        kinds = new byte[capacity];
+        seconds = new long[capacity];
+        nanos = new int[capacity];
+        values = new long[capacity];
+        severities = new byte[capacity];
+        stati = new String[capacity];
+        objects = new Object[capacity];
+    }
+
+    /** @param write_thread Write thread that handles this buffer
+     *  @param index Index of this buffer in the write thread
+     *  @param high_water Fraction of capacity at which to request a write
+     */
+    void setWriteThread(final WriteThread write_thread, final int index, final double high_water)
+    {
+        // Require at least 2 samples, so a buffer of
+        // a slow channel doesn't trigger on each sample
+        this.high_water = Math.min(capacity, Math.max(2, (int) Math.ceil(capacity * high_water)));
+        this.write_index = index;
+        this.write_thread = write_thread;
+    }
+
+    /** @return Index of this buffer in its write thread */
+    int getWriteIndex()
+    {
+        return write_index;
+    }
+
+    /** Note that samples of this buffer were lost because of write errors */
+    void setLostSamples()
+    {
+        lost_samples.set(true);
+    }
+
+    /** Get and clear the 'lost samples' flag
+     *  @return <code>true</code> if samples were lost since the last call
+     */
+    boolean clearLostSamples()
+    {
+        return lost_samples.get()  &&  lost_samples.getAndSet(false);
     }
 
     /** @return channel name of this buffer */
@@ -83,40 +234,76 @@ public class SampleBuffer
     /** @return Queue capacity, i.e. maximum queue size. */
     public int getCapacity()
     {
-        synchronized (samples)
-        {
-            return samples.getCapacity();
-        }
+        return capacity;
     }
 
     /** @return Current queue size, i.e. number of samples in the queue. */
     public int getQueueSize()
     {
-        synchronized (samples)
-        {
-            return samples.size();
-        }
+        // Read head first: tail can only grow, so size is never negative
+        final long start = head.get();
+        final int size = (int) (tail - start);
+        return Math.max(0, Math.min(size, capacity));
     }
 
-    /** @return <code>true</code> if currently experiencing write errors */
+    /** @return <code>true</code> if any write thread currently experiences write errors */
     public static boolean isInErrorState()
     {
-        return error;
+        return errors.get() > 0;
+    }
+
+    /** @return <code>true</code> if the write thread that handles this buffer
+     *          currently experiences write errors
+     */
+    boolean isWriterInErrorState()
+    {
+        final WriteThread thread = write_thread;
+        if (thread == null)
+            return isInErrorState();
+        return thread.isInErrorState();
     }
 
-    /** Set the error state. */
+    /** Set the error state.
+     *  <p>
+     *  Called by each write thread when it enters
+     *  resp. leaves the error state.
+     *  Buffers are in error state while any write thread is.
+     *  @param error <code>true</code> when a write thread enters the error state,
+     *               <code>false</code> when it leaves it
+     */
     static void setErrorState(final boolean error)
     {
-        SampleBuffer.error = error;
+        if (error)
+            errors.incrementAndGet();
+        else
+            errors.decrementAndGet();
     }
 
     /** Add a sample to the queue, maybe dropping older samples */
     @SuppressWarnings("nls")
     void add(final VType value)
     {
-        synchronized (samples)
+        synchronized (add_lock)
         {
-            if (samples.isFull())
+            final long end = tail;
+            // Is the buffer full? Then try to drop the oldest sample.
+            // If the compare-and-set fails, remove() just took
+            // the oldest sample, so there's room after all.
+            final long start = head.get();
+            boolean overrun = false;
+            if (end - start >= capacity)
+            {   // While the writer is in error, move the oldest sample
+                // to the spill journal, else drop it
+                final WriteThread thread = write_thread;
+                final boolean error = thread != null  &&  thread.isInErrorState();
+                if (! (error  &&  thread.spill(this)))
+                {
+                    overrun = head.compareAndSet(start, start + 1);
+                    if (overrun  &&  error)
+                        setLostSamples();
+                }
+            }
+            if (overrun)
             {   // Note start of overruns, then drop older sample
                 if (start_of_overruns == null)
                     start_of_overruns = Integer.valueOf(stats.getOverruns());
@@ -128,23 +315,169 @@ public class SampleBuffer
                 overrun_msg.log(channel_name + ": " + overruns + " overruns");
                 start_of_overruns = null;
             }
-            samples.add(value);
+            put((int) (end % capacity), value);
+            // Publish the sample
+            tail = end + 1;
+        }
+        final int size = getQueueSize();
+        if (size == 1)
+            first_add.compareAndSet(0, System.nanoTime());
+        // Size may skip past the mark when another thread adds or removes,
+        // so check for '>=' and request only once until the next write run
+        if (size >= high_water  &&  write_requested.compareAndSet(false, true))
+        {
+            final WriteThread thread = write_thread;
+            if (thread != null)
+            {
+                stats.addHighWater();
+                thread.requestWrite();
+            }
+        }
+    }
+
+    /** Place sample in slot
+     *  @param i Slot index
+     *  @param value Sample
+     */
+    private void put(final int i, final VType value)
+    {
+        if (value instanceof VNumber)
+        {
+            final VNumber number = (VNumber) value;
+            final Number num = number.getValue();
+            if (num instanceof Double  ||  num instanceof Float)
+            {
+                kinds[i] = KIND_DOUBLE;
+                values[i] = Double.doubleToRawLongBits(num.doubleValue());
+            }
+            else
+            {
+                kinds[i] = KIND_LONG;
+                values[i] = num.longValue();
+            }
+            final Instant time = number.getTimestamp();
+            seconds[i] = time.getEpochSecond();
+            nanos[i] = time.getNano();
+            severities[i] = (byte) number.getAlarmSeverity().ordinal();
+            stati[i] = number.getAlarmName();
+            // Keep only the display, not the sample
+            objects[i] = getDisplay(number);
+        }
+        else
+        {
+            kinds[i] = KIND_OBJECT;
+            objects[i] = value;
         }
     }
 
+    /** @param display Display of a received sample
+     *  @return Copy of the display, shared with preceding samples if unchanged
+     */
+    private Display getDisplay(final Display display)
+    {
+        if (display == last_source)
+            return last_display;
+        last_source = display;
+        if (! MetaDataHelper.equals(display, last_display))
+            last_display = ValueFactory.newDisplay(
+                display.getLowerDisplayLimit(), display.getLowerAlarmLimit(),
+                display.getLowerWarningLimit(), display.getUnits(), display.getFormat(),
+                display.getUpperWarningLimit(), display.getUpperAlarmLimit(),
+                display.getUpperDisplayLimit(),
+                display.getLowerCtrlLimit(), display.getUpperCtrlLimit());
+        return last_display;
+    }
+
     /** @return latest sample in queue or <code>null</code> if empty */
     VType remove()
     {
-        synchronized (samples)
+        while (true)
         {
-            return samples.remove();
+            final long start = head.get();
+            if (start >= tail)
+                return null;
+            // Copy the slot, then check if add() dropped this sample
+            // while we read it, in which case the copy may be inconsistent
+            final int i = (int) (start % capacity);
+            final byte kind = kinds[i];
+            final Object object = objects[i];
+            final long secs = seconds[i];
+            final int nano = nanos[i];
+            final long value = values[i];
+            final byte severity = severities[i];
+            final String status = stati[i];
+            if (! head.compareAndSet(start, start + 1))
+                continue;
+            if (kind == KIND_OBJECT)
+                return (VType) object;
+            final Number number;
+            if (kind == KIND_DOUBLE)
+                number = Double.valueOf(Double.longBitsToDouble(value));
+            else
+                number = Long.valueOf(value);
+            return new ArchiveVNumber(Instant.ofEpochSecond(secs, nano),
+                                      SEVERITIES[severity], status, (Display) object, number);
         }
     }
 
-    /** Update stats with current values */
-    void updateStats()
+    /** @return Time stamp of oldest sample in queue or <code>null</code> if empty */
+    Instant peekTime()
+    {
+        while (true)
+        {
+            final long start = head.get();
+            if (start >= tail)
+                return null;
+            // Copy the slot, then check if add() dropped this sample
+            final int i = (int) (start % capacity);
+            final byte kind = kinds[i];
+            final Object object = objects[i];
+            final long secs = seconds[i];
+            final int nano = nanos[i];
+            if (head.get() != start)
+                continue;
+            if (kind == KIND_OBJECT)
+                return VTypeHelper.getTimestamp((VType) object);
+            return Instant.ofEpochSecond(secs, nano);
+        }
+    }
+
+    /** Update stats with current values
+     *  @return Current queue size
+     */
+    int updateStats()
+    {
+        final int size = getQueueSize();
+        stats.updateSizes(size);
+        return size;
+    }
+
+    /** Get and clear the time when a sample was added to the empty buffer.
+     *  <p>
+     *  To be called by the write thread before removing samples.
+     *  @return System.nanoTime() of first added sample, 0 if not known
+     */
+    long getFirstAddTime()
+    {
+        return first_add.getAndSet(0);
+    }
+
+    /** Allow the buffer to request another write run.
+     *  <p>
+     *  To be called by the write thread after removing samples.
+     */
+    void clearWriteRequest()
+    {
+        write_requested.set(false);
+    }
+
+    /** Update write latency after samples have been removed
+     *  @param first_add_time Result of getFirstAddTime() before removing the samples
+     */
+    void updateLatency(final long first_add_time)
     {
-        stats.updateSizes(getQueueSize());
+        if (first_add_time != 0)
+            stats.updateLatency((System.nanoTime() - first_add_time) * 1e-9);
     }
 
     /** @return Buffer statistics. */
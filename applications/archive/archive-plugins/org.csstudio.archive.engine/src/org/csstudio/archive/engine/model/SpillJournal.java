@@ -0,0 +1,351 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.model;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.csstudio.archive.vtype.ArchiveVEnum;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.util.array.ListNumber;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VEnum;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VString;
+import org.diirt.vtype.VType;
+
+/** Memory-mapped, append-only journal for samples that could not be written.
+ *  <p>
+ *  While its archive writer is in an error state, the {@link WriteThread}
+ *  moves samples from the {@link SampleBuffer}s into the journal.
+ *  When a write fails, the samples of all buffers are merged by time stamp,
+ *  after that full buffers add their oldest samples.
+ *  Once the writer recovers, the samples are read back in that order
+ *  and written before any new samples.
+ *  <p>
+ *  Each record holds the index of the sample buffer within the write thread,
+ *  time stamp, severity, status and value.
+ *  Display meta data and enum labels are not stored in the file.
+ *  The journal remembers the most recent ones per channel
+ *  and uses them for all replayed samples of that channel.
+ *  <p>
+ *  The journal is only valid while the engine runs.
+ *  The file is cleared when opened and deleted when closed.
+ *  <p>
+ *  Thread-safe.
+ *  Sample buffers of the write thread may add samples
+ *  while the write thread reads or commits.
+ *
+ *  @author agent
+ */
+public class SpillJournal
+{
+    final private static byte TYPE_DOUBLE = 1;
+    final private static byte TYPE_LONG = 2;
+    final private static byte TYPE_ENUM = 3;
+    final private static byte TYPE_STRING = 4;
+    final private static byte TYPE_ARRAY = 5;
+
+    /** Severities by ordinal */
+    final private static AlarmSeverity[] SEVERITIES = AlarmSeverity.values();
+
+    /** Journal file */
+    final private File file;
+
+    /** File, kept open while mapped */
+    final private RandomAccessFile raf;
+
+    /** Memory-mapped content of the file */
+    final private MappedByteBuffer buffer;
+
+    /** Position of the next record to write.
+     *  SYNC on this for all positions
+     */
+    private int write_pos = 0;
+
+    /** Position of the next record to read */
+    private int read_pos = 0;
+
+    /** Position up to which replayed records have been written */
+    private int committed_pos = 0;
+
+    /** Buffer index of the record that was last read */
+    private int channel = -1;
+
+    /** Number of samples in the journal that have not been committed */
+    private volatile long samples = 0;
+
+    /** Number of samples that were read but not committed */
+    private long uncommitted = 0;
+
+    /** Number of samples that didn't fit into the journal */
+    private volatile long dropped = 0;
+
+    /** Replay rate of the last replay in samples per second */
+    private volatile double replay_rate = 0.0;
+
+    /** Most recent display meta data by buffer index */
+    final private Map<Integer, Display> displays = new HashMap<>();
+
+    /** Most recent enum labels by buffer index */
+    final private Map<Integer, List<String>> labels = new HashMap<>();
+
+    /** Create (empty) journal
+     *  @param file Journal file
+     *  @param capacity Maximum size of the journal in bytes
+     *  @throws Exception on error
+     */
+    @SuppressWarnings("nls")
+    SpillJournal(final File file, final int capacity) throws Exception
+    {
+        this.file = file;
+        raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+    }
+
+    /** @return <code>true</code> if there are no samples to replay */
+    synchronized boolean isEmpty()
+    {
+        return read_pos >= write_pos;
+    }
+
+    /** @return Number of samples in the journal */
+    public long getSampleCount()
+    {
+        return samples;
+    }
+
+    /** @return Bytes used in the journal */
+    public synchronized int getSize()
+    {
+        return write_pos;
+    }
+
+    /** @return Maximum size of the journal in bytes */
+    public int getCapacity()
+    {
+        return buffer.capacity();
+    }
+
+    /** @return Number of samples that could not be added because the journal was full */
+    public long getDropped()
+    {
+        return dropped;
+    }
+
+    /** @return Samples per second during the last replay */
+    public double getReplayRate()
+    {
+        return replay_rate;
+    }
+
+    /** @param rate Samples per second during a replay */
+    void setReplayRate(final double rate)
+    {
+        replay_rate = rate;
+    }
+
+    /** Add sample to the journal
+     *  @param channel Index of the channel's sample buffer in the write thread
+     *  @param sample Sample
+     *  @return <code>false</code> if the journal is full, sample was dropped
+     */
+    synchronized boolean add(final int channel, final VType sample)
+    {
+        // Determine type and payload size
+        final byte type;
+        int size;
+        byte[] text = null;
+        if (sample instanceof VNumber)
+        {
+            final Number number = ((VNumber) sample).getValue();
+            type = (number instanceof Double  ||  number instanceof Float) ? TYPE_DOUBLE : TYPE_LONG;
+            size = Long.BYTES;
+        }
+        else if (sample instanceof VEnum)
+        {
+            type = TYPE_ENUM;
+            size = Integer.BYTES;
+        }
+        else if (sample instanceof VNumberArray)
+        {
+            type = TYPE_ARRAY;
+            size = Integer.BYTES + ((VNumberArray) sample).getData().size() * Double.BYTES;
+        }
+        else
+        {   // Handle other types as strings, like the RDB writer
+            type = TYPE_STRING;
+            final String value = (sample instanceof VString)
+                               ? ((VString) sample).getValue()
+                               : sample.toString();
+            text = value.getBytes(StandardCharsets.UTF_8);
+            size = Integer.BYTES + text.length;
+        }
+        final byte[] status = VTypeHelper.getMessage(sample).getBytes(StandardCharsets.UTF_8);
+        // channel, seconds, nanos, severity, type, status, payload
+        size += Integer.BYTES + Long.BYTES + Integer.BYTES + 2 + Short.BYTES + status.length;
+
+        if (write_pos + Integer.BYTES + size > buffer.capacity()  ||
+            status.length > Short.MAX_VALUE)
+        {
+            ++dropped;
+            return false;
+        }
+
+        final Instant time = VTypeHelper.getTimestamp(sample);
+        buffer.position(write_pos);
+        buffer.putInt(size);
+        buffer.putInt(channel);
+        buffer.putLong(time.getEpochSecond());
+        buffer.putInt(time.getNano());
+        buffer.put((byte) VTypeHelper.getSeverity(sample).ordinal());
+        buffer.put(type);
+        buffer.putShort((short) status.length);
+        buffer.put(status);
+        switch (type)
+        {
+        case TYPE_DOUBLE:
+            buffer.putDouble(((VNumber) sample).getValue().doubleValue());
+            displays.put(channel, (Display) sample);
+            break;
+        case TYPE_LONG:
+            buffer.putLong(((VNumber) sample).getValue().longValue());
+            displays.put(channel, (Display) sample);
+            break;
+        case TYPE_ENUM:
+            buffer.putInt(((VEnum) sample).getIndex());
+            labels.put(channel, ((VEnum) sample).getLabels());
+            break;
+        case TYPE_ARRAY:
+        {
+            final ListNumber data = ((VNumberArray) sample).getData();
+            final int N = data.size();
+            buffer.putInt(N);
+            for (int i=0; i<N; ++i)
+                buffer.putDouble(data.getDouble(i));
+            displays.put(channel, (Display) sample);
+            break;
+        }
+        default:
+            buffer.putInt(text.length);
+            buffer.put(text);
+        }
+        write_pos = buffer.position();
+        ++samples;
+        return true;
+    }
+
+    /** Read next sample from the journal
+     *  @return Sample or <code>null</code> if there are no more samples
+     *  @see #getChannel()
+     */
+    synchronized VType read()
+    {
+        if (read_pos >= write_pos)
+            return null;
+        buffer.position(read_pos);
+        final int size = buffer.getInt();
+        channel = buffer.getInt();
+        final Instant time = Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+        final AlarmSeverity severity = SEVERITIES[buffer.get()];
+        final byte type = buffer.get();
+        final byte[] status_bytes = new byte[buffer.getShort()];
+        buffer.get(status_bytes);
+        final String status = new String(status_bytes, StandardCharsets.UTF_8);
+        final VType sample;
+        switch (type)
+        {
+        case TYPE_DOUBLE:
+            sample = new ArchiveVNumber(time, severity, status, displays.get(channel), buffer.getDouble());
+            break;
+        case TYPE_LONG:
+            sample = new ArchiveVNumber(time, severity, status, displays.get(channel), buffer.getLong());
+            break;
+        case TYPE_ENUM:
+            sample = new ArchiveVEnum(time, severity, status, labels.get(channel), buffer.getInt());
+            break;
+        case TYPE_ARRAY:
+        {
+            final double[] data = new double[buffer.getInt()];
+            for (int i=0; i<data.length; ++i)
+                data[i] = buffer.getDouble();
+            sample = new ArchiveVNumberArray(time, severity, status, displays.get(channel), data);
+            break;
+        }
+        default:
+        {
+            final byte[] text = new byte[buffer.getInt()];
+            buffer.get(text);
+            sample = new ArchiveVString(time, severity, status, new String(text, StandardCharsets.UTF_8));
+        }
+        }
+        read_pos += Integer.BYTES + size;
+        ++uncommitted;
+        return sample;
+    }
+
+    /** @return Index of the sample buffer for the sample that was last read */
+    synchronized int getChannel()
+    {
+        return channel;
+    }
+
+    /** Mark samples that have been read as written.
+     *  Once all samples have been written, the journal is cleared.
+     */
+    synchronized void commit()
+    {
+        committed_pos = read_pos;
+        samples -= uncommitted;
+        uncommitted = 0;
+        if (read_pos >= write_pos)
+            write_pos = read_pos = committed_pos = 0;
+    }
+
+    /** Return to the last commit, so samples read since then will be read again */
+    synchronized void rollback()
+    {
+        read_pos = committed_pos;
+        uncommitted = 0;
+    }
+
+    /** Close and delete the journal */
+    synchronized void close()
+    {
+        try
+        {
+            raf.close();
+        }
+        catch (Exception ex)
+        {
+            // Ignore, deleting the file anyway
+        }
+        file.delete();
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("Spill journal '%s': %d samples, %d of %d bytes, %d dropped",
+                             file, samples, write_pos, buffer.capacity(), dropped);
+    }
+}
@@ -7,12 +7,17 @@
  ******************************************************************************/
 package org.csstudio.archive.engine.model;
 
+import java.io.File;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Level;
 
 import org.csstudio.apputil.time.BenchmarkTimer;
 import org.csstudio.archive.engine.Activator;
+import org.csstudio.archive.engine.Preferences;
 import org.csstudio.archive.writer.ArchiveWriter;
 import org.csstudio.archive.writer.ArchiveWriterFactory;
 import org.csstudio.archive.writer.WriteChannel;
@@ -27,8 +32,29 @@ import org.diirt.vtype.VType;
  *  Since the Oracle batch mechanism doesn't tell us what exactly failed
  *  in a batch, all the samples that were part of the batch might
  *  be lost.
- *  The channels that add samples to the sample buffer supposedly notice
- *  the error condition and add a special indicator once we recover.
+ *  Sample buffers that lost samples are marked,
+ *  and their channels add a special indicator once we recover.
+ *  <p>
+ *  An engine may use several write threads, each handling a subset
+ *  of the sample buffers with its own {@link ArchiveWriter}.
+ *  <p>
+ *  The delay between write runs adapts to the queue sizes:
+ *  When a sample buffer reaches its high water mark,
+ *  the thread wakes early and shortens the delay,
+ *  down to <code>MIN_ADAPTIVE_PERIOD</code>.
+ *  When all buffers stay below the low water mark,
+ *  the delay grows up to twice the configured write period.
+ *  <p>
+ *  When a spill directory is configured, samples are moved
+ *  into a {@link SpillJournal} while the writer is in error,
+ *  and replayed once the writer recovers:
+ *  The samples of the failed batch and those left in the buffers
+ *  are spilled in time stamp order when a write fails.
+ *  While the writer remains in error, each sample buffer
+ *  spills its oldest sample instead of dropping it when it is full.
+ *  Since the writer may have committed part of the failed batch,
+ *  some of those samples can be written twice,
+ *  but no sample is lost until the journal is full.
  *
  *  @author Kay Kasemir
  */
@@ -37,12 +63,28 @@ public class WriteThread implements Runnable
     /** Minimum write period [seconds] */
     private static final double MIN_WRITE_PERIOD = 5.0;
 
+    /** Minimum write period [seconds] when adapting to full buffers */
+    private static final double MIN_ADAPTIVE_PERIOD = 1.0;
+
+    /** Fraction of buffer capacity that wakes the thread early */
+    final private static double high_water = Preferences.getWriteHighWater();
+
+    /** Fraction of buffer capacity below which the delay grows */
+    final private static double low_water = Preferences.getWriteLowWater();
+
+    /** Name of this write thread */
+    final private String name;
+
     /** Server to which this thread writes. */
     private ArchiveWriter writer;
 
-    /** All the sample buffers this thread writes. */
-    final private ArrayList<SampleBuffer> buffers =
-        new ArrayList<SampleBuffer>();
+    /** All the sample buffers this thread writes.
+     *  <p>
+     *  Populated before start(), then only read by this thread
+     *  and HTTPD.
+     */
+    final private List<SampleBuffer> buffers =
+        new CopyOnWriteArrayList<SampleBuffer>();
 
     /** Flag that tells the write thread to run or quit. */
     private boolean do_run;
@@ -52,9 +94,23 @@ public class WriteThread implements Runnable
      */
     private Object wait_block = new Object();
 
-    /** Delay between write runs. */
+    /** Configured delay between write runs. */
     private long millisec_delay = 5000;
 
+    /** Current, adapted delay between write runs. */
+    private volatile long current_delay = 5000;
+
+    /** Has a sample buffer reached its high water mark?
+     *  SYNC on wait_block
+     */
+    private boolean write_requested = false;
+
+    /** Number of write runs started early because of a high water mark */
+    private volatile long early_writes = 0;
+
+    /** Number of times the delay was increased because buffers were almost empty */
+    private volatile long backoffs = 0;
+
     /** Number of values to place into one batch */
     private int batch_size = 500;
 
@@ -67,9 +123,53 @@ public class WriteThread implements Runnable
     /** Average duration of write run */
     private Average write_time = new Average();
 
+    /** Has this thread reported a write error to the {@link SampleBuffer}s? */
+    private volatile boolean in_error = false;
+
+    /** Journal for samples while in error state, or <code>null</code>.
+     *  SYNC on the journal for access to its samples
+     */
+    private volatile SpillJournal journal = null;
+
+    /** Buffers of samples passed to the writer since the last flush */
+    final private List<SampleBuffer> pending_buffers = new ArrayList<>();
+
+    /** Samples passed to the writer since the last flush */
+    final private List<VType> pending_samples = new ArrayList<>();
+
+    /** Highest fill level (size / capacity) of any buffer in last write run */
+    private double max_fill = 0.0;
+
     /** Thread the executes this.run() */
     private Thread thread;
 
+    /** Create write thread */
+    @SuppressWarnings("nls")
+    public WriteThread()
+    {
+        this("WriteThread");
+    }
+
+    /** Create write thread
+     *  @param name Name of the thread
+     */
+    public WriteThread(final String name)
+    {
+        this.name = name;
+    }
+
+    /** @return Name of this write thread */
+    public String getName()
+    {
+        return name;
+    }
+
+    /** @return Number of sample buffers handled by this thread */
+    public int getBufferCount()
+    {
+        return buffers.size();
+    }
+
     /** Add a channel's buffer that this thread reads */
     public void addChannel(final ArchiveChannel channel)
     {
@@ -79,9 +179,27 @@ public class WriteThread implements Runnable
     /** Add a sample buffer that this thread reads */
     void addSampleBuffer(final SampleBuffer buffer)
     {
+        buffer.setWriteThread(this, buffers.size(), high_water);
         buffers.add(buffer);
     }
 
+    /** Called by a {@link SampleBuffer} that reached its high water mark
+     *  to start the next write run right away.
+     *  <p>
+     *  Ignored while in error state, where the thread waits
+     *  the configured period before trying to reconnect.
+     */
+    void requestWrite()
+    {
+        synchronized (wait_block)
+        {
+            if (write_requested  ||  in_error)
+                return;
+            write_requested = true;
+            wait_block.notify();
+        }
+    }
+
     /** Start the write thread.
      *  @param write_period Period between writes in seconds
      *  @param batch_size Number of values to batch
@@ -96,8 +214,23 @@ public class WriteThread implements Runnable
             write_period = MIN_WRITE_PERIOD;
         }
         millisec_delay = (int)(1000.0 * write_period);
+        current_delay = millisec_delay;
         this.batch_size = batch_size;
-        thread = new Thread(this, "WriteThread");
+        final String spill_directory = Preferences.getSpillDirectory();
+        if (! spill_directory.isEmpty())
+        {
+            final File file = new File(spill_directory, name.replace(' ', '_') + ".spill");
+            try
+            {
+                final long size = Preferences.getSpillSizeMB() * 1024L * 1024L;
+                journal = new SpillJournal(file, (int) Math.min(size, Integer.MAX_VALUE));
+            }
+            catch (Exception ex)
+            {
+                Activator.getLogger().log(Level.WARNING, "Cannot create spill journal " + file, ex);
+            }
+        }
+        thread = new Thread(this, name);
         thread.start();
     }
 
@@ -106,6 +239,8 @@ public class WriteThread implements Runnable
     {
         write_count.reset();
         write_time.reset();
+        early_writes = 0;
+        backoffs = 0;
     }
 
     /** Ask the write thread to stop ASAP. */
@@ -136,6 +271,47 @@ public class WriteThread implements Runnable
         return write_time.get();
     }
 
+    /** @return Current delay between write runs in seconds */
+    public double getWriteDelay()
+    {
+        return current_delay / 1000.0;
+    }
+
+    /** @return Number of write runs started early because a buffer reached its high water mark */
+    public long getEarlyWrites()
+    {
+        return early_writes;
+    }
+
+    /** @return Number of times the write delay was increased because buffers were almost empty */
+    public long getBackoffs()
+    {
+        return backoffs;
+    }
+
+    /** @return Journal for samples while in error state, or <code>null</code> */
+    public SpillJournal getSpillJournal()
+    {
+        return journal;
+    }
+
+    /** @return <code>true</code> if this thread currently experiences write errors */
+    public boolean isInErrorState()
+    {
+        return in_error;
+    }
+
+    /** Update the error state of this thread and the {@link SampleBuffer}s
+     *  @param error Did the last write fail?
+     */
+    private void setErrorState(final boolean error)
+    {
+        if (error == in_error)
+            return;
+        in_error = error;
+        SampleBuffer.setErrorState(error);
+    }
+
     /** 'Main loop' of the write thread.
      *  <p>
      *  Writes all values out, then waits.
@@ -147,13 +323,14 @@ public class WriteThread implements Runnable
      *  <p>
      *  Since the wait time can be considerable (30 seconds?),
      *  we wait on a semaphore (wait_block), which
-     *  can be notified in stop() to cause an ASAP exit.
+     *  can be notified in stop() to cause an ASAP exit,
+     *  or by a sample buffer that reached its high water mark.
      */
     @Override
     @SuppressWarnings("nls")
     public void run()
     {
-        Activator.getLogger().info("WriteThread starts");
+        Activator.getLogger().info(name + " starts");
         final BenchmarkTimer timer = new BenchmarkTimer();
         boolean write_error = false;
         do_run = true;
@@ -176,25 +353,37 @@ public class WriteThread implements Runnable
                 }
                 if (writer == null)
                     writer = ArchiveWriterFactory.getArchiveWriter();
+                // Write samples spilled while in error state
+                replay();
                 timer.start();
+                synchronized (wait_block)
+                {
+                    write_requested = false;
+                }
                 // In case of a network problem, we can hang in here
                 // for a long time...
+                max_fill = 0.0;
                 final long written = write();
                 timer.stop();
                 last_write_stamp = Instant.now();
                 write_count.update(written);
                 write_time.update(timer.getSeconds());
+                adaptDelay();
                 // How much of the scheduled delay is left after write()?
-                delay = millisec_delay - timer.getMilliseconds();
+                delay = current_delay - timer.getMilliseconds();
             }
             catch (Exception ex)
             {   // Error in write() or the preceding reconnect()...
                 Activator.getLogger().log(Level.WARNING, "Error, will try to reconnect", ex);
-                // Use max. delay
-                delay = millisec_delay;
+                // Use configured delay, don't wake early while reconnecting
+                current_delay = delay = millisec_delay;
                 write_error = true;
+                // Enter error state before spilling,
+                // so full buffers spill instead of dropping samples
+                setErrorState(true);
+                spill();
             }
-            SampleBuffer.setErrorState(write_error);
+            setErrorState(write_error);
             // See if there's any time left to wait,
             // or if we already used all that time in the last 'write'
             if (delay > 0)
@@ -203,7 +392,16 @@ public class WriteThread implements Runnable
                 {
                     try
                     {
-                        wait_block.wait(delay);
+                        if (write_error)
+                            wait_block.wait(delay);
+                        else if (write_requested)
+                            ++early_writes;
+                        else
+                        {
+                            wait_block.wait(delay);
+                            if (write_requested)
+                                ++early_writes;
+                        }
                     }
                     catch (InterruptedException ex)
                     {
@@ -212,7 +410,200 @@ public class WriteThread implements Runnable
                 }
             }
         }
-        Activator.getLogger().info("WriteThread exists");
+        Activator.getLogger().info(name + " exists");
+    }
+
+    /** Adapt the delay to the buffer fill level seen in the last write run */
+    private void adaptDelay()
+    {
+        final long min_delay = Math.min(millisec_delay, (long) (1000.0 * MIN_ADAPTIVE_PERIOD));
+        final long max_delay = 2 * millisec_delay;
+        if (max_fill >= high_water)
+            current_delay = Math.max(min_delay, current_delay / 2);
+        else if (max_fill < low_water)
+        {
+            if (current_delay < max_delay)
+            {
+                current_delay = Math.min(max_delay, current_delay + millisec_delay / 4);
+                ++backoffs;
+            }
+        }
+        else if (current_delay < millisec_delay)
+            current_delay = Math.min(millisec_delay, current_delay * 2);
+        else
+            current_delay = millisec_delay;
+    }
+
+    /** Move samples of the failed batch and the buffers into the spill journal.
+     *  <p>
+     *  Without a journal, the samples of the failed batch are lost.
+     */
+    @SuppressWarnings("nls")
+    private void spill()
+    {
+        final SpillJournal journal = this.journal;
+        if (journal == null)
+        {
+            for (SampleBuffer buffer : pending_buffers)
+                buffer.setLostSamples();
+            clearPending();
+            return;
+        }
+        synchronized (journal)
+        {
+            // Samples of the failed batch are older than those in the buffers
+            boolean full = false;
+            for (int i=0; i<pending_samples.size(); ++i)
+            {
+                final SampleBuffer buffer = pending_buffers.get(i);
+                if (! journal.add(buffer.getWriteIndex(), pending_samples.get(i)))
+                {
+                    buffer.setLostSamples();
+                    full = true;
+                }
+            }
+            clearPending();
+            // Merge the samples of all buffers by time stamp,
+            // stopping when the journal is full.
+            // Remaining samples stay in the buffers,
+            // which then spill or drop their oldest samples as they fill up.
+            final PriorityQueue<SpillSource> sources = new PriorityQueue<>(Math.max(1, buffers.size()));
+            for (SampleBuffer buffer : buffers)
+            {
+                final Instant time = buffer.peekTime();
+                if (time != null)
+                    sources.add(new SpillSource(buffer, time));
+            }
+            while (! full  &&  ! sources.isEmpty())
+            {
+                final SpillSource source = sources.poll();
+                final VType sample = source.buffer.remove();
+                if (sample != null  &&  ! journal.add(source.buffer.getWriteIndex(), sample))
+                {
+                    source.buffer.setLostSamples();
+                    full = true;
+                }
+                final Instant time = source.buffer.peekTime();
+                if (time != null)
+                {
+                    source.time = time;
+                    sources.add(source);
+                }
+            }
+            for (SampleBuffer buffer : buffers)
+                buffer.clearWriteRequest();
+            if (full)
+                Activator.getLogger().log(Level.WARNING, "Spill journal full: " + journal);
+        }
+    }
+
+    /** Sample buffer with time stamp of its oldest sample, ordered by time */
+    private static class SpillSource implements Comparable<SpillSource>
+    {
+        final SampleBuffer buffer;
+        Instant time;
+
+        SpillSource(final SampleBuffer buffer, final Instant time)
+        {
+            this.buffer = buffer;
+            this.time = time;
+        }
+
+        @Override
+        public int compareTo(final SpillSource other)
+        {
+            return time.compareTo(other.time);
+        }
+    }
+
+    /** Move oldest sample of a full buffer into the spill journal.
+     *  <p>
+     *  Called by the {@link SampleBuffer} while this thread is in error state.
+     *  @param buffer Sample buffer that is full
+     *  @return <code>true</code> if the oldest sample was handled via the journal,
+     *          <code>false</code> if there is no journal
+     */
+    boolean spill(final SampleBuffer buffer)
+    {
+        final SpillJournal journal = this.journal;
+        if (journal == null)
+            return false;
+        synchronized (journal)
+        {
+            final VType sample = buffer.remove();
+            if (sample != null  &&  ! journal.add(buffer.getWriteIndex(), sample))
+                buffer.setLostSamples();
+        }
+        return true;
+    }
+
+    /** Clear samples of the last batch */
+    private void clearPending()
+    {
+        pending_buffers.clear();
+        pending_samples.clear();
+    }
+
+    /** Write samples from spill journal, oldest first.
+     *  <p>
+     *  Locks the journal only to read and commit batches,
+     *  so full buffers may spill into it while the batches are written.
+     *  @throws Exception on error, in which case the samples will be replayed again
+     */
+    @SuppressWarnings("nls")
+    private void replay() throws Exception
+    {
+        final SpillJournal journal = this.journal;
+        if (journal == null  ||  journal.isEmpty())
+            return;
+        Activator.getLogger().log(Level.INFO, "Replaying " + journal);
+        final long start = System.nanoTime();
+        long total = 0;
+        final List<SampleBuffer> batch_buffers = new ArrayList<>(batch_size);
+        final List<VType> batch_samples = new ArrayList<>(batch_size);
+        try
+        {
+            while (true)
+            {
+                batch_buffers.clear();
+                batch_samples.clear();
+                synchronized (journal)
+                {
+                    VType sample;
+                    while (batch_samples.size() < batch_size  &&
+                           (sample = journal.read()) != null)
+                    {
+                        batch_buffers.add(buffers.get(journal.getChannel()));
+                        batch_samples.add(sample);
+                    }
+                }
+                if (batch_samples.isEmpty())
+                    break;
+                for (int i=0; i<batch_samples.size(); ++i)
+                {
+                    final SampleBuffer buffer = batch_buffers.get(i);
+                    final WriteChannel channel = writer.getChannel(buffer.getChannelName(),
+                                                                   buffer.getArchiveDataRetention());
+                    writer.addSample(channel, batch_samples.get(i));
+                }
+                writer.flush();
+                journal.commit();
+                total += batch_samples.size();
+            }
+        }
+        catch (Exception ex)
+        {
+            journal.rollback();
+            throw ex;
+        }
+        finally
+        {
+            final double secs = (System.nanoTime() - start) * 1e-9;
+            if (total > 0  &&  secs > 0)
+                journal.setReplayRate(total / secs);
+        }
+        Activator.getLogger().log(Level.INFO,
+            String.format("Replayed %d samples at %.1f samples/sec", total, journal.getReplayRate()));
     }
 
     /** Stop the write thread, performing a final write. */
@@ -226,6 +617,7 @@ public class WriteThread implements Runnable
         // Errors in this last write are passed up.
         try
         {
+            replay();
             write();
         }
         finally
@@ -235,6 +627,18 @@ public class WriteThread implements Runnable
                 writer.close();
                 writer = null;
             }
+            setErrorState(false);
+            final SpillJournal journal = this.journal;
+            if (journal != null)
+            {
+                this.journal = null;
+                synchronized (journal)
+                {
+                    if (! journal.isEmpty())
+                        Activator.getLogger().log(Level.WARNING, "Discarding " + journal);
+                    journal.close();
+                }
+            }
         }
     }
 
@@ -245,10 +649,13 @@ public class WriteThread implements Runnable
     {
         int total_count = 0;
         int count = 0;
+        clearPending();
         for (SampleBuffer buffer : buffers)
         {
             // Update max buffer length etc. before we start to remove samples
-            buffer.updateStats();
+            final int size = buffer.updateStats();
+            max_fill = Math.max(max_fill, size / (double) buffer.getCapacity());
+            final long added = buffer.getFirstAddTime();
             // Write samples for one channel
             final String name = buffer.getChannelName();
             final String retention = buffer.getArchiveDataRetention();
@@ -257,6 +664,9 @@ public class WriteThread implements Runnable
             while (sample != null)
             {   // Write one value
                 writer.addSample(channel, sample);
+                // Remember until flushed, to spill them on error
+                pending_buffers.add(buffer);
+                pending_samples.add(sample);
                 // Note: count across different sample buffers!
                 ++count;
                 if (count > batch_size)
@@ -264,13 +674,17 @@ public class WriteThread implements Runnable
                     total_count += count;
                     count = 0;
                     writer.flush();
+                    clearPending();
                 }
                 // next
                 sample = buffer.remove();
             }
+            buffer.updateLatency(added);
+            buffer.clearWriteRequest();
         }
         // Flush remaining samples (less than batch_size)
         writer.flush();
+        clearPending();
         total_count += count;
         return total_count;
     }
@@ -0,0 +1,131 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.scanner;
+
+import org.csstudio.util.stats.Average;
+
+/** Scan statistics for all items of one scan period
+ *  <p>
+ *  Lateness is the time between when a scan was due and when it started.
+ *  Jitter is the deviation of the time between two scans of an item from the period.
+ *  @author agent
+ */
+public class ScanStats
+{
+    /** Scan period in milliseconds */
+    final private long period_millis;
+
+    /** Number of items on this period */
+    private int items = 0;
+
+    /** Number of scans */
+    private long scans = 0;
+
+    /** Scans that were skipped because the previous scan ran too late */
+    private long missed = 0;
+
+    /** Average lateness in seconds */
+    final private Average lateness = new Average();
+
+    /** Maximum lateness in seconds */
+    private double max_lateness = 0.0;
+
+    /** Average jitter in seconds */
+    final private Average jitter = new Average();
+
+    /** @param period_millis Scan period in milliseconds */
+    ScanStats(final long period_millis)
+    {
+        this.period_millis = period_millis;
+    }
+
+    /** @return Scan period in seconds */
+    public double getPeriod()
+    {
+        return period_millis / 1000.0;
+    }
+
+    /** @param change Number of items that were added (positive) or removed (negative) */
+    synchronized void updateItems(final int change)
+    {
+        items += change;
+    }
+
+    /** @return Number of items on this scan period */
+    public synchronized int getItemCount()
+    {
+        return items;
+    }
+
+    /** @param late Lateness of a scan in seconds
+     *  @param interval_jitter Jitter of the scan in seconds, negative if not known
+     */
+    synchronized void updateScan(final double late, final double interval_jitter)
+    {
+        ++scans;
+        lateness.update(late);
+        if (late > max_lateness)
+            max_lateness = late;
+        if (interval_jitter >= 0)
+            jitter.update(interval_jitter);
+    }
+
+    /** @param count Number of missed scans */
+    synchronized void addMissed(final long count)
+    {
+        missed += count;
+    }
+
+    /** @return Number of scans */
+    public synchronized long getScanCount()
+    {
+        return scans;
+    }
+
+    /** @return Number of missed scans */
+    public synchronized long getMissedCount()
+    {
+        return missed;
+    }
+
+    /** @return Average lateness in seconds */
+    public synchronized double getAverageLateness()
+    {
+        return lateness.get();
+    }
+
+    /** @return Maximum lateness in seconds */
+    public synchronized double getMaxLateness()
+    {
+        return max_lateness;
+    }
+
+    /** @return Average jitter in seconds */
+    public synchronized double getAverageJitter()
+    {
+        return jitter.get();
+    }
+
+    /** Reset statistics */
+    public synchronized void reset()
+    {
+        scans = 0;
+        missed = 0;
+        lateness.reset();
+        max_lateness = 0.0;
+        jitter.reset();
+    }
+
+    @SuppressWarnings("nls")
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("%.1f sec scan: %d items, %d scans, %d missed, lateness %.3f sec (max %.3f sec), jitter %.3f sec",
+                             getPeriod(), items, scans, missed, lateness.get(), max_lateness, jitter.get());
+    }
+}
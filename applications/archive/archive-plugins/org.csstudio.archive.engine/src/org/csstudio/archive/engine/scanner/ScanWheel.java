@@ -0,0 +1,448 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.engine.scanner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+import org.csstudio.archive.engine.Activator;
+import org.csstudio.util.stats.Average;
+
+/** Scanner based on a hierarchical timing wheel.
+ *  <p>
+ *  Items are placed in slots of the wheel by their due time.
+ *  A ticker thread advances the wheel in {@link #TICK_MILLIS} steps,
+ *  which is O(1) per tick independent of the number of items or periods,
+ *  and hands due items to a pool of worker threads.
+ *  Items with due times beyond the range of the first level
+ *  are kept on coarser levels and cascade down as their due time approaches.
+ *  <p>
+ *  After an item has been scanned, it is re-scheduled at its
+ *  fixed rate, so the scan times don't drift.
+ *  When a scan ends after the following one was already due,
+ *  the missed scans are skipped.
+ *  An item is never scanned concurrently with itself,
+ *  and once {@link #remove(Runnable)} returns, it is no longer scanned.
+ *  <p>
+ *  Scan lateness and jitter are tracked per scan period.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ScanWheel
+{
+    /** Granularity in seconds for the supported scan periods */
+    final private static double GRANULARITY = 0.1;
+
+    /** Duration of one tick of the wheel */
+    final public static long TICK_MILLIS = 10;
+
+    final private static long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+    /** Each level has 2^SLOT_BITS slots */
+    final private static int SLOT_BITS = 6;
+    final private static int SLOTS = 1 << SLOT_BITS;
+    final private static int SLOT_MASK = SLOTS - 1;
+
+    /** Levels of the wheel. With 10ms ticks, 4 levels cover about 46 hours */
+    final private static int LEVELS = 4;
+
+    /** Ticks between updates of the idle percentage */
+    final private static long IDLE_UPDATE_TICKS = 1000 / TICK_MILLIS;
+
+    /** Scheduled item */
+    private class Entry implements Runnable
+    {
+        final Runnable item;
+        final long period_ticks;
+        final ScanStats stats;
+
+        /** Tick when item is due, -1 to schedule one period from 'now'.
+         *  Modified by the ticker thread, or by a worker while the entry is not on the wheel
+         */
+        long due_tick = -1;
+
+        /** Start of previous scan in System.nanoTime(), -1 if never scanned */
+        long last_start = -1;
+
+        /** Next entry in the same slot */
+        Entry next = null;
+
+        /** Set when removed. Checked while holding the entry's lock,
+         *  which is held while scanning the item
+         */
+        volatile boolean cancelled = false;
+
+        Entry(final Runnable item, final long period_ticks, final ScanStats stats)
+        {
+            this.item = item;
+            this.period_ticks = period_ticks;
+            this.stats = stats;
+        }
+
+        /** Mark as cancelled, wait for an ongoing scan to complete */
+        void cancel()
+        {
+            cancelled = true;
+            synchronized (this)
+            {
+                // Holding the lock means no scan is running,
+                // and the flag prevents further scans
+            }
+        }
+
+        /** Invoked by worker thread */
+        @Override
+        public void run()
+        {
+            scan(this);
+        }
+    }
+
+    /** Number of worker threads */
+    final private int workers;
+
+    /** Slots of the wheel, each holding a linked list of entries.
+     *  Only accessed by the ticker thread.
+     */
+    final private Entry[][] wheel = new Entry[LEVELS][SLOTS];
+
+    /** Entries to be placed on the wheel by the ticker thread */
+    final private ConcurrentLinkedQueue<Entry> incoming = new ConcurrentLinkedQueue<>();
+
+    /** All entries by item */
+    final private ConcurrentHashMap<Runnable, Entry> entries = new ConcurrentHashMap<>();
+
+    /** Statistics by scan period in milliseconds */
+    final private ConcurrentSkipListMap<Long, ScanStats> stats = new ConcurrentSkipListMap<>();
+
+    /** System.nanoTime() of tick 0 */
+    private volatile long start_nanos = System.nanoTime();
+
+    /** Current tick. Only accessed by the ticker thread */
+    private long current_tick = 0;
+
+    private volatile boolean run = false;
+
+    private Thread ticker = null;
+
+    private ExecutorService pool = null;
+
+    /** Nanoseconds that workers spent scanning since last idle update */
+    final private AtomicLong busy_nanos = new AtomicLong();
+
+    /** Average idle time in percent */
+    final private Average idle_percentage = new Average();
+
+    /** @param workers Number of worker threads */
+    public ScanWheel(final int workers)
+    {
+        this.workers = Math.max(1, workers);
+    }
+
+    /** Add an item to the scanner
+     *  @param item Item to scan
+     *  @param period Scan period in seconds
+     */
+    public void add(final Runnable item, final double period)
+    {
+        // Avoid duplicates by removing what might be there
+        remove(item);
+        final long period_millis = Math.max(TICK_MILLIS, Math.round(period / GRANULARITY) * Math.round(GRANULARITY * 1000));
+        final ScanStats period_stats = stats.computeIfAbsent(period_millis, ScanStats::new);
+        period_stats.updateItems(+1);
+        final Entry entry = new Entry(item, (period_millis + TICK_MILLIS/2) / TICK_MILLIS, period_stats);
+        entries.put(item, entry);
+        incoming.add(entry);
+    }
+
+    /** Remove an item from the scanner
+     *  <p>
+     *  When the item is currently being scanned,
+     *  this waits for that scan to complete.
+     *  @param item Item to remove
+     */
+    public void remove(final Runnable item)
+    {
+        final Entry entry = entries.remove(item);
+        if (entry != null)
+        {
+            entry.cancel();
+            entry.stats.updateItems(-1);
+        }
+    }
+
+    /** Remove all items from this scanner, waiting for ongoing scans to complete */
+    public void clear()
+    {
+        for (Entry entry : entries.values())
+            entry.cancel();
+        entries.clear();
+        stats.clear();
+    }
+
+    /** @return Number of items */
+    public int size()
+    {
+        return entries.size();
+    }
+
+    /** @return Statistics for each scan period that has items, by period */
+    public List<ScanStats> getScanStats()
+    {
+        final List<ScanStats> result = new ArrayList<>();
+        for (ScanStats period_stats : stats.values())
+            if (period_stats.getItemCount() > 0)
+                result.add(period_stats);
+        return result;
+    }
+
+    /** Average idle time of the worker threads in percent.
+     *  <p>
+     *  100 means: Nothing to do, always waiting.<br>
+     *   50 means: using about half the available time for scans<br>
+     *    0 means: Busy all the time, probably missing scans<br>
+     */
+    public double getIdlePercentage()
+    {
+        synchronized (idle_percentage)
+        {
+            return idle_percentage.get();
+        }
+    }
+
+    /** Reset statistics */
+    public void reset()
+    {
+        synchronized (idle_percentage)
+        {
+            idle_percentage.reset();
+        }
+        for (ScanStats period_stats : stats.values())
+            period_stats.reset();
+    }
+
+    /** Start scanning */
+    public void start()
+    {
+        if (ticker != null)
+            throw new IllegalStateException("Already running");
+        // (Re-)schedule all items relative to the new start time
+        for (int level=0; level<LEVELS; ++level)
+            for (int slot=0; slot<SLOTS; ++slot)
+                wheel[level][slot] = null;
+        incoming.clear();
+        for (Entry entry : entries.values())
+        {
+            entry.due_tick = -1;
+            entry.last_start = -1;
+            entry.next = null;
+            incoming.add(entry);
+        }
+        Activator.getLogger().info("Scan Wheel runs with " + workers + " workers");
+        start_nanos = System.nanoTime();
+        current_tick = 0;
+        busy_nanos.set(0);
+
+        final AtomicInteger count = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers,
+                runnable -> new Thread(runnable, "ScanWorker " + count.incrementAndGet()));
+        run = true;
+        ticker = new Thread(this::tick, "ScanWheel");
+        ticker.start();
+    }
+
+    /** Stop scanning, wait for ongoing scans to complete */
+    public void stop()
+    {
+        if (ticker == null)
+            return;
+        run = false;
+        LockSupport.unpark(ticker);
+        try
+        {
+            ticker.join();
+            pool.shutdown();
+            if (! pool.awaitTermination(10, TimeUnit.SECONDS))
+                Activator.getLogger().log(Level.WARNING, "Scan workers did not stop");
+        }
+        catch (InterruptedException ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Scan wheel stop attempt", ex);
+        }
+        ticker = null;
+        pool = null;
+    }
+
+    /** @param nanos System.nanoTime()
+     *  @return Tick of the wheel for that time
+     */
+    private long toTick(final long nanos)
+    {
+        return (nanos - start_nanos) / TICK_NANOS;
+    }
+
+    /** Ticker thread: Advance the wheel in real time */
+    private void tick()
+    {
+        long last_idle_update = System.nanoTime();
+        long next_idle_update = IDLE_UPDATE_TICKS;
+        while (run)
+        {
+            final long now_tick = toTick(System.nanoTime());
+            while (current_tick < now_tick)
+            {
+                drainIncoming();
+                advance();
+            }
+            drainIncoming();
+
+            if (current_tick >= next_idle_update)
+            {
+                next_idle_update = current_tick + IDLE_UPDATE_TICKS;
+                final long now = System.nanoTime();
+                final double busy = busy_nanos.getAndSet(0) / (double) ((now - last_idle_update) * workers);
+                last_idle_update = now;
+                synchronized (idle_percentage)
+                {
+                    idle_percentage.update(Math.max(0.0, Math.min(100.0, 100.0 * (1.0 - busy))));
+                }
+            }
+
+            final long delay = start_nanos + (current_tick + 1) * TICK_NANOS - System.nanoTime();
+            if (delay > 0)
+                LockSupport.parkNanos(delay);
+        }
+        Activator.getLogger().info("Scan Wheel ends");
+    }
+
+    /** Place new or re-scheduled entries on the wheel */
+    private void drainIncoming()
+    {
+        Entry entry;
+        while ((entry = incoming.poll()) != null)
+        {
+            if (entry.cancelled)
+                continue;
+            if (entry.due_tick < 0)
+                entry.due_tick = current_tick + entry.period_ticks;
+            insert(entry);
+        }
+    }
+
+    /** @param entry Entry to place on the wheel, or dispatch if already due */
+    private void insert(final Entry entry)
+    {
+        final long delay = entry.due_tick - current_tick;
+        if (delay <= 0)
+        {
+            pool.execute(entry);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS-1  &&  delay >= 1L << (SLOT_BITS * (level+1)))
+            ++level;
+        // Beyond the range of the wheel, park in the last slot to be reached, will re-insert from there
+        final long due = delay >= 1L << (SLOT_BITS * LEVELS)
+                       ? current_tick + (1L << (SLOT_BITS * LEVELS)) - 1
+                       : entry.due_tick;
+        final int slot = (int) ((due >> (SLOT_BITS * level)) & SLOT_MASK);
+        entry.next = wheel[level][slot];
+        wheel[level][slot] = entry;
+    }
+
+    /** Advance wheel by one tick, cascading entries from coarser levels and dispatching due entries */
+    private void advance()
+    {
+        ++current_tick;
+        for (int level=LEVELS-1; level>0; --level)
+        {
+            final int shift = SLOT_BITS * level;
+            if ((current_tick & ((1L << shift) - 1)) == 0)
+                reinsert(level, (int) ((current_tick >> shift) & SLOT_MASK));
+        }
+        reinsert(0, (int) (current_tick & SLOT_MASK));
+    }
+
+    /** Re-insert entries of a slot, which dispatches those that are due
+     *  @param level Level of the wheel
+     *  @param slot Slot on that level
+     */
+    private void reinsert(final int level, final int slot)
+    {
+        Entry entry = wheel[level][slot];
+        wheel[level][slot] = null;
+        while (entry != null)
+        {
+            final Entry next = entry.next;
+            entry.next = null;
+            if (! entry.cancelled)
+                insert(entry);
+            entry = next;
+        }
+    }
+
+    /** Scan an entry, then re-schedule it. Invoked by worker thread.
+     *  @param entry Entry to scan
+     */
+    private void scan(final Entry entry)
+    {
+        synchronized (entry)
+        {
+            if (entry.cancelled)
+                return;
+            scanAndReschedule(entry);
+        }
+    }
+
+    /** @param entry Entry to scan, then re-schedule. Caller holds lock on entry. */
+    private void scanAndReschedule(final Entry entry)
+    {
+        final long start = System.nanoTime();
+        final long period_nanos = entry.period_ticks * TICK_NANOS;
+        final double late = Math.max(0, start - (start_nanos + entry.due_tick * TICK_NANOS)) / 1e9;
+        final double jitter = entry.last_start < 0
+                            ? -1.0
+                            : Math.abs(start - entry.last_start - period_nanos) / 1e9;
+        entry.last_start = start;
+        entry.stats.updateScan(late, jitter);
+        try
+        {
+            entry.item.run();
+        }
+        catch (Throwable ex)
+        {
+            Activator.getLogger().log(Level.SEVERE, entry.stats.getPeriod() + " sec scan error", ex);
+        }
+        final long end = System.nanoTime();
+        busy_nanos.addAndGet(end - start);
+
+        // Re-schedule at fixed rate, skipping scans that are already in the past
+        long next = entry.due_tick + entry.period_ticks;
+        final long now_tick = toTick(end);
+        if (next < now_tick)
+        {
+            final long missed = (now_tick - next + entry.period_ticks - 1) / entry.period_ticks;
+            entry.stats.addMissed(missed);
+            next += missed * entry.period_ticks;
+        }
+        entry.due_tick = next;
+        if (run  &&  ! entry.cancelled)
+            incoming.add(entry);
+    }
+}
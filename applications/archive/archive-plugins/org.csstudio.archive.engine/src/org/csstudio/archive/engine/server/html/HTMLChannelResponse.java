@@ -98,6 +98,15 @@ public class HTMLChannelResponse extends AbstractChannelResponse
         html.tableLine(new String[]
         { Messages.HTTP_QueueOverruns, overruns });
 
+        html.tableLine(new String[]
+        { Messages.HTTP_HighWater, Integer.toString(stats.getHighWaterCount()) });
+
+        html.tableLine(new String[]
+        {
+            Messages.HTTP_Latency,
+            String.format("%.1f sec", stats.getAverageLatency())
+        });
+
         html.closeTable();
 
         // Table of all the groups to which this channel belongs
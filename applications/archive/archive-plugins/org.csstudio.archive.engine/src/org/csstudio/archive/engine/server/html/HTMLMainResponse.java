@@ -9,6 +9,7 @@ package org.csstudio.archive.engine.server.html;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -17,6 +18,9 @@ import org.csstudio.apputil.time.PeriodFormat;
 import org.csstudio.archive.engine.Messages;
 import org.csstudio.archive.engine.model.EngineModel;
 import org.csstudio.archive.engine.model.SampleBuffer;
+import org.csstudio.archive.engine.model.SpillJournal;
+import org.csstudio.archive.engine.model.WriteThread;
+import org.csstudio.archive.engine.scanner.ScanStats;
 import org.csstudio.archive.engine.server.AbstractMainResponse;
 import org.csstudio.archive.vtype.TimestampHelper;
 import org.diirt.util.time.TimeDuration;
@@ -144,6 +148,91 @@ public class HTMLMainResponse extends AbstractMainResponse
 
         html.closeTable();
 
+        html.h2(Messages.HTTP_Writers);
+        html.openTable(1, new String[]
+        {
+            Messages.HTTP_Writer,
+            Messages.HTTP_ChannelCount,
+            Messages.HTTP_WriteState,
+            Messages.HTTP_LastWriteTime,
+            Messages.HTTP_WriteCount,
+            Messages.HTTP_WriteDuration,
+            Messages.HTTP_WriteDelay,
+            Messages.HTTP_EarlyWrites,
+            Messages.HTTP_Backoffs,
+            Messages.HTTP_Spilled,
+            Messages.HTTP_SpillSize,
+            Messages.HTTP_ReplayRate
+        });
+        for (int i=0; i<model.getWriterCount(); ++i)
+        {
+            final WriteThread writer = model.getWriter(i);
+            final Instant last = writer.getLastWriteTime();
+            final SpillJournal journal = writer.getSpillJournal();
+            html.tableLine(new String[]
+            {
+                writer.getName(),
+                Integer.toString(writer.getBufferCount()),
+                writer.isInErrorState()
+                ? HTMLWriter.makeRedText(Messages.HTTP_WriteError)
+                : "OK",
+                last == null ? Messages.HTTP_Never : TimestampHelper.format(last),
+                (int)writer.getWriteCount() + " samples",
+                String.format("%.1f sec", writer.getWriteDuration()),
+                String.format("%.1f sec", writer.getWriteDelay()),
+                Long.toString(writer.getEarlyWrites()),
+                Long.toString(writer.getBackoffs()),
+                journal == null ? "-" : Long.toString(journal.getSampleCount()),
+                journal == null ? "-" : String.format("%.1f of %.1f MB",
+                                                      journal.getSize() / MB,
+                                                      journal.getCapacity() / MB),
+                journal == null ? "-" : String.format("%.1f samples/sec", journal.getReplayRate())
+            });
+        }
+        html.closeTable();
+
+        html.h2(Messages.HTTP_Startup);
+        html.openTable(1, new String[]
+        {
+            Messages.HTTP_StartupPhase,
+            Messages.HTTP_Duration
+        });
+        for (Map.Entry<String, Double> phase : model.getStartupPhases().entrySet())
+            html.tableLine(new String[]
+            {
+                phase.getKey(),
+                String.format("%.1f sec", phase.getValue())
+            });
+        html.closeTable();
+
+        html.h2(Messages.HTTP_ScanPeriods);
+        html.openTable(1, new String[]
+        {
+            Messages.HTTP_ScanPeriod,
+            Messages.HTTP_ChannelCount,
+            Messages.HTTP_Scans,
+            Messages.HTTP_MissedScans,
+            Messages.HTTP_Lateness,
+            Messages.HTTP_MaxLateness,
+            Messages.HTTP_Jitter
+        });
+        for (ScanStats stats : model.getScanStats())
+        {
+            html.tableLine(new String[]
+            {
+                PeriodFormat.formatSeconds(stats.getPeriod()),
+                Integer.toString(stats.getItemCount()),
+                Long.toString(stats.getScanCount()),
+                stats.getMissedCount() > 0
+                ? HTMLWriter.makeRedText(Long.toString(stats.getMissedCount()))
+                : "0",
+                String.format("%.1f ms", stats.getAverageLateness() * 1000),
+                String.format("%.1f ms", stats.getMaxLateness() * 1000),
+                String.format("%.1f ms", stats.getAverageJitter() * 1000)
+            });
+        }
+        html.closeTable();
+
         html.close();
     }
 }
@@ -84,6 +84,8 @@ public class JSONHelper extends JSONObject {
         JSONchannel.writeObjectEntry(Messages.HTTP_QueueMax, stats.getMaxSize());
         JSONchannel.writeObjectEntry(Messages.HTTP_QueueCapacity, buffer.getCapacity());
         JSONchannel.writeObjectEntry(Messages.HTTP_QueueOverruns, stats.getOverruns());
+        JSONchannel.writeObjectEntry(Messages.HTTP_HighWater, stats.getHighWaterCount());
+        JSONchannel.writeObjectEntry(Messages.HTTP_Latency, stats.getAverageLatency());
 
         return JSONchannel;
     }
@@ -9,6 +9,7 @@ package org.csstudio.archive.engine.server.json;
 
 import java.time.Duration;
 import java.time.Instant;
+import java.util.Map;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -17,6 +18,9 @@ import org.csstudio.apputil.time.PeriodFormat;
 import org.csstudio.archive.engine.Messages;
 import org.csstudio.archive.engine.model.EngineModel;
 import org.csstudio.archive.engine.model.SampleBuffer;
+import org.csstudio.archive.engine.model.SpillJournal;
+import org.csstudio.archive.engine.model.WriteThread;
+import org.csstudio.archive.engine.scanner.ScanStats;
 import org.csstudio.archive.engine.server.AbstractMainResponse;
 import org.csstudio.archive.vtype.TimestampHelper;
 import org.diirt.util.time.TimeDuration;
@@ -76,8 +80,63 @@ public class JSONMainResponse extends AbstractMainResponse
         json.writeObjectEntry(Messages.HTTP_WriteCount, model.getWriteCount());
         json.writeObjectEntry(Messages.HTTP_WriteDuration, model.getWriteDuration());
 
+        final JSONList writers = new JSONList();
+        for (int i=0; i<model.getWriterCount(); ++i)
+        {
+            final WriteThread writer = model.getWriter(i);
+            final Instant last = writer.getLastWriteTime();
+            final JSONObject entry = new JSONObject();
+            entry.writeObjectEntry(Messages.HTTP_Writer, writer.getName());
+            entry.writeObjectEntry(Messages.HTTP_ChannelCount, writer.getBufferCount());
+            entry.writeObjectEntry(Messages.HTTP_WriteState, writer.isInErrorState()
+                                                             ? Messages.HTTP_WriteError
+                                                             : "OK");
+            entry.writeObjectEntry(Messages.HTTP_LastWriteTime, last == null
+                                                                ? Messages.HTTP_Never
+                                                                : TimestampHelper.format(last));
+            entry.writeObjectEntry(Messages.HTTP_WriteCount, writer.getWriteCount());
+            entry.writeObjectEntry(Messages.HTTP_WriteDuration, writer.getWriteDuration());
+            entry.writeObjectEntry(Messages.HTTP_WriteDelay, writer.getWriteDelay());
+            entry.writeObjectEntry(Messages.HTTP_EarlyWrites, writer.getEarlyWrites());
+            entry.writeObjectEntry(Messages.HTTP_Backoffs, writer.getBackoffs());
+            final SpillJournal journal = writer.getSpillJournal();
+            if (journal != null)
+            {
+                entry.writeObjectEntry(Messages.HTTP_Spilled, journal.getSampleCount());
+                entry.writeObjectEntry(Messages.HTTP_SpillSize, journal.getSize());
+                entry.writeObjectEntry(Messages.HTTP_ReplayRate, journal.getReplayRate());
+            }
+            writers.addObjectToList(entry);
+        }
+        json.writeObjectEntry(Messages.HTTP_Writers, writers);
+
+        final JSONList phases = new JSONList();
+        for (Map.Entry<String, Double> phase : model.getStartupPhases().entrySet())
+        {
+            final JSONObject entry = new JSONObject();
+            entry.writeObjectEntry(Messages.HTTP_StartupPhase, phase.getKey());
+            entry.writeObjectEntry(Messages.HTTP_Duration, phase.getValue());
+            phases.addObjectToList(entry);
+        }
+        json.writeObjectEntry(Messages.HTTP_Startup, phases);
+
         json.writeObjectEntry(Messages.HTTP_Idletime, model.getIdlePercentage());
 
+        final JSONList periods = new JSONList();
+        for (ScanStats stats : model.getScanStats())
+        {
+            final JSONObject entry = new JSONObject();
+            entry.writeObjectEntry(Messages.HTTP_ScanPeriod, stats.getPeriod());
+            entry.writeObjectEntry(Messages.HTTP_ChannelCount, stats.getItemCount());
+            entry.writeObjectEntry(Messages.HTTP_Scans, stats.getScanCount());
+            entry.writeObjectEntry(Messages.HTTP_MissedScans, stats.getMissedCount());
+            entry.writeObjectEntry(Messages.HTTP_Lateness, stats.getAverageLateness());
+            entry.writeObjectEntry(Messages.HTTP_MaxLateness, stats.getMaxLateness());
+            entry.writeObjectEntry(Messages.HTTP_Jitter, stats.getAverageJitter());
+            periods.addObjectToList(entry);
+        }
+        json.writeObjectEntry(Messages.HTTP_ScanPeriods, periods);
+
         final Runtime runtime = Runtime.getRuntime();
         final double used_mem = runtime.totalMemory() / MB;
         final double max_mem = runtime.maxMemory() / MB;
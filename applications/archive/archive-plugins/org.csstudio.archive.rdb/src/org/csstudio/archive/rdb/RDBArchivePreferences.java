@@ -23,6 +23,7 @@ public class RDBArchivePreferences
     public static final String PASSWORD = "password";
     public static final String SQL_TIMEOUT = "sql_timeout";
     public static final String USE_ARRAY_BLOB = "use_array_blob";
+    public static final String USE_ROLLUP = "use_rollup";
 
     /** @return URL of RDB archive server */
     public static String getURL()
@@ -69,6 +70,15 @@ public class RDBArchivePreferences
         return prefs.getBoolean(Activator.ID, USE_ARRAY_BLOB, true, null);
     }
 
+    /** @return <code>true</code> if the {@link Rollup} table should be maintained and used */
+    public static boolean useRollup()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return false;
+        return prefs.getBoolean(Activator.ID, USE_ROLLUP, false, null);
+    }
+
     /** Get string preference
      *  @param key Preference key
      *  @return String or <code>null</code>
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.rdb;
+
+/** Rollup of numeric samples into min/max/mean buckets
+ *  <p>
+ *  The 'sample_rollup' table holds, for each channel and
+ *  each of the {@link #RESOLUTIONS}, one row per time bucket
+ *  with the minimum, maximum, sum, sum of squares and count
+ *  of the numeric scalar samples in that bucket,
+ *  their highest alarm severity with its status,
+ *  and the count of other 'info' samples like 'Disconnected'.
+ *  The archive writer maintains the table,
+ *  the reader uses it for optimized data requests.
+ *
+ *  @author agent
+ */
+public class Rollup
+{
+    /** Name of the rollup table, without schema */
+    @SuppressWarnings("nls")
+    final public static String TABLE = "sample_rollup";
+
+    /** Bucket sizes in seconds, ascending: 1 minute, 1 hour, 1 day */
+    final private static int[] RESOLUTIONS = { 60, 60*60, 24*60*60 };
+
+    /** @return Bucket sizes in seconds, ascending */
+    public static int[] getResolutions()
+    {
+        return RESOLUTIONS.clone();
+    }
+
+    /** @param epoch_seconds Time in seconds since 1970 epoch
+     *  @param resolution Bucket size in seconds
+     *  @return Start of the bucket in seconds since 1970 epoch
+     */
+    public static long getBucketStart(final long epoch_seconds, final int resolution)
+    {
+        return Math.floorDiv(epoch_seconds, resolution) * resolution;
+    }
+
+    /** @param bin_seconds Desired bin size in seconds
+     *  @return Largest resolution that's not larger than the bin size, or 0 if there is none
+     */
+    public static int getResolution(final double bin_seconds)
+    {
+        int best = 0;
+        for (int resolution : RESOLUTIONS)
+            if (resolution <= bin_seconds)
+                best = resolution;
+        return best;
+    }
+}
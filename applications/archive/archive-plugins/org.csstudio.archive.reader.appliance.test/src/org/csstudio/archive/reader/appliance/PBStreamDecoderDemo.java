@@ -0,0 +1,186 @@
+package org.csstudio.archive.reader.appliance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.csstudio.archive.reader.ValueBlock;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.reader.appliance.testClasses.PBStreamWriter;
+import org.epics.archiverappliance.retrieval.client.EpicsMessage;
+import org.epics.archiverappliance.retrieval.client.InputStreamBackedGenMsg;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadType;
+
+/**
+ *
+ * <code>PBStreamDecoderDemo</code> is a benchmark of the appliance data decoding.
+ * <p>
+ * It replays PB raw data from a local HTTP server. Set the system property <code>pbstream.file</code> to replay
+ * data that has been recorded from an appliance, for example with
+ * <code>curl -o data.pb 'http://server:17665/retrieval/data/getData.raw?pv=...&amp;from=...&amp;to=...'</code>.
+ * Otherwise data for a scalar double PV is generated.
+ * <p>
+ * Not part of the test suite. Example results:
+ * <pre>
+ * InputStreamBackedGenMsg:  3000000 samples, 55.9 MB in 0.82 sec =  3638028 samples/sec,  67.7 MB/sec
+ * PBStreamDecoder        :  3000000 samples, 55.9 MB in 0.23 sec = 12896160 samples/sec, 240.1 MB/sec
+ * Reader, 8 PVs via HTTP : 24000000 samples, 446.9 MB in 3.18 sec =  7544795 samples/sec, 140.5 MB/sec
+ * </pre>
+ *
+ * @author agent
+ *
+ */
+public class PBStreamDecoderDemo {
+
+    private static final int SAMPLES = 3000000;
+    private static final int PVS = 8;
+    private static final int RUNS = 3;
+
+    private static byte[] data;
+    private static int samples;
+
+    @BeforeClass
+    public static void createData() throws Exception {
+        final String file = System.getProperty("pbstream.file");
+        if (file != null) {
+            data = Files.readAllBytes(Paths.get(file));
+        } else {
+            final PBStreamWriter writer = new PBStreamWriter();
+            writer.chunk("demo", PayloadType.SCALAR_DOUBLE, 2018);
+            for (int i = 0; i < SAMPLES; i++) {
+                writer.sample(EPICSEvent.ScalarDouble.newBuilder().setSecondsintoyear(i / 10)
+                        .setNano((i % 10) * 100000000).setVal(Math.sin(i * 0.01)).build());
+            }
+            data = writer.toByteArray();
+        }
+        samples = 0;
+        try (InputStreamBackedGenMsg client = new InputStreamBackedGenMsg(new ByteArrayInputStream(data))) {
+            for (@SuppressWarnings("unused") EpicsMessage message : client) {
+                samples++;
+            }
+        }
+    }
+
+    private static void report(String what, long count, long bytes, long nanos) {
+        final double secs = nanos / 1e9;
+        final double mb = bytes / (1024.0 * 1024.0);
+        System.out.format("%-23s: %8d samples, %.1f MB in %.2f sec = %8d samples/sec, %5.1f MB/sec\n", what, count,
+                mb, secs, (long) (count / secs), mb / secs);
+    }
+
+    /**
+     * Decodes the data with the appliance client into VType-ready messages.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testClientDecoder() throws Exception {
+        for (int run = 0; run < RUNS; run++) {
+            final long start = System.nanoTime();
+            long count = 0;
+            double sum = 0;
+            try (InputStreamBackedGenMsg client = new InputStreamBackedGenMsg(new ByteArrayInputStream(data))) {
+                for (EpicsMessage message : client) {
+                    sum += message.getTimestamp().getTime() + message.getNumberValue().doubleValue();
+                    count++;
+                }
+            }
+            report("InputStreamBackedGenMsg", count, data.length, System.nanoTime() - start);
+            assertEquals(samples, count);
+            assertEquals(false, Double.isInfinite(sum));
+        }
+    }
+
+    /**
+     * Decodes the data into blocks.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBlockDecoder() throws Exception {
+        final ValueBlock block = new ValueBlock(1000);
+        for (int run = 0; run < RUNS; run++) {
+            final long start = System.nanoTime();
+            long count = 0;
+            try (PBStreamDecoder decoder = new PBStreamDecoder(new ByteArrayInputStream(data))) {
+                int n;
+                while ((n = decoder.next(block)) > 0) {
+                    count += n;
+                }
+            }
+            report("PBStreamDecoder", count, data.length, System.nanoTime() - start);
+            assertEquals(samples, count);
+        }
+    }
+
+    /**
+     * Fetches several PVs in parallel from a local HTTP server through the archive reader.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testReader() throws Exception {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/retrieval/data/getData.raw", exchange -> {
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(data);
+            }
+            exchange.close();
+        });
+        server.setExecutor(Executors.newFixedThreadPool(PVS));
+        server.start();
+        try {
+            final ApplianceArchiveReader reader = new ApplianceArchiveReader(
+                    "pbraw://localhost:" + server.getAddress().getPort() + "/retrieval", false, false);
+            // Each PV is fetched and read by its own task, like the traces of a plot
+            final ExecutorService pool = Executors.newFixedThreadPool(PVS);
+            for (int run = 0; run < RUNS; run++) {
+                final long start = System.nanoTime();
+                final List<Future<Long>> results = new ArrayList<>();
+                for (int i = 0; i < PVS; i++) {
+                    final String name = "demo" + i;
+                    results.add(pool.submit(() -> {
+                        final ValueBlock block = new ValueBlock(1000);
+                        long pv_count = 0;
+                        final ValueIterator iter = reader.getRawValues(1, name,
+                                Instant.parse("2018-01-01T00:00:00Z"), Instant.parse("2019-01-01T00:00:00Z"));
+                        int n;
+                        while ((n = iter.next(block)) > 0) {
+                            pv_count += n;
+                        }
+                        iter.close();
+                        return pv_count;
+                    }));
+                }
+                long count = 0;
+                for (Future<Long> result : results) {
+                    count += result.get();
+                }
+                report("Reader, " + PVS + " PVs via HTTP", count, (long) PVS * data.length,
+                        System.nanoTime() - start);
+                assertEquals((long) PVS * samples, count);
+            }
+            pool.shutdown();
+            reader.close();
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package org.csstudio.archive.reader.appliance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.archive.reader.ValueBlock;
+import org.csstudio.archive.reader.appliance.testClasses.PBStreamWriter;
+import org.diirt.vtype.AlarmSeverity;
+import org.epics.archiverappliance.retrieval.client.EpicsMessage;
+import org.epics.archiverappliance.retrieval.client.InputStreamBackedGenMsg;
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadType;
+
+/**
+ *
+ * <code>PBStreamDecoderTest</code> tests the {@link PBStreamDecoder} against the decoder of the appliance client
+ * and the {@link PBStreamDataRetrieval} with a local HTTP server.
+ *
+ * @author agent
+ *
+ */
+public class PBStreamDecoderTest {
+
+    /** Seconds and nanoseconds that include bytes which must be escaped */
+    private static final int[] SECONDS = { 0, 10, 13, 27, 3600 };
+    private static final int[] NANOS = { 10, 13, 27, 0, 999999999 };
+    private static final int[] SEVERITIES = { 0, 1, 2, 3, 0 };
+
+    /** Doubles whose encoding contains bytes that must be escaped */
+    private static final double[] DOUBLES = { 3.14, Double.longBitsToDouble(0x3F0A0D1B0A0D1B0AL), -1.0e-10,
+            Double.longBitsToDouble(0x400A1B0D0A1B0D0AL), 0.0 };
+
+    /** Expected value and severity of each sample, in order */
+    private final List<Double> expected = new ArrayList<>();
+    private final List<AlarmSeverity> expected_severities = new ArrayList<>();
+
+    /**
+     * @return data with several chunks of different type and year
+     */
+    private byte[] createData() {
+        final PBStreamWriter writer = new PBStreamWriter();
+        expected.clear();
+        expected_severities.clear();
+
+        writer.chunk("test_pv", PayloadType.SCALAR_DOUBLE, 2017);
+        for (int i = 0; i < SECONDS.length; i++) {
+            writer.sample(EPICSEvent.ScalarDouble.newBuilder().setSecondsintoyear(SECONDS[i]).setNano(NANOS[i])
+                    .setVal(DOUBLES[i]).setSeverity(SEVERITIES[i]).setStatus(i).build());
+            expected.add(DOUBLES[i]);
+            expected_severities.add(ApplianceValueIterator.getSeverity(SEVERITIES[i]));
+        }
+
+        writer.chunk("test_pv", PayloadType.SCALAR_INT, 2018);
+        for (int i = 0; i < SECONDS.length; i++) {
+            final int value = i == 0 ? -10 : 0x0A0D1B00 + i;
+            writer.sample(EPICSEvent.ScalarInt.newBuilder().setSecondsintoyear(SECONDS[i]).setNano(NANOS[i])
+                    .setVal(value).setSeverity(SEVERITIES[i]).build());
+            expected.add((double) value);
+            expected_severities.add(ApplianceValueIterator.getSeverity(SEVERITIES[i]));
+        }
+
+        writer.chunk("test_pv", PayloadType.SCALAR_FLOAT, 2018);
+        writer.sample(EPICSEvent.ScalarFloat.newBuilder().setSecondsintoyear(100).setNano(0).setVal(2.5f)
+                .addFieldvalues(EPICSEvent.FieldValue.newBuilder().setName("HIHI").setVal("10")).build());
+        expected.add(2.5);
+
+        writer.chunk("test_pv", PayloadType.SCALAR_SHORT, 2018);
+        writer.sample(EPICSEvent.ScalarShort.newBuilder().setSecondsintoyear(101).setNano(0).setVal(-13).build());
+        expected.add(-13.0);
+
+        writer.chunk("test_pv", PayloadType.SCALAR_ENUM, 2018);
+        writer.sample(EPICSEvent.ScalarEnum.newBuilder().setSecondsintoyear(102).setNano(0).setVal(10).build());
+        expected.add(10.0);
+
+        writer.chunk("test_pv", PayloadType.SCALAR_BYTE, 2018);
+        writer.sample(EPICSEvent.ScalarByte.newBuilder().setSecondsintoyear(103).setNano(0)
+                .setVal(ByteString.copyFrom(new byte[] { 27 })).build());
+        expected.add(27.0);
+
+        writer.chunk("test_pv", PayloadType.SCALAR_STRING, 2018);
+        writer.sample(EPICSEvent.ScalarString.newBuilder().setSecondsintoyear(104).setNano(0).setVal("Text\n")
+                .build());
+        expected.add(Double.NaN);
+
+        writer.chunk("test_pv", PayloadType.WAVEFORM_DOUBLE, 2019);
+        writer.sample(EPICSEvent.VectorDouble.newBuilder().setSecondsintoyear(105).setNano(0).addVal(DOUBLES[1])
+                .addVal(2.0).addVal(3.0).build());
+        expected.add(DOUBLES[1]);
+        writer.sample(EPICSEvent.VectorDouble.newBuilder().setSecondsintoyear(106).setNano(0).build());
+        expected.add(Double.NaN);
+
+        writer.chunk("test_pv", PayloadType.WAVEFORM_SHORT, 2019);
+        writer.sample(EPICSEvent.VectorShort.newBuilder().setSecondsintoyear(107).setNano(0).addVal(-5).addVal(5)
+                .build());
+        expected.add(-5.0);
+
+        writer.chunk("test_pv", PayloadType.WAVEFORM_BYTE, 2019);
+        writer.sample(EPICSEvent.VectorChar.newBuilder().setSecondsintoyear(108).setNano(0)
+                .setVal(ByteString.copyFrom(new byte[] { 13, 10 })).build());
+        expected.add(13.0);
+        while (expected_severities.size() < expected.size()) {
+            expected_severities.add(AlarmSeverity.NONE);
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * @return time stamps of all samples as decoded by the appliance client
+     */
+    private List<Timestamp> getClientTimestamps(byte[] data) throws IOException {
+        final List<Timestamp> times = new ArrayList<>();
+        try (InputStreamBackedGenMsg client = new InputStreamBackedGenMsg(new ByteArrayInputStream(data))) {
+            for (EpicsMessage message : client) {
+                times.add(message.getTimestamp());
+            }
+        }
+        return times;
+    }
+
+    /**
+     * Tests {@link PBStreamDecoder#next(ValueBlock)} with different block sizes.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testBlocks() throws Exception {
+        final byte[] data = createData();
+        final List<Timestamp> times = getClientTimestamps(data);
+        assertEquals("Number of samples", expected.size(), times.size());
+        for (int size : new int[] { 1, 3, 1000 }) {
+            final ValueBlock block = new ValueBlock(size);
+            int index = 0;
+            try (PBStreamDecoder decoder = new PBStreamDecoder(new ByteArrayInputStream(data))) {
+                int n;
+                while ((n = decoder.next(block)) > 0) {
+                    for (int i = 0; i < n; i++, index++) {
+                        assertEquals("Timestamp comparison", times.get(index).toInstant(), block.getTime(i));
+                        assertEquals("Value comparison", expected.get(index), block.values[i], 0.0);
+                        assertEquals("Severity", expected_severities.get(index), block.severities[i]);
+                    }
+                }
+                assertEquals("Byte count", data.length, decoder.getByteCount());
+                assertEquals(PayloadType.WAVEFORM_BYTE, decoder.getPayLoadInfo().getType());
+            }
+            assertEquals("Number of samples", expected.size(), index);
+        }
+        assertEquals(Instant.parse("2017-01-01T00:00:00.000000010Z"), times.get(0).toInstant());
+    }
+
+    /**
+     * Tests the {@link PBStreamDecoder} as a <code>GenMsgIterator</code>, mixed with block access.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testMessages() throws Exception {
+        final byte[] data = createData();
+        final List<Timestamp> times = getClientTimestamps(data);
+        final List<Integer> years = new ArrayList<>();
+        try (PBStreamDecoder decoder = new PBStreamDecoder(new ByteArrayInputStream(data))) {
+            decoder.onInfoChange(info -> years.add(info.getYear()));
+            final ValueBlock block = new ValueBlock(2);
+            assertEquals(2, decoder.next(block));
+            int index = 2;
+            for (EpicsMessage message : decoder) {
+                assertEquals("Timestamp comparison", times.get(index), message.getTimestamp());
+                if (index < SECONDS.length) {
+                    assertEquals("Value comparison", expected.get(index), message.getNumberValue().doubleValue(), 0.0);
+                    assertEquals("Severity", SEVERITIES[index], message.getSeverity());
+                    assertEquals("Status", index, message.getStatus());
+                }
+                index++;
+            }
+            assertEquals("Number of samples", expected.size(), index);
+            assertEquals(0, decoder.next(block));
+        }
+        assertEquals("Years of chunks", 9, years.size());
+        assertEquals(Integer.valueOf(2018), years.get(0));
+        assertEquals(Integer.valueOf(2019), years.get(8));
+    }
+
+    /**
+     * Tests that a stream without data is rejected.
+     *
+     * @throws Exception
+     */
+    @Test(expected = IOException.class)
+    public void testEmpty() throws Exception {
+        new PBStreamDecoder(new ByteArrayInputStream(new byte[0])).close();
+    }
+
+    /**
+     * Tests {@link PBStreamDataRetrieval} with a local HTTP server, including re-use of the connection.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRetrieval() throws Exception {
+        final byte[] data = createData();
+        final List<String> queries = new ArrayList<>();
+        final List<InetSocketAddress> clients = new ArrayList<>();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/retrieval/data/getData.raw", exchange -> {
+            final String query = exchange.getRequestURI().getQuery();
+            synchronized (queries) {
+                queries.add(query);
+                clients.add(exchange.getRemoteAddress());
+            }
+            if (query.contains("pv=missing")) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if (query.contains("pv=empty")) {
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, data.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(data);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final PBStreamDataRetrieval retrieval = new PBStreamDataRetrieval(
+                    "http://localhost:" + server.getAddress().getPort() + "/retrieval/data/getData.raw");
+            final Timestamp start = Timestamp.from(Instant.parse("2018-01-01T00:00:00Z"));
+            final Timestamp end = Timestamp.from(Instant.parse("2018-01-02T12:30:00.5Z"));
+            final ValueBlock block = new ValueBlock(1000);
+            for (int i = 0; i < 2; i++) {
+                try (PBStreamDecoder decoder = retrieval.getDataForPV("test:pv", start, end)) {
+                    assertNotNull(decoder);
+                    assertEquals("Number of samples", expected.size(), decoder.next(block));
+                    assertFalse(decoder.next(block) > 0);
+                }
+            }
+            assertNull(retrieval.getDataForPV("missing", start, end));
+            assertNull(retrieval.getDataForPV("empty", start, end, true));
+
+            assertEquals(4, queries.size());
+            assertEquals("pv=test:pv&from=2018-01-01T00:00:00.000Z&to=2018-01-02T12:30:00.500Z", queries.get(0));
+            assertTrue(queries.get(3).endsWith("&usereduced=true"));
+            assertEquals("Connection re-used", clients.get(0), clients.get(1));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Tests that a request frees its slot once the response has been buffered,
+     * and that responses larger than the buffer are read completely.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRequestSlots() throws Exception {
+        final byte[] data = createData();
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/retrieval/data/getData.raw", exchange -> {
+            exchange.sendResponseHeaders(200, data.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(data);
+            }
+            exchange.close();
+        });
+        server.start();
+        try {
+            final String url = "http://localhost:" + server.getAddress().getPort() + "/retrieval/data/getData.raw";
+            final Timestamp start = Timestamp.from(Instant.parse("2018-01-01T00:00:00Z"));
+            final Timestamp end = Timestamp.from(Instant.parse("2019-01-01T00:00:00Z"));
+            final int available = PBStreamDataRetrieval.getAvailableRequests();
+            final ValueBlock block = new ValueBlock(3);
+
+            // Open decoders don't hold a slot
+            final List<PBStreamDecoder> decoders = new ArrayList<>();
+            for (int i = 0; i < available + 2; i++) {
+                decoders.add(new PBStreamDataRetrieval(url).getDataForPV("test:pv", start, end));
+                assertEquals(available, PBStreamDataRetrieval.getAvailableRequests());
+            }
+            for (PBStreamDecoder decoder : decoders) {
+                int count = 0, n;
+                while ((n = decoder.next(block)) > 0) {
+                    count += n;
+                }
+                assertEquals("Number of samples", expected.size(), count);
+                decoder.close();
+            }
+
+            // Response that exceeds the buffer
+            try (PBStreamDecoder decoder = new PBStreamDataRetrieval(url, 10).getDataForPV("test:pv", start, end)) {
+                int count = 0, n;
+                while ((n = decoder.next(block)) > 0) {
+                    count += n;
+                }
+                assertEquals("Number of samples", expected.size(), count);
+            }
+            assertEquals(available, PBStreamDataRetrieval.getAvailableRequests());
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.csstudio.archive.reader.appliance.testClasses;
+
+import java.io.ByteArrayOutputStream;
+
+import com.google.protobuf.GeneratedMessage;
+
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.FieldValue;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadInfo;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadType;
+
+/**
+ * Writes data in the PB raw format of the archiver appliance, as it would be sent by the server.
+ *
+ * @author agent
+ *
+ */
+public class PBStreamWriter {
+
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+    private boolean first_chunk = true;
+
+    /**
+     * Starts a new chunk.
+     *
+     * @param name name of the PV
+     * @param type payload type
+     * @param year year of the samples in the chunk
+     * @return this
+     */
+    public PBStreamWriter chunk(String name, PayloadType type, int year) {
+        if (!first_chunk) {
+            buffer.write('\n');
+        }
+        first_chunk = false;
+        PayloadInfo info = PayloadInfo.newBuilder()
+                .setType(type)
+                .setPvname(name)
+                .setYear(year)
+                .addHeaders(FieldValue.newBuilder().setName("EGU").setVal("mm"))
+                .addHeaders(FieldValue.newBuilder().setName("PREC").setVal("2"))
+                .build();
+        writeLine(info.toByteArray());
+        return this;
+    }
+
+    /**
+     * Adds a sample to the current chunk.
+     *
+     * @param sample sample message that matches the type of the chunk
+     * @return this
+     */
+    public PBStreamWriter sample(GeneratedMessage sample) {
+        writeLine(sample.toByteArray());
+        return this;
+    }
+
+    /**
+     * @return the data written so far
+     */
+    public byte[] toByteArray() {
+        return buffer.toByteArray();
+    }
+
+    private void writeLine(byte[] bytes) {
+        for (byte b : bytes) {
+            if (b == 0x1B) {
+                buffer.write(0x1B);
+                buffer.write(0x01);
+            } else if (b == '\n') {
+                buffer.write(0x1B);
+                buffer.write(0x02);
+            } else if (b == '\r') {
+                buffer.write(0x1B);
+                buffer.write(0x03);
+            } else {
+                buffer.write(b);
+            }
+        }
+        buffer.write('\n');
+    }
+}
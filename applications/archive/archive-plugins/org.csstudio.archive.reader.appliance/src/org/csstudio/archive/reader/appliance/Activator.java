@@ -18,6 +18,10 @@ public class Activator extends Plugin {
 
     private Boolean useStatistics;
     private Boolean useNewOptimizedOperator;
+    private Integer maxConcurrentRequests;
+
+    /** Default for the maximum number of concurrent requests */
+    public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
 
     /**
      * The constructor
@@ -86,4 +90,21 @@ public class Activator extends Plugin {
         }
         return useNewOptimizedOperator;
     }
+
+    /**
+     * @return the maximum number of data requests that are sent to the appliance at the same time.
+     *              Data for several PVs is fetched in parallel, up to this limit.
+     */
+    public int getMaxConcurrentRequests() {
+        if (maxConcurrentRequests == null) {
+            final IPreferencesService prefs = Platform.getPreferencesService();
+            if (prefs == null) {
+                maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+            } else {
+                maxConcurrentRequests = Math.max(1, prefs.getInt(Activator.PLUGIN_ID, "maxConcurrentRequests",
+                        DEFAULT_MAX_CONCURRENT_REQUESTS, null));
+            }
+        }
+        return maxConcurrentRequests;
+    }
 }
\ No newline at end of file
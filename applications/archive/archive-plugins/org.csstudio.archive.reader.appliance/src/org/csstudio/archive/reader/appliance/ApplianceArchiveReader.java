@@ -22,7 +22,6 @@ import org.csstudio.archive.vtype.TimestampHelper;
 import org.epics.archiverappliance.retrieval.client.DataRetrieval;
 import org.epics.archiverappliance.retrieval.client.EpicsMessage;
 import org.epics.archiverappliance.retrieval.client.GenMsgIterator;
-import org.epics.archiverappliance.retrieval.client.RawDataRetrieval;
 
 /**
  * Appliance archive reader which reads data from EPICS archiver appliance.
@@ -210,6 +209,16 @@ public class ApplianceArchiveReader implements ArchiveReader, IteratorListener {
         return it;
     }
 
+    /* (non-Javadoc)
+     * @see org.csstudio.archive.reader.ArchiveReader#isThreadSafe()
+     */
+    @Override
+    public boolean isThreadSafe() {
+        // Each request uses its own iterator and connection,
+        // the number of concurrent requests is limited by the iterators
+        return true;
+    }
+
     /* (non-Javadoc)
      * @see org.csstudio.archive.reader.ArchiveReader#cancel()
      */
@@ -230,13 +239,13 @@ public class ApplianceArchiveReader implements ArchiveReader, IteratorListener {
     }
 
     /**
-     * Creates and returns DataRetrieval
+     * Creates and returns DataRetrieval, which streams and decodes the PB raw data
      *
      * @param dataRetrievalURL
      * @return dataRetrieval instance
      */
     public DataRetrieval createDataRetriveal(String dataRetrievalURL) {
-        return new RawDataRetrieval(dataRetrievalURL);
+        return new PBStreamDataRetrieval(dataRetrievalURL);
     }
 
     /**
@@ -3,6 +3,9 @@ package org.csstudio.archive.reader.appliance;
 import java.io.IOException;
 import java.time.Instant;
 
+import org.csstudio.archive.reader.ValueBlock;
+import org.epics.archiverappliance.retrieval.client.EpicsMessage;
+
 /**
  *
  * <code>ApplianceRawValueIterator</code> loads the data using the raw operator
@@ -33,4 +36,32 @@ public class ApplianceRawValueIterator extends ApplianceValueIterator {
         super(reader,name,start,end,listener);
         fetchData();
     }
-}
\ No newline at end of file
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.csstudio.archive.reader.ValueIterator#next(org.csstudio.archive.reader.ValueBlock)
+     */
+    @Override
+    public int next(ValueBlock block) throws Exception {
+        if (mainStream instanceof PBStreamDecoder) {
+            // Decode directly from the stream
+            synchronized (this) {
+                if (!closed) {
+                    return ((PBStreamDecoder) mainStream).next(block);
+                }
+            }
+        }
+        block.clear();
+        while (!block.isFull()) {
+            EpicsMessage message;
+            synchronized (this) {
+                if (closed || mainIterator == null || !mainIterator.hasNext())
+                    break;
+                message = mainIterator.next();
+            }
+            extractData(message, block);
+        }
+        return block.size();
+    }
+}
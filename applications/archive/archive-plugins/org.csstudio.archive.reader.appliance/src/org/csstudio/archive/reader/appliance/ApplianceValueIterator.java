@@ -7,6 +7,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.reader.ValueIterator;
 import org.csstudio.archive.vtype.ArchiveVEnum;
 import org.csstudio.archive.vtype.ArchiveVNumber;
@@ -54,8 +55,6 @@ public abstract class ApplianceValueIterator implements ValueIterator {
 
     protected boolean closed = false;
 
-    private static Object lock = new Object();
-
     /**
      * Constructs a new ApplianceValueIterator.
      *
@@ -94,9 +93,8 @@ public abstract class ApplianceValueIterator implements ValueIterator {
         java.sql.Timestamp sqlEndTimestamp = TimestampHelper.toSQLTimestamp(end);
 
         DataRetrieval dataRetrieval = reader.createDataRetriveal(reader.getDataRetrievalURL());
-        synchronized(lock){
-            mainStream = dataRetrieval.getDataForPV(pvName, sqlStartTimestamp, sqlEndTimestamp);
-        }
+        // The number of concurrent requests is limited by the PBStreamDataRetrieval
+        mainStream = dataRetrieval.getDataForPV(pvName, sqlStartTimestamp, sqlEndTimestamp);
         if (mainStream != null) {
             mainIterator = mainStream.iterator();
         } else {
@@ -225,6 +223,40 @@ public abstract class ApplianceValueIterator implements ValueIterator {
         throw new UnsupportedOperationException("PV type " + type + " is not supported.");
     }
 
+    /**
+     * Extracts time, value and severity from the given epics message into the block,
+     * without creating a VType. Arrays provide their first element, strings NaN.
+     *
+     * @param dataMessage source of data
+     * @param block the block to which the sample is added
+     */
+    protected void extractData(EpicsMessage dataMessage, ValueBlock block) {
+        PayloadType type = mainStream.getPayLoadInfo().getType();
+        double value;
+        if (type == PayloadType.SCALAR_BYTE ||
+                type == PayloadType.SCALAR_DOUBLE ||
+                type == PayloadType.SCALAR_FLOAT ||
+                type == PayloadType.SCALAR_INT ||
+                type == PayloadType.SCALAR_SHORT) {
+            value = dataMessage.getNumberValue().doubleValue();
+        } else if (type == PayloadType.SCALAR_ENUM) {
+            value = dataMessage.getNumberValue().intValue();
+        } else if (type == PayloadType.SCALAR_STRING) {
+            value = Double.NaN;
+        } else if (type == PayloadType.WAVEFORM_DOUBLE
+                || type == PayloadType.WAVEFORM_FLOAT
+                || type == PayloadType.WAVEFORM_INT
+                || type == PayloadType.WAVEFORM_SHORT
+                || type == PayloadType.WAVEFORM_BYTE) {
+            value = dataMessage.getElementCount() > 0 ? dataMessage.getNumberAt(0).doubleValue() : Double.NaN;
+        } else {
+            throw new UnsupportedOperationException("PV type " + type + " is not supported.");
+        }
+        java.sql.Timestamp stamp = dataMessage.getTimestamp();
+        block.add(Math.floorDiv(stamp.getTime(), 1000L) * 1000000000L + stamp.getNanos(),
+                value, getSeverity(dataMessage.getSeverity()));
+    }
+
     /**
      * Extracts the descriptor for the value field so it can be reused on each iteration.
      *
@@ -0,0 +1,218 @@
+package org.csstudio.archive.reader.appliance;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.epics.archiverappliance.retrieval.client.DataRetrieval;
+import org.epics.archiverappliance.retrieval.client.GenMsgIterator;
+
+/**
+ *
+ * <code>PBStreamDataRetrieval</code> fetches data from the archiver appliance in the PB raw format
+ * and decodes it with the {@link PBStreamDecoder}.
+ * <p>
+ * Requests use the same URL parameters as the <code>RawDataRetrieval</code> of the appliance client.
+ * The connection is not disconnected after the data has been read. Closing the decoder closes the
+ * response stream, which allows the HTTP keep-alive cache of the JDK to re-use the connection for
+ * the next request to the same server.
+ * <p>
+ * At most 'maxConcurrentRequests' requests are handled at the same time. Each request reads the
+ * response into a buffer and then frees its slot, so the number of concurrent requests does not
+ * depend on how long a client keeps the returned decoder open. Only responses that exceed the buffer
+ * are read from the connection on demand, after the slot has been freed.
+ *
+ * @author agent
+ *
+ */
+public class PBStreamDataRetrieval implements DataRetrieval {
+
+    private static final Logger logger = Logger.getLogger(PBStreamDataRetrieval.class.getName());
+
+    /** Time format for the 'from' and 'to' parameters */
+    private static final DateTimeFormatter TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+    /** Default size limit of the buffer for a response: 16 MB */
+    static final int DEFAULT_BUFFER_LIMIT = 16 * 1024 * 1024;
+
+    /** Limits the number of concurrent requests to the appliance */
+    private static final Semaphore requests = new Semaphore(Activator.getDefault() == null
+            ? Activator.DEFAULT_MAX_CONCURRENT_REQUESTS : Activator.getDefault().getMaxConcurrentRequests());
+
+    private final String accessURL;
+
+    private final int bufferLimit;
+
+    /**
+     * Constructs a new data retrieval.
+     *
+     * @param accessURL the data retrieval URL, for example http://server:port/retrieval/data/getData.raw
+     */
+    public PBStreamDataRetrieval(String accessURL) {
+        this(accessURL, DEFAULT_BUFFER_LIMIT);
+    }
+
+    /**
+     * Constructs a new data retrieval.
+     *
+     * @param accessURL the data retrieval URL, for example http://server:port/retrieval/data/getData.raw
+     * @param bufferLimit maximum number of bytes of a response that are read while holding a request slot
+     */
+    public PBStreamDataRetrieval(String accessURL, int bufferLimit) {
+        this.accessURL = accessURL;
+        this.bufferLimit = bufferLimit;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.epics.archiverappliance.retrieval.client.DataRetrieval#getDataForPV(java.lang.String, java.sql.Timestamp, java.sql.Timestamp)
+     */
+    @Override
+    public PBStreamDecoder getDataForPV(String pvName, Timestamp startTime, Timestamp endTime) {
+        return getDataForPV(pvName, startTime, endTime, false, null);
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.epics.archiverappliance.retrieval.client.DataRetrieval#getDataForPV(java.lang.String, java.sql.Timestamp, java.sql.Timestamp, boolean)
+     */
+    @Override
+    public PBStreamDecoder getDataForPV(String pvName, Timestamp startTime, Timestamp endTime,
+            boolean useReducedDataSet) {
+        return getDataForPV(pvName, startTime, endTime, useReducedDataSet, null);
+    }
+
+    /**
+     * Fetches data for a PV.
+     *
+     * @param pvName name of the PV, which may include a post processing operator
+     * @param startTime start of the time period
+     * @param endTime end of the time period
+     * @param useReducedDataSet true if the server may return a reduced data set
+     * @param otherParams additional URL parameters, may be null
+     * @return the decoder for the data, or null if there is no data
+     * @see GenMsgIterator
+     */
+    @Override
+    public PBStreamDecoder getDataForPV(String pvName, Timestamp startTime, Timestamp endTime,
+            boolean useReducedDataSet, HashMap<String, String> otherParams) {
+        final String url;
+        try {
+            url = createURL(pvName, startTime, endTime, useReducedDataSet, otherParams);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        logger.log(Level.FINE, "URL to fetch data is {0}", url);
+        try {
+            final InputStream stream;
+            requests.acquireUninterruptibly();
+            try {
+                final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+                if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                    // Read error response so that the connection can be re-used
+                    final InputStream error = connection.getErrorStream();
+                    if (error != null) {
+                        error.close();
+                    }
+                    logger.log(Level.FINE, "No data found for PV {0}, HTTP status {1}",
+                            new Object[] { pvName, connection.getResponseCode() });
+                    return null;
+                }
+                stream = readResponse(connection.getInputStream());
+            } finally {
+                requests.release();
+            }
+            try {
+                return new PBStreamDecoder(stream);
+            } catch (IOException e) {
+                // Empty response: No data for this PV
+                stream.close();
+                logger.log(Level.FINE, "No data found for PV {0}", pvName);
+                return null;
+            }
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "Exception fetching data from URL " + url, e);
+            return null;
+        }
+    }
+
+    /**
+     * Reads the response into a buffer of up to <code>bufferLimit</code> bytes.
+     *
+     * @param response the response stream
+     * @return the buffered response. If the response exceeds the buffer, the remainder is read from
+     *         the response stream.
+     * @throws IOException on error
+     */
+    private InputStream readResponse(InputStream response) throws IOException {
+        byte[] buffer = new byte[Math.min(bufferLimit, 64 * 1024)];
+        int length = 0;
+        try {
+            while (true) {
+                if (length >= buffer.length) {
+                    if (buffer.length >= bufferLimit) {
+                        // Read the rest on demand
+                        return new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), response);
+                    }
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(bufferLimit, 2L * buffer.length));
+                }
+                final int n = response.read(buffer, length, buffer.length - length);
+                if (n < 0) {
+                    break;
+                }
+                length += n;
+            }
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        }
+        // Complete response has been read, connection can be re-used
+        response.close();
+        return new ByteArrayInputStream(buffer, 0, length);
+    }
+
+    /**
+     * @return number of requests that can be sent without waiting
+     */
+    static int getAvailableRequests() {
+        return requests.availablePermits();
+    }
+
+    /**
+     * @return URL for the request, same parameters as used by the appliance client
+     * @throws UnsupportedEncodingException if UTF-8 is not supported
+     */
+    private String createURL(String pvName, Timestamp startTime, Timestamp endTime,
+            boolean useReducedDataSet, Map<String, String> otherParams) throws UnsupportedEncodingException {
+        final StringBuilder url = new StringBuilder(accessURL);
+        url.append(accessURL.contains("?") ? "&pv=" : "?pv=").append(URLEncoder.encode(pvName, "UTF-8"));
+        url.append("&from=").append(URLEncoder.encode(TIME_FORMAT.format(startTime.toInstant()), "UTF-8"));
+        url.append("&to=").append(URLEncoder.encode(TIME_FORMAT.format(endTime.toInstant()), "UTF-8"));
+        if (useReducedDataSet) {
+            url.append("&usereduced=true");
+        }
+        if (otherParams != null) {
+            for (Map.Entry<String, String> param : otherParams.entrySet()) {
+                url.append('&').append(param.getKey()).append('=').append(param.getValue());
+            }
+        }
+        return url.toString();
+    }
+}
@@ -0,0 +1,481 @@
+package org.csstudio.archive.reader.appliance;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.csstudio.archive.reader.ValueBlock;
+import org.epics.archiverappliance.retrieval.client.EpicsMessage;
+import org.epics.archiverappliance.retrieval.client.GenMsgIterator;
+import org.epics.archiverappliance.retrieval.client.InfoChangeHandler;
+import org.epics.archiverappliance.retrieval.client.RuntimeIOException;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.GeneratedMessage;
+import com.google.protobuf.InvalidProtocolBufferException;
+
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadInfo;
+import edu.stanford.slac.archiverappliance.PB.EPICSEvent.PayloadType;
+
+/**
+ *
+ * <code>PBStreamDecoder</code> reads the PB raw format of the archiver appliance from a stream.
+ * <p>
+ * The stream consists of escaped lines. An empty line starts a new chunk, and the first line of each chunk
+ * is the {@link PayloadInfo}. All other lines are samples, one {@link EPICSEvent} message per line.
+ * <p>
+ * As a {@link GenMsgIterator}, the decoder provides each sample as an {@link EpicsMessage}.
+ * {@link #next(ValueBlock)} decodes the time, value and severity of samples directly from the protobuf wire
+ * format, without creating a message per sample and without reflection on the message fields.
+ * Both may be mixed, they read from the same position in the stream.
+ *
+ * @author agent
+ *
+ */
+public class PBStreamDecoder implements GenMsgIterator {
+
+    private static final byte ESCAPE_CHAR = 0x1B;
+    private static final byte ESCAPE_ESCAPE_CHAR = 0x01;
+    private static final byte NEWLINE_CHAR = 0x0A;
+    private static final byte NEWLINE_ESCAPE_CHAR = 0x02;
+    private static final byte CARRIAGERETURN_CHAR = 0x0D;
+    private static final byte CARRIAGERETURN_ESCAPE_CHAR = 0x03;
+
+    /** Protobuf field number of the value in all sample messages */
+    private static final int VAL_FIELD = 3;
+
+    private final InputStream stream;
+
+    /** Raw bytes read from the stream, valid from <code>input_pos</code> to <code>input_end</code> */
+    private final byte[] input = new byte[64 * 1024];
+    private int input_pos = 0;
+    private int input_end = 0;
+
+    /** Total number of bytes read */
+    private long byte_count = 0;
+
+    /** Unescaped current line */
+    private byte[] line = new byte[1024];
+    private int line_length = 0;
+
+    /** Is the current line a sample that has not been consumed? */
+    private boolean have_sample = false;
+
+    private PayloadInfo info;
+    private PayloadType type;
+
+    /** Start of the year of the current chunk, epoch seconds */
+    private long year_start;
+
+    private InfoChangeHandler info_handler = null;
+
+    /** Position within <code>line</code> while decoding wire format */
+    private int wire_pos;
+
+    /**
+     * Constructs a new decoder and reads the payload info of the first chunk.
+     *
+     * @param stream the stream to decode, closed by {@link #close()}
+     * @throws IOException if the stream cannot be read or contains no payload info
+     */
+    public PBStreamDecoder(InputStream stream) throws IOException {
+        this.stream = stream;
+        if (!readLine() || line_length <= 0) {
+            throw new IOException("No payload info");
+        }
+        setInfo();
+        nextSample();
+    }
+
+    /**
+     * @return the number of bytes read from the stream so far
+     */
+    public long getByteCount() {
+        return byte_count;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.epics.archiverappliance.retrieval.client.GenMsgIterator#getPayLoadInfo()
+     */
+    @Override
+    public PayloadInfo getPayLoadInfo() {
+        return info;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.epics.archiverappliance.retrieval.client.GenMsgIterator#onInfoChange(org.epics.archiverappliance.retrieval.client.InfoChangeHandler)
+     */
+    @Override
+    public void onInfoChange(InfoChangeHandler handler) {
+        info_handler = handler;
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.lang.Iterable#iterator()
+     */
+    @Override
+    public Iterator<EpicsMessage> iterator() {
+        return new Iterator<EpicsMessage>() {
+            @Override
+            public boolean hasNext() {
+                return have_sample;
+            }
+
+            @Override
+            public EpicsMessage next() {
+                if (!have_sample) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    final EpicsMessage message = new EpicsMessage(parseMessage(), info);
+                    nextSample();
+                    return message;
+                } catch (IOException e) {
+                    throw new RuntimeIOException("Cannot decode sample", e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the next samples into the block.
+     *
+     * @param block the block to fill
+     * @return the number of samples in the block, 0 when there are no more samples
+     * @throws IOException on error in the stream or in the sample encoding
+     */
+    public int next(ValueBlock block) throws IOException {
+        block.clear();
+        while (have_sample && !block.isFull()) {
+            decodeSample(block);
+            nextSample();
+        }
+        return block.size();
+    }
+
+    /*
+     * (non-Javadoc)
+     *
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        have_sample = false;
+        stream.close();
+    }
+
+    /**
+     * Reads and unescapes the next line.
+     *
+     * @return false at the end of the stream
+     * @throws IOException on error
+     */
+    private boolean readLine() throws IOException {
+        line_length = 0;
+        boolean got_data = false;
+        while (true) {
+            if (input_pos >= input_end) {
+                final int read = stream.read(input);
+                if (read <= 0) {
+                    return got_data;
+                }
+                byte_count += read;
+                input_pos = 0;
+                input_end = read;
+            }
+            got_data = true;
+            byte b = input[input_pos++];
+            if (b == NEWLINE_CHAR) {
+                return true;
+            }
+            if (b == ESCAPE_CHAR) {
+                if (input_pos >= input_end) {
+                    final int read = stream.read(input);
+                    if (read <= 0) {
+                        throw new IOException("Escape character terminated early");
+                    }
+                    byte_count += read;
+                    input_pos = 0;
+                    input_end = read;
+                }
+                b = input[input_pos++];
+                if (b == ESCAPE_ESCAPE_CHAR) {
+                    b = ESCAPE_CHAR;
+                } else if (b == NEWLINE_ESCAPE_CHAR) {
+                    b = NEWLINE_CHAR;
+                } else if (b == CARRIAGERETURN_ESCAPE_CHAR) {
+                    b = CARRIAGERETURN_CHAR;
+                }
+            }
+            if (line_length >= line.length) {
+                final byte[] larger = new byte[line.length * 2];
+                System.arraycopy(line, 0, larger, 0, line_length);
+                line = larger;
+            }
+            line[line_length++] = b;
+        }
+    }
+
+    /**
+     * Parses the current line as payload info.
+     *
+     * @throws InvalidProtocolBufferException if the line is not a payload info
+     */
+    private void setInfo() throws InvalidProtocolBufferException {
+        info = PayloadInfo.parseFrom(ByteString.copyFrom(line, 0, line_length));
+        type = info.getType();
+        year_start = LocalDate.of(info.getYear(), 1, 1).atStartOfDay(ZoneOffset.UTC).toEpochSecond();
+        if (info_handler != null) {
+            info_handler.handleInfoChange(info);
+        }
+    }
+
+    /**
+     * Positions on the next sample line, reading the payload info of new chunks.
+     *
+     * @throws IOException on error
+     */
+    private void nextSample() throws IOException {
+        while (readLine()) {
+            if (line_length > 0) {
+                have_sample = true;
+                return;
+            }
+            // Empty line: Next line is info for the following chunk
+            if (!readLine()) {
+                break;
+            }
+            setInfo();
+        }
+        have_sample = false;
+    }
+
+    /**
+     * @return the message for the current sample line
+     * @throws IOException if the line cannot be parsed
+     */
+    private GeneratedMessage parseMessage() throws IOException {
+        final ByteString bytes = ByteString.copyFrom(line, 0, line_length);
+        switch (type) {
+        case SCALAR_STRING:     return EPICSEvent.ScalarString.parseFrom(bytes);
+        case SCALAR_SHORT:      return EPICSEvent.ScalarShort.parseFrom(bytes);
+        case SCALAR_FLOAT:      return EPICSEvent.ScalarFloat.parseFrom(bytes);
+        case SCALAR_ENUM:       return EPICSEvent.ScalarEnum.parseFrom(bytes);
+        case SCALAR_BYTE:       return EPICSEvent.ScalarByte.parseFrom(bytes);
+        case SCALAR_INT:        return EPICSEvent.ScalarInt.parseFrom(bytes);
+        case SCALAR_DOUBLE:     return EPICSEvent.ScalarDouble.parseFrom(bytes);
+        case WAVEFORM_STRING:   return EPICSEvent.VectorString.parseFrom(bytes);
+        case WAVEFORM_SHORT:    return EPICSEvent.VectorShort.parseFrom(bytes);
+        case WAVEFORM_FLOAT:    return EPICSEvent.VectorFloat.parseFrom(bytes);
+        case WAVEFORM_ENUM:     return EPICSEvent.VectorEnum.parseFrom(bytes);
+        case WAVEFORM_BYTE:     return EPICSEvent.VectorChar.parseFrom(bytes);
+        case WAVEFORM_INT:      return EPICSEvent.VectorInt.parseFrom(bytes);
+        case WAVEFORM_DOUBLE:   return EPICSEvent.VectorDouble.parseFrom(bytes);
+        case V4_GENERIC_BYTES:  return EPICSEvent.V4GenericBytes.parseFrom(bytes);
+        default:
+            throw new IOException("PV type " + type + " is not supported.");
+        }
+    }
+
+    /**
+     * Decodes time, value and severity of the current sample line into the block.
+     * Arrays provide their first element, strings and empty arrays NaN.
+     *
+     * @param block the block to which the sample is added
+     * @throws IOException if the line is not a valid sample
+     */
+    private void decodeSample(ValueBlock block) throws IOException {
+        long seconds = 0;
+        long nano = 0;
+        int severity = 0;
+        double value = Double.NaN;
+        boolean have_value = false;
+        wire_pos = 0;
+        while (wire_pos < line_length) {
+            final int tag = (int) readVarint();
+            final int field = tag >>> 3;
+            final int wire_type = tag & 7;
+            if (field == 1 && wire_type == 0) {
+                seconds = readVarint();
+            } else if (field == 2 && wire_type == 0) {
+                nano = readVarint();
+            } else if (field == 4 && wire_type == 0) {
+                severity = (int) readVarint();
+            } else if (field == VAL_FIELD && !have_value) {
+                value = decodeValue(wire_type);
+                have_value = true;
+            } else {
+                skip(wire_type);
+            }
+        }
+        block.add((year_start + seconds) * 1000000000L + nano, value, ApplianceValueIterator.getSeverity(severity));
+    }
+
+    /**
+     * Decodes the (first element of the) value field.
+     *
+     * @param wire_type wire type of the value field
+     * @return the value
+     * @throws IOException if the wire type does not match the payload type
+     */
+    private double decodeValue(int wire_type) throws IOException {
+        switch (type) {
+        case SCALAR_DOUBLE:
+            checkWireType(wire_type, 1);
+            return Double.longBitsToDouble(readFixed64());
+        case SCALAR_FLOAT:
+            checkWireType(wire_type, 5);
+            return Float.intBitsToFloat(readFixed32());
+        case SCALAR_INT:
+            checkWireType(wire_type, 5);
+            return readFixed32();
+        case SCALAR_SHORT:
+        case SCALAR_ENUM:
+            checkWireType(wire_type, 0);
+            return decodeZigZag(readVarint());
+        case SCALAR_BYTE:
+        case WAVEFORM_BYTE: {
+            checkWireType(wire_type, 2);
+            final int length = (int) readVarint();
+            final int start = wire_pos;
+            wire_pos += length;
+            return length > 0 ? line[start] : Double.NaN;
+        }
+        case WAVEFORM_DOUBLE:
+            if (wire_type == 1) {
+                return Double.longBitsToDouble(readFixed64());
+            }
+            return firstPacked(wire_type, 8);
+        case WAVEFORM_FLOAT:
+            if (wire_type == 5) {
+                return Float.intBitsToFloat(readFixed32());
+            }
+            return firstPacked(wire_type, 4);
+        case WAVEFORM_INT:
+            if (wire_type == 5) {
+                return readFixed32();
+            }
+            return firstPacked(wire_type, 4);
+        case WAVEFORM_SHORT:
+        case WAVEFORM_ENUM:
+            if (wire_type == 0) {
+                return decodeZigZag(readVarint());
+            }
+            return firstPacked(wire_type, 0);
+        default:
+            // Strings, generic bytes
+            skip(wire_type);
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * Decodes the first element of a packed repeated value field and skips the rest.
+     *
+     * @param wire_type wire type of the value field, must be length-delimited
+     * @param size size of one element, 0 for varint
+     * @return the first element, NaN for an empty array
+     * @throws IOException on error
+     */
+    private double firstPacked(int wire_type, int size) throws IOException {
+        checkWireType(wire_type, 2);
+        final int length = (int) readVarint();
+        final int end = wire_pos + length;
+        double value = Double.NaN;
+        if (length > 0) {
+            if (size == 8) {
+                value = Double.longBitsToDouble(readFixed64());
+            } else if (size == 0) {
+                value = decodeZigZag(readVarint());
+            } else if (type == PayloadType.WAVEFORM_FLOAT) {
+                value = Float.intBitsToFloat(readFixed32());
+            } else {
+                value = readFixed32();
+            }
+        }
+        wire_pos = end;
+        return value;
+    }
+
+    private void checkWireType(int wire_type, int expected) throws IOException {
+        if (wire_type != expected) {
+            throw new IOException("Value of " + type + " has wire type " + wire_type);
+        }
+    }
+
+    private long readVarint() throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (wire_pos >= line_length) {
+                throw new IOException("Truncated sample");
+            }
+            final byte b = line[wire_pos++];
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    private int readFixed32() throws IOException {
+        if (wire_pos + 4 > line_length) {
+            throw new IOException("Truncated sample");
+        }
+        final int result = (line[wire_pos] & 0xFF)
+                | (line[wire_pos + 1] & 0xFF) << 8
+                | (line[wire_pos + 2] & 0xFF) << 16
+                | (line[wire_pos + 3] & 0xFF) << 24;
+        wire_pos += 4;
+        return result;
+    }
+
+    private long readFixed64() throws IOException {
+        final long low = readFixed32() & 0xFFFFFFFFL;
+        final long high = readFixed32() & 0xFFFFFFFFL;
+        return high << 32 | low;
+    }
+
+    private static int decodeZigZag(long n) {
+        return (int) (n >>> 1) ^ -(int) (n & 1);
+    }
+
+    /**
+     * Skips a field that is not needed.
+     *
+     * @param wire_type wire type of the field
+     * @throws IOException on unknown wire type
+     */
+    private void skip(int wire_type) throws IOException {
+        switch (wire_type) {
+        case 0:
+            readVarint();
+            break;
+        case 1:
+            wire_pos += 8;
+            break;
+        case 2:
+            final int length = (int) readVarint();
+            wire_pos += length;
+            break;
+        case 5:
+            wire_pos += 4;
+            break;
+        default:
+            throw new IOException("Unsupported wire type " + wire_type);
+        }
+        if (wire_pos > line_length) {
+            throw new IOException("Truncated sample");
+        }
+    }
+}
@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.csstudio.archive.reader.channelarchiver.file;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -14,25 +15,51 @@ import java.nio.channels.FileChannel;
 import java.nio.file.StandardOpenOption;
 import java.time.Instant;
 
+import org.csstudio.archive.reader.channelarchiver.file.ArchiveFileCache.MappedFile;
+
 /**
  * Implements ByteBuffer-like relative get methods for getting binary data
  * from a file. Created for use with ArchiveFileReader and associated classes.
+ *
+ * <p>When memory-mapped, the buffer is a view of the complete file
+ * shared via the {@link ArchiveFileCache}.
+ * Otherwise, the file is read in sections into a heap buffer.
  * @author Amanda Carpenter
  *
  */
 public class ArchiveFileBuffer implements AutoCloseable
 {
     // XXX: what size? Bigger means less fetching, but too big means memory runs out;
-    private final ByteBuffer buffer = ByteBuffer.allocate(65536);
+    private static final int BUFFER_SIZE = 65536;
+    private final boolean use_mapping;
+    private ByteBuffer buffer;
     private FileChannel fileChannel;
+    private MappedFile mapped = null;
     private File file = null;
 
     public ArchiveFileBuffer()
     {
+        this(false);
+    }
+
+    /** @param use_mapping Memory-map files? */
+    public ArchiveFileBuffer(final boolean use_mapping)
+    {
+        this.use_mapping = use_mapping;
     }
 
     public ArchiveFileBuffer(final File file) throws IOException
     {
+        this(file, false);
+    }
+
+    /** @param file File to read
+     *  @param use_mapping Memory-map the file?
+     *  @throws IOException on error
+     */
+    public ArchiveFileBuffer(final File file, final boolean use_mapping) throws IOException
+    {
+        this(use_mapping);
         setFile(file);
     }
 
@@ -46,9 +73,20 @@ public class ArchiveFileBuffer implements AutoCloseable
         {
             this.file = file;
             close();
-            fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            mapped = use_mapping ? ArchiveFileCache.map(file) : null;
+            if (mapped != null)
+                buffer = mapped.buffer.duplicate();
+            else
+            {
+                if (buffer == null)
+                    buffer = ByteBuffer.allocate(BUFFER_SIZE);
+                fileChannel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            }
         }
-        buffer.position(0).limit(0);
+        if (mapped != null)
+            buffer.position(0);
+        else
+            buffer.position(0).limit(0);
     }
 
     public File getFile()
@@ -56,10 +94,23 @@ public class ArchiveFileBuffer implements AutoCloseable
         return file;
     }
 
+    /** @return Mapped file, <code>null</code> when reading via file channel */
+    MappedFile getMappedFile()
+    {
+        return mapped;
+    }
+
+    private EOFException eof(final long offset)
+    {
+        return new EOFException("Cannot read beyond end of " + file + " at offset " + offset);
+    }
+
     public void prepareGet(int numBytes) throws IOException
     {
         if (buffer.remaining() < numBytes)
         {
+            if (mapped != null)
+                throw eof(buffer.position() + numBytes);
             buffer.compact();
             fileChannel.read(buffer);
             buffer.limit(buffer.position()); //use limit to mark extent of read
@@ -101,6 +152,8 @@ public class ArchiveFileBuffer implements AutoCloseable
     {
         if (!buffer.hasRemaining())
         {
+            if (mapped != null)
+                throw eof(buffer.position());
             buffer.clear();
             buffer.limit(fileChannel.read(buffer));
         }
@@ -117,6 +170,8 @@ public class ArchiveFileBuffer implements AutoCloseable
     public void skip(int numBytes) throws IOException
     {
         int numAlready = buffer.remaining();
+        if (mapped != null  &&  numBytes > numAlready)
+            throw eof(buffer.position() + (long) numBytes);
         while (numBytes > numAlready)
         {
             numBytes -= numAlready;
@@ -130,6 +185,12 @@ public class ArchiveFileBuffer implements AutoCloseable
 
     public void offset(long offset) throws IOException
     {
+        if (mapped != null)
+        {
+            if (offset >= 0  &&  offset <= buffer.limit())
+                buffer.position((int) offset);
+            return;
+        }
          if (offset < 0 || offset > fileChannel.size())
         {
             //throw new RuntimeException("Offset is invalid.") ?
@@ -160,6 +221,8 @@ public class ArchiveFileBuffer implements AutoCloseable
 
     long offset() throws IOException
     {
+        if (mapped != null)
+            return buffer.position();
         return fileChannel.position() - buffer.limit() + buffer.position();
     }
 
@@ -176,6 +239,12 @@ public class ArchiveFileBuffer implements AutoCloseable
             fileChannel.close();
             fileChannel = null;
         }
+        // Mapping remains in cache, only drop this view
+        if (mapped != null)
+        {
+            mapped = null;
+            buffer = null;
+        }
     }
 
     @Override
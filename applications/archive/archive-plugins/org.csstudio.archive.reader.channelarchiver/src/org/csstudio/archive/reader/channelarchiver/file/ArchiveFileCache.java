@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.channelarchiver.file;
+
+import static org.csstudio.archive.reader.channelarchiver.file.ArchiveFileReader.logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/** Process-wide cache of memory-mapped Channel Archiver files
+ *  and of data decoded from them.
+ *
+ *  <p>Each file is mapped once.
+ *  Readers obtain their own view of the mapped content,
+ *  so they can read concurrently without copying data.
+ *
+ *  <p>Decoded RTree nodes and CtrlInfo are kept in one bounded cache,
+ *  keyed by mapping and offset.
+ *  When a file changes on disk, it is mapped again and
+ *  data decoded from the previous content ages out of the cache.
+ *
+ *  @author agent
+ */
+class ArchiveFileCache
+{
+    /** Files above this size cannot be mapped into one buffer */
+    private static final long MAX_MAPPED_SIZE = Integer.MAX_VALUE;
+
+    /** Maximum number of decoded RTree nodes and CtrlInfos to keep */
+    private static final int MAX_DECODED = 20000;
+
+    /** One mapped file */
+    static class MappedFile
+    {
+        final File file;
+        final long size, modified;
+        final ByteBuffer buffer;
+
+        MappedFile(final File file, final long size, final long modified, final ByteBuffer buffer)
+        {
+            this.file = file;
+            this.size = size;
+            this.modified = modified;
+            this.buffer = buffer;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Mapped " + file + " (" + size + " bytes)";
+        }
+    }
+
+    /** Key for data decoded from an offset in a mapped file */
+    private static class Key
+    {
+        private final MappedFile file;
+        private final long offset;
+
+        Key(final MappedFile file, final long offset)
+        {
+            this.file = file;
+            this.offset = offset;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(file) * 31 + Long.hashCode(offset);
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (! (obj instanceof Key))
+                return false;
+            final Key other = (Key) obj;
+            return file == other.file  &&  offset == other.offset;
+        }
+    }
+
+    /** Mapped files */
+    private static final Map<File, MappedFile> mapped_files = new ConcurrentHashMap<>();
+
+    /** Decoded {@link RTreeNode} or {@link CtrlInfoReader}, least recently used first.
+     *  Synchronized on itself.
+     */
+    private static final Map<Key, Object> decoded = new LinkedHashMap<Key, Object>(1024, 0.75f, true)
+    {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<Key, Object> eldest)
+        {
+            return size() > MAX_DECODED;
+        }
+    };
+
+    /** @param file File to map
+     *  @return Mapped file, <code>null</code> if file is too large to map
+     *  @throws IOException on error
+     */
+    static MappedFile map(final File file) throws IOException
+    {
+        final long size = file.length();
+        final long modified = file.lastModified();
+        MappedFile mapped = mapped_files.get(file);
+        if (mapped != null  &&  mapped.size == size  &&  mapped.modified == modified)
+            return mapped;
+        if (size > MAX_MAPPED_SIZE)
+            return null;
+        try
+        (
+            final FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        )
+        {
+            mapped = new MappedFile(file, size, modified, channel.map(MapMode.READ_ONLY, 0, size));
+        }
+        logger.fine(() -> mapped_files.containsKey(file) ? "Re-mapped " + file : "Mapped " + file);
+        mapped_files.put(file, mapped);
+        return mapped;
+    }
+
+    /** Read RTree node, using cached node if possible
+     *  @param buffer Buffer for the index file
+     *  @param offset Offset of the node
+     *  @param M Number of records per node
+     *  @return {@link RTreeNode}
+     *  @throws Exception on error
+     */
+    static RTreeNode getRTreeNode(final ArchiveFileBuffer buffer, final long offset, final int M) throws Exception
+    {
+        final MappedFile file = buffer.getMappedFile();
+        if (file == null)
+            return new RTreeNode(buffer, offset, M);
+        final Key key = new Key(file, offset);
+        synchronized (decoded)
+        {
+            final Object cached = decoded.get(key);
+            if (cached instanceof RTreeNode  &&  ((RTreeNode) cached).getM() == M)
+                return (RTreeNode) cached;
+        }
+        // Decode outside of the lock; concurrent readers may both decode the same node
+        final RTreeNode node = new RTreeNode(buffer, offset, M);
+        synchronized (decoded)
+        {
+            decoded.put(key, node);
+        }
+        return node;
+    }
+
+    /** Get CtrlInfo reader, sharing cached info if possible
+     *  @param buffer Buffer for the data file
+     *  @param offset Offset of the CtrlInfo
+     *  @param previous CtrlInfo used for the previous data block
+     *  @return {@link CtrlInfoReader}
+     */
+    static CtrlInfoReader getCtrlInfo(final ArchiveFileBuffer buffer, final long offset, final CtrlInfoReader previous)
+    {
+        final MappedFile file = buffer.getMappedFile();
+        if (file == null)
+            return previous.isOffset(offset) ? previous : new CtrlInfoReader(offset);
+        final Key key = new Key(file, offset);
+        synchronized (decoded)
+        {
+            final Object cached = decoded.get(key);
+            if (cached instanceof CtrlInfoReader)
+                return (CtrlInfoReader) cached;
+            final CtrlInfoReader info = new CtrlInfoReader(offset);
+            decoded.put(key, info);
+            return info;
+        }
+    }
+}
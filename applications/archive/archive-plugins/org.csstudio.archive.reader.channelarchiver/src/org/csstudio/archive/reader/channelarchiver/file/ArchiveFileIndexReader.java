@@ -59,7 +59,16 @@ public class ArchiveFileIndexReader implements AutoCloseable
 
     public ArchiveFileIndexReader(final File indexFile) throws IOException
     {
-        buffer = new ArchiveFileBuffer(indexFile);
+        this(indexFile, false);
+    }
+
+    /** @param indexFile Index file
+     *  @param use_mapping Memory-map the file and share decoded RTree nodes?
+     *  @throws IOException on error
+     */
+    public ArchiveFileIndexReader(final File indexFile, final boolean use_mapping) throws IOException
+    {
+        buffer = new ArchiveFileBuffer(indexFile, use_mapping);
         indexParent = indexFile.getParentFile();
         anchors = getAnchors();
         logger.fine(() -> "Opened " + indexFile + ", " + anchors.size() + " channels");
@@ -127,7 +136,7 @@ public class ArchiveFileIndexReader implements AutoCloseable
      *  @throws UnknownChannelException If the index has no data for the given channel name.
      *  @throws Exception on error
      */
-    public List<DataFileEntry> getEntries(final String channelName, final Instant startTime, final Instant endTime) throws Exception, UnknownChannelException
+    public synchronized List<DataFileEntry> getEntries(final String channelName, final Instant startTime, final Instant endTime) throws Exception, UnknownChannelException
     {
         final TreeAnchor anchor = anchors.get(channelName);
         if (anchor == null)
@@ -160,11 +169,11 @@ public class ArchiveFileIndexReader implements AutoCloseable
                 {
                     if (node.parent == 0)
                         return entries;
-                    final RTreeNode parent = new RTreeNode(buffer, node.parent, node.getM());
+                    final RTreeNode parent = readNode(node.parent, node.getM());
                     index = parent.findRecordForChild(node.offset) + 1;
                     if (index < node.getM()  &&   ! parent.records[index].isEmpty())
                     {   // From the _next_ parent record, descent into first child
-                        node = new RTreeNode(buffer, parent.records[index].child, node.getM());
+                        node = readNode(parent.records[index].child, node.getM());
                         index = 0;
                         break;
                     }
@@ -173,7 +182,7 @@ public class ArchiveFileIndexReader implements AutoCloseable
                 }
                 // Keep descending via leftmost child to leaf
                 while (! node.isLeaf)
-                    node = new RTreeNode(buffer, node.records[index].child, node.getM());
+                    node = readNode(node.records[index].child, node.getM());
             }
         }
 
@@ -192,9 +201,9 @@ public class ArchiveFileIndexReader implements AutoCloseable
      * @return Offset of datablock which is at or before, or 0 if there is no data block
      * @throws Exception on error
      */
-    public RTreeNodeWithIndex searchRTreeNodes(final long root, final int numRecords, final Instant time) throws Exception
+    public synchronized RTreeNodeWithIndex searchRTreeNodes(final long root, final int numRecords, final Instant time) throws Exception
     {
-        RTreeNode node = new RTreeNode(buffer, root, numRecords);
+        RTreeNode node = readNode(root, numRecords);
         while (true)
         {
             // System.out.println(node);
@@ -214,10 +223,20 @@ public class ArchiveFileIndexReader implements AutoCloseable
                 i = 0;
             if (node.isLeaf)
                 return new RTreeNodeWithIndex(node, i);
-            node = new RTreeNode(buffer, child, numRecords);
+            node = readNode(child, numRecords);
         }
     }
 
+    /** @param offset Offset of RTree node
+     *  @param M Number of records per node
+     *  @return {@link RTreeNode}, possibly shared via the {@link ArchiveFileCache}
+     *  @throws Exception on error
+     */
+    private RTreeNode readNode(final long offset, final int M) throws Exception
+    {
+        return ArchiveFileCache.getRTreeNode(buffer, offset, M);
+    }
+
     /**
      * Given the offset of an RTree datablock, gets the filename and offset
      * associated with that datablock, and the same for any child datablocks.
@@ -29,7 +29,15 @@ public class ArchiveFileReader implements ArchiveReader
 {
     public static final Logger logger = Logger.getLogger(ArchiveFileReader.class.getName());
 
+    /** Memory-map index and data files by default?
+     *  Set system property <code>org.csstudio.archive.reader.channelarchiver.file.mapped=false</code>
+     *  to read them via a file channel.
+     */
+    public static final boolean USE_MAPPING =
+        Boolean.parseBoolean(System.getProperty("org.csstudio.archive.reader.channelarchiver.file.mapped", "true"));
+
     private final String index_name;
+    private final boolean use_mapping;
     private final ArchiveFileIndexReader indexReader;
 
     /** Construct an ArchiveFileReader.
@@ -37,9 +45,20 @@ public class ArchiveFileReader implements ArchiveReader
      *  @throws IOException
      */
     public ArchiveFileReader(final String index) throws IOException
+    {
+        this(index, USE_MAPPING);
+    }
+
+    /** Construct an ArchiveFileReader.
+     *  @param index Path to  Channel Archiver index file
+     *  @param use_mapping Memory-map files and share decoded index data with other readers?
+     *  @throws IOException
+     */
+    public ArchiveFileReader(final String index, final boolean use_mapping) throws IOException
     {
         index_name = index;
-        indexReader = new ArchiveFileIndexReader(new File(index));
+        this.use_mapping = use_mapping;
+        indexReader = new ArchiveFileIndexReader(new File(index), use_mapping);
     }
 
     @Override
@@ -94,15 +113,15 @@ public class ArchiveFileReader implements ArchiveReader
             throws UnknownChannelException, Exception
     {
         final List<DataFileEntry> entries = indexReader.getEntries(name, start, end);
-        return new ArchiveFileSampleReader(start, end, entries);
+        return new ArchiveFileSampleReader(start, end, entries, use_mapping);
     }
 
     @Override
     public ValueIterator getOptimizedValues(int key, String name, Instant start, Instant end, int count)
             throws UnknownChannelException, Exception
     {
-        // Not implemented, falling back to raw values
-        return getRawValues(key, name, start, end);
+        final List<DataFileEntry> entries = indexReader.getEntries(name, start, end);
+        return new ArchiveFileStatisticsReader(start, end, entries, count, use_mapping);
     }
 
     @Override
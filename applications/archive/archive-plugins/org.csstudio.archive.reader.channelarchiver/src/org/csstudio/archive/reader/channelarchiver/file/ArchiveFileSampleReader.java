@@ -44,7 +44,7 @@ public class ArchiveFileSampleReader implements ValueIterator
      */
     private final Queue<DataFileEntry> entries;
 
-    private final ArchiveFileBuffer buffer = new ArchiveFileBuffer();
+    private final ArchiveFileBuffer buffer;
 
     private DataHeader header;
 
@@ -56,8 +56,21 @@ public class ArchiveFileSampleReader implements ValueIterator
 
     public ArchiveFileSampleReader(final Instant iteratorStart, final Instant iteratorStop,
                                    final List<DataFileEntry> entries) throws Exception
+    {
+        this(iteratorStart, iteratorStop, entries, false);
+    }
+
+    /** @param iteratorStart Start time
+     *  @param iteratorStop End time
+     *  @param entries Data blocks to read
+     *  @param use_mapping Read memory-mapped data files?
+     *  @throws Exception on error
+     */
+    public ArchiveFileSampleReader(final Instant iteratorStart, final Instant iteratorStop,
+                                   final List<DataFileEntry> entries, final boolean use_mapping) throws Exception
     {
         this.iteratorStop = iteratorStop;
+        buffer = new ArchiveFileBuffer(use_mapping);
 
         this.entries = new ArrayDeque<>(entries);
 
@@ -196,7 +209,7 @@ public class ArchiveFileSampleReader implements ValueIterator
     }
 
     /** Read sample at current 'buffer' offset */
-    private static ArchiveVType getSample(DbrType dbrType, short dbrCount,
+    static ArchiveVType getSample(DbrType dbrType, short dbrCount,
             CtrlInfoReader info, ArchiveFileBuffer dataBuff) throws IOException
     {
         short statusCode = dataBuff.getShort();
@@ -341,7 +354,7 @@ public class ArchiveFileSampleReader implements ValueIterator
         }
     }
 
-    private static AlarmSeverity getSeverity(final short severity)
+    static AlarmSeverity getSeverity(final short severity)
     {
         if ((severity & 0x0F00) != 0) //special archiver values
             return AlarmSeverity.UNDEFINED;
@@ -351,7 +364,7 @@ public class ArchiveFileSampleReader implements ValueIterator
         return AlarmSeverity.NONE;
     }
 
-    private static String getStatus(final short severity, final short status)
+    static String getStatus(final short severity, final short status)
     {
         if (severity == 0x0f80)
             return "Est_Repeat " + status;
@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.channelarchiver.file;
+
+import static org.csstudio.archive.reader.channelarchiver.file.ArchiveFileReader.logger;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.logging.Level;
+
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.reader.channelarchiver.file.ArchiveFileSampleReader.DbrType;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.StatisticsAccumulator;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+
+/** Obtains optimized samples from Channel Archiver data files.
+ *
+ *  <p>Scans the data blocks located via the RTree index,
+ *  accumulating numeric samples into time bins.
+ *  Each bin results in one min/max/mean/stddev sample,
+ *  time-stamped in the middle of the bin.
+ *  A bin with only one sample returns that sample.
+ *
+ *  <p>Values are decoded directly from the data file,
+ *  without creating a {@link VType} for each raw sample.
+ *  Samples that are not numeric, including the 'disconnected'
+ *  or 'archive off' markers, are returned as is.
+ *  The same is true for the sample just before the start time.
+ *
+ *  @author agent
+ */
+public class ArchiveFileStatisticsReader implements ValueIterator
+{
+    private final Instant start;
+
+    /** End time in nanoseconds from start */
+    private final long end;
+
+    /** Bin size in nanoseconds */
+    private final long bin_size;
+
+    /** Data blocks from which samples will be read.
+     *  Entries are removed as the 'buffer' and 'header' are set to them.
+     */
+    private final Queue<DataFileEntry> entries;
+
+    private final ArchiveFileBuffer buffer;
+
+    private DataHeader header;
+
+    /** Size of one sample in current data block */
+    private int sample_size;
+
+    private long samples_left = 0;
+
+    /** Display info of current data block */
+    private Display display;
+
+    /** Samples ready to be returned by next() */
+    private final Queue<VType> values = new ArrayDeque<>();
+
+    /** Current bin, statistics, maximum severity and its status */
+    private long bin = -1;
+    private StatisticsAccumulator stats = null;
+    private AlarmSeverity severity;
+    private String status;
+
+    /** Time stamp of last sample in bin */
+    private long last_secs;
+    private int last_nano;
+
+    /** @param start Start time
+     *  @param end End time
+     *  @param entries Data blocks to read
+     *  @param count Number of bins
+     *  @param use_mapping Read memory-mapped data files?
+     *  @throws Exception on error
+     */
+    public ArchiveFileStatisticsReader(final Instant start, final Instant end,
+                                       final List<DataFileEntry> entries, final int count,
+                                       final boolean use_mapping) throws Exception
+    {
+        this.start = start;
+        this.end = Duration.between(start, end).toNanos();
+        bin_size = Math.max(1, this.end / Math.max(1, count));
+        this.entries = new ArrayDeque<>(entries);
+        buffer = new ArchiveFileBuffer(use_mapping);
+        if (nextBlock())
+            skipToStart();
+        fill();
+    }
+
+    /** Position on the next data block that has samples
+     *  @return <code>true</code> if there is a data block
+     *  @throws IOException on error
+     */
+    private boolean nextBlock() throws IOException
+    {
+        CtrlInfoReader info = header == null ? new CtrlInfoReader(0) : header.info;
+        while (! entries.isEmpty())
+        {
+            final DataFileEntry entry = entries.remove();
+            buffer.setFile(entry.file);
+            buffer.offset(entry.offset);
+            header = DataHeader.readDataHeader(buffer, info);
+            info = header.info;
+            samples_left = header.numSamples;
+            if (samples_left <= 0)
+                continue;
+            sample_size = header.dbrType.getSize(header.dbrCount);
+            display = isNumeric(header.dbrType) ? header.info.getDisplay(buffer) : null;
+            return true;
+        }
+        samples_left = 0;
+        return false;
+    }
+
+    /** Position on the last sample at or before the start time,
+     *  or the first sample if all are after the start time.
+     *  Binary search that only reads time stamps.
+     */
+    private void skipToStart() throws IOException
+    {
+        final long first = buffer.offset();
+        long low = 0, high = header.numSamples - 1, found = 0;
+        while (low <= high)
+        {
+            final long mid = (low + high) / 2;
+            // Time stamp follows 2 shorts for status and severity
+            buffer.offset(first + mid * sample_size + 4);
+            if (getTime(buffer.getUnsignedInt() + ArchiveFileTime.EPICS_OFFSET, buffer.getInt()) <= 0)
+            {
+                found = mid;
+                low = mid + 1;
+            }
+            else
+                high = mid - 1;
+        }
+        buffer.offset(first + found * sample_size);
+        samples_left = header.numSamples - found;
+    }
+
+    /** @return Nanoseconds from start */
+    private long getTime(final long secs, final int nano)
+    {
+        return (secs - start.getEpochSecond()) * 1000000000L + (nano - start.getNano());
+    }
+
+    private static boolean isNumeric(final DbrType type)
+    {
+        return type == DbrType.DBR_TIME_DOUBLE  ||  type == DbrType.DBR_TIME_FLOAT  ||
+               type == DbrType.DBR_TIME_LONG    ||  type == DbrType.DBR_TIME_SHORT;
+    }
+
+    /** Read value of sample, buffer must be positioned after the time stamp
+     *  @return Value of sample, first element for arrays
+     */
+    private double readValue() throws IOException
+    {
+        buffer.skip(header.dbrType.padding);
+        switch (header.dbrType)
+        {
+        case DBR_TIME_DOUBLE:
+            return buffer.getDouble();
+        case DBR_TIME_FLOAT:
+            return buffer.getFloat();
+        case DBR_TIME_LONG:
+            return buffer.getInt();
+        case DBR_TIME_SHORT:
+            return buffer.getShort();
+        default:
+            return Double.NaN;
+        }
+    }
+
+    /** Read samples until at least one value is available or there is no more data */
+    private void fill() throws IOException
+    {
+        while (values.isEmpty())
+        {
+            if (samples_left <= 0  &&  ! nextBlock())
+            {
+                addBin();
+                return;
+            }
+            final long offset = buffer.offset();
+            final short stat = buffer.getShort();
+            final short sevr = buffer.getShort();
+            final long secs = buffer.getUnsignedInt() + ArchiveFileTime.EPICS_OFFSET;
+            final int nano = buffer.getInt();
+            final long time = getTime(secs, nano);
+            if (time > end)
+            {
+                entries.clear();
+                samples_left = 0;
+                addBin();
+                return;
+            }
+            --samples_left;
+
+            // Special severities mark 'disconnected' etc.
+            final double value = isNumeric(header.dbrType)  &&  (sevr & 0x0F00) == 0
+                               ? readValue() : Double.NaN;
+            if (time < 0  ||  Double.isNaN(value))
+            {   // Return sample as is
+                addBin();
+                buffer.offset(offset);
+                values.add(ArchiveFileSampleReader.getSample(header.dbrType, header.dbrCount, header.info, buffer));
+            }
+            else
+            {
+                final long sample_bin = time / bin_size;
+                if (sample_bin != bin)
+                {
+                    addBin();
+                    bin = sample_bin;
+                }
+                if (stats == null)
+                {
+                    stats = new StatisticsAccumulator();
+                    severity = ArchiveFileSampleReader.getSeverity(sevr);
+                    status = ArchiveFileSampleReader.getStatus(sevr, stat);
+                }
+                else
+                {
+                    final AlarmSeverity sample_severity = ArchiveFileSampleReader.getSeverity(sevr);
+                    if (sample_severity.ordinal() > severity.ordinal())
+                    {
+                        severity = sample_severity;
+                        status = ArchiveFileSampleReader.getStatus(sevr, stat);
+                    }
+                }
+                stats.add(value);
+                last_secs = secs;
+                last_nano = nano;
+            }
+            buffer.offset(offset + sample_size);
+        }
+    }
+
+    /** Add sample for accumulated bin, if there is one */
+    private void addBin()
+    {
+        if (stats == null)
+            return;
+        if (stats.getNSamples() == 1)
+            values.add(new ArchiveVNumber(Instant.ofEpochSecond(last_secs, last_nano),
+                                          severity, status, display, stats.getAverage()));
+        else
+        {
+            final long center = Math.min(bin * bin_size + bin_size / 2, end);
+            values.add(new ArchiveVStatistics(start.plusNanos(center), severity, status, display, stats));
+        }
+        stats = null;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return ! values.isEmpty();
+    }
+
+    @Override
+    public VType next() throws IOException
+    {
+        final VType ret = values.remove();
+        if (values.isEmpty())
+        {
+            try
+            {
+                fill();
+            }
+            catch (IOException ex)
+            {
+                entries.clear();
+                samples_left = 0;
+                stats = null;
+                throw ex;
+            }
+        }
+        return ret;
+    }
+
+    @Override
+    public void close()
+    {
+        try
+        {
+            buffer.close();
+        }
+        catch (IOException ex)
+        {
+            logger.log(Level.WARNING, "Cannot close data file buffer", ex);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import org.diirt.vtype.ValueFactory;
 /**
  * Lazily reads CtrlInfo (Display- or Enum-related information) for Channel Archiver
  * data files.
+ * <p>Thread-safe, may be shared via the {@link ArchiveFileCache}.
  * @author Amanda Carpenter
  *
  */
@@ -26,6 +27,7 @@ public class CtrlInfoReader
     private final long offset;
     private Display display; //display, for number/display types
     private List<String> labels; //labels, for enum types
+    private boolean is_read = false; //display or labels have been read
 
     public CtrlInfoReader(long offset)
     {
@@ -34,7 +36,7 @@ public class CtrlInfoReader
         labels = null;
     }
 
-    public void read(ArchiveFileBuffer buffer) throws IOException
+    public synchronized void read(ArchiveFileBuffer buffer) throws IOException
     {
         long oldOffset = buffer.offset();
         buffer.offset(offset);
@@ -71,18 +73,20 @@ public class CtrlInfoReader
                 break;
         }
         buffer.offset(oldOffset);
+        is_read = true;
     }
 
-    public Display getDisplay(ArchiveFileBuffer buffer) throws IOException
+    public synchronized Display getDisplay(ArchiveFileBuffer buffer) throws IOException
     {
-        if (display == null)
+        // Enum info has no display, don't re-read for each sample
+        if (! is_read)
             read(buffer);
         return display;
     }
 
-    public List<String> getLabels(ArchiveFileBuffer buffer) throws IOException
+    public synchronized List<String> getLabels(ArchiveFileBuffer buffer) throws IOException
     {
-        if (labels == null)
+        if (! is_read)
             read(buffer);
         return labels;
     }
@@ -93,8 +93,7 @@ class DataHeader
         short dbrCount = buffer.getShort();
 
 
-        if (!info.isOffset(ctrlInfoOffset))
-            info = new CtrlInfoReader(ctrlInfoOffset);
+        info = ArchiveFileCache.getCtrlInfo(buffer, ctrlInfoOffset, info);
         DbrType dbrType = DbrType.forValue(dbrTypeCode);
         assert (12 + dbrType.padding + (dbrCount - 1) * dbrType.valueSize + dbrType.getValuePad(dbrCount)) *
                         numSamples == buffDataSize :
@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.channelarchiver.file;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.Instant;
+
+import org.junit.Test;
+
+/** JUnit test of the {@link ArchiveFileBuffer}, memory-mapped and via file channel
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ArchiveFileBufferUnitTest
+{
+    /** Records per RTree node */
+    private static final int M = 3;
+
+    /** Offset of RTree node in test file */
+    private static final long NODE = 100000;
+
+    /** @return File with numbers 0, 1, 2, .. as 4-byte integers, followed by an RTree node */
+    private static File createTestFile() throws Exception
+    {
+        final File file = File.createTempFile("archive_file_buffer", ".dat");
+        file.deleteOnExit();
+        try
+        (
+            final DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        )
+        {
+            for (int i=0; i<NODE/4; ++i)
+                out.writeInt(i);
+            // Leaf node without parent
+            out.writeByte(1);
+            out.writeInt(0);
+            for (int i=0; i<M; ++i)
+            {   // Start, end, child
+                out.writeInt(i+1);
+                out.writeInt(0);
+                out.writeInt(i+2);
+                out.writeInt(0);
+                out.writeInt(0x1000 + i);
+            }
+        }
+        return file;
+    }
+
+    private void checkReads(final ArchiveFileBuffer buffer) throws Exception
+    {
+        assertThat(buffer.getInt(), equalTo(0));
+        assertThat(buffer.getInt(), equalTo(1));
+        assertThat(buffer.offset(), equalTo(8L));
+
+        // Skip beyond the heap buffer size
+        buffer.skip(70000 - 8);
+        assertThat(buffer.getInt(), equalTo(70000 / 4));
+
+        // Jump back
+        buffer.offset(400);
+        assertThat(buffer.getUnsignedInt(), equalTo(100L));
+        assertThat(buffer.getShort(), equalTo((short) 0));
+        assertThat(buffer.getShort(), equalTo((short) 101));
+
+        final byte[] bytes = new byte[4];
+        buffer.get(bytes);
+        assertThat(bytes[3], equalTo((byte) 102));
+
+        final RTreeNode node = new RTreeNode(buffer, NODE, M);
+        assertThat(node.isLeaf, equalTo(true));
+        assertThat(node.parent, equalTo(0L));
+        assertThat(node.records[2].child, equalTo(0x1002L));
+        assertThat(node.records[2].start, equalTo(Instant.ofEpochSecond(3 + ArchiveFileTime.EPICS_OFFSET)));
+    }
+
+    @Test
+    public void testReads() throws Exception
+    {
+        final File file = createTestFile();
+        try
+        (
+            final ArchiveFileBuffer buffer = new ArchiveFileBuffer(file, false);
+        )
+        {
+            assertThat(buffer.getMappedFile(), nullValue());
+            checkReads(buffer);
+        }
+        try
+        (
+            final ArchiveFileBuffer buffer = new ArchiveFileBuffer(file, true);
+        )
+        {
+            assertThat(buffer.getMappedFile(), not(nullValue()));
+            checkReads(buffer);
+
+            // Reading past the end is an error
+            buffer.offset(file.length() - 2);
+            try
+            {
+                buffer.getInt();
+                fail("Read beyond end of file");
+            }
+            catch (EOFException ex)
+            {
+                // Expected
+            }
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception
+    {
+        final File file = createTestFile();
+        try
+        (
+            final ArchiveFileBuffer a = new ArchiveFileBuffer(file, true);
+            final ArchiveFileBuffer b = new ArchiveFileBuffer(file, true);
+        )
+        {
+            // Both readers share one mapping, but have their own position
+            assertThat(a.getMappedFile(), sameInstance(b.getMappedFile()));
+            a.offset(40);
+            b.offset(80);
+            assertThat(a.getInt(), equalTo(10));
+            assertThat(b.getInt(), equalTo(20));
+
+            // RTree node is decoded once
+            final RTreeNode node = ArchiveFileCache.getRTreeNode(a, NODE, M);
+            assertThat(ArchiveFileCache.getRTreeNode(b, NODE, M), sameInstance(node));
+
+            // CtrlInfo is shared
+            final CtrlInfoReader info = ArchiveFileCache.getCtrlInfo(a, 500, new CtrlInfoReader(0));
+            assertThat(ArchiveFileCache.getCtrlInfo(b, 500, new CtrlInfoReader(0)), sameInstance(info));
+        }
+
+        // Without mapping, nodes are decoded for each request
+        try
+        (
+            final ArchiveFileBuffer buffer = new ArchiveFileBuffer(file, false);
+        )
+        {
+            final RTreeNode node = ArchiveFileCache.getRTreeNode(buffer, NODE, M);
+            assertThat(ArchiveFileCache.getRTreeNode(buffer, NODE, M), not(sameInstance(node)));
+        }
+    }
+}
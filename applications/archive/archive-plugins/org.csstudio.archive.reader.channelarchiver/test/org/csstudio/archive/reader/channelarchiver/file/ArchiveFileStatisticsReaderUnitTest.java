@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.channelarchiver.file;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.time.Instant;
+import java.util.Arrays;
+
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VStatistics;
+import org.diirt.vtype.VType;
+import org.junit.Test;
+
+/** JUnit test of the {@link ArchiveFileStatisticsReader}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ArchiveFileStatisticsReaderUnitTest
+{
+    /** Number of samples, one per second, value = seconds since START */
+    private static final int N = 1000;
+
+    /** Sample that is 'disconnected' */
+    private static final int DISCONNECTED = 500;
+
+    private static final Instant START = Instant.parse("2018-01-01T00:00:00Z");
+
+    private static final int CTRL_INFO = 30000;
+
+    /** @return Data file with one block of N double samples */
+    private static File createDataFile() throws Exception
+    {
+        final File file = File.createTempFile("archive_data", ".dat");
+        file.deleteOnExit();
+        try
+        (
+            final DataOutputStream out = new DataOutputStream(new FileOutputStream(file));
+        )
+        {
+            // Data header: dir, next, prev, cur offset, samples, ctrl info, size, free, type, count
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeInt(N);
+            out.writeInt(CTRL_INFO);
+            out.writeInt(152 + N * 24);
+            out.writeInt(0);
+            out.writeShort(ArchiveFileSampleReader.DbrType.DBR_TIME_DOUBLE.typeCode);
+            out.writeShort(1);
+            // Period, times and file names
+            out.write(new byte[152 - 36]);
+
+            // DBR_TIME_DOUBLE samples: status, severity, time, pad, value
+            for (int i=0; i<N; ++i)
+            {
+                out.writeShort(0);
+                out.writeShort(i == DISCONNECTED ? 0x0f40 : 0);
+                out.writeInt((int) (START.getEpochSecond() + i - ArchiveFileTime.EPICS_OFFSET));
+                out.writeInt(0);
+                out.writeInt(0);
+                out.writeDouble(i);
+            }
+
+            // Numeric CtrlInfo: size, type, 6 limits, precision, units
+            out.write(new byte[CTRL_INFO - out.size()]);
+            out.writeShort(40);
+            out.writeShort(1);
+            for (int i=0; i<6; ++i)
+                out.writeFloat(i);
+            out.writeInt(2);
+            out.write("V\0\0\0\0\0\0\0".getBytes());
+        }
+        return file;
+    }
+
+    /** @return Number of raw samples represented by the values */
+    private int check(final ValueIterator values) throws Exception
+    {
+        int total = 0, disconnected = 0;
+        Instant last = Instant.MIN;
+        while (values.hasNext())
+        {
+            final VType value = values.next();
+            System.out.println(VTypeHelper.toString(value));
+            if (value instanceof VStatistics)
+            {
+                final VStatistics stats = (VStatistics) value;
+                assertTrue(stats.getMin() <= stats.getAverage());
+                assertTrue(stats.getAverage() <= stats.getMax());
+                // Consecutive values 'min .. max' without the disconnected sample
+                final int n = (int) (stats.getMax() - stats.getMin()) + 1;
+                final boolean gap = stats.getMin() < DISCONNECTED  &&  DISCONNECTED < stats.getMax();
+                assertThat(stats.getNSamples(), equalTo(gap ? n-1 : n));
+                if (! gap)
+                    assertThat(stats.getAverage(), equalTo((stats.getMin() + stats.getMax()) / 2));
+                assertTrue(stats.getTimestamp().compareTo(last) >= 0);
+                last = stats.getTimestamp();
+                total += stats.getNSamples();
+            }
+            else
+            {
+                assertThat(value, instanceOf(VNumber.class));
+                final VNumber number = (VNumber) value;
+                if (number.getAlarmName().equals("Disconnected"))
+                    ++disconnected;
+                else
+                    assertThat(number.getTimestamp(), equalTo(START.plusSeconds(number.getValue().longValue())));
+                assertTrue(number.getTimestamp().compareTo(last) >= 0);
+                last = number.getTimestamp();
+                ++total;
+            }
+        }
+        values.close();
+        assertThat(disconnected, equalTo(1));
+        return total;
+    }
+
+    @Test
+    public void testBins() throws Exception
+    {
+        final File file = createDataFile();
+        for (boolean mapped : new boolean[] { false, true })
+        {
+            // Samples 100 (just before start) to 900
+            final ValueIterator values = new ArchiveFileStatisticsReader(START.plusMillis(100500), START.plusSeconds(900),
+                    Arrays.asList(new DataFileEntry(file, 0)), 8, mapped);
+            assertThat(check(values), equalTo(801));
+        }
+    }
+
+    @Test
+    public void testSingleSampleBins() throws Exception
+    {
+        final File file = createDataFile();
+        // More bins than samples: Each bin returns the original sample
+        final ValueIterator values = new ArchiveFileStatisticsReader(START, START.plusSeconds(N),
+                Arrays.asList(new DataFileEntry(file, 0)), 10*N, true);
+        int count = 0;
+        while (values.hasNext())
+        {
+            final VType value = values.next();
+            assertThat(value, instanceOf(VNumber.class));
+            ++count;
+        }
+        values.close();
+        assertThat(count, equalTo(N));
+    }
+}
@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.csstudio.archive.reader.influxdb.raw;
 
+import org.csstudio.archive.reader.ValueBlock;
 import org.diirt.vtype.VType;
 
 /**
@@ -21,4 +22,21 @@ public abstract class AbstractInfluxDBValueDecoder {
     }
 
     public abstract VType decodeSampleValue() throws Exception;
+
+    /**
+     * Decode time, value and severity of the current sample into a block.
+     * Decoders that can do this without creating a VType should override.
+     *
+     * @param block Block to which the sample is added
+     * @return <code>true</code> if a sample was added, <code>false</code> if the current sample is skipped
+     * @throws Exception on error
+     */
+    public boolean decodeSampleValue(final ValueBlock block) throws Exception
+    {
+        final VType value = decodeSampleValue();
+        if (value == null)
+            return false;
+        block.add(value);
+        return true;
+    }
 }
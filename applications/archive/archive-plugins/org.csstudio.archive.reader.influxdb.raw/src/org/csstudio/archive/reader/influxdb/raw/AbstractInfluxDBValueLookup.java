@@ -7,6 +7,9 @@
  ******************************************************************************/
 package org.csstudio.archive.reader.influxdb.raw;
 
+import java.time.Instant;
+
+import org.csstudio.archive.influxdb.InfluxDBUtil;
 import org.csstudio.archive.influxdb.MetaTypes.MetaObject;
 
 /**
@@ -22,4 +25,12 @@ abstract public class AbstractInfluxDBValueLookup
     public abstract boolean hasValue(String colname);
 
     public abstract MetaObject getMeta();
+
+    /** @return Time stamp of the current sample
+     *  @throws Exception on error
+     */
+    public Instant getTime() throws Exception
+    {
+        return InfluxDBUtil.fromInfluxDBTimeFormat(getValue("time"));
+    }
 }
@@ -22,6 +22,7 @@ import java.util.logging.Level;
 import org.csstudio.archive.influxdb.InfluxDBResults;
 import org.csstudio.archive.influxdb.InfluxDBUtil;
 import org.csstudio.archive.influxdb.MetaTypes.MetaObject;
+import org.csstudio.archive.reader.ValueBlock;
 import org.diirt.vtype.VType;
 import org.influxdb.dto.QueryResult;
 import org.influxdb.dto.QueryResult.Series;
@@ -88,6 +89,10 @@ public class RawChunkReader extends AbstractInfluxDBValueLookup
         return decoder.decodeSampleValue();
     }
 
+    public boolean decodeSampleValue(final ValueBlock block) throws Exception {
+        return decoder.decodeSampleValue(block);
+    }
+
     private boolean poll_next_sample_series() throws Exception
     {
         Series next_series = next_sample_series.poll();
@@ -197,6 +202,13 @@ public class RawChunkReader extends AbstractInfluxDBValueLookup
         return cur_sample_values.get(idx);
     }
 
+    /** @return Time stamp of the current sample, already decoded in step() */
+    @Override
+    public Instant getTime()
+    {
+        return cur_sample_time;
+    }
+
     @Override
     public boolean hasValue(final String colname)
     {
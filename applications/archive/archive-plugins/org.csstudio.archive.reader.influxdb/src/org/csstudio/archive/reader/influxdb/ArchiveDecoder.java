@@ -15,6 +15,7 @@ import java.util.logging.Level;
 
 import org.csstudio.archive.influxdb.InfluxDBUtil;
 import org.csstudio.archive.influxdb.MetaTypes.MetaObject;
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.reader.influxdb.raw.AbstractInfluxDBValueDecoder;
 import org.csstudio.archive.reader.influxdb.raw.AbstractInfluxDBValueLookup;
 import org.csstudio.archive.vtype.ArchiveVEnum;
@@ -141,6 +142,63 @@ public class ArchiveDecoder extends AbstractInfluxDBValueDecoder
 
     }
 
+    /** Decode time, value and severity without creating a VType.
+     *  Arrays only provide their first element, strings <code>NaN</code>.
+     */
+    @Override
+    public boolean decodeSampleValue(final ValueBlock block) throws Exception
+    {
+        final MetaObject meta = vals.getMeta();
+
+        final Instant time = vals.getTime();
+        String status = vals.hasValue("status") ? (String) vals.getValue("status") : "";
+        if (status == null)
+        {
+            status = "";
+        }
+        String severity_string = vals.hasValue("severity") ? (String) vals.getValue("severity") : "NONE";
+        final AlarmSeverity severity = filterSeverity(severity_string != null ? severity_string : "NONE", status);
+
+        final String colname;
+        switch (meta.storeas)
+        {
+        case ARCHIVE_DOUBLE:
+        case ARCHIVE_DOUBLE_ARRAY:
+            colname = "double.0";
+            break;
+        case ARCHIVE_LONG:
+        case ARCHIVE_ENUM:
+            colname = "long.0";
+            break;
+        case ARCHIVE_STRING:
+        case ARCHIVE_UNKNOWN:
+            colname = "string.0";
+            break;
+        default:
+            throw new Exception ("Tried to encode sample with unhandled store type: " + meta.storeas.name());
+        }
+
+        final Object val = getSingleValue(colname, "average_");
+        if (val == IGNORE_SAMPLE)
+            return false;
+        final double value;
+        if (colname.startsWith("string"))
+            value = Double.NaN;
+        else if (val == null)
+        {
+            Activator.getLogger().log(Level.SEVERE, this.toString());
+            throw new Exception ("Did not find " + colname + " or average_" + colname + " field where expected");
+        }
+        else if (colname.startsWith("long"))
+            value = fieldToLong(val);
+        else if (status.equals(NOT_A_NUMBER_STATUS))
+            value = Double.NaN;
+        else
+            value = fieldToDouble(val);
+        block.add(time, value, severity);
+        return true;
+    }
+
     protected final Double fieldToDouble(Object val) throws Exception
     {
         Double dbl;
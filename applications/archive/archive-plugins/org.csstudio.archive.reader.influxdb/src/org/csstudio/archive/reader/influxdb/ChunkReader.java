@@ -19,6 +19,7 @@ import java.util.logging.Level;
 import org.csstudio.archive.influxdb.InfluxDBResults;
 import org.csstudio.archive.influxdb.MetaTypes;
 import org.csstudio.archive.influxdb.MetaTypes.MetaObject;
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.reader.influxdb.raw.AbstractInfluxDBValueDecoder;
 import org.csstudio.archive.reader.influxdb.raw.Activator;
 import org.csstudio.archive.reader.influxdb.raw.RawChunkReader;
@@ -67,6 +68,17 @@ public class ChunkReader extends RawChunkReader
         return result;
     }
 
+    @Override
+    public boolean decodeSampleValue(final ValueBlock block) throws Exception
+    {
+        boolean added;
+        do
+        {
+            added = super.decodeSampleValue(block);
+        } while (!added && step());
+        return added;
+    }
+
     private void step_next_metadata() throws Exception
     {
         next_meta = next_metadata.poll();
@@ -13,6 +13,7 @@ import java.util.concurrent.LinkedBlockingQueue;
 import java.util.function.Consumer;
 
 import org.csstudio.archive.influxdb.InfluxDBResults;
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.reader.influxdb.raw.AbstractInfluxDBValueIterator;
 import org.csstudio.archive.reader.influxdb.raw.Preferences;
 import org.diirt.vtype.VType;
@@ -137,6 +138,36 @@ public class SampleIterator extends AbstractInfluxDBValueIterator
         return result;
     }
 
+    /** Decode samples directly into the block.
+     *  {@inheritDoc}
+     */
+    @Override
+    public int next(final ValueBlock block) throws Exception
+    {
+        block.clear();
+        if (next_value == null)
+            return 0;
+        // Pending value was already decoded for next()
+        block.add(next_value);
+        next_value = null;
+
+        while (! block.isFull())
+        {
+            if (! samples.step()  ||  ! samples.decodeSampleValue(block))
+            {
+                close();
+                return block.size();
+            }
+        }
+
+        // Block is full. Prepare next_value for hasNext()
+        if (samples.step())
+            next_value = samples.decodeSampleValue();
+        else
+            close();
+        return block.size();
+    }
+
     /** Release all database resources.
      *  OK to call more than once.
      */
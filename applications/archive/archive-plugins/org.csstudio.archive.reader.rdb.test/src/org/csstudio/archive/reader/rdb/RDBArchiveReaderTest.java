@@ -14,6 +14,9 @@ import static org.junit.Assert.assertTrue;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
 
@@ -21,8 +24,10 @@ import org.csstudio.apputil.test.TestProperties;
 import org.csstudio.apputil.time.BenchmarkTimer;
 import org.csstudio.archive.reader.ArchiveInfo;
 import org.csstudio.archive.reader.ArchiveReader;
+import org.csstudio.archive.reader.SpreadsheetIterator;
 import org.csstudio.archive.reader.ValueIterator;
 import org.csstudio.archive.vtype.TimestampHelper;
+import org.csstudio.archive.vtype.VTypeHelper;
 import org.diirt.util.time.TimeDuration;
 import org.diirt.vtype.Display;
 import org.diirt.vtype.VType;
@@ -266,6 +271,58 @@ public class RDBArchiveReaderTest
         values.close();
     }
 
+    /** Get raw data for several channels with one query, compare with single-channel reads */
+    @Test
+    public void testMultiChannelRawData() throws Exception
+    {
+        if (reader == null)
+            return;
+        final List<String> names = new ArrayList<>();
+        names.add(name);
+        if (array_name != null)
+            names.add(array_name);
+        names.add("NoSuchChannel");
+
+        final Instant end = Instant.now();
+        final Instant start = end.minus(WAVEFORM_TIMERANGE);
+
+        final BenchmarkTimer timer = new BenchmarkTimer();
+        final Map<String, ValueIterator> iters = reader.getRawValues(0, names, start, end);
+        // Unknown channel is omitted
+        assertEquals(names.size() - 1, iters.size());
+        assertTrue(! iters.containsKey("NoSuchChannel"));
+
+        // Read interleaved by time
+        final SpreadsheetIterator sheet = new SpreadsheetIterator(iters.values().toArray(new ValueIterator[iters.size()]));
+        int lines = 0;
+        while (sheet.hasNext())
+        {
+            sheet.next();
+            ++lines;
+        }
+        sheet.close();
+        timer.stop();
+        System.out.println(iters.keySet() + ": " + lines + " spreadsheet lines in " + timer);
+
+        // Each channel has the same samples as when read one by one
+        for (String channel : iters.keySet())
+        {
+            final ValueIterator single = reader.getRawValues(0, channel, start, end);
+            final ValueIterator multi = reader.getRawValues(0, List.of(channel), start, end).get(channel);
+            int count = 0;
+            while (single.hasNext())
+            {
+                assertTrue(multi.hasNext());
+                assertEquals(VTypeHelper.getTimestamp(single.next()), VTypeHelper.getTimestamp(multi.next()));
+                ++count;
+            }
+            assertTrue(! multi.hasNext());
+            single.close();
+            multi.close();
+            System.out.println(channel + ": " + count + " samples");
+        }
+    }
+
     /** Get optimized data for scalar, using the server-side {@link StoredProcedureValueIterator} */
     @Test
     public void testStoredProcedure() throws Exception
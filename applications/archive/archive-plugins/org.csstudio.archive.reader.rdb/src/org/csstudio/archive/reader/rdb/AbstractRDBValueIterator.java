@@ -17,6 +17,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.reader.ValueIterator;
 import org.csstudio.archive.vtype.ArchiveVEnum;
 import org.csstudio.archive.vtype.ArchiveVNumber;
@@ -164,7 +165,7 @@ abstract public class AbstractRDBValueIterator  implements ValueIterator
     }
 
     /** Extract value from SQL result
-     *  @param result ResultSet that must contain contain time, severity, ..., value
+     *  @param result ResultSet that must contain time, severity, ..., value
      *  @param handle_array Try to read array elements, or only a scalar value?
      *  @return IValue Decoded IValue
      *  @throws Exception on error, including cancellation
@@ -221,6 +222,49 @@ abstract public class AbstractRDBValueIterator  implements ValueIterator
         return new ArchiveVString(time, severity, status, txt);
     }
 
+    /** Extract primitive time, value and severity from SQL result
+     *
+     *  <p>Same as {@link #decodeSampleTableValue(ResultSet, boolean)}
+     *  followed by {@link ValueBlock#add(VType)},
+     *  but without creating a {@link VType}.
+     *  Arrays only provide their first element,
+     *  so additional array elements are not read.
+     *
+     *  @param result ResultSet that must contain time, severity, ..., value
+     *  @param block Block to which the sample is added
+     *  @throws Exception on error, including cancellation
+     */
+    protected void decodeSampleTableValue(final ResultSet result, final ValueBlock block) throws Exception
+    {
+        // Get time stamp
+        final java.sql.Timestamp stamp = result.getTimestamp(1);
+        // Oracle has nanoseconds in TIMESTAMP, other RDBs in separate column
+        final int nanos = reader.isOracle() ? stamp.getNanos() : result.getInt(7);
+        final long time = Math.floorDiv(stamp.getTime(), 1000L) * 1000000000L + nanos;
+
+        // Get severity/status
+        final String status = reader.getStatus(result.getInt(3));
+        final AlarmSeverity severity = filterSeverity(reader.getSeverity(result.getInt(2)), status);
+
+        // Try double, which for enums is the index
+        final double dbl0 = result.getDouble(5);
+        if (! result.wasNull())
+        {
+            if (labels == null  &&  reader.useArrayBlob())
+                block.add(time, readBlobArrayElement0(dbl0, result), severity);
+            else
+                block.add(time, labels == null ? dbl0 : (int) dbl0, severity);
+            return;
+        }
+
+        // Try integer
+        final int num = result.getInt(4);
+        if (! result.wasNull())
+            block.add(time, num, severity);
+        else // String
+            block.add(time, Double.NaN, severity);
+    }
+
     /** @param severity Original severity
      *  @param status Status text
      *  @return If the status indicates that there is no actual value,
@@ -335,6 +379,36 @@ abstract public class AbstractRDBValueIterator  implements ValueIterator
         }
     }
 
+    /** Get first array element from BLOB
+     *  @param dbl0 Value of the first (maybe only) array element
+     *  @param result ResultSet for the sample table with blob
+     *  @return First array element
+     *  @throws Exception on error, including 'cancel'
+     */
+    private double readBlobArrayElement0(final double dbl0, final ResultSet result) throws Exception
+    {
+        final String datatype;
+        if (reader.isOracle())
+            datatype = result.getString(7);
+        else
+            datatype = result.getString(8);
+
+        // ' ' or NULL indicate: Scalar, not an array
+        if (datatype == null || " ".equals(datatype) || result.wasNull())
+            return dbl0;
+
+        if (! "d".equals(datatype))
+            throw new Exception("Sample BLOBs of type '" + datatype + "' are not decoded");
+        final byte[] bytes = result.getBytes(reader.isOracle() ? 8 : 9);
+        try
+        (
+            final DataInputStream data = new DataInputStream(new ByteArrayInputStream(bytes));
+        )
+        {
+            return data.readInt() > 0 ? data.readDouble() : Double.NaN;
+        }
+    }
+
     /** @param result ResultSet positioned on row to dump to console
      *  @throws Exception on error
      */
@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.rdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.TimestampHelper;
+import org.csstudio.platform.utility.rdb.RDBUtil.Dialect;
+import org.diirt.vtype.VType;
+
+/** Fetch raw samples for several channels with one query
+ *  <p>
+ *  The samples of all channels are read from one result set
+ *  in time order and handed to per-channel {@link ValueIterator}s.
+ *  More than {@link #MAX_CHANNELS} channels are split into
+ *  groups, each read with its own query and result set.
+ *  When reading one channel, samples of other channels that
+ *  are found on the way are buffered until their iterator
+ *  asks for them.
+ *  Reading the channels interleaved by time thus
+ *  needs very little memory,
+ *  while reading one channel to the end before the next
+ *  buffers the data of the remaining channels.
+ *  <p>
+ *  Not thread-safe.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+class MultiChannelSampleFetch
+{
+    /** Maximum number of channels in one query, below Oracle's limit of 1000 for 'IN (...)' */
+    final static int MAX_CHANNELS = 500;
+
+    /** Channel with its start time */
+    static class ChannelStart
+    {
+        final String name;
+        final int id;
+        /** Time of the last sample at or before the requested start time, else the requested start time */
+        final Timestamp start;
+
+        ChannelStart(final String name, final int id, final Timestamp start)
+        {
+            this.name = name;
+            this.id = id;
+            this.start = start;
+        }
+    }
+
+    /** Iterator for one channel */
+    private class ChannelIterator extends AbstractRDBValueIterator
+    {
+        /** Samples read from the result set, waiting to be returned */
+        final private ArrayDeque<VType> samples = new ArrayDeque<>();
+        private boolean open = true;
+        private boolean error_reported = false;
+
+        ChannelIterator(final int channel_id) throws Exception
+        {
+            super(MultiChannelSampleFetch.this.reader, channel_id);
+        }
+
+        VType decode(final ResultSet result) throws Exception
+        {
+            return decodeSampleTableValue(result, true);
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (! open)
+                return false;
+            if (samples.isEmpty())
+                readFor(this);
+            return !samples.isEmpty()  ||  (error != null  &&  !error_reported);
+        }
+
+        @Override
+        public VType next() throws Exception
+        {
+            if (! samples.isEmpty())
+                return samples.poll();
+            if (error != null  &&  !error_reported)
+            {
+                error_reported = true;
+                throw error;
+            }
+            throw new Exception("Iterator for channel with ID " + channel_id + " called after end");
+        }
+
+        @Override
+        public void close()
+        {
+            super.close();
+            if (! open)
+                return;
+            open = false;
+            samples.clear();
+            if (--open_iterators <= 0)
+                closeStatement();
+        }
+    }
+
+    final private RDBArchiveReader reader;
+
+    /** Iterators by channel ID */
+    final private Map<Integer, ChannelIterator> iterators = new HashMap<>();
+
+    /** Number of iterators that have not been closed */
+    private int open_iterators = 0;
+
+    private PreparedStatement statement = null;
+    private ResultSet result = null;
+
+    /** Column of the result that holds the channel ID */
+    private int channel_column;
+
+    /** Error while reading the result set */
+    private Exception error = null;
+
+    /** Locate channels and their initial sample time
+     *  @param reader {@link RDBArchiveReader}
+     *  @param names Channel names
+     *  @param start Start time
+     *  @return Channels in order of the requested names. Unknown channels are omitted.
+     *  @throws Exception on error
+     */
+    static List<ChannelStart> lookup(final RDBArchiveReader reader, final List<String> names,
+                                     final Instant start) throws Exception
+    {
+        final Timestamp start_stamp = TimestampHelper.toSQLTimestamp(start);
+        final Map<String, ChannelStart> found = new HashMap<>();
+        for (int i=0; i<names.size(); i += MAX_CHANNELS)
+        {
+            final List<String> chunk = names.subList(i, Math.min(names.size(), i + MAX_CHANNELS));
+            try
+            (
+                final PreparedStatement statement = reader.getConnection().prepareStatement(
+                        reader.getSQL().channelSelInitialTimeByNames(chunk.size()));
+            )
+            {
+                reader.addForCancellation(statement);
+                try
+                {
+                    statement.setTimestamp(1, start_stamp);
+                    int p = 2;
+                    for (String name : chunk)
+                        statement.setString(p++, name);
+                    final ResultSet result = statement.executeQuery();
+                    while (result.next())
+                    {
+                        final Timestamp initial = result.getTimestamp(3);
+                        final String name = result.getString(1);
+                        found.put(name, new ChannelStart(name, result.getInt(2),
+                                                         initial == null ? start_stamp : initial));
+                    }
+                }
+                finally
+                {
+                    reader.removeFromCancellation(statement);
+                }
+            }
+        }
+
+        final List<ChannelStart> channels = new ArrayList<>(found.size());
+        for (String name : names)
+        {
+            ChannelStart channel = found.get(name);
+            if (channel == null)
+            {   // Database may compare names case-insensitively
+                for (ChannelStart other : found.values())
+                    if (other.name.equalsIgnoreCase(name))
+                    {
+                        channel = other;
+                        break;
+                    }
+                if (channel == null)
+                    continue;
+            }
+            channels.add(new ChannelStart(name, channel.id, channel.start));
+        }
+        return channels;
+    }
+
+    /** Start fetching samples
+     *  @param reader {@link RDBArchiveReader}
+     *  @param channels Channels to read
+     *  @param end End time
+     *  @return Iterators by channel name, in order of the channels
+     *  @throws Exception on error
+     */
+    static Map<String, ValueIterator> fetch(final RDBArchiveReader reader,
+                                            final List<ChannelStart> channels,
+                                            final Instant end) throws Exception
+    {
+        final List<ChannelStart> unique = new ArrayList<>(channels.size());
+        final Map<String, ValueIterator> result = new LinkedHashMap<>();
+        try
+        {
+            for (ChannelStart channel : channels)
+                if (result.putIfAbsent(channel.name, null) == null)
+                    unique.add(channel);
+            for (int i=0; i<unique.size(); i += MAX_CHANNELS)
+            {
+                final List<ChannelStart> chunk = unique.subList(i, Math.min(unique.size(), i + MAX_CHANNELS));
+                final MultiChannelSampleFetch fetch = new MultiChannelSampleFetch(reader);
+                for (ChannelStart channel : chunk)
+                    result.put(channel.name, fetch.addChannel(channel.id));
+                fetch.start(chunk, end);
+            }
+        }
+        catch (Exception ex)
+        {
+            for (ValueIterator iter : result.values())
+                if (iter != null)
+                    iter.close();
+            throw ex;
+        }
+        return result;
+    }
+
+    /** @param reader {@link RDBArchiveReader} */
+    private MultiChannelSampleFetch(final RDBArchiveReader reader)
+    {
+        this.reader = reader;
+    }
+
+    /** @param channel_id Channel ID
+     *  @return Iterator for that channel
+     *  @throws Exception on error
+     */
+    private ValueIterator addChannel(final int channel_id) throws Exception
+    {
+        ChannelIterator iter = iterators.get(channel_id);
+        if (iter == null)
+        {
+            iter = new ChannelIterator(channel_id);
+            iterators.put(channel_id, iter);
+            ++open_iterators;
+        }
+        return iter;
+    }
+
+    /** Execute the query for the samples
+     *  @param channels Channels with start times
+     *  @param end End time
+     *  @throws Exception on error
+     */
+    private void start(final List<ChannelStart> channels, final Instant end) throws Exception
+    {
+        if (iterators.isEmpty())
+            return;
+        // Disable auto-commit to fetch samples with PostgreSQL when fetch direction is FETCH_FORWARD
+        if (reader.getDialect() == Dialect.PostgreSQL  &&  reader.getConnection().getAutoCommit())
+            reader.getConnection().setAutoCommit(false);
+
+        // Channels that appear more than once are only queried once
+        final Map<Integer, Timestamp> starts = new LinkedHashMap<>();
+        for (ChannelStart channel : channels)
+            starts.putIfAbsent(channel.id, channel.start);
+
+        statement = reader.getConnection().prepareStatement(
+                reader.getSQL().sampleSelByIdsStartEnd(starts.size(), reader.useArrayBlob()));
+        statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+        statement.setFetchSize(Preferences.getFetchSize());
+        reader.addForCancellation(statement);
+        int p = 1;
+        for (Map.Entry<Integer, Timestamp> entry : starts.entrySet())
+        {
+            statement.setInt(p++, entry.getKey());
+            statement.setTimestamp(p++, entry.getValue());
+        }
+        statement.setTimestamp(p, TimestampHelper.toSQLTimestamp(end));
+        try
+        {
+            result = statement.executeQuery();
+            channel_column = result.getMetaData().getColumnCount();
+        }
+        catch (Exception ex)
+        {
+            closeStatement();
+            if (! RDBArchiveReader.isCancellation(ex))
+                throw ex;
+            // Else: Not a real error; return empty iterators
+        }
+    }
+
+    /** Read from result set until there is a sample for an iterator or the end is reached
+     *  @param iter Iterator that needs a sample
+     */
+    private void readFor(final ChannelIterator iter)
+    {
+        try
+        {
+            while (result != null  &&  iter.samples.isEmpty())
+            {
+                if (! result.next())
+                {
+                    closeStatement();
+                    return;
+                }
+                final ChannelIterator channel = iterators.get(result.getInt(channel_column));
+                if (channel != null  &&  channel.open)
+                    channel.samples.add(channel.decode(result));
+            }
+        }
+        catch (Exception ex)
+        {
+            closeStatement();
+            if (! RDBArchiveReader.isCancellation(ex))
+                error = ex;
+            // Else: Not a real error; end iterators
+        }
+    }
+
+    /** Release database resources */
+    private void closeStatement()
+    {
+        if (result != null)
+        {
+            try
+            {
+                result.close();
+            }
+            catch (Exception ex)
+            {
+                // Ignore
+            }
+            result = null;
+        }
+        if (statement != null)
+        {
+            reader.removeFromCancellation(statement);
+            try
+            {
+                statement.close();
+            }
+            catch (Exception ex)
+            {
+                // Ignore
+            }
+            statement = null;
+            if (reader.getDialect() == Dialect.PostgreSQL)
+            {
+                // Restore default auto-commit on result set close
+                try
+                {
+                    reader.getConnection().setAutoCommit(true);
+                }
+                catch (Exception ex)
+                {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
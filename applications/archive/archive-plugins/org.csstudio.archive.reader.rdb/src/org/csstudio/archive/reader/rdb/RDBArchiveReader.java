@@ -11,14 +11,20 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.csstudio.archive.rdb.RDBArchivePreferences;
+import org.csstudio.archive.rdb.Rollup;
+import org.csstudio.archive.reader.rdb.MultiChannelSampleFetch.ChannelStart;
 import org.csstudio.archive.reader.ArchiveInfo;
 import org.csstudio.archive.reader.ArchiveReader;
 import org.csstudio.archive.reader.UnknownChannelException;
@@ -69,6 +75,11 @@ public class RDBArchiveReader implements ArchiveReader
 
     private boolean concurrency = false;
 
+    /** Use the rollup table for optimized requests?
+     *  Cleared when the rollup table cannot be read.
+     */
+    private volatile boolean use_rollup;
+
     /** Initialize
      *  @param url Database URL
      *  @param user .. user
@@ -106,6 +117,8 @@ public class RDBArchiveReader implements ArchiveReader
         this.use_array_blob = use_array_blob;
         timeout = RDBArchivePreferences.getSQLTimeoutSecs();
         rdb = ConnectionCache.get(url, user, password);
+        // No rollup table in the Oracle schema
+        use_rollup = RDBArchivePreferences.useRollup()  &&  rdb.getDialect() != Dialect.Oracle;
 
         // Read-only allows MySQL to use load balancing
         if (!rdb.getConnection().isReadOnly()) {
@@ -386,6 +399,11 @@ public class RDBArchiveReader implements ArchiveReader
             throw new Exception("Count must be > 1");
         final int channel_id = getChannelID(name);
 
+        // Use rollup table?
+        final ValueIterator rollup = getRollupValues(channel_id, start, end, count);
+        if (rollup != null)
+            return rollup;
+
         // Use stored procedure in RDB server?
         if (stored_procedure.length() > 0)
             return new StoredProcedureValueIterator(this, stored_procedure, channel_id, start, end, count);
@@ -418,6 +436,217 @@ public class RDBArchiveReader implements ArchiveReader
         return new AveragedValueIterator(raw_data, seconds);
     }
 
+    /** {@inheritDoc}
+     *  <p>
+     *  Reads the samples of all channels with one query,
+     *  in time order across all channels.
+     *  Large numbers of channels are split into groups of
+     *  {@link MultiChannelSampleFetch#MAX_CHANNELS}, one query per group.
+     */
+    @Override
+    public Map<String, ValueIterator> getRawValues(final int key, final List<String> names,
+            final Instant start, final Instant end) throws Exception
+    {
+        final List<ChannelStart> channels = MultiChannelSampleFetch.lookup(this, names, start);
+        return MultiChannelSampleFetch.fetch(this, channels, end);
+    }
+
+    /** {@inheritDoc}
+     *  <p>
+     *  Channels with a complete rollup are read from the rollup table.
+     *  Without stored procedure, reads the raw samples of the remaining channels
+     *  with one query and averages those that have more than
+     *  <code>count</code> samples.
+     *  With stored procedure, channels are read one by one.
+     */
+    @Override
+    public Map<String, ValueIterator> getOptimizedValues(final int key, final List<String> names,
+            final Instant start, final Instant end, final int count) throws Exception
+    {
+        if (count <= 1)
+            throw new Exception("Count must be > 1");
+
+        final Map<String, ValueIterator> result = new LinkedHashMap<>();
+        // Stored procedure handles one channel at a time.
+        // Channels share the connection, so fetch one after the other.
+        if (stored_procedure.length() > 0)
+        {
+            try
+            {
+                for (String name : names)
+                {
+                    try
+                    {
+                        result.put(name, getOptimizedValues(key, name, start, end, count));
+                    }
+                    catch (UnknownChannelException ex)
+                    {
+                        // Omit unknown channel
+                    }
+                }
+            }
+            catch (Exception ex)
+            {
+                for (ValueIterator iter : result.values())
+                    iter.close();
+                throw ex;
+            }
+            return result;
+        }
+
+        final List<ChannelStart> channels = MultiChannelSampleFetch.lookup(this, names, start);
+
+        // Read rollups before starting the raw sample query on the shared connection
+        final Map<String, ValueIterator> rollups = new HashMap<>();
+        final List<ChannelStart> raw_channels = new ArrayList<>();
+        final Map<Integer, Integer> counted;
+        final Map<String, ValueIterator> raw_data;
+        try
+        {
+            for (ChannelStart channel : channels)
+            {
+                if (rollups.containsKey(channel.name))
+                    continue;
+                final ValueIterator rollup = getRollupValues(channel.id, start, end, count);
+                if (rollup == null)
+                    raw_channels.add(channel);
+                else
+                    rollups.put(channel.name, rollup);
+            }
+            counted = countSamples(raw_channels, start, end);
+            raw_data = MultiChannelSampleFetch.fetch(this, raw_channels, end);
+        }
+        catch (Exception ex)
+        {
+            for (ValueIterator iter : rollups.values())
+                iter.close();
+            throw ex;
+        }
+
+        final double seconds = TimeDuration.toSecondsDouble(Duration.between(start, end)) / count;
+        for (ChannelStart channel : channels)
+        {
+            final ValueIterator rollup = rollups.get(channel.name);
+            if (rollup != null)
+            {
+                result.put(channel.name, rollup);
+                continue;
+            }
+            final ValueIterator raw = raw_data.get(channel.name);
+            final Integer samples = counted.get(channel.id);
+            // If there weren't that many, return raw data
+            if (samples == null  ||  samples < count)
+                result.put(channel.name, raw);
+            else
+                result.put(channel.name, new AveragedValueIterator(raw, seconds));
+        }
+        return result;
+    }
+
+    /** Get optimized values from the rollup table
+     *
+     *  <p>The rollup is only used when the requested bin size
+     *  allows for one of the rollup resolutions
+     *  and the rollup covers the samples in the time range,
+     *  i.e. it has been maintained since before the first sample
+     *  in the time range was written.
+     *
+     *  @param channel_id Channel ID
+     *  @param start Start time
+     *  @param end End time
+     *  @param count Hint for number of values
+     *  @return {@link RollupValueIterator} or <code>null</code> if rollup cannot be used
+     *  @throws Exception on error
+     */
+    private ValueIterator getRollupValues(final int channel_id,
+            final Instant start, final Instant end, final int count) throws Exception
+    {
+        if (! use_rollup)
+            return null;
+        final double seconds = TimeDuration.toSecondsDouble(Duration.between(start, end)) / count;
+        final int resolution = Rollup.getResolution(seconds);
+        if (resolution <= 0)
+            return null;
+        try
+        {
+            // Time of first sample in range
+            final Timestamp first_sample;
+            try
+            (
+                final PreparedStatement statement = rdb.getConnection().prepareStatement(
+                        sql.sample_sel_first_time);
+            )
+            {
+                statement.setInt(1, channel_id);
+                statement.setTimestamp(2, TimestampHelper.toSQLTimestamp(start));
+                statement.setTimestamp(3, TimestampHelper.toSQLTimestamp(end));
+                final ResultSet result = statement.executeQuery();
+                first_sample = result.next() ? result.getTimestamp(1) : null;
+            }
+            if (first_sample == null)
+                return null;
+
+            // Does rollup reach back to that sample?
+            final Timestamp first_bucket;
+            try
+            (
+                final PreparedStatement statement = rdb.getConnection().prepareStatement(
+                        sql.rollup_sel_first_time);
+            )
+            {
+                statement.setInt(1, channel_id);
+                statement.setInt(2, resolution);
+                final ResultSet result = statement.executeQuery();
+                first_bucket = result.next() ? result.getTimestamp(1) : null;
+            }
+            // The first bucket is partial when the rollup was enabled within it,
+            // so the rollup must start in a bucket before the first sample
+            if (first_bucket == null  ||
+                first_bucket.toInstant().getEpochSecond() >=
+                Rollup.getBucketStart(first_sample.toInstant().getEpochSecond(), resolution))
+                return null;
+        }
+        catch (Exception ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Cannot use " + Rollup.TABLE + ", reading samples", ex);
+            use_rollup = false;
+            return null;
+        }
+        return new RollupValueIterator(this, channel_id, resolution, start, end, seconds);
+    }
+
+    /** @param channels Channels
+     *  @param start Start time
+     *  @param end End time
+     *  @return Sample count by channel ID, omitting channels without samples
+     *  @throws Exception on error
+     */
+    private Map<Integer, Integer> countSamples(final List<ChannelStart> channels,
+            final Instant start, final Instant end) throws Exception
+    {
+        final Map<Integer, Integer> counted = new HashMap<>();
+        for (int i=0; i<channels.size(); i += MultiChannelSampleFetch.MAX_CHANNELS)
+        {
+            final List<ChannelStart> chunk = channels.subList(i, Math.min(channels.size(), i + MultiChannelSampleFetch.MAX_CHANNELS));
+            try
+            (
+                final PreparedStatement count_samples = rdb.getConnection().prepareStatement(
+                        sql.sampleCountByIdsStartEnd(chunk.size()));
+            )
+            {
+                count_samples.setTimestamp(1, TimestampHelper.toSQLTimestamp(start));
+                count_samples.setTimestamp(2, TimestampHelper.toSQLTimestamp(end));
+                int p = 3;
+                for (ChannelStart channel : chunk)
+                    count_samples.setInt(p++, channel.id);
+                final ResultSet result = count_samples.executeQuery();
+                while (result.next())
+                    counted.put(result.getInt(1), result.getInt(2));
+            }
+        }
+        return counted;
+    }
+
     /** @param name Channel name
      *  @return Numeric channel ID
      *  @throws UnknownChannelException when channel not known
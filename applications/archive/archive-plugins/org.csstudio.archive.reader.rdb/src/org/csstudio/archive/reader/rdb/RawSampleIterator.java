@@ -12,6 +12,7 @@ import java.sql.ResultSet;
 import java.sql.Timestamp;
 import java.time.Instant;
 
+import org.csstudio.archive.reader.ValueBlock;
 import org.csstudio.archive.vtype.TimestampHelper;
 import org.csstudio.platform.utility.rdb.RDBUtil.Dialect;
 import org.diirt.vtype.VType;
@@ -199,6 +200,45 @@ public class RawSampleIterator extends AbstractRDBValueIterator
         return result;
     }
 
+    /** Read samples directly from the result set into the block.
+     *  {@inheritDoc}
+     */
+    @Override
+    public int next(final ValueBlock block) throws Exception
+    {
+        block.clear();
+        if (value == null)
+            return 0;
+        // Pending value was already decoded for next()
+        block.add(value);
+        value = null;
+        try
+        {
+            while (! block.isFull())
+            {
+                if (! result_set.next())
+                {
+                    close();
+                    return block.size();
+                }
+                decodeSampleTableValue(result_set, block);
+            }
+            // Block is full. Prepare 'value' for hasNext()
+            if (result_set.next())
+                value = decodeSampleTableValue(result_set, true);
+            else
+                close();
+        }
+        catch (Exception ex)
+        {
+            close();
+            if (! RDBArchiveReader.isCancellation(ex))
+                throw ex;
+            // Else: Not a real error; return what was read so far
+        }
+        return block.size();
+    }
+
     /** Release all database resources.
      *  OK to call more than once.
      */
@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader.rdb;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.archive.rdb.Rollup;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.TimestampHelper;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VType;
+
+/** Value Iterator that provides min/max/mean from the rollup table
+ *
+ *  <p>Rollup buckets are merged into bins of the requested size,
+ *  rounded down to a multiple of the bucket size.
+ *  Each bin results in one statistics sample, time-stamped
+ *  in the middle of the bin.
+ *
+ *  <p>Each bin has the highest alarm severity of its values
+ *  and the status of that value.
+ *  The rollup only holds numeric values.
+ *  For bins that also contain other samples, for example
+ *  'Disconnected', the raw samples are read and averaged
+ *  so that these samples are passed through.
+ *
+ *  <p>The bins are read when the iterator is created.
+ *  Since there are only about as many bins as requested
+ *  for an optimized read, this keeps the result set
+ *  independent from other queries on the same connection.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class RollupValueIterator extends AbstractRDBValueIterator
+{
+    /** Statistics for the time range */
+    final private ArrayDeque<VType> values = new ArrayDeque<>();
+
+    /** Rollup buckets merged into one bin */
+    private static class Bin
+    {
+        final long start;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double sum = 0.0, sum_sq = 0.0;
+        long count = 0;
+        /** AlarmSeverity ordinal, -1 for none */
+        int severity = -1;
+        int status_id = -1;
+        long info = 0;
+
+        Bin(final long start)
+        {
+            this.start = start;
+        }
+    }
+
+    /** Raw samples from start (inclusive) to end (exclusive) */
+    private static class RawBinIterator implements ValueIterator
+    {
+        final private ValueIterator raw;
+        final private Instant end;
+        private VType value = null;
+
+        RawBinIterator(final ValueIterator raw, final Instant start, final Instant end) throws Exception
+        {
+            this.raw = raw;
+            this.end = end;
+            // Skip initial sample before the start
+            while (raw.hasNext())
+            {
+                value = raw.next();
+                if (! VTypeHelper.getTimestamp(value).isBefore(start))
+                    break;
+                value = null;
+            }
+            if (value != null  &&  ! VTypeHelper.getTimestamp(value).isBefore(end))
+                value = null;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return value != null;
+        }
+
+        @Override
+        public VType next() throws Exception
+        {
+            final VType result = value;
+            value = raw.hasNext() ? raw.next() : null;
+            if (value != null  &&  ! VTypeHelper.getTimestamp(value).isBefore(end))
+                value = null;
+            return result;
+        }
+
+        @Override
+        public void close()
+        {
+            raw.close();
+        }
+    }
+
+    /** Initialize
+     *  @param reader RDBArchiveReader
+     *  @param channel_id ID of channel
+     *  @param resolution Rollup bucket size in seconds, see {@link Rollup}
+     *  @param start Start time
+     *  @param end End time
+     *  @param bin_seconds Desired bin size in seconds
+     *  @throws Exception on error
+     */
+    public RollupValueIterator(final RDBArchiveReader reader,
+            final int channel_id, final int resolution,
+            final Instant start, final Instant end,
+            final double bin_seconds) throws Exception
+    {
+        super(reader, channel_id);
+        final long bin = Math.max(1, (long) (bin_seconds / resolution)) * resolution;
+        final PreparedStatement statement = reader.getConnection().prepareStatement(
+                reader.getSQL().rollup_sel_by_id_start_end);
+        reader.addForCancellation(statement);
+        final List<Bin> bins = new ArrayList<>();
+        try
+        {
+            statement.setFetchDirection(ResultSet.FETCH_FORWARD);
+            statement.setFetchSize(Preferences.getFetchSize());
+            statement.setInt(1, channel_id);
+            statement.setInt(2, resolution);
+            statement.setTimestamp(3, TimestampHelper.toSQLTimestamp(
+                    Instant.ofEpochSecond(Rollup.getBucketStart(start.getEpochSecond(), resolution))));
+            statement.setTimestamp(4, TimestampHelper.toSQLTimestamp(end));
+            final ResultSet result = statement.executeQuery();
+
+            Bin current = null;
+            while (result.next())
+            {
+                final long bin_start = Rollup.getBucketStart(
+                        result.getTimestamp(1).toInstant().getEpochSecond(), (int) bin);
+                if (current == null  ||  current.start != bin_start)
+                {
+                    current = new Bin(bin_start);
+                    bins.add(current);
+                }
+                final long count = result.getLong(6);
+                if (count > 0)
+                {
+                    current.min = Math.min(current.min, result.getDouble(2));
+                    current.max = Math.max(current.max, result.getDouble(3));
+                    current.sum += result.getDouble(4);
+                    current.sum_sq += result.getDouble(5);
+                    current.count += count;
+                    final int severity = result.getInt(7);
+                    if (severity > current.severity)
+                    {
+                        current.severity = severity;
+                        current.status_id = result.getInt(8);
+                    }
+                }
+                current.info += result.getLong(9);
+            }
+        }
+        catch (Exception ex)
+        {
+            bins.clear();
+            if (! RDBArchiveReader.isCancellation(ex))
+                throw ex;
+            // Else: Not a real error; return empty iterator
+        }
+        finally
+        {
+            reader.removeFromCancellation(statement);
+            statement.close();
+        }
+
+        // Bins with info samples are read from the raw samples,
+        // one request for each run of such bins
+        int i = 0;
+        while (i < bins.size())
+        {
+            final Bin first = bins.get(i);
+            if (first.info <= 0)
+            {
+                addBin(first, bin, start, end);
+                ++i;
+                continue;
+            }
+            while (i < bins.size()  &&  bins.get(i).info > 0)
+                ++i;
+            final Instant raw_start = Instant.ofEpochSecond(first.start);
+            final Instant raw_end = Instant.ofEpochSecond(bins.get(i-1).start + bin);
+            addRawBins(raw_start.isBefore(start) ? start : raw_start,
+                       raw_end.isAfter(end) ? end : raw_end, bin);
+        }
+    }
+
+    /** Add statistics for one bin */
+    private void addBin(final Bin data, final long bin, final Instant start, final Instant end)
+    {
+        if (data.count <= 0)
+            return;
+        Instant time = Instant.ofEpochSecond(data.start).plusMillis(bin * 500);
+        if (time.isBefore(start))
+            time = start;
+        else if (time.isAfter(end))
+            time = end;
+        final double mean = data.sum / data.count;
+        final double stddev = Math.sqrt(Math.max(0.0, data.sum_sq / data.count - mean*mean));
+        final AlarmSeverity severity = data.severity < 0 ? AlarmSeverity.NONE : AlarmSeverity.values()[data.severity];
+        final String status = data.status_id < 0 ? "" : reader.getStatus(data.status_id);
+        values.add(new ArchiveVStatistics(time, severity, status, display,
+                                          mean, data.min, data.max, stddev, (int) Math.min(data.count, Integer.MAX_VALUE)));
+    }
+
+    /** Add averaged raw samples
+     *  @param raw_start Start of first bin
+     *  @param raw_end End of last bin
+     *  @param bin Bin size in seconds
+     */
+    private void addRawBins(final Instant raw_start, final Instant raw_end, final long bin) throws Exception
+    {
+        final ValueIterator raw = new RawBinIterator(new RawSampleIterator(reader, channel_id, raw_start, raw_end),
+                                                     raw_start, raw_end);
+        try
+        {
+            final ValueIterator averaged = new AveragedValueIterator(raw, bin);
+            while (averaged.hasNext())
+                values.add(averaged.next());
+        }
+        finally
+        {
+            raw.close();
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext()
+    {
+        return ! values.isEmpty();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public VType next() throws Exception
+    {
+        final VType value = values.poll();
+        if (value == null)
+            throw new Exception("RollupValueIterator.next(" + channel_id + ") called after end");
+        return value;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close()
+    {
+        super.close();
+        values.clear();
+    }
+}
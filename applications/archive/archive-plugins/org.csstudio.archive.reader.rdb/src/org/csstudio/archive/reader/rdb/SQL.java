@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.csstudio.archive.reader.rdb;
 
+import org.csstudio.archive.rdb.Rollup;
 import org.csstudio.platform.utility.rdb.RDBUtil;
 import org.csstudio.platform.utility.rdb.RDBUtil.Dialect;
 
@@ -38,6 +39,17 @@ public class SQL
     final public String sample_sel_by_id_start_end_with_blob;
     final public String sample_sel_array_vals;
     final public String sample_count_by_id_start_end;
+    final public String sample_sel_first_time;
+
+    // 'sample_rollup' table
+    final public String rollup_sel_first_time;
+    final public String rollup_sel_by_id_start_end;
+
+    /** Schema prefix */
+    final private String prefix;
+
+    /** Does 'sample' table have a 'nanosecs' column? */
+    final private boolean nanosecs;
 
     /** Initialize SQL statements
      *  @param dialect RDB dialect
@@ -50,6 +62,8 @@ public class SQL
         else
             if (prefix.length() > 0   &&   !prefix.endsWith("."))
                 prefix = prefix + ".";
+        this.prefix = prefix;
+        nanosecs = dialect != RDBUtil.Dialect.Oracle;
 
         // 'status' table
         sel_stati = "SELECT status_id, name FROM " + prefix + "status";
@@ -131,5 +145,84 @@ public class SQL
         // Rough count, ignoring nanosecs for the non-Oracle dialects
         sample_count_by_id_start_end = "SELECT COUNT(*) FROM " + prefix + "sample" +
           "   WHERE channel_id=? AND smpl_time BETWEEN ? AND ?";
+        sample_sel_first_time = "SELECT MIN(smpl_time) FROM " + prefix + "sample" +
+          "   WHERE channel_id=? AND smpl_time BETWEEN ? AND ?";
+
+        // 'sample_rollup' table
+        rollup_sel_first_time = "SELECT MIN(bucket_time) FROM " + prefix + Rollup.TABLE +
+          "   WHERE channel_id=? AND resolution=?";
+        rollup_sel_by_id_start_end =
+          "SELECT bucket_time, min_val, max_val, sum_val, sum_sq, cnt, max_sevr, status_id, info_cnt FROM " + prefix + Rollup.TABLE +
+          "   WHERE channel_id=? AND resolution=?" +
+          "     AND bucket_time>=? AND bucket_time<=?" +
+          "   ORDER BY bucket_time";
+    }
+
+    /** @param count Number of placeholders
+     *  @return "?, ?, ?" with 'count' placeholders
+     */
+    private static String placeholders(final int count)
+    {
+        final StringBuilder buf = new StringBuilder();
+        for (int i=0; i<count; ++i)
+        {
+            if (i > 0)
+                buf.append(", ");
+            buf.append('?');
+        }
+        return buf.toString();
+    }
+
+    /** Parameters: start time, then 'count' channel names
+     *  @param count Number of channels
+     *  @return SELECT name, channel_id, time of last sample at or before start time
+     */
+    public String channelSelInitialTimeByNames(final int count)
+    {
+        return "SELECT c.name, c.channel_id," +
+               " (SELECT MAX(s.smpl_time) FROM " + prefix + "sample s WHERE s.channel_id=c.channel_id AND s.smpl_time<=?)" +
+               " FROM " + prefix + "channel c WHERE c.name IN (" + placeholders(count) + ")";
+    }
+
+    /** Parameters: channel_id and start time for each channel, then end time.
+     *  <p>
+     *  Columns are the same as for {@link #sample_sel_by_id_start_end}
+     *  resp. {@link #sample_sel_by_id_start_end_with_blob},
+     *  with the channel_id as an additional last column.
+     *
+     *  @param count Number of channels, at most {@link MultiChannelSampleFetch#MAX_CHANNELS}
+     *  @param with_blob Read array BLOB?
+     *  @return SELECT samples of several channels, ordered by time
+     */
+    public String sampleSelByIdsStartEnd(final int count, final boolean with_blob)
+    {
+        final StringBuilder buf = new StringBuilder();
+        buf.append("SELECT smpl_time, severity_id, status_id, num_val, float_val, str_val");
+        if (nanosecs)
+            buf.append(", nanosecs");
+        if (with_blob)
+            buf.append(", datatype, array_val");
+        buf.append(", channel_id FROM ").append(prefix).append("sample WHERE (");
+        for (int i=0; i<count; ++i)
+        {
+            if (i > 0)
+                buf.append(" OR ");
+            buf.append("(channel_id=? AND smpl_time>=?)");
+        }
+        buf.append(") AND smpl_time<=? ORDER BY smpl_time");
+        if (nanosecs)
+            buf.append(", nanosecs");
+        return buf.toString();
+    }
+
+    /** Parameters: start time, end time, then 'count' channel IDs
+     *  @param count Number of channels, at most {@link MultiChannelSampleFetch#MAX_CHANNELS}
+     *  @return SELECT channel_id, COUNT(*) for several channels
+     */
+    public String sampleCountByIdsStartEnd(final int count)
+    {
+        return "SELECT channel_id, COUNT(*) FROM " + prefix + "sample" +
+               " WHERE smpl_time BETWEEN ? AND ? AND channel_id IN (" + placeholders(count) + ")" +
+               " GROUP BY channel_id";
     }
 }
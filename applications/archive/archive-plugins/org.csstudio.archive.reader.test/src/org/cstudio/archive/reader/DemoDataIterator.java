@@ -10,6 +10,7 @@ package org.cstudio.archive.reader;
 import java.time.Instant;
 
 import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.ArchiveVNumber;
 import org.csstudio.archive.vtype.ArchiveVString;
 import org.diirt.vtype.AlarmSeverity;
 import org.diirt.vtype.VType;
@@ -32,6 +33,14 @@ class DemoDataIterator implements ValueIterator
         return new DemoDataIterator(values);
     }
 
+    public static DemoDataIterator forNumbers(final double offset, final int start_time)
+    {
+        final VType[] values = new VType[10];
+        for (int i=0; i<10; ++i)
+            values[i] = new ArchiveVNumber(Instant.ofEpochSecond(start_time + i + 1, 0), AlarmSeverity.NONE, "OK", null, offset + i + 1);
+        return new DemoDataIterator(values);
+    }
+
     public static DemoDataIterator forStrings(final String name)
     {
         return forStrings(name, 0);
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.cstudio.archive.reader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.csstudio.archive.reader.ArchiveInfo;
+import org.csstudio.archive.reader.ArchiveReader;
+import org.csstudio.archive.reader.UnknownChannelException;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.junit.Test;
+
+/** JUnit test of the default multi-channel fetch in the {@link ArchiveReader}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ParallelValueFetchUnitTest
+{
+    /** Reader for demo data that takes some time per request */
+    private static class DemoReader implements ArchiveReader
+    {
+        final AtomicInteger active = new AtomicInteger(), max_active = new AtomicInteger();
+        final List<DemoDataIterator> iters = new ArrayList<>();
+        final boolean thread_safe;
+
+        DemoReader(final boolean thread_safe)
+        {
+            this.thread_safe = thread_safe;
+        }
+
+        @Override
+        public boolean isThreadSafe()
+        {
+            return thread_safe;
+        }
+
+        @Override
+        public ValueIterator getRawValues(final int key, final String name, final Instant start, final Instant end)
+                throws UnknownChannelException, Exception
+        {
+            if (name.startsWith("Unknown"))
+                throw new UnknownChannelException(name);
+            if (name.startsWith("Bad"))
+                throw new Exception("Failed to read " + name);
+            max_active.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(100);
+            active.decrementAndGet();
+            final DemoDataIterator iter = DemoDataIterator.forStrings(name);
+            synchronized (iters)
+            {
+                iters.add(iter);
+            }
+            return iter;
+        }
+
+        @Override
+        public ValueIterator getOptimizedValues(final int key, final String name, final Instant start, final Instant end, final int count)
+                throws UnknownChannelException, Exception
+        {
+            return getRawValues(key, name, start, end);
+        }
+
+        @Override
+        public String getServerName()   { return "Demo"; }
+
+        @Override
+        public String getURL()          { return "demo:"; }
+
+        @Override
+        public String getDescription()  { return "Demo"; }
+
+        @Override
+        public int getVersion()         { return 1; }
+
+        @Override
+        public ArchiveInfo[] getArchiveInfos()
+        {
+            return new ArchiveInfo[] { new ArchiveInfo("demo", "Demo", 1) };
+        }
+
+        @Override
+        public String[] getNamesByPattern(int key, String glob_pattern) throws Exception
+        {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getNamesByRegExp(int key, String reg_exp) throws Exception
+        {
+            return new String[0];
+        }
+
+        @Override
+        public void cancel()
+        {
+            // NOP
+        }
+
+        @Override
+        public void close()
+        {
+            // NOP
+        }
+    }
+
+    @Test
+    public void testFetch() throws Exception
+    {
+        final DemoReader reader = new DemoReader(true);
+        final List<String> names = new ArrayList<>();
+        for (int i=0; i<10; ++i)
+            names.add("PV" + i);
+        names.add(3, "Unknown");
+
+        final long start = System.nanoTime();
+        final Map<String, ValueIterator> iters = reader.getRawValues(0, names, Instant.EPOCH, Instant.now());
+        final double secs = (System.nanoTime() - start) / 1e9;
+        System.out.println("Fetched " + iters.size() + " channels in " + secs + " seconds, " + reader.max_active.get() + " in parallel");
+
+        // Unknown channel is skipped, rest in order of names
+        assertThat(iters.size(), equalTo(10));
+        int i = 0;
+        for (String name : iters.keySet())
+            assertThat(name, equalTo("PV" + i++));
+        assertThat(VTypeHelper.toString(iters.get("PV5").next()).contains("PV5 1"), equalTo(true));
+
+        // Requests were performed in parallel, but limited
+        assertThat(reader.max_active.get() > 1, equalTo(true));
+        assertThat(reader.max_active.get() <= 4, equalTo(true));
+
+        for (ValueIterator iter : iters.values())
+            iter.close();
+    }
+
+    @Test
+    public void testSequential() throws Exception
+    {
+        final DemoReader reader = new DemoReader(false);
+        final Map<String, ValueIterator> iters = reader.getRawValues(0, Arrays.asList("PV1", "Unknown", "PV2", "PV3"),
+                                                                     Instant.EPOCH, Instant.now());
+        assertThat(iters.keySet().toString(), equalTo("[PV1, PV2, PV3]"));
+        // Reader that is not thread-safe is called one channel at a time
+        assertThat(reader.max_active.get(), equalTo(1));
+        for (ValueIterator iter : iters.values())
+            iter.close();
+
+        try
+        {
+            reader.getRawValues(0, Arrays.asList("PV1", "Bad", "PV2"), Instant.EPOCH, Instant.now());
+            fail("Didn't detect error");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage(), equalTo("Failed to read Bad"));
+        }
+        for (DemoDataIterator iter : reader.iters)
+            assertThat(iter.isOpen(), equalTo(false));
+    }
+
+    @Test
+    public void testError() throws Exception
+    {
+        final DemoReader reader = new DemoReader(true);
+        try
+        {
+            reader.getOptimizedValues(0, Arrays.asList("PV1", "Bad", "PV2"), Instant.EPOCH, Instant.now(), 10);
+            fail("Didn't detect error");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage(), equalTo("Failed to read Bad"));
+        }
+        // Iterators that were fetched are closed
+        Thread.sleep(500);
+        for (DemoDataIterator iter : reader.iters)
+            assertThat(iter.isOpen(), equalTo(false));
+    }
+}
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.cstudio.archive.reader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.time.Instant;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.csstudio.archive.reader.PrefetchingValueIterator;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.DefaultVTypeFormat;
+import org.csstudio.archive.vtype.VTypeFormat;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VType;
+import org.junit.Test;
+
+/** JUnit test of the {@link PrefetchingValueIterator}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PrefetchingValueIteratorUnitTest
+{
+    @Test
+    public void testPrefetch() throws Exception
+    {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final VTypeFormat format = new DefaultVTypeFormat();
+        // Chunks that end before, at and after the end of data
+        for (int chunk_size : new int[] { 1, 3, 5, 10, 20 })
+        {
+            final DemoDataIterator base = DemoDataIterator.forStrings("A");
+            final ValueIterator iter = new PrefetchingValueIterator(base, pool, chunk_size);
+            final StringBuilder result = new StringBuilder();
+            while (iter.hasNext())
+            {
+                if (result.length() > 0)
+                    result.append(", ");
+                format.format(iter.next(), result);
+            }
+            assertThat(result.toString(), equalTo("A 1, A 2, A 3, A 4, A 5, A 6, A 7, A 8, A 9, A 10"));
+            assertThat(base.isOpen(), equalTo(true));
+            iter.close();
+            assertThat(base.isOpen(), equalTo(false));
+            // Closing again is ignored
+            iter.close();
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testError() throws Exception
+    {
+        final ExecutorService pool = Executors.newSingleThreadExecutor();
+        final ValueIterator failing = new ValueIterator()
+        {
+            private int count = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return true;
+            }
+
+            @Override
+            public VType next() throws Exception
+            {
+                if (count >= 5)
+                    throw new Exception("Archive is gone");
+                ++count;
+                return new ArchiveVString(Instant.ofEpochSecond(count), AlarmSeverity.NONE, "OK", "Value " + count);
+            }
+
+            @Override
+            public void close()
+            {
+                // NOP
+            }
+        };
+        final ValueIterator iter = new PrefetchingValueIterator(failing, pool, 2);
+        int count = 0;
+        try
+        {
+            while (iter.hasNext())
+            {
+                iter.next();
+                ++count;
+            }
+            fail("Error was not reported");
+        }
+        catch (Exception ex)
+        {
+            assertThat(ex.getMessage(), equalTo("Archive is gone"));
+        }
+        // Samples before the error were received
+        assertThat(count, equalTo(4));
+        assertThat(iter.hasNext(), equalTo(false));
+        iter.close();
+        pool.shutdown();
+    }
+}
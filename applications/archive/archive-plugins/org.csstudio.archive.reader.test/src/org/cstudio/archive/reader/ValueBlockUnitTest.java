@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.cstudio.archive.reader;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.archive.reader.MergingBlockIterator;
+import org.csstudio.archive.reader.MergingValueIterator;
+import org.csstudio.archive.reader.SpreadsheetBlockIterator;
+import org.csstudio.archive.reader.SpreadsheetIterator;
+import org.csstudio.archive.reader.ValueBlock;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VType;
+import org.junit.Test;
+
+/** JUnit test of the {@link ValueBlock} and block-oriented iterators
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ValueBlockUnitTest
+{
+    private static String format(final Instant time, final double value, final AlarmSeverity severity)
+    {
+        return time.getEpochSecond() + " " + value + " " + severity;
+    }
+
+    @Test
+    public void testTime()
+    {
+        final Instant time = Instant.ofEpochSecond(1234567890, 123456789);
+        assertThat(ValueBlock.toNanos(time), equalTo(1234567890123456789L));
+        assertThat(ValueBlock.fromNanos(ValueBlock.toNanos(time)), equalTo(time));
+        final Instant before_epoch = Instant.ofEpochSecond(-10, 5);
+        assertThat(ValueBlock.fromNanos(ValueBlock.toNanos(before_epoch)), equalTo(before_epoch));
+    }
+
+    /** Default implementation of next(ValueBlock) over VType iterator */
+    @Test
+    public void testAdapter() throws Exception
+    {
+        final ValueIterator iter = DemoDataIterator.forNumbers(100, 0);
+        final ValueBlock block = new ValueBlock(4);
+        final List<String> result = new ArrayList<>();
+        int n;
+        while ((n = iter.next(block)) > 0)
+        {
+            assertThat(n <= 4, equalTo(true));
+            for (int i=0; i<n; ++i)
+                result.add(format(block.getTime(i), block.values[i], block.severities[i]));
+        }
+        assertThat(result.size(), equalTo(10));
+        assertThat(result.get(0), equalTo("1 101.0 NONE"));
+        assertThat(result.get(9), equalTo("10 110.0 NONE"));
+        assertThat(iter.next(block), equalTo(0));
+
+        // Strings have no numeric value
+        final ValueIterator strings = DemoDataIterator.forStrings("A");
+        assertThat(strings.next(block), equalTo(4));
+        assertThat(Double.isNaN(block.values[0]), equalTo(true));
+    }
+
+    /** Merge numeric demo data as VTypes */
+    private List<String> merge(final ValueIterator... iters) throws Exception
+    {
+        final List<String> result = new ArrayList<>();
+        final MergingValueIterator merge = new MergingValueIterator(iters);
+        while (merge.hasNext())
+        {
+            final VType value = merge.next();
+            result.add(format(VTypeHelper.getTimestamp(value), VTypeHelper.toDouble(value), VTypeHelper.getSeverity(value)));
+        }
+        merge.close();
+        return result;
+    }
+
+    /** Merge numeric demo data as blocks */
+    private List<String> mergeBlocks(final int block_size, final ValueIterator... iters) throws Exception
+    {
+        final List<String> result = new ArrayList<>();
+        final MergingBlockIterator merge = new MergingBlockIterator(block_size, iters);
+        final ValueBlock block = new ValueBlock(3);
+        while (merge.hasNext())
+        {
+            final int n = merge.next(block);
+            for (int i=0; i<n; ++i)
+                result.add(format(block.getTime(i), block.values[i], block.severities[i]));
+        }
+        assertThat(merge.next(block), equalTo(0));
+        merge.close();
+        return result;
+    }
+
+    @Test
+    public void testMergingBlockIterator() throws Exception
+    {
+        for (int lag : new int[] { 0, 5, 20 })
+            for (int block_size : new int[] { 1, 4, 100 })
+            {
+                final List<String> expected = merge(DemoDataIterator.forNumbers(0, 0),
+                                                    DemoDataIterator.forNumbers(100, lag),
+                                                    DemoDataIterator.forNumbers(200, 3));
+                final List<String> result = mergeBlocks(block_size,
+                                                        DemoDataIterator.forNumbers(0, 0),
+                                                        DemoDataIterator.forNumbers(100, lag),
+                                                        DemoDataIterator.forNumbers(200, 3));
+                assertThat(result, equalTo(expected));
+                assertThat(result.size(), equalTo(30));
+            }
+    }
+
+    private List<String> sheet(final ValueIterator... iters) throws Exception
+    {
+        final List<String> result = new ArrayList<>();
+        final SpreadsheetIterator sheet = new SpreadsheetIterator(iters);
+        while (sheet.hasNext())
+        {
+            final Instant time = sheet.getTime();
+            for (VType value : sheet.next())
+                result.add(value == null
+                           ? format(time, Double.NaN, null)
+                           : format(time, VTypeHelper.toDouble(value), VTypeHelper.getSeverity(value)));
+        }
+        sheet.close();
+        return result;
+    }
+
+    private List<String> sheetBlocks(final int block_size, final ValueIterator... iters) throws Exception
+    {
+        final List<String> result = new ArrayList<>();
+        final SpreadsheetBlockIterator sheet = new SpreadsheetBlockIterator(block_size, iters);
+        final ValueBlock[] lines = new ValueBlock[iters.length];
+        for (int i=0; i<lines.length; ++i)
+            lines[i] = new ValueBlock(3);
+        while (sheet.hasNext())
+        {
+            final int n = sheet.next(lines);
+            for (int l=0; l<n; ++l)
+                for (ValueBlock line : lines)
+                    result.add(format(line.getTime(l), line.values[l], line.severities[l]));
+        }
+        sheet.close();
+        return result;
+    }
+
+    @Test
+    public void testSpreadsheetBlockIterator() throws Exception
+    {
+        for (int lag : new int[] { 0, 5 })
+            for (int block_size : new int[] { 1, 4, 100 })
+            {
+                final List<String> expected = sheet(DemoDataIterator.forNumbers(0, 0),
+                                                    DemoDataIterator.forNumbers(100, lag));
+                final List<String> result = sheetBlocks(block_size,
+                                                        DemoDataIterator.forNumbers(0, 0),
+                                                        DemoDataIterator.forNumbers(100, lag));
+                assertThat(result, equalTo(expected));
+                assertThat(result.size(), equalTo(2 * (10 + lag)));
+            }
+    }
+}
@@ -9,6 +9,8 @@ package org.csstudio.archive.reader;
 
 import java.io.Closeable;
 import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 /** Interface to archive data retrieval.
  *  <p>
@@ -165,6 +167,71 @@ public interface ArchiveReader extends Closeable
     public ValueIterator getOptimizedValues(int key, String name,
         Instant start, Instant end, int count) throws UnknownChannelException, Exception;
 
+    /** Read original, raw samples for several channels.
+     *  <p>
+     *  Readers that can fetch several channels in one request
+     *  should override this.
+     *  The default implementation fetches the channels
+     *  via {@link #getRawValues(int, String, Instant, Instant)},
+     *  in parallel if the reader {@link #isThreadSafe()}, otherwise one by one.
+     *  <p>
+     *  Iterators returned by one call may share a connection or
+     *  result set, in which case the samples are delivered in time order
+     *  across all channels.
+     *  Callers should therefore read the iterators interleaved by time,
+     *  as for example the {@link SpreadsheetIterator},
+     *  instead of reading each iterator to the end,
+     *  which would have to buffer the samples of the other channels.
+     *
+     *  @param key Key of the archive to use for retrieval.
+     *  @param names Channel names
+     *  @param start Start time
+     *  @param end End time
+     *  @return ValueIterators by channel name, in order of the requested names.
+     *          Channels unknown to the reader are omitted.
+     *          Caller must close all iterators.
+     *  @throws Exception on error
+     */
+    default Map<String, ValueIterator> getRawValues(int key, List<String> names,
+            Instant start, Instant end) throws Exception
+    {
+        return ParallelValueFetch.getRawValues(this, key, names, start, end);
+    }
+
+    /** Read optimized samples for several channels.
+     *  <p>
+     *  Like {@link #getRawValues(int, List, Instant, Instant)},
+     *  readers that can fetch several channels in one request
+     *  should override this.
+     *  The default implementation fetches the channels
+     *  via {@link #getOptimizedValues(int, String, Instant, Instant, int)},
+     *  in parallel if the reader {@link #isThreadSafe()}, otherwise one by one.
+     *
+     *  @param key Key of the archive to use for retrieval.
+     *  @param names Channel names
+     *  @param start Start time
+     *  @param end End time
+     *  @param count Hint for number of values per channel
+     *  @return ValueIterators by channel name, in order of the requested names.
+     *          Channels unknown to the reader are omitted.
+     *          Caller must close all iterators.
+     *  @throws Exception on error
+     */
+    default Map<String, ValueIterator> getOptimizedValues(int key, List<String> names,
+            Instant start, Instant end, int count) throws Exception
+    {
+        return ParallelValueFetch.getOptimizedValues(this, key, names, start, end, count);
+    }
+
+    /** @return <code>true</code> if the single-channel <code>getRawValues</code>
+     *          and <code>getOptimizedValues</code> may be called concurrently
+     *          from several threads
+     */
+    default boolean isThreadSafe()
+    {
+        return false;
+    }
+
     /** Cancel an ongoing archive query.
      *  It's up to the implementation to support this for all queries,
      *  or only 'getSamples', or not at all.
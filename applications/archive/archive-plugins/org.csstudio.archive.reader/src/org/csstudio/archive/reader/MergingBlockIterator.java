@@ -0,0 +1,127 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader;
+
+/** Merge values from several <code>ValueIterator</code> based on time stamps,
+ *  reading them as {@link ValueBlock}s.
+ *
+ *  <p>Block-oriented version of the {@link MergingValueIterator}
+ *  that returns the samples in the same order.
+ *  Consecutive samples of one channel that are older than the
+ *  samples of all other channels are copied as a run.
+ *
+ *  @author agent
+ */
+public class MergingBlockIterator
+{
+    /** The iterators for the individual channels. */
+    final private ValueIterator iters[];
+
+    /** Samples read from each <code>iter</code>,
+     *  <code>null</code> when the iterator has no more samples.
+     */
+    final private ValueBlock blocks[];
+
+    /** Index of 'current' sample in each block */
+    final private int pos[];
+
+    /** Constructor.
+     *  @param block_size Number of samples to read from each base iterator at once
+     *  @param iters The 'base' iterators.
+     *  @throws Exception on error in archive access
+     */
+    public MergingBlockIterator(final int block_size, final ValueIterator... iters) throws Exception
+    {
+        this.iters = iters;
+        blocks = new ValueBlock[iters.length];
+        pos = new int[iters.length];
+        for (int i=0; i<iters.length; ++i)
+        {
+            blocks[i] = new ValueBlock(block_size);
+            fill(i);
+        }
+    }
+
+    /** Read next block from base iterator
+     *  @param i Index of base iterator
+     *  @throws Exception on error
+     */
+    private void fill(final int i) throws Exception
+    {
+        pos[i] = 0;
+        if (iters[i].next(blocks[i]) <= 0)
+            blocks[i] = null;
+    }
+
+    /** @return <code>true</code> if there are more samples */
+    public boolean hasNext()
+    {
+        for (ValueBlock block : blocks)
+            if (block != null)
+                return true;
+        return false;
+    }
+
+    /** Read the next samples, oldest first
+     *  @param block Block to fill
+     *  @return Number of samples in block, 0 when there are no more samples
+     *  @throws Exception on error in archive access
+     */
+    public int next(final ValueBlock block) throws Exception
+    {
+        block.clear();
+        while (! block.isFull())
+        {
+            // Find channel with oldest sample, and the one after that.
+            // On equal time stamps, the lower index comes first.
+            int index = -1, second = -1;
+            for (int i=0; i<blocks.length; ++i)
+            {
+                if (blocks[i] == null)
+                    continue;
+                final long time = blocks[i].times[pos[i]];
+                if (index < 0  ||  time < blocks[index].times[pos[index]])
+                {
+                    second = index;
+                    index = i;
+                }
+                else if (second < 0  ||  time < blocks[second].times[pos[second]])
+                    second = i;
+            }
+            if (index < 0)
+                break;
+
+            // Copy run of samples up to the oldest sample of any other channel
+            final ValueBlock source = blocks[index];
+            final int start = pos[index];
+            int end = start + 1;
+            final int limit = Math.min(source.size(), start + block.capacity() - block.size());
+            if (second < 0)
+                end = limit;
+            else
+            {
+                final long next = blocks[second].times[pos[second]];
+                while (end < limit  &&
+                       (source.times[end] < next  ||  (source.times[end] == next  &&  index < second)))
+                    ++end;
+            }
+            block.add(source, start, end - start);
+            pos[index] = end;
+            if (end >= source.size())
+                fill(index);
+        }
+        return block.size();
+    }
+
+    /** Must be called to release resources */
+    public void close()
+    {
+        for (ValueIterator iter : iters)
+            iter.close();
+    }
+}
@@ -0,0 +1,201 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** Fetch samples for several channels by fanning out
+ *  over a bounded pool of threads.
+ *  <p>
+ *  Default implementation of the multi-channel calls in
+ *  {@link ArchiveReader} for readers that cannot fetch
+ *  several channels in one request.
+ *  Each channel is requested via the single-channel
+ *  <code>getRawValues</code> resp. <code>getOptimizedValues</code>.
+ *  Only readers that declare {@link ArchiveReader#isThreadSafe()}
+ *  are called concurrently, other readers are called
+ *  one channel at a time from the calling thread.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class ParallelValueFetch
+{
+    /** Maximum number of concurrent requests */
+    final public static int THREADS = 4;
+
+    /** Shared pool of threads for all readers */
+    final private static ExecutorService pool = Executors.newFixedThreadPool(THREADS, new DaemonThreadFactory());
+
+    private static class DaemonThreadFactory implements ThreadFactory
+    {
+        final private AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(final Runnable runnable)
+        {
+            final Thread thread = new Thread(runnable, "ArchiveFetch " + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+    /** Fetch raw samples
+     *  @param reader Reader to use
+     *  @param key Key of the archive to use for retrieval.
+     *  @param names Channel names
+     *  @param start Start time
+     *  @param end End time
+     *  @return ValueIterators by channel name, in order of the requested names.
+     *          Channels unknown to the reader are omitted.
+     *  @throws Exception on error
+     */
+    public static Map<String, ValueIterator> getRawValues(final ArchiveReader reader,
+            final int key, final List<String> names,
+            final Instant start, final Instant end) throws Exception
+    {
+        return fetch(reader, names, name -> reader.getRawValues(key, name, start, end));
+    }
+
+    /** Fetch optimized samples
+     *  @param reader Reader to use
+     *  @param key Key of the archive to use for retrieval.
+     *  @param names Channel names
+     *  @param start Start time
+     *  @param end End time
+     *  @param count Hint for number of values
+     *  @return ValueIterators by channel name, in order of the requested names.
+     *          Channels unknown to the reader are omitted.
+     *  @throws Exception on error
+     */
+    public static Map<String, ValueIterator> getOptimizedValues(final ArchiveReader reader,
+            final int key, final List<String> names,
+            final Instant start, final Instant end, final int count) throws Exception
+    {
+        return fetch(reader, names, name -> reader.getOptimizedValues(key, name, start, end, count));
+    }
+
+    /** Request for one channel */
+    @FunctionalInterface
+    private interface Request
+    {
+        ValueIterator get(String name) throws Exception;
+    }
+
+    /** @param reader Reader to use
+     *  @param names Channel names
+     *  @param request Request for one channel
+     *  @return ValueIterators by channel name
+     *  @throws Exception on error
+     */
+    private static Map<String, ValueIterator> fetch(final ArchiveReader reader, final List<String> names,
+            final Request request) throws Exception
+    {
+        if (! reader.isThreadSafe())
+            return fetchSequential(names, request);
+
+        final List<Future<ValueIterator>> results = new ArrayList<>(names.size());
+        for (String name : names)
+        {
+            final Callable<ValueIterator> call = () -> request.get(name);
+            results.add(pool.submit(call));
+        }
+
+        final Map<String, ValueIterator> iters = new LinkedHashMap<>();
+        try
+        {
+            for (int i=0; i<names.size(); ++i)
+            {
+                try
+                {
+                    final ValueIterator iter = results.get(i).get();
+                    if (iter != null)
+                        iters.put(names.get(i), iter);
+                }
+                catch (ExecutionException ex)
+                {
+                    final Throwable cause = ex.getCause();
+                    if (cause instanceof UnknownChannelException)
+                        continue;
+                    throw cause instanceof Exception ? (Exception) cause : ex;
+                }
+            }
+        }
+        catch (Exception ex)
+        {   // Release what was fetched, don't wait for remaining requests
+            for (ValueIterator iter : iters.values())
+                iter.close();
+            for (Future<ValueIterator> result : results)
+                if (! result.cancel(true)  &&  ! result.isCancelled())
+                    closeCompleted(result, iters);
+            throw ex;
+        }
+        return iters;
+    }
+
+    /** @param names Channel names
+     *  @param request Request for one channel
+     *  @return ValueIterators by channel name
+     *  @throws Exception on error
+     */
+    private static Map<String, ValueIterator> fetchSequential(final List<String> names, final Request request) throws Exception
+    {
+        final Map<String, ValueIterator> iters = new LinkedHashMap<>();
+        try
+        {
+            for (String name : names)
+            {
+                try
+                {
+                    final ValueIterator iter = request.get(name);
+                    if (iter != null)
+                        iters.put(name, iter);
+                }
+                catch (UnknownChannelException ex)
+                {
+                    // Omit unknown channel
+                }
+            }
+        }
+        catch (Exception ex)
+        {
+            for (ValueIterator iter : iters.values())
+                iter.close();
+            throw ex;
+        }
+        return iters;
+    }
+
+    /** @param result Completed request
+     *  @param closed Iterators that have already been closed
+     */
+    private static void closeCompleted(final Future<ValueIterator> result, final Map<String, ValueIterator> closed)
+    {
+        try
+        {
+            final ValueIterator iter = result.get();
+            if (iter != null  &&  ! closed.containsValue(iter))
+                iter.close();
+        }
+        catch (Exception ex)
+        {
+            // Ignore, request failed
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.diirt.vtype.VType;
+
+/** Value iterator that reads ahead in the background
+ *  <p>
+ *  Samples of the base iterator are fetched in chunks.
+ *  While the caller consumes one chunk, the following
+ *  chunk is fetched on a thread of the executor,
+ *  so at most two chunks per iterator are held in memory.
+ *  <p>
+ *  Fetching a chunk never waits for the consumer,
+ *  so one small thread pool can prefetch for many iterators.
+ *
+ *  @author agent
+ */
+public class PrefetchingValueIterator implements ValueIterator
+{
+    /** Default number of samples per chunk */
+    final public static int CHUNK_SIZE = 1000;
+
+    final private ValueIterator base;
+    final private ExecutorService executor;
+    final private int chunk_size;
+
+    /** Samples that are being consumed */
+    private List<VType> chunk = Collections.emptyList();
+    private int index = 0;
+
+    /** Following chunk, <code>null</code> when base has no more samples */
+    private Future<List<VType>> next_chunk;
+
+    /** Error from fetching the following chunk */
+    private Exception error = null;
+
+    /** Set when closed, synchronized on this */
+    private boolean closed = false;
+
+    /** @param base Iterator to read ahead
+     *  @param executor Executor for fetching samples
+     */
+    public PrefetchingValueIterator(final ValueIterator base, final ExecutorService executor)
+    {
+        this(base, executor, CHUNK_SIZE);
+    }
+
+    /** @param base Iterator to read ahead
+     *  @param executor Executor for fetching samples
+     *  @param chunk_size Number of samples to fetch at once
+     */
+    public PrefetchingValueIterator(final ValueIterator base, final ExecutorService executor, final int chunk_size)
+    {
+        this.base = base;
+        this.executor = executor;
+        this.chunk_size = chunk_size;
+        next_chunk = executor.submit(this::fetch);
+    }
+
+    /** @return Next chunk of samples from base, short when base has no more samples
+     *  @throws Exception on error
+     */
+    private synchronized List<VType> fetch() throws Exception
+    {
+        final List<VType> result = new ArrayList<>(chunk_size);
+        while (!closed  &&  result.size() < chunk_size  &&  base.hasNext())
+            result.add(base.next());
+        return result;
+    }
+
+    /** Start consuming the next chunk, begin to fetch the one after */
+    private void takeChunk()
+    {
+        try
+        {
+            chunk = next_chunk.get();
+            index = 0;
+            next_chunk = chunk.size() < chunk_size ? null : executor.submit(this::fetch);
+        }
+        catch (InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+            error = ex;
+            next_chunk = null;
+        }
+        catch (ExecutionException ex)
+        {
+            final Throwable cause = ex.getCause();
+            error = cause instanceof Exception ? (Exception) cause : ex;
+            next_chunk = null;
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean hasNext()
+    {
+        if (index >= chunk.size()  &&  next_chunk != null)
+            takeChunk();
+        return index < chunk.size()  ||  error != null;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public VType next() throws Exception
+    {
+        if (! hasNext())
+            throw new NoSuchElementException();
+        if (index < chunk.size())
+            return chunk.get(index++);
+        // Report error after the samples that were fetched before the error
+        final Exception ex = error;
+        error = null;
+        throw ex;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public void close()
+    {
+        if (next_chunk != null)
+        {
+            next_chunk.cancel(false);
+            next_chunk = null;
+        }
+        // Wait for ongoing fetch to end
+        synchronized (this)
+        {
+            if (closed)
+                return;
+            closed = true;
+            base.close();
+        }
+        chunk = Collections.emptyList();
+    }
+}
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader;
+
+import org.diirt.vtype.AlarmSeverity;
+
+/** Iterates several <code>ValueIterator</code> instances 'in lockstep'
+ *  as required to generate spreadsheet-type output,
+ *  reading them as {@link ValueBlock}s.
+ *
+ *  <p>Block-oriented version of the {@link SpreadsheetIterator}
+ *  that produces the same spreadsheet lines,
+ *  using staircase interpolation.
+ *  Each call fills one block per channel.
+ *  All blocks receive the time stamp of the spreadsheet line,
+ *  and the value and severity of the respective channel at that time.
+ *  Before the first sample of a channel, its value is <code>NaN</code>
+ *  and the severity <code>null</code>.
+ *
+ *  @author agent
+ */
+public class SpreadsheetBlockIterator
+{
+    /** The iterators for the individual channels. */
+    final private ValueIterator iters[];
+
+    /** Samples read from each <code>iter</code>,
+     *  <code>null</code> when the iterator has no more samples.
+     */
+    final private ValueBlock blocks[];
+
+    /** Index of 'current' sample in each block,
+     *  which is usually the 'next' value, stamped after the last line.
+     */
+    final private int pos[];
+
+    /** Value and severity of each channel for the last spreadsheet line */
+    final private double values[];
+    final private AlarmSeverity severities[];
+
+    /** Constructor.
+     *  @param block_size Number of samples to read from each base iterator at once
+     *  @param iters The 'base' iterators.
+     *  @throws Exception on error in archive access
+     */
+    public SpreadsheetBlockIterator(final int block_size, final ValueIterator... iters) throws Exception
+    {
+        this.iters = iters;
+        blocks = new ValueBlock[iters.length];
+        pos = new int[iters.length];
+        values = new double[iters.length];
+        severities = new AlarmSeverity[iters.length];
+        for (int i=0; i<iters.length; ++i)
+        {
+            blocks[i] = new ValueBlock(block_size);
+            values[i] = Double.NaN;
+            fill(i);
+        }
+    }
+
+    /** Read next block from base iterator
+     *  @param i Index of base iterator
+     *  @throws Exception on error
+     */
+    private void fill(final int i) throws Exception
+    {
+        pos[i] = 0;
+        if (iters[i].next(blocks[i]) <= 0)
+            blocks[i] = null;
+    }
+
+    /** @return <code>true</code> if there is more data. */
+    public boolean hasNext()
+    {
+        for (ValueBlock block : blocks)
+            if (block != null)
+                return true;
+        return false;
+    }
+
+    /** Get the next spreadsheet lines.
+     *
+     *  @param lines One block per channel, all with the same capacity
+     *  @return Number of spreadsheet lines, 0 when there is no more data
+     *  @throws Exception on error in archive access
+     */
+    public int next(final ValueBlock[] lines) throws Exception
+    {
+        if (lines.length != blocks.length)
+            throw new IllegalArgumentException("Need " + blocks.length + " blocks, got " + lines.length); //$NON-NLS-1$ //$NON-NLS-2$
+        for (ValueBlock line : lines)
+            line.clear();
+        while (! lines[0].isFull())
+        {
+            // Find oldest timestamp
+            long time = Long.MAX_VALUE;
+            boolean have_data = false;
+            for (int i=0; i<blocks.length; ++i)
+            {
+                if (blocks[i] == null)
+                    continue;
+                final long sample_time = blocks[i].times[pos[i]];
+                if (! have_data  ||  sample_time < time)
+                    time = sample_time;
+                have_data = true;
+            }
+            if (! have_data)
+                break;
+
+            // 'time' now defines the current spreadsheet line.
+            for (int i=0; i<blocks.length; ++i)
+            {
+                // Channel has new data at 'time'? Else leave at last known value.
+                final ValueBlock block = blocks[i];
+                if (block != null  &&  block.times[pos[i]] <= time)
+                {
+                    values[i] = block.values[pos[i]];
+                    severities[i] = block.severities[pos[i]];
+                    if (++pos[i] >= block.size())
+                        fill(i);
+                }
+                lines[i].add(time, values[i], severities[i]);
+            }
+        }
+        return lines[0].size();
+    }
+
+    /** Must be called to release resources */
+    public void close()
+    {
+        for (ValueIterator iter : iters)
+            iter.close();
+    }
+}
@@ -0,0 +1,158 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.reader;
+
+import java.time.Instant;
+
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VType;
+
+/** Block of samples as primitive arrays
+ *
+ *  <p>For consumers that only need time, numeric value and severity
+ *  of many samples.
+ *  The arrays are supplied by the caller and re-used
+ *  for each call to {@link ValueIterator#next(ValueBlock)},
+ *  so reading samples does not allocate objects per sample.
+ *
+ *  <p>Time stamps are nanoseconds since 1970-01-01 00:00:00 UTC.
+ *  Values of non-numeric samples are <code>NaN</code>,
+ *  arrays provide their first element.
+ *
+ *  @author agent
+ */
+public class ValueBlock
+{
+    /** Time stamps, nanoseconds since epoch */
+    final public long[] times;
+
+    /** Numeric values */
+    final public double[] values;
+
+    /** Alarm severities */
+    final public AlarmSeverity[] severities;
+
+    /** Number of valid samples */
+    private int size = 0;
+
+    /** @param capacity Maximum number of samples in block */
+    public ValueBlock(final int capacity)
+    {
+        this(new long[capacity], new double[capacity], new AlarmSeverity[capacity]);
+    }
+
+    /** @param times Array for time stamps
+     *  @param values Array for values
+     *  @param severities Array for severities, must all have the same length
+     */
+    public ValueBlock(final long[] times, final double[] values, final AlarmSeverity[] severities)
+    {
+        if (times.length != values.length  ||  times.length != severities.length)
+            throw new IllegalArgumentException("Arrays differ in length"); //$NON-NLS-1$
+        this.times = times;
+        this.values = values;
+        this.severities = severities;
+    }
+
+    /** @return Maximum number of samples */
+    public int capacity()
+    {
+        return times.length;
+    }
+
+    /** @return Number of valid samples */
+    public int size()
+    {
+        return size;
+    }
+
+    /** @return <code>true</code> if block cannot hold more samples */
+    public boolean isFull()
+    {
+        return size >= times.length;
+    }
+
+    /** Remove all samples */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /** Add sample
+     *  @param time Time stamp, nanoseconds since epoch
+     *  @param value Value
+     *  @param severity Severity
+     *  @throws ArrayIndexOutOfBoundsException when block is full
+     */
+    public void add(final long time, final double value, final AlarmSeverity severity)
+    {
+        times[size] = time;
+        values[size] = value;
+        severities[size] = severity;
+        ++size;
+    }
+
+    /** Add sample
+     *  @param time Time stamp
+     *  @param value Value
+     *  @param severity Severity
+     *  @throws ArrayIndexOutOfBoundsException when block is full
+     */
+    public void add(final Instant time, final double value, final AlarmSeverity severity)
+    {
+        add(toNanos(time), value, severity);
+    }
+
+    /** Add sample
+     *  @param value {@link VType}
+     *  @throws ArrayIndexOutOfBoundsException when block is full
+     */
+    public void add(final VType value)
+    {
+        add(VTypeHelper.getTimestamp(value), VTypeHelper.toDouble(value), VTypeHelper.getSeverity(value));
+    }
+
+    /** Add samples from another block
+     *  @param other Block from which to copy samples
+     *  @param start Index of first sample in other block
+     *  @param count Number of samples to copy
+     *  @throws ArrayIndexOutOfBoundsException when block cannot hold the samples
+     */
+    public void add(final ValueBlock other, final int start, final int count)
+    {
+        System.arraycopy(other.times, start, times, size, count);
+        System.arraycopy(other.values, start, values, size, count);
+        System.arraycopy(other.severities, start, severities, size, count);
+        size += count;
+    }
+
+    /** @param index Sample index
+     *  @return Time stamp of that sample
+     */
+    public Instant getTime(final int index)
+    {
+        return fromNanos(times[index]);
+    }
+
+    /** @param time Time stamp
+     *  @return Nanoseconds since epoch
+     */
+    public static long toNanos(final Instant time)
+    {
+        return time.getEpochSecond() * 1000000000L + time.getNano();
+    }
+
+    /** @param nanos Nanoseconds since epoch
+     *  @return Time stamp
+     */
+    public static Instant fromNanos(final long nanos)
+    {
+        return Instant.ofEpochSecond(Math.floorDiv(nanos, 1000000000L), Math.floorMod(nanos, 1000000000L));
+    }
+}
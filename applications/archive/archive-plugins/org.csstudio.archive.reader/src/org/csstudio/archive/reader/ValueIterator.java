@@ -33,6 +33,30 @@ public interface ValueIterator
      */
     public VType next() throws Exception;
 
+    /** Read the next samples as primitive values.
+     *
+     *  <p>Fills the block with up to {@link ValueBlock#capacity()} samples,
+     *  replacing its previous content.
+     *  Readers that can decode time, value and severity
+     *  without creating a {@link VType} per sample
+     *  should override this default implementation,
+     *  which calls {@link #next()}.
+     *
+     *  <p>Both methods consume samples,
+     *  so a caller may mix calls to them.
+     *
+     *  @param block Block to fill
+     *  @return Number of samples in block, 0 when there are no more samples
+     *  @exception on Error in archive access
+     */
+    public default int next(final ValueBlock block) throws Exception
+    {
+        block.clear();
+        while (! block.isFull()  &&  hasNext())
+            block.add(next());
+        return block.size();
+    }
+
     /** Must be called to release resources */
     public void close();
 }
@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.influxdb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
+
+import org.csstudio.archive.influxdb.MetaTypes.StoreAs;
+import org.csstudio.archive.vtype.ArchiveVEnum;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/** JUnit test of the line protocol encoding and sender
+ *
+ *  <p>Uses a local HTTP server as a stand-in for InfluxDB
+ *  which counts the received lines,
+ *  so no InfluxDB is required.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class InfluxDBLineSenderTest
+{
+    final private Display display = ValueFactory.newDisplay(0.0, 1.0, 2.0, "a.u.", NumberFormats.format(2), 8.0, 9.0, 10.0, 0.0, 10.0);
+
+    private HttpServer server;
+    private String url;
+    final private AtomicInteger lines = new AtomicInteger();
+    final private AtomicReference<String> last_line = new AtomicReference<>();
+    private volatile int response = 204;
+
+    @Before
+    public void startServer() throws Exception
+    {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/write", exchange ->
+        {
+            final InputStream raw = exchange.getRequestBody();
+            InputStream body = raw;
+            if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")))
+                body = new GZIPInputStream(body);
+            final BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null)
+            {
+                lines.incrementAndGet();
+                last_line.set(line);
+            }
+            // Consume end of chunked request to keep connection alive
+            while (raw.read() >= 0)
+                ;
+            exchange.sendResponseHeaders(response, -1);
+            exchange.close();
+        });
+        server.start();
+        url = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void stopServer()
+    {
+        server.stop(0);
+    }
+
+    @Test
+    public void testEncoding() throws Exception
+    {
+        final InfluxDBLineBuffer buffer = new InfluxDBLineBuffer("db", null, 10);
+        final InfluxDBWriteChannel channel = new InfluxDBWriteChannel("My PV,1");
+        final Instant time = Instant.ofEpochSecond(1, 42);
+
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVNumber(time, AlarmSeverity.MINOR, "LOW", display, 3.14), StoreAs.ARCHIVE_DOUBLE);
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVNumber(time, AlarmSeverity.NONE, "", display, 42L), StoreAs.ARCHIVE_LONG);
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVNumber(time, AlarmSeverity.NONE, "OK", display, Double.NaN), StoreAs.ARCHIVE_DOUBLE);
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVNumberArray(time, AlarmSeverity.NONE, "OK", display, 1.0, Double.NaN, 3.0), StoreAs.ARCHIVE_DOUBLE_ARRAY);
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVEnum(time, AlarmSeverity.NONE, "OK", Arrays.asList("Off", "On"), 1), StoreAs.ARCHIVE_ENUM);
+        InfluxDBSampleEncoder.encodeSample(buffer, channel, time,
+                new ArchiveVString(time, AlarmSeverity.NONE, "OK", "Say \"Hi\" \u00B0C"), StoreAs.ARCHIVE_STRING);
+        assertThat(buffer.getPointCount(), equalTo(6));
+
+        final String text = StandardCharsets.UTF_8.decode(buffer.getData()).toString();
+        System.out.print(text);
+        final String[] lines = text.split("\n");
+        assertThat(lines[0], equalTo("My\\ PV\\,1,severity=MINOR,status=LOW double.0=3.14 1000000042"));
+        assertThat(lines[1], equalTo("My\\ PV\\,1,severity=NONE long.0=42i 1000000042"));
+        assertThat(lines[2], equalTo("My\\ PV\\,1,severity=UNDEFINED,status=NaN double.0=0.0 1000000042"));
+        assertThat(lines[3], equalTo("My\\ PV\\,1,severity=NONE,status=OK double.0=1.0,double.1=0.0,double.2=3.0 1000000042"));
+        assertThat(lines[4], equalTo("My\\ PV\\,1,severity=NONE,status=OK long.0=1i 1000000042"));
+        assertThat(lines[5], equalTo("My\\ PV\\,1,severity=NONE,status=OK string.0=\"Say \\\"Hi\\\" \u00B0C\" 1000000042"));
+
+        buffer.clear();
+        assertThat(buffer.getSize(), equalTo(0));
+    }
+
+    @Test
+    public void testError() throws Exception
+    {
+        response = 400;
+        final InfluxDBLineSender sender = new InfluxDBLineSender(url, null, null, true, 2, 1024);
+        try
+        {
+            final InfluxDBLineBuffer buffer = sender.getBuffer("db", null);
+            buffer.startPoint("x");
+            buffer.field("double.0", 1.0);
+            buffer.endPoint(1);
+            sender.submit(buffer);
+            try
+            {
+                sender.waitForPending();
+                fail("Didn't detect error");
+            }
+            catch (Exception ex)
+            {
+                System.out.println("Detected error: " + ex.getMessage());
+            }
+            // Failed buffer is not retried, but returned to the pool
+            final InfluxDBLineBuffer next = sender.getBuffer("db", null);
+            assertThat(next, sameInstance(buffer));
+            assertThat(next.getPointCount(), equalTo(0));
+
+            // Error is only reported once, new data is sent when server recovers
+            response = 204;
+            next.startPoint("x");
+            next.field("double.0", 2.0);
+            next.endPoint(2);
+            sender.submit(next);
+            sender.waitForPending();
+            assertThat(lines.get(), equalTo(2));
+        }
+        finally
+        {
+            sender.close();
+        }
+    }
+
+    /** Send points for many channels, measure bytes per point and flush latency */
+    private void runThroughput(final boolean gzip, final boolean array) throws Exception
+    {
+        final int channels = 1000, points = 200000, batch_size = 1024*1024;
+        final InfluxDBWriteChannel[] pvs = new InfluxDBWriteChannel[channels];
+        for (int i=0; i<channels; ++i)
+            pvs[i] = new InfluxDBWriteChannel("Test:PV" + i);
+        final StoreAs storeas = array ? StoreAs.ARCHIVE_DOUBLE_ARRAY : StoreAs.ARCHIVE_DOUBLE;
+        final double[] data = new double[10];
+
+        lines.set(0);
+        final InfluxDBLineSender sender = new InfluxDBLineSender(url, null, null, gzip, 4, batch_size);
+        try
+        {
+            final long start = System.nanoTime();
+            InfluxDBLineBuffer buffer = sender.getBuffer("db", null);
+            for (int i=0; i<points; ++i)
+            {
+                final Instant time = Instant.ofEpochSecond(1500000000L + i / channels, i);
+                data[0] = i;
+                final VType sample = array
+                    ? new ArchiveVNumberArray(time, AlarmSeverity.NONE, "", display, data)
+                    : new ArchiveVNumber(time, AlarmSeverity.NONE, "", display, i * 0.1);
+                InfluxDBSampleEncoder.encodeSample(buffer, pvs[i % channels], time, sample, storeas);
+                if (buffer.getSize() >= batch_size)
+                {
+                    sender.submit(buffer);
+                    buffer = sender.getBuffer("db", null);
+                }
+            }
+            sender.submit(buffer);
+            sender.waitForPending();
+            final double secs = (System.nanoTime() - start) / 1e9;
+
+            System.out.format("%-6s %-5s: %8.0f points/sec, %5.1f bytes/point raw, %5.1f bytes/point sent, %3d requests, flush latency %.1f ms\n",
+                              array ? "array" : "scalar",
+                              gzip ? "gzip" : "plain",
+                              points / secs,
+                              (double) sender.getRawBytes() / points,
+                              (double) sender.getSentBytes() / points,
+                              sender.getRequests(),
+                              sender.getAverageLatency() * 1000);
+            assertThat(sender.getSentPoints(), equalTo((long) points));
+            assertThat(lines.get(), equalTo(points));
+            assertThat(last_line.get(), not(equalTo(null)));
+        }
+        finally
+        {
+            sender.close();
+        }
+    }
+
+    @Test
+    public void testThroughput() throws Exception
+    {
+        for (boolean array : new boolean[] { false, true })
+            for (boolean gzip : new boolean[] { false, true })
+                runThroughput(gzip, array);
+    }
+}
@@ -144,8 +144,21 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
         }
     };
 
+    /** Batched meta data points */
     final batchPointSets batchSets = new batchPointSets();
 
+    /** Sends line protocol buffers with samples */
+    final private InfluxDBLineSender sender;
+
+    /** Buffer size in bytes that triggers a write */
+    final private int batch_bytes = Preferences.getBatchSize() * 1024;
+
+    /** Age of oldest sample in nanoseconds that triggers a write */
+    final private long batch_age = Math.round(Preferences.getBatchAge() * 1e9);
+
+    /** Line protocol buffers for samples by database, then retention policy */
+    final private Map<String, Map<String, InfluxDBLineBuffer>> sample_buffers = new HashMap<>();
+
     //    /** Severity (ID, name) cache */
     //    private SeverityCache severities;
     //
@@ -173,6 +186,8 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
     {
         influxdb = InfluxDBUtil.connect(url, user, password);
         influxQuery = new InfluxDBQueries(influxdb, dbnames);
+        sender = new InfluxDBLineSender(url, user, password, Preferences.isUseGzip(),
+                                        Preferences.getMaxPendingBatches(), batch_bytes);
         //        severities = new SeverityCache(influxdb, sql);
         //        stati = new StatusCache(influxdb, sql);
     }
@@ -251,8 +266,36 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
         final Instant stamp = VTypeHelper.getTimestamp(sample);
 
         writeMetaData(influxdb_channel, stamp, sample, storeas);
-        batchSets.getChannelSamplePoints(channel.getName(), influxdb_channel.getRP())
-            .point(InfluxDBSampleEncoder.encodeSample(influxdb_channel, stamp, sample, storeas));
+        final InfluxDBLineBuffer buffer = getSampleBuffer(dbnames.getDataDBName(channel.getName()), influxdb_channel.getRP());
+        InfluxDBSampleEncoder.encodeSample(buffer, influxdb_channel, stamp, sample, storeas);
+        if (buffer.getSize() >= batch_bytes  ||  buffer.getAge() >= batch_age)
+        {
+            // Send meta data before the samples that use it
+            writeMetaPoints();
+            sample_buffers.get(buffer.getDatabase()).remove(buffer.getRetention());
+            sender.submit(buffer);
+        }
+    }
+
+    /** @param database Database name
+     *  @param retention Retention policy, may be <code>null</code>
+     *  @return Line protocol buffer for samples
+     */
+    private InfluxDBLineBuffer getSampleBuffer(final String database, final String retention)
+    {
+        Map<String, InfluxDBLineBuffer> rp_buffers = sample_buffers.get(database);
+        if (rp_buffers == null)
+        {
+            rp_buffers = new HashMap<>();
+            sample_buffers.put(database, rp_buffers);
+        }
+        InfluxDBLineBuffer buffer = rp_buffers.get(retention);
+        if (buffer == null)
+        {
+            buffer = sender.getBuffer(database, retention);
+            rp_buffers.put(retention, buffer);
+        }
+        return buffer;
     }
 
     /** Write meta data if it was never written or has changed
@@ -318,6 +361,26 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
      */
     @Override
     public void flush() throws Exception
+    {
+        writeMetaPoints();
+        try
+        {
+            for (Map<String, InfluxDBLineBuffer> rp_buffers : sample_buffers.values())
+                for (InfluxDBLineBuffer buffer : rp_buffers.values())
+                    sender.submit(buffer);
+            sample_buffers.clear();
+            sender.waitForPending();
+        }
+        catch (Exception e)
+        {
+            throw new Exception("Write of points failed " + e.getMessage(), e);
+        }
+    }
+
+    /** Write batched meta data points
+     *  @throws Exception on error
+     */
+    private void writeMetaPoints() throws Exception
     {
         for (BatchPoints batchPoints : batchSets)
         {
@@ -333,6 +396,12 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
         batchSets.clear();
     }
 
+    /** @return Sender of sample batches, for statistics */
+    public InfluxDBLineSender getSender()
+    {
+        return sender;
+    }
+
     /** {@inheritDoc} */
     @Override
     public void close()
@@ -350,6 +419,7 @@ public class InfluxDBArchiveWriter implements ArchiveWriter
         //        }
 
         //TODO: do we need to flush points here?
+        sender.close();
         influxdb.close();
     }
 }
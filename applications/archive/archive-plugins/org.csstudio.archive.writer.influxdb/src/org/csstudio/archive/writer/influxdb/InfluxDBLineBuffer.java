@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.influxdb;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/** Buffer for points in the InfluxDB line protocol
+ *
+ *  <p>Points for any number of channels that go to the same
+ *  database and retention policy are encoded into one byte buffer,
+ *  which is re-used after it has been sent.
+ *
+ *  <p>A point is added via {@link #startPoint(String)},
+ *  followed by its tags, then its fields, and finally {@link #endPoint(long)}.
+ *
+ *  <p>Not thread-safe.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class InfluxDBLineBuffer
+{
+    /** Escape ',' and ' ' in measurement names */
+    final private static String MEASUREMENT_SPECIALS = ", ";
+
+    /** Escape ',', '=' and ' ' in tag keys, tag values and field keys */
+    final private static String KEY_SPECIALS = ",= ";
+
+    /** Escape '"' and '\' in string field values */
+    final private static String STRING_SPECIALS = "\"\\";
+
+    private String database, retention;
+
+    private ByteBuffer buffer;
+
+    private int points = 0;
+
+    /** System.nanoTime() when first point was added */
+    private long first_point = 0;
+
+    /** Number of fields in current point */
+    private int fields = -1;
+
+    /** @param database Database name
+     *  @param retention Retention policy, <code>null</code> for default
+     *  @param capacity Initial buffer size in bytes
+     */
+    public InfluxDBLineBuffer(final String database, final String retention, final int capacity)
+    {
+        this.database = database;
+        this.retention = retention;
+        buffer = ByteBuffer.allocate(capacity);
+    }
+
+    /** Clear buffer for re-use
+     *  @param database Database name
+     *  @param retention Retention policy, <code>null</code> for default
+     */
+    public void reset(final String database, final String retention)
+    {
+        this.database = database;
+        this.retention = retention;
+        clear();
+    }
+
+    /** Clear buffered points */
+    public void clear()
+    {
+        buffer.clear();
+        points = 0;
+        fields = -1;
+    }
+
+    /** @return Database name */
+    public String getDatabase()
+    {
+        return database;
+    }
+
+    /** @return Retention policy, <code>null</code> for default */
+    public String getRetention()
+    {
+        return retention;
+    }
+
+    /** @return Number of buffered points */
+    public int getPointCount()
+    {
+        return points;
+    }
+
+    /** @return Number of bytes used by buffered points */
+    public int getSize()
+    {
+        return buffer.position();
+    }
+
+    /** @return Age of the oldest buffered point in nanoseconds, 0 when empty */
+    public long getAge()
+    {
+        return points > 0 ? System.nanoTime() - first_point : 0;
+    }
+
+    /** @return Buffered points, ready to read. Valid until buffer is modified */
+    public ByteBuffer getData()
+    {
+        final ByteBuffer data = buffer.duplicate();
+        data.flip();
+        return data;
+    }
+
+    /** Start a point
+     *  @param measurement Measurement, i.e. channel name
+     */
+    public void startPoint(final String measurement)
+    {
+        if (fields >= 0)
+            throw new IllegalStateException("Point is incomplete");
+        putEscaped(measurement, MEASUREMENT_SPECIALS);
+        fields = 0;
+    }
+
+    /** Add tag to current point
+     *  <p>Empty values are skipped since the line protocol doesn't allow them.
+     *  @param key Tag name
+     *  @param value Tag value
+     */
+    public void tag(final String key, final String value)
+    {
+        if (fields != 0)
+            throw new IllegalStateException("Tags must follow the measurement");
+        if (value == null  ||  value.isEmpty())
+            return;
+        put((byte) ',');
+        putEscaped(key, KEY_SPECIALS);
+        put((byte) '=');
+        putEscaped(value, KEY_SPECIALS);
+    }
+
+    /** Start next field of the current point
+     *  @param key Field name
+     */
+    private void startField(final String key)
+    {
+        if (fields < 0)
+            throw new IllegalStateException("No point");
+        put(fields == 0 ? (byte) ' ' : (byte) ',');
+        putEscaped(key, KEY_SPECIALS);
+        put((byte) '=');
+        ++fields;
+    }
+
+    /** Add floating point field to current point
+     *  @param key Field name
+     *  @param value Value
+     */
+    public void field(final String key, final double value)
+    {
+        startField(key);
+        putAscii(Double.toString(value));
+    }
+
+    /** Add integer field to current point
+     *  @param key Field name
+     *  @param value Value
+     */
+    public void field(final String key, final long value)
+    {
+        startField(key);
+        putAscii(Long.toString(value));
+        put((byte) 'i');
+    }
+
+    /** Add string field to current point
+     *  @param key Field name
+     *  @param value Value
+     */
+    public void field(final String key, final String value)
+    {
+        startField(key);
+        put((byte) '"');
+        putEscaped(value, STRING_SPECIALS);
+        put((byte) '"');
+    }
+
+    /** Complete the current point
+     *  @param nanos Time stamp in nanoseconds since epoch
+     */
+    public void endPoint(final long nanos)
+    {
+        if (fields <= 0)
+            throw new IllegalStateException("Point needs at least one field");
+        put((byte) ' ');
+        putAscii(Long.toString(nanos));
+        put((byte) '\n');
+        fields = -1;
+        if (points++ == 0)
+            first_point = System.nanoTime();
+    }
+
+    /** @param bytes Number of bytes to add */
+    private void ensure(final int bytes)
+    {
+        if (buffer.remaining() >= bytes)
+            return;
+        final ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * buffer.capacity(), buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+
+    private void put(final byte b)
+    {
+        ensure(1);
+        buffer.put(b);
+    }
+
+    /** @param text Text known to be ASCII */
+    private void putAscii(final String text)
+    {
+        final int N = text.length();
+        ensure(N);
+        for (int i=0; i<N; ++i)
+            buffer.put((byte) text.charAt(i));
+    }
+
+    /** @param text Text to add as UTF-8
+     *  @param specials Characters to escape with a backslash
+     */
+    private void putEscaped(final String text, final String specials)
+    {
+        final int N = text.length();
+        ensure(2*N);
+        for (int i=0; i<N; ++i)
+        {
+            final char c = text.charAt(i);
+            if (c >= 0x80)
+            {   // Rest of text is not plain ASCII
+                final StringBuilder rest = new StringBuilder(N - i + 8);
+                for (int j=i; j<N; ++j)
+                {
+                    final char r = text.charAt(j);
+                    if (specials.indexOf(r) >= 0)
+                        rest.append('\\');
+                    rest.append(r);
+                }
+                final byte[] bytes = rest.toString().getBytes(StandardCharsets.UTF_8);
+                ensure(bytes.length);
+                buffer.put(bytes);
+                return;
+            }
+            if (specials.indexOf(c) >= 0)
+                buffer.put((byte) '\\');
+            buffer.put((byte) c);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Line buffer for " + database + "/" + retention + ": " + points + " points, " + getSize() + " bytes";
+    }
+}
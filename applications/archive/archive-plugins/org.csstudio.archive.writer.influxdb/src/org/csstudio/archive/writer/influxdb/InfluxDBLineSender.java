@@ -0,0 +1,343 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.influxdb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/** Sends {@link InfluxDBLineBuffer}s to the InfluxDB HTTP 'write' endpoint
+ *
+ *  <p>Buffers are sent by a background thread,
+ *  so the caller can encode the next batch while the previous one
+ *  is in flight.
+ *  Sent buffers are returned to a pool for re-use.
+ *  Buffers that failed to send are not retried,
+ *  the error is reported by {@link #waitForPending()}.
+ *  The caller needs to keep the samples of the failed batch,
+ *  as the archive engine's write thread does by spilling
+ *  all samples since its last successful flush.
+ *
+ *  <p>{@link #submit(InfluxDBLineBuffer)}, {@link #waitForPending()}
+ *  etc. must be called by one thread, the one that fills the buffers.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class InfluxDBLineSender
+{
+    final private String url, user, password;
+    final private boolean gzip;
+    final private int max_pending;
+    final private int buffer_size;
+
+    final private ExecutorService executor = Executors.newSingleThreadExecutor(runnable ->
+    {
+        final Thread thread = new Thread(runnable, "InfluxDB Line Sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Buffers submitted to the executor, oldest first */
+    final private ArrayDeque<Future<?>> pending = new ArrayDeque<>();
+
+    /** Buffers available for re-use */
+    final private ConcurrentLinkedQueue<InfluxDBLineBuffer> pool = new ConcurrentLinkedQueue<>();
+
+    /** First error since last call to {@link #waitForPending()} */
+    private Exception error = null;
+
+    final private AtomicLong sent_points = new AtomicLong(), sent_bytes = new AtomicLong(),
+                             raw_bytes = new AtomicLong(), requests = new AtomicLong(),
+                             total_latency = new AtomicLong(), last_latency = new AtomicLong();
+
+    /** @param url InfluxDB URL, for example "http://localhost:8086"
+     *  @param user User name or <code>null</code>
+     *  @param password Password or <code>null</code>
+     *  @param gzip Compress requests?
+     *  @param max_pending Maximum number of buffers in flight before {@link #submit(InfluxDBLineBuffer)} blocks
+     *  @param buffer_size Initial size of buffers in bytes
+     */
+    public InfluxDBLineSender(final String url, final String user, final String password,
+                              final boolean gzip, final int max_pending, final int buffer_size)
+    {
+        this.url = url.endsWith("/") ? url.substring(0, url.length()-1) : url;
+        this.user = user;
+        this.password = password;
+        this.gzip = gzip;
+        this.max_pending = Math.max(1, max_pending);
+        this.buffer_size = buffer_size;
+    }
+
+    /** @param database Database name
+     *  @param retention Retention policy, <code>null</code> for default
+     *  @return Empty buffer, re-used if possible
+     */
+    public InfluxDBLineBuffer getBuffer(final String database, final String retention)
+    {
+        final InfluxDBLineBuffer buffer = pool.poll();
+        if (buffer == null)
+            return new InfluxDBLineBuffer(database, retention, buffer_size);
+        buffer.reset(database, retention);
+        return buffer;
+    }
+
+    /** Submit buffer to be sent
+     *
+     *  <p>Blocks while the maximum number of buffers are in flight.
+     *  The buffer must not be used by the caller after submitting it.
+     *  Errors are reported by {@link #waitForPending()}.
+     *
+     *  @param buffer Buffer to send
+     *  @throws InterruptedException when interrupted while waiting for buffers in flight
+     */
+    public void submit(final InfluxDBLineBuffer buffer) throws InterruptedException
+    {
+        if (buffer.getPointCount() <= 0)
+        {
+            pool.offer(buffer);
+            return;
+        }
+        while (pending.size() >= max_pending)
+            complete(pending.poll());
+        pending.add(executor.submit(() ->
+        {
+            send(buffer);
+            return null;
+        }));
+    }
+
+    /** Wait for all submitted buffers to be sent
+     *  @throws Exception on error
+     */
+    public void waitForPending() throws Exception
+    {
+        while (! pending.isEmpty())
+            complete(pending.poll());
+        final Exception ex = error;
+        error = null;
+        if (ex != null)
+            throw ex;
+    }
+
+    /** @param send Send operation to await, remembering the first error
+     *  @throws InterruptedException when interrupted
+     */
+    private void complete(final Future<?> send) throws InterruptedException
+    {
+        try
+        {
+            send.get();
+        }
+        catch (ExecutionException ex)
+        {
+            if (error == null)
+                error = ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+        }
+    }
+
+    /** Send one buffer
+     *  @param buffer Buffer to send
+     *  @throws Exception on error
+     */
+    private void send(final InfluxDBLineBuffer buffer) throws Exception
+    {
+        final long start = System.nanoTime();
+        final ByteBuffer data = buffer.getData();
+        final int raw = data.remaining();
+        final CountingOutputStream counter;
+        try
+        {
+            final StringBuilder address = new StringBuilder(url);
+            address.append("/write?precision=ns&consistency=all&db=")
+                   .append(URLEncoder.encode(buffer.getDatabase(), "UTF-8"));
+            // Like BatchPoints created by InfluxDBArchiveWriter, default to "autogen"
+            address.append("&rp=").append(URLEncoder.encode(buffer.getRetention() != null ? buffer.getRetention() : "autogen", "UTF-8"));
+            if (user != null  &&  !user.isEmpty()  &&  password != null  &&  !password.isEmpty())
+                address.append("&u=").append(URLEncoder.encode(user, "UTF-8"))
+                       .append("&p=").append(URLEncoder.encode(password, "UTF-8"));
+
+            final HttpURLConnection connection = (HttpURLConnection) new URL(address.toString()).openConnection();
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "text/plain; charset=utf-8");
+            if (gzip)
+            {
+                connection.setRequestProperty("Content-Encoding", "gzip");
+                connection.setChunkedStreamingMode(64 * 1024);
+            }
+            else
+                connection.setFixedLengthStreamingMode(raw);
+
+            counter = new CountingOutputStream(connection.getOutputStream());
+            final OutputStream out = gzip ? new FastGZIPOutputStream(counter) : counter;
+            out.write(data.array(), data.arrayOffset() + data.position(), raw);
+            out.close();
+
+            final int code = connection.getResponseCode();
+            if (code / 100 != 2)
+                throw new Exception("InfluxDB write of " + buffer + " failed with HTTP " + code + ": " + readError(connection));
+            connection.getInputStream().close();
+        }
+        catch (Exception ex)
+        {
+            pool.offer(buffer);
+            throw ex;
+        }
+        final long latency = System.nanoTime() - start;
+        sent_points.addAndGet(buffer.getPointCount());
+        raw_bytes.addAndGet(raw);
+        sent_bytes.addAndGet(counter.count);
+        requests.incrementAndGet();
+        total_latency.addAndGet(latency);
+        last_latency.set(latency);
+        pool.offer(buffer);
+    }
+
+    /** @param connection Connection that reported an error
+     *  @return Error message sent by InfluxDB
+     */
+    private static String readError(final HttpURLConnection connection)
+    {
+        try
+        (
+            final InputStream stream = connection.getErrorStream();
+        )
+        {
+            if (stream == null)
+                return connection.getResponseMessage();
+            final ByteArrayOutputStream text = new ByteArrayOutputStream();
+            final byte[] chunk = new byte[1024];
+            int len;
+            while ((len = stream.read(chunk)) > 0)
+                text.write(chunk, 0, len);
+            return new String(text.toByteArray(), StandardCharsets.UTF_8).trim();
+        }
+        catch (Exception ex)
+        {
+            return ex.getMessage();
+        }
+    }
+
+    /** @return Number of points that were sent */
+    public long getSentPoints()
+    {
+        return sent_points.get();
+    }
+
+    /** @return Number of line protocol bytes that were sent, before compression */
+    public long getRawBytes()
+    {
+        return raw_bytes.get();
+    }
+
+    /** @return Number of bytes that were sent, after compression */
+    public long getSentBytes()
+    {
+        return sent_bytes.get();
+    }
+
+    /** @return Number of write requests */
+    public long getRequests()
+    {
+        return requests.get();
+    }
+
+    /** @return Average time from start of sending a buffer to receiving the response in seconds */
+    public double getAverageLatency()
+    {
+        final long count = requests.get();
+        return count > 0 ? total_latency.get() / 1e9 / count : 0.0;
+    }
+
+    /** @return Time from start of sending the last buffer to receiving the response in seconds */
+    public double getLastLatency()
+    {
+        return last_latency.get() / 1e9;
+    }
+
+    /** Stop sending, dropping pending buffers */
+    public void close()
+    {
+        executor.shutdownNow();
+        try
+        {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex)
+        {
+            // Ignore, closing anyway
+        }
+        pending.clear();
+        pool.clear();
+    }
+
+    /** GZIP stream that trades compression ratio for speed */
+    private static class FastGZIPOutputStream extends GZIPOutputStream
+    {
+        FastGZIPOutputStream(final OutputStream out) throws Exception
+        {
+            super(out, 64 * 1024);
+            def.setLevel(Deflater.BEST_SPEED);
+        }
+    }
+
+    /** Stream that counts the bytes written */
+    private static class CountingOutputStream extends OutputStream
+    {
+        final private OutputStream out;
+        long count = 0;
+
+        CountingOutputStream(final OutputStream out)
+        {
+            this.out = out;
+        }
+
+        @Override
+        public void write(final int b) throws IOException
+        {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException
+        {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException
+        {
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            out.close();
+        }
+    }
+}
@@ -35,6 +35,22 @@ public class InfluxDBSampleEncoder
     /** Status string for <code>Double.NaN</code> samples */
     final private static String NOT_A_NUMBER_STATUS = "NaN";
 
+    /** Field names "double.0", "double.1", ... for array elements */
+    final private static String[] DOUBLE_FIELDS = new String[256];
+    static
+    {
+        for (int i=0; i<DOUBLE_FIELDS.length; ++i)
+            DOUBLE_FIELDS[i] = "double." + i;
+    }
+
+    /** @param index Array index
+     *  @return Field name for array element
+     */
+    private static String getDoubleField(final int index)
+    {
+        return index < DOUBLE_FIELDS.length ? DOUBLE_FIELDS[index] : "double." + index;
+    }
+
 
     /** Perform 'batched' insert for sample.
      *  <p>Needs eventual flush()
@@ -82,6 +98,94 @@ public class InfluxDBSampleEncoder
         }
     }
 
+    /** Encode sample into line protocol buffer.
+     *  <p>Same tags and fields as {@link #encodeSample(InfluxDBWriteChannel, Instant, VType, StoreAs)}
+     *  @param buffer Buffer for the channel's database and retention policy
+     *  @param channel Channel
+     *  @param stamp sample timestamp
+     *  @param sample Sample to insert
+     *  @param storeas How to store the sample
+     *  @throws Exception on error
+     */
+    public static void encodeSample(final InfluxDBLineBuffer buffer, final InfluxDBWriteChannel channel,
+            final Instant stamp, final VType sample, final StoreAs storeas) throws Exception
+    {
+        String severity = VTypeHelper.getSeverity(sample).toString();
+        String status = VTypeHelper.getMessage(sample);
+        double dbl = 0.0;
+        ListNumber data = null;
+        switch (storeas)
+        {
+        case ARCHIVE_DOUBLE :
+            dbl = ((VNumber)sample).getValue().doubleValue();
+            break;
+        case ARCHIVE_DOUBLE_ARRAY:
+            data = ((VNumberArray)sample).getData();
+            dbl = data.getDouble(0);
+            break;
+        case ARCHIVE_LONG:
+        case ARCHIVE_ENUM:
+        case ARCHIVE_STRING:
+        case ARCHIVE_UNKNOWN:
+            break;
+        default:
+            throw new Exception ("Tried to encode sample with unhandled store type: " + storeas.name());
+        }
+        if ((storeas == StoreAs.ARCHIVE_DOUBLE  ||  storeas == StoreAs.ARCHIVE_DOUBLE_ARRAY)  &&  Double.isNaN(dbl))
+        {
+            dbl = 0.0;
+            severity = AlarmSeverity.UNDEFINED.name();
+            status = NOT_A_NUMBER_STATUS;
+        }
+
+        buffer.startPoint(channel.getName());
+        buffer.tag("severity", severity);
+        buffer.tag("status", status);
+        switch (storeas)
+        {
+        case ARCHIVE_DOUBLE :
+            buffer.field(DOUBLE_FIELDS[0], dbl);
+            break;
+        case ARCHIVE_DOUBLE_ARRAY:
+        {
+            buffer.field(DOUBLE_FIELDS[0], dbl);
+            final int N = data.size();
+            for (int i = 1; i < N; i++)
+            {
+                final double dbli = data.getDouble(i);
+                buffer.field(getDoubleField(i), Double.isNaN(dbli) ? 0.0 : dbli);
+            }
+            break;
+        }
+        case ARCHIVE_LONG:
+            buffer.field("long.0", ((VNumber)sample).getValue().longValue());
+            break;
+        case ARCHIVE_ENUM:
+            buffer.field("long.0", (long) ((VEnum)sample).getIndex());
+            break;
+        case ARCHIVE_STRING:
+            buffer.field("string.0", limitText(channel, ((VString)sample).getValue()));
+            break;
+        default:
+            buffer.field("string.0", limitText(channel, sample.toString()));
+        }
+        buffer.endPoint(InfluxDBUtil.toNanoLong(stamp));
+    }
+
+    /** @param channel Channel
+     *  @param txt Text sample
+     *  @return Text, truncated to maximum length
+     */
+    private static String limitText(final InfluxDBWriteChannel channel, final String txt)
+    {
+        if (txt.length() <= MAX_TEXT_SAMPLE_LENGTH)
+            return txt;
+        Activator.getLogger().log(Level.INFO,
+                "Value of {0} exceeds {1} chars: {2}",
+                new Object[] { channel.getName(), MAX_TEXT_SAMPLE_LENGTH, txt });
+        return txt.substring(0, MAX_TEXT_SAMPLE_LENGTH);
+    }
+
     /** Encode Double or array of doubles into database sample point
      * @param channel Information about the channel being written
      * @param stamp sample timestamp
@@ -18,6 +18,14 @@ public class Preferences
 {
     public static final String MAX_TEXT_SAMPLE_LENGTH = "max_text_sample_length";
 
+    public static final String BATCH_SIZE = "batch_size";
+
+    public static final String BATCH_AGE = "batch_age";
+
+    public static final String MAX_PENDING_BATCHES = "max_pending_batches";
+
+    public static final String USE_GZIP = "use_gzip";
+
     /** @return Maximum length of text samples written to SAMPLE.STR_VAL */
     public static int getMaxStringSampleLength()
     {
@@ -27,4 +35,40 @@ public class Preferences
         return prefs.getInt(Activator.ID, MAX_TEXT_SAMPLE_LENGTH, 80, null);
     }
 
+    /** @return Size of a batch of samples in kB that triggers a write */
+    public static int getBatchSize()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return 1024;
+        return prefs.getInt(Activator.ID, BATCH_SIZE, 1024, null);
+    }
+
+    /** @return Age of oldest sample in seconds that triggers a write */
+    public static double getBatchAge()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return 5.0;
+        return prefs.getDouble(Activator.ID, BATCH_AGE, 5.0, null);
+    }
+
+    /** @return Maximum number of batches being sent at the same time */
+    public static int getMaxPendingBatches()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return 4;
+        return prefs.getInt(Activator.ID, MAX_PENDING_BATCHES, 4, null);
+    }
+
+    /** @return true to gzip-compress sample batches */
+    public static boolean isUseGzip()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return true;
+        return prefs.getBoolean(Activator.ID, USE_GZIP, true, null);
+    }
+
 }
@@ -0,0 +1,460 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.zone.ZoneRules;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.diirt.util.array.ListNumber;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+/** Buffer for rows in the PostgreSQL binary COPY format
+ *
+ *  <p>Values are encoded into one byte array as they are added,
+ *  so a batch of samples is held without any per-sample objects.
+ *  The buffer is then submitted via a single
+ *  <code>COPY table (columns) FROM STDIN WITH (FORMAT BINARY)</code>.
+ *
+ *  <p>Values must be added in the order of the columns
+ *  that were passed to the constructor.
+ *  When a value cannot be added, the incomplete row is discarded
+ *  so that the buffer remains usable for the following rows.
+ *  Each value is encoded for the actual column type in the RDB,
+ *  so for example a <code>long</code> is written as 2, 4 or 8 bytes.
+ *
+ *  <p>Not thread-safe.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PGCopyBuffer
+{
+    /** Supported column types */
+    public enum ColumnType
+    {
+        INT2, INT4, INT8, FLOAT4, FLOAT8, TIMESTAMP, TIMESTAMPTZ, TEXT, BYTEA
+    }
+
+    /** Column types by PostgreSQL type name */
+    final private static Map<String, ColumnType> TYPES = new HashMap<>();
+    static
+    {
+        TYPES.put("int2", ColumnType.INT2);
+        TYPES.put("int4", ColumnType.INT4);
+        TYPES.put("serial", ColumnType.INT4);
+        TYPES.put("int8", ColumnType.INT8);
+        TYPES.put("bigserial", ColumnType.INT8);
+        TYPES.put("float4", ColumnType.FLOAT4);
+        TYPES.put("float8", ColumnType.FLOAT8);
+        TYPES.put("timestamp", ColumnType.TIMESTAMP);
+        TYPES.put("timestamptz", ColumnType.TIMESTAMPTZ);
+        TYPES.put("varchar", ColumnType.TEXT);
+        TYPES.put("bpchar", ColumnType.TEXT);
+        TYPES.put("text", ColumnType.TEXT);
+        TYPES.put("bytea", ColumnType.BYTEA);
+    }
+
+    /** Signature, flags and header extension length of binary COPY data */
+    final private static byte[] HEADER =
+    {
+        'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+        0, 0, 0, 0,
+        0, 0, 0, 0
+    };
+
+    /** Seconds from 1970 epoch to the 2000-01-01 epoch of PostgreSQL time stamps */
+    final private static long PG_EPOCH_SECS = 946684800L;
+
+    /** Time zone rules for 'TIMESTAMP' columns, which JDBC writes as local time */
+    final private static ZoneRules local_zone = ZoneId.systemDefault().getRules();
+
+    final private String table;
+    final private String[] columns;
+    final private ColumnType[] types;
+
+    /** Encoded rows */
+    private byte[] data = new byte[64 * 1024];
+
+    /** Bytes used in <code>data</code> */
+    private int size = 0;
+
+    /** Number of complete rows */
+    private int rows = 0;
+
+    /** Index of next column within current row, -1 if there is no current row */
+    private int column = -1;
+
+    /** Start of current row in <code>data</code> */
+    private int row_start = 0;
+
+    /** Create buffer for table, determining column types from RDB
+     *  @param connection RDB connection
+     *  @param table Table name, may include schema
+     *  @param columns Names of columns that will be added for each row
+     *  @throws Exception on error, including columns of unsupported type
+     */
+    public PGCopyBuffer(final Connection connection, final String table, final String... columns) throws Exception
+    {
+        this(table, columns, getColumnTypes(connection, table, columns));
+    }
+
+    /** Create buffer
+     *  @param table Table name, may include schema
+     *  @param columns Names of columns that will be added for each row
+     *  @param types Types of those columns
+     */
+    public PGCopyBuffer(final String table, final String[] columns, final ColumnType[] types)
+    {
+        if (columns.length != types.length)
+            throw new IllegalArgumentException("Got " + columns.length + " columns but " + types.length + " types");
+        this.table = table;
+        this.columns = columns;
+        this.types = types;
+    }
+
+    /** @param connection RDB connection
+     *  @param table Table name, may include schema
+     *  @param columns Column names
+     *  @return Types of the columns
+     *  @throws Exception on error, including columns of unsupported type
+     */
+    private static ColumnType[] getColumnTypes(final Connection connection, final String table,
+                                               final String... columns) throws Exception
+    {
+        final String schema, name;
+        final int sep = table.lastIndexOf('.');
+        if (sep > 0)
+        {
+            schema = table.substring(0, sep);
+            name = table.substring(sep+1);
+        }
+        else
+        {
+            schema = null;
+            name = table;
+        }
+        final Map<String, String> type_names = new HashMap<>();
+        try
+        (
+            final ResultSet result = connection.getMetaData().getColumns(connection.getCatalog(), schema, name, null);
+        )
+        {
+            while (result.next())
+                type_names.put(result.getString("COLUMN_NAME"), result.getString("TYPE_NAME"));
+        }
+        final ColumnType[] types = new ColumnType[columns.length];
+        for (int i=0; i<columns.length; ++i)
+        {
+            final String type_name = type_names.get(columns[i]);
+            if (type_name == null)
+                throw new Exception("Unable to find column " + columns[i] + " in table " + table);
+            types[i] = TYPES.get(type_name);
+            if (types[i] == null)
+                throw new Exception("Column " + table + "." + columns[i] + " has unsupported type " + type_name);
+        }
+        return types;
+    }
+
+    /** @return <code>COPY</code> command for the buffered rows */
+    public String getCopyCommand()
+    {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN WITH (FORMAT BINARY)";
+    }
+
+    /** @return Number of buffered rows */
+    public int getRowCount()
+    {
+        return rows;
+    }
+
+    /** @return Number of bytes used by the buffered rows */
+    public int getSize()
+    {
+        return size;
+    }
+
+    /** Start a new row
+     *  <p>Followed by one <code>put..</code> call per column, then {@link #endRow()}.
+     *  An incomplete previous row is discarded.
+     */
+    public void startRow()
+    {
+        discardRow();
+        if (size == 0)
+        {
+            ensure(HEADER.length);
+            System.arraycopy(HEADER, 0, data, 0, HEADER.length);
+            size = HEADER.length;
+        }
+        row_start = size;
+        ensure(Short.BYTES);
+        writeShort(columns.length);
+        column = 0;
+    }
+
+    /** Complete the current row */
+    public void endRow()
+    {
+        if (column != columns.length)
+            throw fail("Row has " + Math.max(0, column) + " of " + columns.length + " values");
+        column = -1;
+        ++rows;
+    }
+
+    /** Discard the current row, if there is one,
+     *  keeping the complete rows
+     */
+    public void discardRow()
+    {
+        if (column < 0)
+            return;
+        size = row_start;
+        column = -1;
+    }
+
+    /** Discard the current row
+     *  @param message Error message
+     *  @return Exception to throw
+     */
+    private IllegalStateException fail(final String message)
+    {
+        discardRow();
+        return new IllegalStateException(message);
+    }
+
+    /** @return Type of next column */
+    private ColumnType next()
+    {
+        if (column < 0  ||  column >= columns.length)
+            throw fail("No column left in row");
+        return types[column++];
+    }
+
+    /** Add NULL value for next column */
+    public void putNull()
+    {
+        next();
+        ensure(Integer.BYTES);
+        writeInt(-1);
+    }
+
+    /** Add number to next column
+     *  @param value Value for an integer or floating point column
+     */
+    public void putLong(final long value)
+    {
+        final ColumnType type = next();
+        switch (type)
+        {
+        case INT2:
+            ensure(Integer.BYTES + Short.BYTES);
+            writeInt(Short.BYTES);
+            writeShort((int) value);
+            break;
+        case INT4:
+            ensure(Integer.BYTES + Integer.BYTES);
+            writeInt(Integer.BYTES);
+            writeInt((int) value);
+            break;
+        case INT8:
+            ensure(Integer.BYTES + Long.BYTES);
+            writeInt(Long.BYTES);
+            writeLong(value);
+            break;
+        case FLOAT4:
+            ensure(Integer.BYTES + Float.BYTES);
+            writeInt(Float.BYTES);
+            writeInt(Float.floatToIntBits(value));
+            break;
+        case FLOAT8:
+            ensure(Integer.BYTES + Double.BYTES);
+            writeInt(Double.BYTES);
+            writeLong(Double.doubleToLongBits(value));
+            break;
+        default:
+            throw fail("Cannot write number to " + type + " column " + columns[column-1]);
+        }
+    }
+
+    /** Add number to next column
+     *  @param value Value for a floating point column
+     */
+    public void putDouble(final double value)
+    {
+        final ColumnType type = next();
+        switch (type)
+        {
+        case FLOAT4:
+            ensure(Integer.BYTES + Float.BYTES);
+            writeInt(Float.BYTES);
+            writeInt(Float.floatToIntBits((float) value));
+            break;
+        case FLOAT8:
+            ensure(Integer.BYTES + Double.BYTES);
+            writeInt(Double.BYTES);
+            writeLong(Double.doubleToLongBits(value));
+            break;
+        default:
+            throw fail("Cannot write double to " + type + " column " + columns[column-1]);
+        }
+    }
+
+    /** Add time stamp to next column
+     *
+     *  <p>Like JDBC, time stamps in 'TIMESTAMP' columns use the local time zone.
+     *  PostgreSQL time stamps have micro second resolution.
+     *
+     *  @param epoch_seconds Seconds since 1970 epoch
+     *  @param nanos Nanoseconds within that second
+     */
+    public void putTimestamp(long epoch_seconds, final int nanos)
+    {
+        final ColumnType type = next();
+        if (type == ColumnType.TIMESTAMP)
+            epoch_seconds += local_zone.getOffset(Instant.ofEpochSecond(epoch_seconds)).getTotalSeconds();
+        else if (type != ColumnType.TIMESTAMPTZ)
+            throw fail("Cannot write time stamp to " + type + " column " + columns[column-1]);
+        ensure(Integer.BYTES + Long.BYTES);
+        writeInt(Long.BYTES);
+        writeLong((epoch_seconds - PG_EPOCH_SECS) * 1000000L + nanos / 1000);
+    }
+
+    /** Add text to next column
+     *  @param text Text for a character column
+     */
+    public void putString(final String text)
+    {
+        final ColumnType type = next();
+        if (type != ColumnType.TEXT)
+            throw fail("Cannot write text to " + type + " column " + columns[column-1]);
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        ensure(Integer.BYTES + bytes.length);
+        writeInt(bytes.length);
+        System.arraycopy(bytes, 0, data, size, bytes.length);
+        size += bytes.length;
+    }
+
+    /** Add array to 'BYTEA' column
+     *
+     *  <p>Uses the same layout as the JDBC code for the 'array_val' BLOB:
+     *  Number of elements, followed by the elements, all in network byte order.
+     *
+     *  @param array Array elements
+     */
+    public void putDoubleArray(final ListNumber array)
+    {
+        final ColumnType type = next();
+        if (type != ColumnType.BYTEA)
+            throw fail("Cannot write array to " + type + " column " + columns[column-1]);
+        final int N = array.size();
+        final int bytes = Integer.BYTES + N * Double.BYTES;
+        ensure(Integer.BYTES + bytes);
+        writeInt(bytes);
+        writeInt(N);
+        for (int i=0; i<N; ++i)
+            writeLong(Double.doubleToLongBits(array.getDouble(i)));
+    }
+
+    /** Submit buffered rows to RDB and clear the buffer
+     *
+     *  <p>An incomplete row is discarded.
+     *  Does not commit.
+     *  On error, the buffer is cleared
+     *  and the transaction needs to be rolled back.
+     *
+     *  @param connection PostgreSQL connection
+     *  @return Number of rows that were copied
+     *  @throws SQLException on error
+     */
+    public long copy(final Connection connection) throws SQLException
+    {
+        discardRow();
+        if (rows <= 0)
+            return 0;
+        try
+        {
+            // File trailer
+            ensure(Short.BYTES);
+            writeShort(-1);
+            final CopyIn copy = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(getCopyCommand());
+            try
+            {
+                copy.writeToCopy(data, 0, size);
+                return copy.endCopy();
+            }
+            finally
+            {
+                if (copy.isActive())
+                    copy.cancelCopy();
+            }
+        }
+        finally
+        {
+            clear();
+        }
+    }
+
+    /** @return Buffered data of complete rows, including the trailer, for tests */
+    byte[] toByteArray()
+    {
+        discardRow();
+        final byte[] result = Arrays.copyOf(data, size + Short.BYTES);
+        result[size] = result[size+1] = (byte) 0xFF;
+        return result;
+    }
+
+    /** Clear buffered rows */
+    public void clear()
+    {
+        size = 0;
+        rows = 0;
+        column = -1;
+    }
+
+    /** @param bytes Number of bytes to add */
+    private void ensure(final int bytes)
+    {
+        if (size + bytes > data.length)
+            data = Arrays.copyOf(data, Math.max(2 * data.length, size + bytes));
+    }
+
+    private void writeShort(final int value)
+    {
+        data[size++] = (byte) (value >>> 8);
+        data[size++] = (byte) value;
+    }
+
+    private void writeInt(final int value)
+    {
+        data[size++] = (byte) (value >>> 24);
+        data[size++] = (byte) (value >>> 16);
+        data[size++] = (byte) (value >>> 8);
+        data[size++] = (byte) value;
+    }
+
+    private void writeLong(final long value)
+    {
+        writeInt((int) (value >>> 32));
+        writeInt((int) value);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PGCopyBuffer for " + table + ": " + rows + " rows, " + size + " bytes";
+    }
+}
@@ -34,6 +34,10 @@ import java.util.regex.Pattern;
 import org.postgresql.PGConnection;
 import org.postgresql.copy.CopyManager;
 
+/** PreparedStatement that collects INSERTs as CSV for a PostgreSQL COPY
+ *  @deprecated {@link RDBArchiveWriter} now uses the binary {@link PGCopyBuffer}
+ */
+@Deprecated
 public class PGCopyPreparedStatement implements PreparedStatement {
 
     private Connection connection;
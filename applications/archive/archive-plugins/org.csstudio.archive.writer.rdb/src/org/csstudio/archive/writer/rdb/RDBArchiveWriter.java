@@ -15,6 +15,7 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
@@ -23,6 +24,7 @@ import java.util.Map;
 import java.util.logging.Level;
 
 import org.csstudio.archive.rdb.RDBArchivePreferences;
+import org.csstudio.archive.rdb.Rollup;
 import org.csstudio.archive.vtype.MetaDataHelper;
 import org.csstudio.archive.vtype.TimestampHelper;
 import org.csstudio.archive.vtype.VTypeHelper;
@@ -100,6 +102,17 @@ public class RDBArchiveWriter implements ArchiveWriter
     private final List<RDBWriteChannel> batched_channel = new ArrayList<RDBWriteChannel>();
     private final List<VType> batched_samples = new ArrayList<VType>();
 
+    /** Rows for the sample table when using PostgreSQL COPY, else <code>null</code> */
+    private PGCopyBuffer copy_samples = null;
+
+    /** Rows for the array_val table when using PostgreSQL COPY without BLOBs */
+    private PGCopyBuffer copy_array_elements = null;
+
+    /** Rollup buckets for the samples since last flush, or <code>null</code> when not maintaining rollups.
+     *  When maintaining rollups, samples and rollups of a flush are committed in one transaction.
+     */
+    private RollupAccumulator rollups = null;
+
     /** Initialize from preferences.
      *  This constructor will be invoked when an {@link ArchiveWriter}
      *  is created via the extension point.
@@ -109,7 +122,8 @@ public class RDBArchiveWriter implements ArchiveWriter
     {
         this(RDBArchivePreferences.getURL(), RDBArchivePreferences.getUser(),
                 RDBArchivePreferences.getPassword(), RDBArchivePreferences.getSchema(),
-                RDBArchivePreferences.useArrayBlob());
+                RDBArchivePreferences.useArrayBlob(), Preferences.isUsePostgresCopy(),
+                RDBArchivePreferences.useRollup());
     }
 
     /** Initialize
@@ -122,6 +136,38 @@ public class RDBArchiveWriter implements ArchiveWriter
      */
     public RDBArchiveWriter(final String url, final String user, final String password,
             final String schema, boolean use_array_blob) throws Exception
+    {
+        this(url, user, password, schema, use_array_blob, Preferences.isUsePostgresCopy());
+    }
+
+    /** Initialize
+     *  @param url RDB URL
+     *  @param user .. user name
+     *  @param password .. password
+     *  @param schema Schema/table prefix, not including ".". May be empty
+     *  @param use_array_blob Use BLOB for array elements?
+     *  @param use_copy Use binary COPY instead of batched INSERTs? Only applies to PostgreSQL.
+     *  @throws Exception on error, for example RDB connection error
+     */
+    public RDBArchiveWriter(final String url, final String user, final String password,
+            final String schema, boolean use_array_blob, final boolean use_copy) throws Exception
+    {
+        this(url, user, password, schema, use_array_blob, use_copy, RDBArchivePreferences.useRollup());
+    }
+
+    /** Initialize
+     *  @param url RDB URL
+     *  @param user .. user name
+     *  @param password .. password
+     *  @param schema Schema/table prefix, not including ".". May be empty
+     *  @param use_array_blob Use BLOB for array elements?
+     *  @param use_copy Use binary COPY instead of batched INSERTs? Only applies to PostgreSQL.
+     *  @param use_rollup Maintain the min/max/mean rollup table?
+     *  @throws Exception on error, for example RDB connection error
+     */
+    public RDBArchiveWriter(final String url, final String user, final String password,
+            final String schema, boolean use_array_blob, final boolean use_copy,
+            final boolean use_rollup) throws Exception
     {
         this.use_array_blob = use_array_blob;
         rdb = RDBUtil.connect(url, user, password, false);
@@ -136,6 +182,55 @@ public class RDBArchiveWriter implements ArchiveWriter
         // auto-commit is off, then enables it briefly as needed,
         // and otherwise commits/rolls back.
         rdb.getConnection().setAutoCommit(false);
+
+        if (use_copy  &&  rdb.getDialect() == Dialect.PostgreSQL)
+            createCopyBuffers(schema);
+
+        if (use_rollup)
+        {
+            if (sql.rollup_upsert == null)
+                Activator.getLogger().log(Level.WARNING, "No " + Rollup.TABLE + " support for " + rdb.getDialect());
+            else
+                rollups = new RollupAccumulator();
+        }
+    }
+
+    /** Prepare COPY buffers, falling back to batched INSERTs on error
+     *  @param schema Schema/table prefix, not including ".". May be empty
+     */
+    private void createCopyBuffers(final String schema)
+    {
+        final String prefix = (schema == null  ||  schema.isEmpty()) ? "" : schema + ".";
+        try
+        {
+            // Columns of sample_insert_double_blob etc. from SQL, combined into one row
+            if (use_array_blob)
+                copy_samples = new PGCopyBuffer(rdb.getConnection(), prefix + Preferences.getWriteSampleTable(),
+                        "channel_id", "smpl_time", "nanosecs", "severity_id", "status_id",
+                        "num_val", "float_val", "str_val", "datatype", "array_val");
+            else
+            {
+                copy_samples = new PGCopyBuffer(rdb.getConnection(), prefix + Preferences.getWriteSampleTable(),
+                        "channel_id", "smpl_time", "nanosecs", "severity_id", "status_id",
+                        "num_val", "float_val", "str_val");
+                copy_array_elements = new PGCopyBuffer(rdb.getConnection(), prefix + "array_val",
+                        "channel_id", "smpl_time", "nanosecs", "seq_nbr", "float_val");
+            }
+            // Column lookup may have started a transaction
+            rdb.getConnection().commit();
+        }
+        catch (Exception ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Cannot use PostgreSQL COPY, falling back to INSERT", ex);
+            copy_samples = null;
+            copy_array_elements = null;
+        }
+    }
+
+    /** @return <code>true</code> if samples are written via PostgreSQL COPY */
+    public boolean isUsingCopy()
+    {
+        return copy_samples != null;
     }
 
     @Override
@@ -174,9 +269,16 @@ public class RDBArchiveWriter implements ArchiveWriter
     {
         final RDBWriteChannel rdb_channel = (RDBWriteChannel) channel;
         writeMetaData(rdb_channel, sample);
-        batchSample(rdb_channel, sample);
-        batched_channel.add(rdb_channel);
-        batched_samples.add(sample);
+        if (copy_samples != null)
+            copySample(rdb_channel, sample);
+        else
+        {
+            batchSample(rdb_channel, sample);
+            batched_channel.add(rdb_channel);
+            batched_samples.add(sample);
+        }
+        if (rollups != null)
+            rollups.add(rdb_channel.getId(), sample);
     }
 
     /** Write meta data if it was never written or has changed
@@ -220,31 +322,141 @@ public class RDBArchiveWriter implements ArchiveWriter
     }
 
     /**
-     * Create a new prepared statement. For PostgreSQL connections, this method
-     * create a PGCopyPreparedStatement to improve insert speed using COPY
-     * insetad of INSERT.
+     * Create a new prepared statement for batched inserts.
+     * PostgreSQL COPY is handled via {@link PGCopyBuffer}.
      *
      * @param sqlQuery
      * @return
      * @throws SQLException
      * @throws Exception
      */
-    @SuppressWarnings("resource")
     private PreparedStatement createInsertPrepareStatement(String sqlQuery)
             throws SQLException, Exception {
-        PreparedStatement statement = null;
-        if (rdb.getDialect() == Dialect.PostgreSQL
-                && Preferences.isUsePostgresCopy()) {
-            statement = new PGCopyPreparedStatement(rdb.getConnection(),
-                    sqlQuery);
-        } else {
-            statement = rdb.getConnection().prepareStatement(sqlQuery);
-        }
+        final PreparedStatement statement = rdb.getConnection().prepareStatement(sqlQuery);
         if (SQL_TIMEOUT_SECS > 0)
             statement.setQueryTimeout(SQL_TIMEOUT_SECS);
         return statement;
     }
 
+    /** Add sample to the COPY buffers.
+     *  <p>Needs eventual flush()
+     *  @param channel Channel
+     *  @param sample Sample to insert
+     *  @throws Exception on error
+     */
+    private void copySample(final RDBWriteChannel channel, final VType sample) throws Exception
+    {
+        final Instant time = VTypeHelper.getTimestamp(sample);
+        int severity = severities.findOrCreate(VTypeHelper.getSeverity(sample));
+        Status status = stati.findOrCreate(VTypeHelper.getMessage(sample));
+
+        // Severity/status cache may enable auto-commit
+        if (rdb.getConnection().getAutoCommit() == true)
+            rdb.getConnection().setAutoCommit(false);
+
+        // Determine value, using same types as batchSample()
+        long num = 0;
+        double dbl = 0.0;
+        String txt = null;
+        ListNumber array = null;
+        final boolean is_double;
+        if (sample instanceof VNumber)
+        {
+            final Number number = ((VNumber)sample).getValue();
+            is_double = number instanceof Double;
+            if (is_double)
+                dbl = number.doubleValue();
+            else
+                num = number.longValue();
+        }
+        else if (sample instanceof VNumberArray)
+        {
+            is_double = true;
+            array = ((VNumberArray)sample).getData();
+            dbl = array.size() > 0 ? array.getDouble(0) : Double.NaN;
+        }
+        else
+        {
+            is_double = false;
+            if (sample instanceof VEnum)
+                num = ((VEnum)sample).getIndex();
+            else
+            {
+                txt = (sample instanceof VString) ? ((VString)sample).getValue() : sample.toString();
+                if (txt.length() > MAX_TEXT_SAMPLE_LENGTH)
+                {
+                    Activator.getLogger().log(Level.INFO,
+                        "Value of {0} exceeds {1} chars: {2}",
+                        new Object[] { channel.getName(), MAX_TEXT_SAMPLE_LENGTH, txt });
+                    txt = txt.substring(0, MAX_TEXT_SAMPLE_LENGTH);
+                }
+            }
+        }
+        if (is_double  &&  Double.isNaN(dbl))
+        {
+            dbl = 0.0;
+            severity = severities.findOrCreate(AlarmSeverity.UNDEFINED);
+            status = stati.findOrCreate(NOT_A_NUMBER_STATUS);
+        }
+
+        // Like the JDBC code, place seconds in smpl_time and nanosecs separately
+        copy_samples.startRow();
+        copy_samples.putLong(channel.getId());
+        copy_samples.putTimestamp(time.getEpochSecond(), 0);
+        copy_samples.putLong(time.getNano());
+        copy_samples.putLong(severity);
+        copy_samples.putLong(status.getId());
+        if (is_double)
+        {
+            copy_samples.putNull();
+            copy_samples.putDouble(dbl);
+            copy_samples.putNull();
+        }
+        else if (txt == null)
+        {
+            copy_samples.putLong(num);
+            copy_samples.putNull();
+            copy_samples.putNull();
+        }
+        else
+        {
+            copy_samples.putNull();
+            copy_samples.putNull();
+            copy_samples.putString(txt);
+        }
+        if (use_array_blob)
+        {
+            if (array == null)
+            {
+                copy_samples.putString(" ");
+                copy_samples.putNull();
+            }
+            else
+            {
+                copy_samples.putString("d");
+                copy_samples.putDoubleArray(array);
+            }
+        }
+        copy_samples.endRow();
+
+        // Remaining array elements for array_val table
+        if (array != null  &&  copy_array_elements != null)
+        {
+            final int N = array.size();
+            for (int i = 1; i < N; i++)
+            {
+                final double element = array.getDouble(i);
+                copy_array_elements.startRow();
+                copy_array_elements.putLong(channel.getId());
+                copy_array_elements.putTimestamp(time.getEpochSecond(), 0);
+                copy_array_elements.putLong(time.getNano());
+                copy_array_elements.putLong(i);
+                copy_array_elements.putDouble(Double.isNaN(element) ? 0.0 : element);
+                copy_array_elements.endRow();
+            }
+        }
+    }
+
     /** Perform 'batched' insert for sample.
      *  <p>Needs eventual flush()
      *  @param channel Channel
@@ -497,6 +709,30 @@ public class RDBArchiveWriter implements ArchiveWriter
      */
     @Override
     public void flush() throws Exception
+    {
+        try
+        {
+            if (copy_samples != null)
+                flushCopy();
+            else
+                flushBatches();
+        }
+        catch (Exception ex)
+        {   // With rollups, the whole flush was rolled back.
+            // Drop what's left in the batches so it isn't written without rollup.
+            if (rollups != null)
+                clearBatches();
+            throw ex;
+        }
+        finally
+        {
+            if (rollups != null)
+                rollups.clear();
+        }
+    }
+
+    /** Submit the batched samples */
+    private void flushBatches() throws Exception
     {
         try
         {
@@ -544,6 +780,8 @@ public class RDBArchiveWriter implements ArchiveWriter
                     batched_double_array_inserts = 0;
                 }
             }
+            if (rollups != null)
+                commitWithRollups();
         }
         catch (final Exception ex)
         {
@@ -565,7 +803,139 @@ public class RDBArchiveWriter implements ArchiveWriter
         }
     }
 
-    /** Submit and clear the batch, or roll back on error */
+    /** Merge accumulated buckets into the rollup table,
+     *  then commit them together with the samples.
+     *  Rolls back on error.
+     */
+    private void commitWithRollups() throws Exception
+    {
+        final Connection connection = rdb.getConnection();
+        try
+        {
+            writeRollups();
+            connection.commit();
+        }
+        catch (Exception ex)
+        {
+            try
+            {
+                connection.rollback();
+            }
+            catch (Exception nested)
+            {
+                Activator.getLogger().log(Level.WARNING, "rollback() error after rollup issue", nested);
+            }
+            throw ex;
+        }
+    }
+
+    /** Merge accumulated buckets into the rollup table, without commit */
+    private void writeRollups() throws Exception
+    {
+        if (rollups.isEmpty())
+            return;
+        try
+        (
+            final PreparedStatement upsert = createInsertPrepareStatement(sql.rollup_upsert);
+        )
+        {
+            for (RollupAccumulator.Bucket bucket : rollups.getBuckets())
+            {
+                upsert.setInt(1, bucket.getChannelId());
+                upsert.setInt(2, bucket.getResolution());
+                upsert.setTimestamp(3, TimestampHelper.toSQLTimestamp(bucket.getStart()));
+                if (bucket.getCount() > 0)
+                {
+                    upsert.setDouble(4, bucket.getMinimum());
+                    upsert.setDouble(5, bucket.getMaximum());
+                }
+                else
+                {   // Only info samples
+                    upsert.setDouble(4, 0.0);
+                    upsert.setDouble(5, 0.0);
+                }
+                upsert.setDouble(6, bucket.getSum());
+                upsert.setDouble(7, bucket.getSumOfSquares());
+                upsert.setLong(8, bucket.getCount());
+                if (bucket.getSeverity() == null)
+                {
+                    upsert.setInt(9, -1);
+                    upsert.setNull(10, Types.INTEGER);
+                }
+                else
+                {   // Status of the sample was added to the cache when the sample was written,
+                    // so this does not create a status in the middle of the transaction
+                    upsert.setInt(9, bucket.getSeverity().ordinal());
+                    upsert.setInt(10, stati.findOrCreate(bucket.getStatus()).getId());
+                }
+                upsert.setLong(11, bucket.getInfoCount());
+                upsert.addBatch();
+            }
+            upsert.executeBatch();
+        }
+    }
+
+    /** Clear all batched samples after an error */
+    private void clearBatches()
+    {
+        for (PreparedStatement insert : new PreparedStatement[]
+             { insert_double_sample, insert_long_sample, insert_txt_sample, insert_array_sample })
+        {
+            if (insert == null)
+                continue;
+            try
+            {
+                insert.clearBatch();
+            }
+            catch (Exception ex)
+            {
+                Activator.getLogger().log(Level.WARNING, "clearBatch() error", ex);
+            }
+        }
+        batched_double_inserts = 0;
+        batched_long_inserts = 0;
+        batched_txt_inserts = 0;
+        batched_double_array_inserts = 0;
+    }
+
+    /** Submit and clear the COPY buffers, or roll back on error */
+    private void flushCopy() throws Exception
+    {
+        if (copy_samples.getRowCount() <= 0)
+            return;
+        final Connection connection = rdb.getConnection();
+        try
+        {
+            copy_samples.copy(connection);
+            if (copy_array_elements != null)
+                copy_array_elements.copy(connection);
+            if (rollups != null)
+                writeRollups();
+            connection.commit();
+        }
+        catch (final Exception ex)
+        {
+            // A failed COPY aborts the transaction.
+            // Unlike batched inserts, none of the samples were written.
+            copy_samples.clear();
+            if (copy_array_elements != null)
+                copy_array_elements.clear();
+            try
+            {
+                connection.rollback();
+            }
+            catch (Exception nested)
+            {
+                Activator.getLogger().log(Level.WARNING, "rollback() error after COPY issue", nested);
+            }
+            throw ex;
+        }
+    }
+
+    /** Submit and clear the batch, or roll back on error.
+     *  When maintaining rollups, the batch is only committed
+     *  together with the rollups, and rolled back on error.
+     */
     private void checkBatchExecution(final PreparedStatement insert) throws Exception
     {
         try
@@ -574,10 +944,25 @@ public class RDBArchiveWriter implements ArchiveWriter
             // each batched insert, but Oracle 10g and 11g just throw
             // an exception
             insert.executeBatch();
-            rdb.getConnection().commit();
+            if (rollups == null)
+                rdb.getConnection().commit();
         }
         catch (final Exception ex)
         {
+            if (rollups != null)
+            {   // Samples must not be committed without their rollup
+                try
+                {
+                    insert.clearBatch();
+                    rdb.getConnection().rollback();
+                }
+                catch (Exception nested)
+                {
+                    Activator.getLogger().log(Level.WARNING,
+                            "clearBatch(), rollback() error after batch issue", nested);
+                }
+                throw ex;
+            }
             try
             {
                 // On failure, roll back.
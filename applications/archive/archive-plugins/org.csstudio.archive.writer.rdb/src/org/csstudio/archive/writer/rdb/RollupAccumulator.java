@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.csstudio.archive.rdb.Rollup;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VType;
+
+/** Accumulates samples into rollup buckets until they are written
+ *
+ *  <p>Each numeric scalar sample is added to one bucket
+ *  for each of the {@link Rollup} resolutions.
+ *  A bucket keeps the highest alarm severity of its values
+ *  together with the status of that value.
+ *  Other samples, for example 'Disconnected' or values with
+ *  undefined severity, are only counted as 'info' samples
+ *  so that the reader can fall back to the raw samples for
+ *  buckets that contain them.
+ *  The buckets only hold what was added since the last {@link #clear()},
+ *  and are then merged into the rollup table.
+ *
+ *  <p>Not thread-safe.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class RollupAccumulator
+{
+    /** Statistics for one channel, resolution and bucket */
+    public static class Bucket
+    {
+        final private int channel_id;
+        final private int resolution;
+        final private long start;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private double sum = 0.0;
+        private double sum_sq = 0.0;
+        private long count = 0;
+        private AlarmSeverity severity = null;
+        private String status = null;
+        private long info = 0;
+
+        Bucket(final int channel_id, final int resolution, final long start)
+        {
+            this.channel_id = channel_id;
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        void add(final double value, final AlarmSeverity severity, final String status)
+        {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+            sum += value;
+            sum_sq += value * value;
+            ++count;
+            if (this.severity == null  ||  severity.ordinal() > this.severity.ordinal())
+            {
+                this.severity = severity;
+                this.status = status;
+            }
+        }
+
+        void addInfo()
+        {
+            ++info;
+        }
+
+        /** @return Channel ID */
+        public int getChannelId()
+        {
+            return channel_id;
+        }
+
+        /** @return Bucket size in seconds */
+        public int getResolution()
+        {
+            return resolution;
+        }
+
+        /** @return Start of the bucket */
+        public Instant getStart()
+        {
+            return Instant.ofEpochSecond(start);
+        }
+
+        /** @return Minimum value */
+        public double getMinimum()
+        {
+            return min;
+        }
+
+        /** @return Maximum value */
+        public double getMaximum()
+        {
+            return max;
+        }
+
+        /** @return Sum of values */
+        public double getSum()
+        {
+            return sum;
+        }
+
+        /** @return Sum of squared values */
+        public double getSumOfSquares()
+        {
+            return sum_sq;
+        }
+
+        /** @return Number of values */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /** @return Highest severity of the values, <code>null</code> if there are no values */
+        public AlarmSeverity getSeverity()
+        {
+            return severity;
+        }
+
+        /** @return Status of the value with highest severity, <code>null</code> if there are no values */
+        public String getStatus()
+        {
+            return status;
+        }
+
+        /** @return Number of samples that were not accumulated */
+        public long getInfoCount()
+        {
+            return info;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Channel " + channel_id + ", " + resolution + " secs from " + getStart() +
+                   ": " + count + " samples, min " + min + ", max " + max + ", sum " + sum +
+                   ", " + severity + " " + status + ", " + info + " info samples";
+        }
+    }
+
+    /** Key for looking up a {@link Bucket} */
+    private static class Key
+    {
+        final int channel_id;
+        final int resolution;
+        final long start;
+
+        Key(final int channel_id, final int resolution, final long start)
+        {
+            this.channel_id = channel_id;
+            this.resolution = resolution;
+            this.start = start;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (31 * channel_id + resolution) * 31 + Long.hashCode(start);
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (! (obj instanceof Key))
+                return false;
+            final Key other = (Key) obj;
+            return channel_id == other.channel_id  &&
+                   resolution == other.resolution  &&
+                   start == other.start;
+        }
+    }
+
+    final private int[] resolutions = Rollup.getResolutions();
+
+    final private Map<Key, Bucket> buckets = new HashMap<>();
+
+    /** Add sample
+     *  @param channel_id Channel ID
+     *  @param sample Sample. Only numeric scalars with defined severity are accumulated,
+     *                other samples are counted as 'info' samples.
+     *  @return <code>true</code> if the sample was accumulated
+     */
+    public boolean add(final int channel_id, final VType sample)
+    {
+        final Instant time = VTypeHelper.getTimestamp(sample);
+        final AlarmSeverity severity = VTypeHelper.getSeverity(sample);
+        if (sample instanceof VNumber  &&  severity != AlarmSeverity.UNDEFINED)
+        {
+            final Number number = ((VNumber) sample).getValue();
+            if (number != null  &&  Double.isFinite(number.doubleValue()))
+            {
+                add(channel_id, time, number.doubleValue(), severity, VTypeHelper.getMessage(sample));
+                return true;
+            }
+        }
+        for (int resolution : resolutions)
+            getBucket(channel_id, resolution, time).addInfo();
+        return false;
+    }
+
+    /** Add value
+     *  @param channel_id Channel ID
+     *  @param time Time stamp
+     *  @param value Value
+     *  @param severity Alarm severity
+     *  @param status Alarm status
+     */
+    public void add(final int channel_id, final Instant time, final double value,
+                    final AlarmSeverity severity, final String status)
+    {
+        for (int resolution : resolutions)
+            getBucket(channel_id, resolution, time).add(value, severity, status);
+    }
+
+    /** @param channel_id Channel ID
+     *  @param resolution Bucket size in seconds
+     *  @param time Time stamp
+     *  @return Bucket for the time stamp, created as needed
+     */
+    private Bucket getBucket(final int channel_id, final int resolution, final Instant time)
+    {
+        final long start = Rollup.getBucketStart(time.getEpochSecond(), resolution);
+        return buckets.computeIfAbsent(new Key(channel_id, resolution, start),
+                                       key -> new Bucket(channel_id, resolution, start));
+    }
+
+    /** @return <code>true</code> if nothing was accumulated */
+    public boolean isEmpty()
+    {
+        return buckets.isEmpty();
+    }
+
+    /** @return Accumulated buckets */
+    public Collection<Bucket> getBuckets()
+    {
+        return buckets.values();
+    }
+
+    /** Remove all buckets */
+    public void clear()
+    {
+        buckets.clear();
+    }
+}
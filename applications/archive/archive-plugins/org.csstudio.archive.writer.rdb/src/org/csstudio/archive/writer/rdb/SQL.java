@@ -9,6 +9,7 @@ package org.csstudio.archive.writer.rdb;
 
 import java.util.logging.Logger;
 
+import org.csstudio.archive.rdb.Rollup;
 import org.csstudio.platform.utility.rdb.RDBUtil.Dialect;
 
 /** SQL statements for writing archive data
@@ -46,6 +47,9 @@ public class SQL
     final public String sample_insert_int;
     final public String sample_insert_string;
 
+    // 'sample_rollup' table, <code>null</code> if not supported
+    final public String rollup_upsert;
+
     /** Initialize
      *  @param dialect RDB Dialect
      *  @param schema Schema prefix (May be ""), not including "."
@@ -163,5 +167,47 @@ public class SQL
         default:
              throw new Error("Unknown RDB Dialect " + dialect);
         }
+
+        // 'sample_rollup' table: Merge bucket into existing row.
+        // Parameters: channel_id, resolution, bucket_time, min_val, max_val, sum_val, sum_sq, cnt,
+        //             max_sevr, status_id, info_cnt.
+        // min_val, max_val are only meaningful for cnt > 0.
+        // MySQL uses already updated columns in later assignments,
+        // so cnt and max_sevr are updated after the columns that depend on them.
+        final String rollup = schema + Rollup.TABLE;
+        switch (dialect)
+        {
+        case Oracle:
+            // No rollup table in the Oracle schema
+            rollup_upsert = null;
+            break;
+        case PostgreSQL:
+            rollup_upsert =
+                "INSERT INTO " + rollup + " AS r" +
+                " (channel_id, resolution, bucket_time, min_val, max_val, sum_val, sum_sq, cnt, max_sevr, status_id, info_cnt)" +
+                " VALUES (?,?,?,?,?,?,?,?,?,?,?)" +
+                " ON CONFLICT (channel_id, resolution, bucket_time) DO UPDATE SET" +
+                "  min_val=CASE WHEN r.cnt=0 THEN EXCLUDED.min_val WHEN EXCLUDED.cnt=0 THEN r.min_val" +
+                "          ELSE LEAST(r.min_val, EXCLUDED.min_val) END," +
+                "  max_val=CASE WHEN r.cnt=0 THEN EXCLUDED.max_val WHEN EXCLUDED.cnt=0 THEN r.max_val" +
+                "          ELSE GREATEST(r.max_val, EXCLUDED.max_val) END," +
+                "  sum_val=r.sum_val+EXCLUDED.sum_val, sum_sq=r.sum_sq+EXCLUDED.sum_sq, cnt=r.cnt+EXCLUDED.cnt," +
+                "  status_id=CASE WHEN EXCLUDED.max_sevr>r.max_sevr THEN EXCLUDED.status_id ELSE r.status_id END," +
+                "  max_sevr=GREATEST(r.max_sevr, EXCLUDED.max_sevr), info_cnt=r.info_cnt+EXCLUDED.info_cnt";
+            break;
+        default:
+            rollup_upsert =
+                "INSERT INTO " + rollup +
+                " (channel_id, resolution, bucket_time, min_val, max_val, sum_val, sum_sq, cnt, max_sevr, status_id, info_cnt)" +
+                " VALUES (?,?,?,?,?,?,?,?,?,?,?)" +
+                " ON DUPLICATE KEY UPDATE" +
+                "  min_val=CASE WHEN cnt=0 THEN VALUES(min_val) WHEN VALUES(cnt)=0 THEN min_val" +
+                "          ELSE LEAST(min_val, VALUES(min_val)) END," +
+                "  max_val=CASE WHEN cnt=0 THEN VALUES(max_val) WHEN VALUES(cnt)=0 THEN max_val" +
+                "          ELSE GREATEST(max_val, VALUES(max_val)) END," +
+                "  sum_val=sum_val+VALUES(sum_val), sum_sq=sum_sq+VALUES(sum_sq), cnt=cnt+VALUES(cnt)," +
+                "  status_id=CASE WHEN VALUES(max_sevr)>max_sevr THEN VALUES(status_id) ELSE status_id END," +
+                "  max_sevr=GREATEST(max_sevr, VALUES(max_sevr)), info_cnt=info_cnt+VALUES(info_cnt)";
+        }
     }
 }
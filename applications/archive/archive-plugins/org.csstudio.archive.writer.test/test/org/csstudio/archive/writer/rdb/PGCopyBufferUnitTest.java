@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.csstudio.archive.writer.rdb.PGCopyBuffer.ColumnType;
+import org.diirt.util.array.ArrayDouble;
+import org.junit.Test;
+
+/** JUnit test of the PostgreSQL binary COPY encoding, no RDB required
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PGCopyBufferUnitTest
+{
+    @Test
+    public void testEncoding() throws Exception
+    {
+        final PGCopyBuffer buffer = new PGCopyBuffer("archive.sample",
+                new String[] { "channel_id", "smpl_time", "severity_id", "float_val", "str_val", "array_val" },
+                new ColumnType[] { ColumnType.INT8, ColumnType.TIMESTAMPTZ, ColumnType.INT4,
+                                   ColumnType.FLOAT8, ColumnType.TEXT, ColumnType.BYTEA });
+        assertThat(buffer.getCopyCommand(),
+                   equalTo("COPY archive.sample (channel_id, smpl_time, severity_id, float_val, str_val, array_val) FROM STDIN WITH (FORMAT BINARY)"));
+
+        buffer.startRow();
+        buffer.putLong(42);
+        // 2000-01-01 00:00:01.5 UTC
+        buffer.putTimestamp(946684801L, 500000000);
+        buffer.putLong(3);
+        buffer.putDouble(3.14);
+        buffer.putString("OK");
+        buffer.putDoubleArray(new ArrayDouble(1.0, 2.0));
+        buffer.endRow();
+
+        buffer.startRow();
+        buffer.putLong(43);
+        buffer.putTimestamp(946684800L, 0);
+        buffer.putNull();
+        buffer.putNull();
+        buffer.putNull();
+        buffer.putNull();
+        buffer.endRow();
+        assertThat(buffer.getRowCount(), equalTo(2));
+
+        final ByteBuffer data = ByteBuffer.wrap(buffer.toByteArray());
+        final byte[] signature = new byte[11];
+        data.get(signature);
+        assertThat(new String(signature, 0, 7, StandardCharsets.US_ASCII), equalTo("PGCOPY\n"));
+        // Flags, header extension
+        assertThat(data.getInt(), equalTo(0));
+        assertThat(data.getInt(), equalTo(0));
+
+        // First row
+        assertThat(data.getShort(), equalTo((short) 6));
+        assertThat(data.getInt(), equalTo(8));
+        assertThat(data.getLong(), equalTo(42L));
+        assertThat(data.getInt(), equalTo(8));
+        assertThat(data.getLong(), equalTo(1500000L));
+        assertThat(data.getInt(), equalTo(4));
+        assertThat(data.getInt(), equalTo(3));
+        assertThat(data.getInt(), equalTo(8));
+        assertThat(data.getDouble(), equalTo(3.14));
+        assertThat(data.getInt(), equalTo(2));
+        assertThat(data.get(), equalTo((byte) 'O'));
+        assertThat(data.get(), equalTo((byte) 'K'));
+        assertThat(data.getInt(), equalTo(4 + 2*8));
+        assertThat(data.getInt(), equalTo(2));
+        assertThat(data.getDouble(), equalTo(1.0));
+        assertThat(data.getDouble(), equalTo(2.0));
+
+        // Second row
+        assertThat(data.getShort(), equalTo((short) 6));
+        assertThat(data.getInt(), equalTo(8));
+        assertThat(data.getLong(), equalTo(43L));
+        assertThat(data.getInt(), equalTo(8));
+        assertThat(data.getLong(), equalTo(0L));
+        for (int i=0; i<4; ++i)
+            assertThat(data.getInt(), equalTo(-1));
+
+        // Trailer
+        assertThat(data.getShort(), equalTo((short) -1));
+        assertThat(data.remaining(), equalTo(0));
+
+        buffer.clear();
+        assertThat(buffer.getRowCount(), equalTo(0));
+        assertThat(buffer.getSize(), equalTo(0));
+    }
+
+    @Test(expected=IllegalStateException.class)
+    public void testIncompleteRow() throws Exception
+    {
+        final PGCopyBuffer buffer = new PGCopyBuffer("sample",
+                new String[] { "channel_id", "float_val" },
+                new ColumnType[] { ColumnType.INT8, ColumnType.FLOAT8 });
+        buffer.startRow();
+        buffer.putLong(42);
+        buffer.endRow();
+    }
+
+    @Test
+    public void testFailedRow() throws Exception
+    {
+        final String[] columns = { "channel_id", "float_val" };
+        final ColumnType[] types = { ColumnType.INT8, ColumnType.FLOAT8 };
+
+        final PGCopyBuffer expected = new PGCopyBuffer("sample", columns, types);
+        expected.startRow();
+        expected.putLong(43);
+        expected.putDouble(3.14);
+        expected.endRow();
+
+        final PGCopyBuffer buffer = new PGCopyBuffer("sample", columns, types);
+        buffer.startRow();
+        buffer.putLong(42);
+        try
+        {
+            buffer.putString("Not a number");
+            fail("Wrote text to FLOAT8 column");
+        }
+        catch (IllegalStateException ex)
+        {
+            // Expected
+        }
+        assertThat(buffer.getRowCount(), equalTo(0));
+
+        // Failed row was discarded, next row is written
+        buffer.startRow();
+        buffer.putLong(43);
+        buffer.putDouble(3.14);
+        buffer.endRow();
+        assertThat(buffer.getRowCount(), equalTo(1));
+        assertArrayEquals(expected.toByteArray(), buffer.toByteArray());
+
+        // Row that is started but never ended is dropped as well
+        buffer.startRow();
+        buffer.putLong(44);
+        assertThat(buffer.getRowCount(), equalTo(1));
+        assertArrayEquals(expected.toByteArray(), buffer.toByteArray());
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import java.time.Instant;
+
+import org.csstudio.apputil.test.TestProperties;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.writer.WriteChannel;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Test;
+
+/** Benchmark of batched INSERT vs. binary COPY for PostgreSQL
+ *
+ *  <p>Uses the same test settings as the {@link RDBArchiveWriterTest},
+ *  which must point to a PostgreSQL archive,
+ *  for example a local 'postgres' Docker container
+ *  initialized with the archive schema from org.csstudio.archive.rdb/dbd.
+ *  Writes the same scalar and array samples with both methods
+ *  and reports samples/sec.
+ *
+ *  <p>Not a test, the samples stay in the archive.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PGCopyDemo
+{
+    final private static int TEST_DURATION_SECS = 10;
+    final private static long FLUSH_COUNT = 1000;
+    final private static int ARRAY_SIZE = 100;
+
+    final private Display display = ValueFactory.newDisplay(0.0, 1.0, 2.0, "a.u.", NumberFormats.format(2), 8.0, 9.0, 10.0, 0.0, 10.0);
+
+    private long write(final RDBArchiveWriter writer, final String name, final boolean array) throws Exception
+    {
+        final WriteChannel channel = writer.getChannel(name);
+        final double[] data = new double[ARRAY_SIZE];
+        for (int i=0; i<data.length; ++i)
+            data[i] = i;
+
+        long count = 0;
+        final long start = System.currentTimeMillis();
+        final long end = start + TEST_DURATION_SECS*1000L;
+        do
+        {
+            ++count;
+            final VType sample = array
+                ? new ArchiveVNumberArray(Instant.now(), AlarmSeverity.NONE, "OK", display, data)
+                : new ArchiveVNumber(Instant.now(), AlarmSeverity.NONE, "OK", display, 3.14);
+            writer.addSample(channel, sample);
+            if (count % FLUSH_COUNT == 0)
+                writer.flush();
+        }
+        while (System.currentTimeMillis() < end);
+        writer.flush();
+        return count;
+    }
+
+    @Test
+    public void demoWriteSpeed() throws Exception
+    {
+        final TestProperties settings = new TestProperties();
+        final String url = settings.getString("archive_rdb_url");
+        final String user = settings.getString("archive_rdb_user");
+        final String password = settings.getString("archive_rdb_password");
+        final String schema = settings.getString("archive_rdb_schema");
+        final String name = settings.getString("archive_channel");
+        final String array_name = settings.getString("archive_array_channel");
+        if (url == null  ||  !url.startsWith("jdbc:postgresql")  ||  user == null  ||  password == null  ||  name == null)
+        {
+            System.out.println("Skipping demo, no PostgreSQL archive_rdb_url, user, password");
+            return;
+        }
+        final boolean use_blob = Boolean.parseBoolean(settings.getString("archive_use_blob"));
+
+        System.out.format("%-8s %-8s %15s\n", "Mode", "Type", "Samples/sec");
+        for (boolean use_copy : new boolean[] { false, true })
+        {
+            final RDBArchiveWriter writer = new RDBArchiveWriter(url, user, password, schema, use_blob, use_copy);
+            try
+            {
+                final String mode = writer.isUsingCopy() ? "COPY" : "INSERT";
+                long count = write(writer, name, false);
+                System.out.format("%-8s %-8s %15.1f\n", mode, "scalar", (double)count / TEST_DURATION_SECS);
+                if (array_name != null)
+                {
+                    count = write(writer, array_name, true);
+                    System.out.format("%-8s %-8s %15.1f\n", mode, "array", (double)count / TEST_DURATION_SECS);
+                }
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+    }
+}
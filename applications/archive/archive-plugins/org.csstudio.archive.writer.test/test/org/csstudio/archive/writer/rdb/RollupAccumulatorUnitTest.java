@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.archive.writer.rdb;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.writer.rdb.RollupAccumulator.Bucket;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Test;
+
+/** JUnit test of the rollup accumulation, no RDB required
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class RollupAccumulatorUnitTest
+{
+    final private Display display = ValueFactory.displayNone();
+
+    @Test
+    public void testBuckets() throws Exception
+    {
+        final RollupAccumulator rollups = new RollupAccumulator();
+        assertThat(rollups.isEmpty(), equalTo(true));
+
+        // 2000-01-01 00:00:00 UTC, 30 seconds later, and 61 seconds later
+        final Instant start = Instant.ofEpochSecond(946684800L);
+        assertThat(rollups.add(1, new ArchiveVNumber(start, AlarmSeverity.NONE, "OK", display, 1.0)), equalTo(true));
+        assertThat(rollups.add(1, new ArchiveVNumber(start.plusSeconds(30), AlarmSeverity.MAJOR, "HIHI", display, 3)), equalTo(true));
+        assertThat(rollups.add(1, new ArchiveVNumber(start.plusSeconds(61), AlarmSeverity.NONE, "OK", display, 5.0)), equalTo(true));
+
+        // Not accumulated, only counted
+        assertThat(rollups.add(1, new ArchiveVNumber(start, AlarmSeverity.UNDEFINED, "NaN", display, Double.NaN)), equalTo(false));
+        assertThat(rollups.add(1, new ArchiveVNumber(start, AlarmSeverity.UNDEFINED, "UDF", display, 7.0)), equalTo(false));
+        assertThat(rollups.add(1, new ArchiveVString(start, AlarmSeverity.INVALID, "Disconnected", "Disconnected")), equalTo(false));
+
+        // Other channel
+        rollups.add(2, start, 10.0, AlarmSeverity.MINOR, "LOW");
+
+        final List<Bucket> buckets = new ArrayList<>(rollups.getBuckets());
+        buckets.sort(Comparator.comparing(Bucket::getChannelId)
+                               .thenComparing(Bucket::getResolution)
+                               .thenComparing(Bucket::getStart));
+        for (Bucket bucket : buckets)
+            System.out.println(bucket);
+
+        // Channel 1: two minute buckets, one for hour, one for day; channel 2: one of each
+        assertThat(buckets.size(), equalTo(7));
+
+        Bucket bucket = buckets.get(0);
+        assertThat(bucket.getResolution(), equalTo(60));
+        assertThat(bucket.getStart(), equalTo(start));
+        assertThat(bucket.getCount(), equalTo(2L));
+        assertThat(bucket.getMinimum(), equalTo(1.0));
+        assertThat(bucket.getMaximum(), equalTo(3.0));
+        assertThat(bucket.getSum(), equalTo(4.0));
+        assertThat(bucket.getSumOfSquares(), equalTo(10.0));
+        assertThat(bucket.getSeverity(), equalTo(AlarmSeverity.MAJOR));
+        assertThat(bucket.getStatus(), equalTo("HIHI"));
+        assertThat(bucket.getInfoCount(), equalTo(3L));
+
+        bucket = buckets.get(1);
+        assertThat(bucket.getResolution(), equalTo(60));
+        assertThat(bucket.getStart(), equalTo(start.plusSeconds(60)));
+        assertThat(bucket.getCount(), equalTo(1L));
+        assertThat(bucket.getSeverity(), equalTo(AlarmSeverity.NONE));
+        assertThat(bucket.getInfoCount(), equalTo(0L));
+
+        for (int i=2; i<4; ++i)
+        {
+            bucket = buckets.get(i);
+            assertThat(bucket.getStart(), equalTo(start));
+            assertThat(bucket.getCount(), equalTo(3L));
+            assertThat(bucket.getMinimum(), equalTo(1.0));
+            assertThat(bucket.getMaximum(), equalTo(5.0));
+        }
+        assertThat(buckets.get(3).getResolution(), equalTo(24*60*60));
+
+        assertThat(buckets.get(4).getChannelId(), equalTo(2));
+        assertThat(buckets.get(4).getStatus(), equalTo("LOW"));
+
+        // Bucket with only info samples has no value and no severity
+        rollups.clear();
+        assertThat(rollups.add(1, new ArchiveVString(start, AlarmSeverity.INVALID, "Archive_Off", "Archive_Off")), equalTo(false));
+        assertThat(rollups.getBuckets().size(), equalTo(3));
+        for (Bucket info : rollups.getBuckets())
+        {
+            assertThat(info.getCount(), equalTo(0L));
+            assertThat(info.getInfoCount(), equalTo(1L));
+            assertThat(info.getSeverity(), equalTo(null));
+        }
+
+        rollups.clear();
+        assertThat(rollups.isEmpty(), equalTo(true));
+    }
+}
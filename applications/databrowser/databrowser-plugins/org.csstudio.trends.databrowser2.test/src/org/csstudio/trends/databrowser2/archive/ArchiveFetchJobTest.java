@@ -87,7 +87,7 @@ public class ArchiveFetchJobTest implements ArchiveFetchJobListener
     }
 
     @Override
-    public void archiveFetchFailed(final ArchiveFetchJob job,
+    public void archiveFetchFailed(final ArchiveFetchJob job, final PVItem item,
             final ArchiveDataSource archive, final Exception error)
     {
         System.out.print("Received error: ");
@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.archive;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.csstudio.archive.reader.ArchiveInfo;
+import org.csstudio.archive.reader.ArchiveReader;
+import org.csstudio.archive.reader.UnknownChannelException;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.ArchiveVEnum;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.csstudio.trends.databrowser2.model.RequestType;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VStatistics;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/** JUnit test of the {@link SampleCache}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class SampleCacheUnitTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    final private static Display display = ValueFactory.newDisplay(0.0, 1.0, 2.0, "V", NumberFormats.format(3), 8.0, 9.0, 10.0, 0.0, 10.0);
+
+    /** Reader with one sample every 10 minutes, remembering requested time ranges */
+    private static class DemoReader implements ArchiveReader
+    {
+        final List<VType> samples = new ArrayList<>();
+        final List<Instant[]> requests = new ArrayList<>();
+
+        DemoReader(final Instant start, final Instant end)
+        {
+            int i = 0;
+            for (Instant time = start; time.isBefore(end); time = time.plus(Duration.ofMinutes(10)))
+                samples.add(new ArchiveVNumber(time, AlarmSeverity.NONE, "OK", display, i++));
+        }
+
+        @Override
+        public ValueIterator getRawValues(final int key, final String name, final Instant start, final Instant end)
+                throws UnknownChannelException, Exception
+        {
+            if (! name.equals("demo"))
+                throw new UnknownChannelException(name);
+            requests.add(new Instant[] { start, end });
+            // Last sample at or before start, then samples up to end
+            final List<VType> result = new ArrayList<>();
+            for (VType sample : samples)
+            {
+                final Instant time = VTypeHelper.getTimestamp(sample);
+                if (time.isAfter(end))
+                    break;
+                if (! time.isAfter(start)  &&  result.size() > 0)
+                    result.clear();
+                result.add(sample);
+            }
+            return new ValueIterator()
+            {
+                int i = 0;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return i < result.size();
+                }
+
+                @Override
+                public VType next() throws Exception
+                {
+                    return result.get(i++);
+                }
+
+                @Override
+                public void close()
+                {
+                    // NOP
+                }
+            };
+        }
+
+        @Override
+        public ValueIterator getOptimizedValues(final int key, final String name, final Instant start, final Instant end, final int count)
+                throws UnknownChannelException, Exception
+        {
+            return getRawValues(key, name, start, end);
+        }
+
+        @Override
+        public String getServerName()   { return "Demo"; }
+
+        @Override
+        public String getURL()          { return "demo:"; }
+
+        @Override
+        public String getDescription()  { return "Demo"; }
+
+        @Override
+        public int getVersion()         { return 1; }
+
+        @Override
+        public ArchiveInfo[] getArchiveInfos()
+        {
+            return new ArchiveInfo[] { new ArchiveInfo("demo", "Demo", 1) };
+        }
+
+        @Override
+        public String[] getNamesByPattern(int key, String glob_pattern) throws Exception
+        {
+            return new String[0];
+        }
+
+        @Override
+        public String[] getNamesByRegExp(int key, String reg_exp) throws Exception
+        {
+            return new String[0];
+        }
+
+        @Override
+        public void cancel()
+        {
+            // NOP
+        }
+
+        @Override
+        public void close()
+        {
+            // NOP
+        }
+    }
+
+    /** Write and read all supported sample types */
+    @Test
+    public void testFileFormat() throws Exception
+    {
+        final Instant now = Instant.ofEpochSecond(1500000000L, 123456789);
+        final List<VType> samples = Arrays.asList(
+            new ArchiveVNumber(now, AlarmSeverity.NONE, "OK", display, 3.14),
+            new ArchiveVNumber(now.plusSeconds(1), AlarmSeverity.MINOR, "LOW", display, 42),
+            new ArchiveVStatistics(now.plusSeconds(2), AlarmSeverity.NONE, "OK", display, 2.0, 1.0, 3.0, 0.5, 10),
+            new ArchiveVEnum(now.plusSeconds(3), AlarmSeverity.MAJOR, "STATE", Arrays.asList("Off", "On"), 1),
+            new ArchiveVString(now.plusSeconds(4), AlarmSeverity.INVALID, "Disconnected", "Text"),
+            new ArchiveVNumberArray(now.minusSeconds(5), AlarmSeverity.NONE, "OK", display, 1.0, 2.0, 3.0));
+
+        final ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        SampleCacheFile.write(buf, "key", samples);
+        System.out.println(samples.size() + " samples in " + buf.size() + " bytes");
+
+        assertThat(SampleCacheFile.read(new ByteArrayInputStream(buf.toByteArray()), "other"), nullValue());
+
+        final List<VType> copy = SampleCacheFile.read(new ByteArrayInputStream(buf.toByteArray()), "key");
+        assertThat(copy.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            System.out.println(copy.get(i));
+            assertThat(VTypeHelper.getTimestamp(copy.get(i)), equalTo(VTypeHelper.getTimestamp(samples.get(i))));
+            assertThat(VTypeHelper.getSeverity(copy.get(i)), equalTo(VTypeHelper.getSeverity(samples.get(i))));
+            assertThat(VTypeHelper.getMessage(copy.get(i)), equalTo(VTypeHelper.getMessage(samples.get(i))));
+            assertThat(VTypeHelper.toString(copy.get(i)), equalTo(VTypeHelper.toString(samples.get(i))));
+        }
+        assertThat(((VNumber)copy.get(1)).getValue(), instanceOf(Long.class));
+        assertThat(((VStatistics)copy.get(2)).getMax(), equalTo(3.0));
+        assertThat(((Display)copy.get(0)).getUnits(), equalTo("V"));
+    }
+
+    /** Only request what's not cached */
+    @Test
+    public void testCache() throws Exception
+    {
+        final Instant end = Instant.now().minus(Duration.ofDays(1));
+        final Instant start = end.minus(Duration.ofHours(6));
+        final DemoReader reader = new DemoReader(start.minus(Duration.ofDays(1)), end.plus(Duration.ofDays(1)));
+        final SampleCache cache = new SampleCache(folder.getRoot(), 10*1024*1024);
+
+        final List<VType> direct = SampleCache.read(reader.getRawValues(1, "demo", start, end));
+        reader.requests.clear();
+
+        // Initial request
+        List<VType> result = cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start, end, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(1));
+        assertThat(result, equalTo(direct));
+        assertTrue(cache.getSize() > 0);
+
+        // Same range, all from cache
+        result = cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start, end, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(1));
+        assertThat(result, equalTo(direct));
+
+        // Scroll back by 3 hours: Only fetch those
+        final Instant start2 = start.minus(Duration.ofHours(3)), end2 = end.minus(Duration.ofHours(3));
+        result = cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start2, end2, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(2));
+        final Instant[] request = reader.requests.get(1);
+        assertTrue(Duration.between(request[0], request[1]).compareTo(Duration.ofHours(4)) <= 0);
+        assertThat(result, equalTo(SampleCache.read(reader.getRawValues(1, "demo", start2, end2))));
+
+        // Unknown channel is passed on
+        try
+        {
+            cache.getSamples(reader, "demo:", 1, "other", RequestType.RAW, start, end, 100, () -> false);
+            throw new Exception("Didn't detect unknown channel");
+        }
+        catch (UnknownChannelException ex)
+        {
+            // Expected
+        }
+
+        // Re-open from disk, then limit size
+        final long size = cache.getSize();
+        assertThat(new SampleCache(folder.getRoot(), 10*1024*1024).getSize(), equalTo(size));
+        assertTrue(new SampleCache(folder.getRoot(), size/2).getSize() <= size/2);
+    }
+
+    /** Expired buckets are read again */
+    @Test
+    public void testMaxAge() throws Exception
+    {
+        final Instant end = Instant.now().minus(Duration.ofDays(1));
+        final Instant start = end.minus(Duration.ofHours(6));
+        final DemoReader reader = new DemoReader(start.minus(Duration.ofDays(1)), end.plus(Duration.ofDays(1)));
+        final SampleCache cache = new SampleCache(folder.getRoot(), 10*1024*1024, Duration.ofHours(1));
+
+        cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start, end, 100, () -> false);
+        cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start, end, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(1));
+
+        // Age the cache files, leaving no temporary files behind
+        final List<File> files = new ArrayList<>();
+        for (File dir : folder.getRoot().listFiles())
+            files.addAll(Arrays.asList(dir.listFiles()));
+        assertTrue(files.size() > 0);
+        for (File file : files)
+        {
+            assertTrue(file.getName().endsWith(".dat"));
+            file.setLastModified(System.currentTimeMillis() - Duration.ofHours(2).toMillis());
+        }
+
+        cache.getSamples(reader, "demo:", 1, "demo", RequestType.RAW, start, end, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(2));
+
+        // Re-read buckets are cached again, expired files are dropped on restart
+        final long size = cache.getSize();
+        assertTrue(size > 0);
+        assertThat(new SampleCache(folder.getRoot(), 10*1024*1024, Duration.ofHours(1)).getSize(), equalTo(size));
+        assertThat(new SampleCache(folder.getRoot(), 10*1024*1024, Duration.ZERO.minusSeconds(1)).getSize(), equalTo(0L));
+    }
+
+    /** Recent data is not cached */
+    @Test
+    public void testRecentData() throws Exception
+    {
+        final Instant end = Instant.now();
+        final Instant start = end.minus(Duration.ofMinutes(30));
+        final DemoReader reader = new DemoReader(start.minus(Duration.ofDays(1)), end);
+        final SampleCache cache = new SampleCache(folder.getRoot(), 10*1024*1024);
+
+        cache.getSamples(reader, "demo:", 1, "demo", RequestType.OPTIMIZED, start, end, 100, () -> false);
+        cache.getSamples(reader, "demo:", 1, "demo", RequestType.OPTIMIZED, start, end, 100, () -> false);
+        assertThat(reader.requests.size(), equalTo(2));
+        assertThat(cache.getSize(), equalTo(0L));
+    }
+}
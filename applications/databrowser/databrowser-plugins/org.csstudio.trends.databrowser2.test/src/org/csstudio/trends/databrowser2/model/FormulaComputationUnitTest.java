@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.csstudio.apputil.formula.Formula;
+import org.csstudio.apputil.formula.VariableNode;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.csstudio.trends.databrowser2.model.FormulaComputation.Column;
+import org.junit.Test;
+
+/** JUnit test of the {@link FormulaComputation}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class FormulaComputationUnitTest
+{
+    /** @param start First pseudo-timestamp
+     *  @param count Number of samples
+     *  @param step Time step
+     *  @return Column with samples
+     */
+    private static Column makeColumn(final int start, final int count, final int step)
+    {
+        final List<PlotSample> samples = new ArrayList<>();
+        for (int i=0; i<count; ++i)
+            samples.add(new PlotSample("Test", TestHelper.makeValue(start + i*step)));
+        final PlotSampleArray array = new PlotSampleArray();
+        array.set(samples);
+        return Column.read(array);
+    }
+
+    private static void assertSame(final List<PlotSample> expected, final List<PlotSample> actual)
+    {
+        assertThat(actual.size(), equalTo(expected.size()));
+        for (int i=0; i<expected.size(); ++i)
+            assertThat(VTypeHelper.toString(actual.get(i).getVType()),
+                       equalTo(VTypeHelper.toString(expected.get(i).getVType())));
+    }
+
+    @Test
+    public void testStaircase() throws Exception
+    {
+        final VariableNode[] variables = new VariableNode[] { new VariableNode("a"), new VariableNode("b") };
+        final Formula formula = new Formula("a+b", variables);
+
+        // a: 0, 2, 4, ...; b: 1, 4, 7, ..
+        final FormulaComputation computation = new FormulaComputation();
+        final List<PlotSample> result = computation.compute(new Column[] { makeColumn(0, 3, 2), makeColumn(1, 2, 3) }, formula, variables);
+        for (PlotSample sample : result)
+            System.out.println(sample);
+        // Time 0: b is not known; 1: 0+1; 2: 2+1; 4: 4+4 as both are at their last sample
+        assertThat(result.size(), equalTo(4));
+        assertThat(Double.isNaN(result.get(0).getValue()), equalTo(true));
+        assertThat(result.get(1).getValue(), equalTo(1.0));
+        assertThat(result.get(2).getValue(), equalTo(3.0));
+        assertThat(result.get(3).getValue(), equalTo(8.0));
+    }
+
+    @Test
+    public void testIncremental() throws Exception
+    {
+        final VariableNode[] variables = new VariableNode[] { new VariableNode("a"), new VariableNode("b") };
+        final Formula formula = new Formula("2*a-b", variables);
+        final FormulaComputation computation = new FormulaComputation();
+
+        // Inputs grow like live data
+        for (int n=10; n<20000; n=n*3/2)
+        {
+            final Column[] columns = new Column[] { makeColumn(1, n, 2), makeColumn(2, n/3, 5) };
+            final List<PlotSample> incremental = computation.compute(columns, formula, variables);
+            final List<PlotSample> full = new FormulaComputation().compute(columns, formula, variables);
+            assertSame(full, incremental);
+        }
+
+        // Data changed in the middle, then removed
+        Column[] columns = new Column[] { makeColumn(1, 15000, 1), makeColumn(2, 3000, 5) };
+        assertSame(new FormulaComputation().compute(columns, formula, variables),
+                   computation.compute(columns, formula, variables));
+        columns = new Column[] { makeColumn(1, 5, 1), makeColumn(2, 3000, 5) };
+        assertSame(new FormulaComputation().compute(columns, formula, variables),
+                   computation.compute(columns, formula, variables));
+    }
+
+    @Test
+    public void testCompiled() throws Exception
+    {
+        final VariableNode[] variables = new VariableNode[] { new VariableNode("a"), new VariableNode("b") };
+        final Formula formula = new Formula("a > b ? sqrt(a) : 2*b-a", variables);
+        final Column[] columns = new Column[] { makeColumn(1, 5000, 2), makeColumn(2, 2000, 5) };
+        assertSame(new FormulaComputation().compute(columns, formula, variables),
+                   new FormulaComputation(formula.compile()).compute(columns, formula, variables));
+    }
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.model;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+import org.junit.Test;
+
+/** JUnit test of the {@link PlotSampleBlocks}
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class PlotSampleBlocksUnitTest
+{
+    /** @param start First pseudo-timestamp
+     *  @param count Number of samples
+     *  @param step Time step
+     *  @return Samples
+     */
+    private static PlotSample[] makeSamples(final int start, final int count, final int step)
+    {
+        final PlotSample[] samples = new PlotSample[count];
+        for (int i=0; i<count; ++i)
+            samples[i] = new PlotSample("Test", TestHelper.makeValue(start + i*step));
+        return samples;
+    }
+
+    /** Compare blocks with array */
+    private static void assertSame(final PlotSample[] expected, final PlotSampleBlocks blocks)
+    {
+        assertThat(blocks.size(), equalTo(expected.length));
+        for (int i=0; i<expected.length; ++i)
+            assertThat(blocks.get(i), sameInstance(expected[i]));
+        // Random access
+        for (int i=expected.length-1; i>=0; i-=7)
+            assertThat(blocks.get(i), sameInstance(expected[i]));
+    }
+
+    @Test
+    public void testMerge() throws Exception
+    {
+        final PlotSampleBlocks blocks = new PlotSampleBlocks();
+        assertThat(blocks.size(), equalTo(0));
+        assertThat(blocks.findSampleLessThan(Instant.ofEpochSecond(10)), equalTo(-1));
+
+        // Initial data, several blocks
+        PlotSample[] expected = makeSamples(1000, 3*PlotSampleBlocks.BLOCK_SIZE + 10, 2);
+        blocks.merge(expected);
+        assertSame(expected, blocks);
+
+        // Before, within, after, overlapping
+        final PlotSample[][] adds = new PlotSample[][]
+        {
+            makeSamples(0, 10, 1),
+            makeSamples(3001, 100, 2),
+            makeSamples(1001, 5000, 2),
+            makeSamples(20000, 10, 1),
+            makeSamples(19995, 1, 1),
+            makeSamples(0, 1, 1),
+        };
+        for (PlotSample[] add : adds)
+        {
+            expected = PlotSampleMerger.merge(expected, add);
+            blocks.merge(add);
+            assertSame(expected, blocks);
+        }
+
+        // Search by time
+        for (int t=0; t<20020; t+=3)
+        {
+            final Instant time = Instant.ofEpochSecond(t);
+            assertThat(blocks.findSampleLessThan(time), equalTo(PlotSampleSearch.findSampleLessThan(expected, time)));
+            assertThat(blocks.findSampleGreaterThan(time), equalTo(PlotSampleSearch.findSampleGreaterThan(expected, time)));
+        }
+
+        blocks.clear();
+        assertThat(blocks.size(), equalTo(0));
+    }
+
+    @Test
+    public void testRandomMerge() throws Exception
+    {
+        final Random random = new Random(42);
+        final PlotSampleBlocks blocks = new PlotSampleBlocks();
+        PlotSample[] expected = new PlotSample[0];
+        for (int run=0; run<200; ++run)
+        {
+            final PlotSample[] add = makeSamples(random.nextInt(100000), 1 + random.nextInt(6000), 1 + random.nextInt(3));
+            expected = PlotSampleMerger.merge(expected, add);
+            blocks.merge(add);
+            assertThat(blocks.size(), equalTo(expected.length));
+        }
+        assertSame(expected, blocks);
+    }
+
+    /** @param start First pseudo-timestamp
+     *  @param count Number of samples
+     *  @return Archived numbers and statistics
+     */
+    private static List<VType> makeArchivedSamples(final int start, final int count)
+    {
+        final Display display = ValueFactory.displayNone();
+        final List<VType> samples = new ArrayList<>();
+        for (int i=0; i<count; ++i)
+        {
+            final Instant time = Instant.ofEpochSecond(start + i, 1000*i);
+            if (i % 3 == 0)
+                samples.add(new ArchiveVStatistics(time, AlarmSeverity.NONE, "OK", display, i, i-1, i+1, 0.5, 10));
+            else if (i % 3 == 1)
+                samples.add(new ArchiveVNumber(time, AlarmSeverity.MINOR, "LOW" + (i % 5), display, (long) i));
+            else
+                samples.add(new ArchiveVNumber(time, AlarmSeverity.NONE, "", display, i + 0.5));
+        }
+        return samples;
+    }
+
+    @Test
+    public void testColumns() throws Exception
+    {
+        final AtomicInteger waveform_index = new AtomicInteger(0);
+        List<VType> samples = makeArchivedSamples(1000, 100);
+        assertThat(PlotSampleColumns.isSupported(samples), equalTo(true));
+        assertThat(PlotSampleColumns.isSupported(Arrays.asList(new ArchiveVString(Instant.now(), AlarmSeverity.NONE, "", "Text"))), equalTo(false));
+
+        final PlotSampleColumns columns = new PlotSampleColumns(waveform_index, "Test", samples);
+        assertThat(columns.size(), equalTo(samples.size()));
+        for (int i=0; i<samples.size(); ++i)
+        {
+            final VType orig = samples.get(i), copy = columns.get(i).getVType();
+            assertThat(copy.getClass(), equalTo(orig.getClass()));
+            assertThat(VTypeHelper.getTimestamp(copy), equalTo(VTypeHelper.getTimestamp(orig)));
+            assertThat(VTypeHelper.getSeverity(copy), equalTo(VTypeHelper.getSeverity(orig)));
+            assertThat(VTypeHelper.getMessage(copy), equalTo(VTypeHelper.getMessage(orig)));
+            assertThat(VTypeHelper.toString(copy), equalTo(VTypeHelper.toString(orig)));
+            assertThat(columns.get(i).getSource(), equalTo("Test"));
+        }
+        assertThat(((ArchiveVNumber)columns.get(1).getVType()).getValue(), instanceOf(Long.class));
+        assertThat(columns.get(0).getMax(), equalTo(1.0));
+
+        // Merge blocks of columns, compare with merged array of samples
+        final Random random = new Random(42);
+        final PlotSampleBlocks blocks = new PlotSampleBlocks();
+        PlotSample[] expected = new PlotSample[0];
+        for (int run=0; run<100; ++run)
+        {
+            samples = makeArchivedSamples(random.nextInt(50000), 1 + random.nextInt(5000));
+            final PlotSample[] add = new PlotSample[samples.size()];
+            for (int i=0; i<add.length; ++i)
+                add[i] = new PlotSample(waveform_index, "Test", samples.get(i));
+            expected = PlotSampleMerger.merge(expected, add);
+            blocks.merge(new PlotSampleColumns(waveform_index, "Test", samples));
+            assertThat(blocks.size(), equalTo(expected.length));
+        }
+        for (int i=0; i<expected.length; ++i)
+            assertThat(VTypeHelper.toString(blocks.get(i).getVType()), equalTo(VTypeHelper.toString(expected[i].getVType())));
+
+        // Primitive access matches the samples, also for other waveform elements
+        for (int index : new int[] { 0, 1 })
+        {
+            waveform_index.set(index);
+            for (int i=0; i<expected.length; ++i)
+            {
+                final Instant time = expected[i].getPosition();
+                assertThat(blocks.getPosition(i), equalTo(time));
+                assertThat(blocks.getTime(i), equalTo(time.getEpochSecond() * 1000000000L + time.getNano()));
+                assertThat(blocks.getValue(i), equalTo(expected[i].getValue()));
+                assertThat(blocks.getMin(i), equalTo(expected[i].getMin()));
+                assertThat(blocks.getMax(i), equalTo(expected[i].getMax()));
+            }
+        }
+    }
+
+    @Test
+    public void testLongColumn() throws Exception
+    {
+        final Display display = ValueFactory.displayNone();
+        final long big = (1L << 53) + 1;
+        final List<VType> samples = Arrays.asList(
+            new ArchiveVNumber(Instant.ofEpochSecond(1), AlarmSeverity.NONE, "", display, 3.14),
+            new ArchiveVNumber(Instant.ofEpochSecond(2), AlarmSeverity.NONE, "", display, big),
+            new ArchiveVNumber(Instant.ofEpochSecond(3), AlarmSeverity.NONE, "", display, Long.MAX_VALUE));
+        final PlotSampleColumns columns = new PlotSampleColumns(new AtomicInteger(0), "Test", samples);
+        assertThat(((ArchiveVNumber)columns.get(1).getVType()).getValue(), equalTo((Number) Long.valueOf(big)));
+        assertThat(((ArchiveVNumber)columns.get(2).getVType()).getValue(), equalTo((Number) Long.valueOf(Long.MAX_VALUE)));
+
+        // Exact values are kept when slicing and merging blocks
+        final PlotSampleBlocks blocks = new PlotSampleBlocks();
+        blocks.merge(columns);
+        blocks.merge(new PlotSampleColumns(new AtomicInteger(0), "Test", samples.subList(0, 1)));
+        assertThat(((ArchiveVNumber)blocks.get(1).getVType()).getValue(), equalTo((Number) Long.valueOf(big)));
+    }
+}
@@ -45,6 +45,7 @@ public class Messages extends NLS
     public static String ArchiveDataSources;
     public static String ArchiveDescription;
     public static String ArchiveFetchDetailFmt;
+    public static String ArchiveFetchItemsFmt;
     public static String ArchiveFetchJobFmt;
     public static String ArchiveFetchProgressFmt;
     public static String ArchiveFetchStart;
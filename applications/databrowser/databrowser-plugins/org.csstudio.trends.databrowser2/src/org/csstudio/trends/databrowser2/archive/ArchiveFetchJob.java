@@ -9,7 +9,11 @@ package org.csstudio.trends.databrowser2.archive;
 
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -34,6 +38,11 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.osgi.util.NLS;
 
 /** Eclipse Job for fetching archived data.
+ *  <p>
+ *  Fetches the data for one or more items.
+ *  Items that use the same archive data source and request type
+ *  are fetched with one multi-channel request to the archive reader,
+ *  which may then read the channels in parallel.
  *  <p>
  *  Actually spawns another thread so that the 'main' job can
  *  poll the progress monitor for cancellation and ask the secondary
@@ -49,8 +58,8 @@ public class ArchiveFetchJob extends Job
     /**to manage concurrency on postgresql*/
     private final boolean concurrency;
 
-    /** Item for which to fetch samples */
-    final private PVItem item;
+    /** Items for which to fetch samples */
+    final private List<PVItem> items;
 
     /** Start/End time */
     final private Instant start, end;
@@ -106,11 +115,25 @@ public class ArchiveFetchJob extends Job
             if (bins < 0)
                 bins = Activator.display_pixel_width * (- bins);
 
-            final ArchiveDataSource archives[] = item.getArchiveDataSources();
-            List<ArchiveDataSource> sourcesWhereChannelDoesntExist = new ArrayList<>();
-            for (int i=0; i<archives.length && !cancelled; ++i)
+            // Group items by archive data source and request type,
+            // keeping the order of each item's data sources
+            final Map<ArchiveDataSource, Map<RequestType, List<PVItem>>> requests = new LinkedHashMap<>();
+            final Map<PVItem, List<ArchiveDataSource>> not_found = new HashMap<>();
+            for (PVItem item : items)
+            {
+                for (ArchiveDataSource archive : item.getArchiveDataSources())
+                    requests.computeIfAbsent(archive, a -> new LinkedHashMap<>())
+                            .computeIfAbsent(item.getRequestType(), t -> new ArrayList<>())
+                            .add(item);
+                not_found.put(item, new ArrayList<>());
+            }
+
+            int i = 0;
+            for (Map.Entry<ArchiveDataSource, Map<RequestType, List<PVItem>>> request : requests.entrySet())
             {
-                final ArchiveDataSource archive = archives[i];
+                if (cancelled)
+                    break;
+                final ArchiveDataSource archive = request.getKey();
                 final String url = archive.getUrl();
                 // Display "N/total", using '1' for the first sub-archive.
                 synchronized  (this)
@@ -119,73 +142,144 @@ public class ArchiveFetchJob extends Job
                             new Object[]
                             {
                                 archive.getName(),
-                                (i+1),
-                                archives.length
+                                ++i,
+                                requests.size()
                             });
                 }
-                try
+                for (Map.Entry<RequestType, List<PVItem>> typed_request : request.getValue().entrySet())
                 {
-                    final ArchiveReader the_reader;
-                    synchronized (this)
+                    if (cancelled)
+                        break;
+                    final List<PVItem> archive_items = typed_request.getValue();
+                    try
+                    {
+                        final ArchiveReader the_reader;
+                        synchronized (this)
+                        {
+                            the_reader = reader = ArchiveRepository.getInstance().getArchiveReader(url);
+                        }
+                        the_reader.enableConcurrency(concurrency);
+                        final Map<PVItem, List<VType>> results =
+                            fetch(the_reader, archive, typed_request.getKey(), archive_items, bins);
+                        for (PVItem item : archive_items)
+                        {
+                            final List<VType> result = results.get(item);
+                            if (result == null)
+                            {
+                                // Do not immediately notify about unknown channels. First search for the data in
+                                // all archive sources and only report this kind of errors at the end
+                                not_found.get(item).add(archive);
+                                continue;
+                            }
+                            samples += result.size();
+                            item.mergeArchivedSamples(the_reader.getServerName(), result);
+                        }
+                    }
+                    catch (Exception ex)
+                    {   // Tell listener unless it's the result of a 'cancel'?
+                        if (! cancelled)
+                            for (PVItem item : archive_items)
+                                listener.archiveFetchFailed(ArchiveFetchJob.this, item, archive, ex);
+                        // Continue with the next data source
+                    }
+                    finally
                     {
-                        the_reader = reader = ArchiveRepository.getInstance().getArchiveReader(url);
+                        synchronized (this)
+                        {
+                            if (reader != null)
+                                reader.close();
+                            reader = null;
+                        }
                     }
-                    the_reader.enableConcurrency(concurrency);
-                    final ValueIterator value_iter;
+                }
+            }
+            if (!cancelled)
+                for (PVItem item : items)
+                {
+                    final List<ArchiveDataSource> missing = not_found.get(item);
+                    if (!missing.isEmpty())
+                        listener.channelNotFound(ArchiveFetchJob.this, item,
+                            missing.size() < item.getArchiveDataSources().length,
+                            missing.toArray(new ArchiveDataSource[missing.size()]));
+                }
+            timer.stop();
+            if (!cancelled)
+                listener.fetchCompleted(ArchiveFetchJob.this);
+            Activator.getLogger().log(Level.FINE,
+                    "Ended {0} with {1} samples in {2}",
+                    new Object[] { ArchiveFetchJob.this, samples, timer });
+        }
+
+        /** Fetch samples for items from one archive data source
+         *  @param the_reader Reader for the archive data source
+         *  @param archive Archive data source
+         *  @param type Request type of the items
+         *  @param archive_items Items to fetch
+         *  @param bins Number of bins for optimized requests
+         *  @return Samples by item. Items whose channel is not in the archive are omitted.
+         *  @throws Exception on error
+         */
+        private Map<PVItem, List<VType>> fetch(final ArchiveReader the_reader, final ArchiveDataSource archive,
+                final RequestType type, final List<PVItem> archive_items, final int bins) throws Exception
+        {
+            final Map<PVItem, List<VType>> results = new HashMap<>();
+            final SampleCache cache = SampleCache.getInstance();
+            if (cache != null)
+            {   // Cache fetches the missing time ranges one channel at a time
+                for (PVItem item : archive_items)
+                {
+                    if (cancelled)
+                        break;
                     try
                     {
-                        if (item.getRequestType() == RequestType.RAW)
-                            value_iter = the_reader.getRawValues(archive.getKey(), item.getResolvedName(),
-                                                                 start, end);
-                        else
-                            value_iter = the_reader.getOptimizedValues(archive.getKey(), item.getResolvedName(),
-                                                                       start, end, bins);
+                        results.put(item, cache.getSamples(the_reader, archive.getUrl(), archive.getKey(),
+                                item.getResolvedName(), type, start, end, bins, () -> cancelled));
                     }
                     catch (UnknownChannelException e)
                     {
-                        // Do not immediately notify about unknown channels. First search for the data in all archive
-                        // sources and only report this kind of errors at the end
-                        sourcesWhereChannelDoesntExist.add(archives[i]);
-                        continue;
+                        // Omit
                     }
+                }
+                return results;
+            }
+
+            // Fetch all channels in one request, which the reader may handle in parallel
+            final List<String> names = new ArrayList<>();
+            for (PVItem item : archive_items)
+                if (! names.contains(item.getResolvedName()))
+                    names.add(item.getResolvedName());
+            final Map<String, ValueIterator> iters;
+            if (type == RequestType.RAW)
+                iters = the_reader.getRawValues(archive.getKey(), names, start, end);
+            else
+                iters = the_reader.getOptimizedValues(archive.getKey(), names, start, end, bins);
+            final Map<String, List<VType>> samples = new HashMap<>();
+            try
+            {
+                for (Map.Entry<String, ValueIterator> entry : iters.entrySet())
+                {
+                    if (cancelled)
+                        break;
                     // Get samples into array
+                    final ValueIterator value_iter = entry.getValue();
                     final List<VType> result = new ArrayList<VType>();
                     while (value_iter.hasNext())
                         result.add(value_iter.next());
-                    samples += result.size();
-                    item.mergeArchivedSamples(the_reader.getServerName(), result);
-                    if (cancelled)
-                        break;
-                    value_iter.close();
-                }
-                catch (Exception ex)
-                {   // Tell listener unless it's the result of a 'cancel'?
-                    if (! cancelled)
-                        listener.archiveFetchFailed(ArchiveFetchJob.this, archive, ex);
-                    // Continue with the next data source
-                }
-                finally
-                {
-                    synchronized (this)
-                    {
-                        if (reader != null)
-                            reader.close();
-                        reader = null;
-                    }
+                    samples.put(entry.getKey(), result);
                 }
             }
-            if (!sourcesWhereChannelDoesntExist.isEmpty() && !cancelled)
+            finally
             {
-                listener.channelNotFound(ArchiveFetchJob.this, sourcesWhereChannelDoesntExist.size() < archives.length,
-                    sourcesWhereChannelDoesntExist
-                        .toArray(new ArchiveDataSource[sourcesWhereChannelDoesntExist.size()]));
+                for (ValueIterator value_iter : iters.values())
+                    value_iter.close();
             }
-            timer.stop();
-            if (!cancelled)
-                listener.fetchCompleted(ArchiveFetchJob.this);
-            Activator.getLogger().log(Level.FINE,
-                    "Ended {0} with {1} samples in {2}",
-                    new Object[] { ArchiveFetchJob.this, samples, timer });
+            for (PVItem item : archive_items)
+            {
+                final List<VType> result = samples.get(item.getResolvedName());
+                if (result != null)
+                    results.put(item, result);
+            }
+            return results;
         }
 
         @Override
@@ -204,13 +298,25 @@ public class ArchiveFetchJob extends Job
     public ArchiveFetchJob(PVItem item, final Instant start,
             final Instant end, final ArchiveFetchJobListener listener)
     {
-        this(item, start, end, listener, false);
+        this(Collections.singletonList(item), start, end, listener, false);
+    }
+
+    /** Initialize
+     *  @param items Items for which the data are fetched
+     *  @param start
+     *  @param end
+     *  @param listener
+     */
+    public ArchiveFetchJob(final List<PVItem> items, final Instant start,
+            final Instant end, final ArchiveFetchJobListener listener)
+    {
+        this(items, start, end, listener, false);
     }
 
     /**
      * Construct a new job.
      *
-     * @param item the item for which the data are fetched
+     * @param items the items for which the data are fetched
      * @param start the lower time boundary for the historic data
      * @param end the upper time boundary for the history data
      * @param listener the listener notified when the job is complete or an error happens
@@ -218,30 +324,33 @@ public class ArchiveFetchJob extends Job
      *
      * @see ArchiveReader#enableConcurrency(boolean)
      */
-    protected ArchiveFetchJob(PVItem item, final Instant start,
+    protected ArchiveFetchJob(final List<PVItem> items, final Instant start,
         final Instant end, final ArchiveFetchJobListener listener, boolean enableConcurrency)
     {
         super(NLS.bind(Messages.ArchiveFetchJobFmt,
-                new Object[] { item.getName(), TimeHelper.format(start),
-                        TimeHelper.format(end) }));
-        this.item = item;
+                new Object[] { items.size() == 1
+                               ? items.get(0).getName()
+                               : NLS.bind(Messages.ArchiveFetchItemsFmt, items.get(0).getName(), items.size() - 1),
+                               TimeHelper.format(start),
+                               TimeHelper.format(end) }));
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
         this.start = start;
         this.end = end;
         this.listener = listener;
         this.concurrency = enableConcurrency;
     }
 
-    /** @return PVItem for which this job was created */
-    public PVItem getPVItem()
+    /** @return PVItems for which this job was created */
+    public List<PVItem> getPVItems()
     {
-        return item;
+        return items;
     }
 
     /** Job's main routine which starts and monitors WorkerThread */
     @Override
     protected IStatus run(final IProgressMonitor monitor)
     {
-        if (item == null)
+        if (items.isEmpty())
             return Status.OK_STATUS;
 
         monitor.beginTask(Messages.ArchiveFetchStart, IProgressMonitor.UNKNOWN);
@@ -9,6 +9,7 @@ package org.csstudio.trends.databrowser2.archive;
 
 import org.csstudio.archive.reader.UnknownChannelException;
 import org.csstudio.trends.databrowser2.model.ArchiveDataSource;
+import org.csstudio.trends.databrowser2.model.PVItem;
 
 /** Listener to an ArchiveFetchJob
  *  @author Kay Kasemir
@@ -22,28 +23,30 @@ public interface ArchiveFetchJobListener
 
     /** Invoked when the job failed to complete
      *  @param job Job that had error
+     *  @param item Item for which the data could not be fetched
      *  @param archive Archive that job was currently accessing
      *  @param error Error description
      */
-    void archiveFetchFailed(ArchiveFetchJob job, ArchiveDataSource archive, Exception error);
+    void archiveFetchFailed(ArchiveFetchJob job, PVItem item, ArchiveDataSource archive, Exception error);
 
     /**
      *  Invoked when the channel was not found in at least one of the archive sources, regardless of whether in the end
      *  the data were loaded or not. Default implementation forwards the call to
-     *  {@link #archiveFetchFailed(ArchiveFetchJob, ArchiveDataSource, Exception)} for each of the archive sources. The
+     *  {@link #archiveFetchFailed(ArchiveFetchJob, PVItem, ArchiveDataSource, Exception)} for each of the archive sources. The
      *  default implementation is for backward compatibility and should be overridden, unless you want to be notified
      *  multiple times for every channel (once for each archive source, where the channel was not found).
      *
      *  @param job Job that had error
+     *  @param item Item whose channel was not found
      *  @param channelFoundAtLeastOnce if the channel was found in at least one data source, this parameter is
      *            <code>true</code>, if it was not found in any source it is <code>false</code>
      *  @param archivesThatFailed archive sources in which the channel was not found
      */
-    default void channelNotFound(ArchiveFetchJob job, boolean channelFoundAtLeastOnce,
+    default void channelNotFound(ArchiveFetchJob job, PVItem item, boolean channelFoundAtLeastOnce,
         ArchiveDataSource[] archivesThatFailed) {
-        UnknownChannelException e = new UnknownChannelException(job.getPVItem().getResolvedName());
+        UnknownChannelException e = new UnknownChannelException(item.getResolvedName());
         for (ArchiveDataSource s : archivesThatFailed) {
-            archiveFetchFailed(job, s, e);
+            archiveFetchFailed(job, item, s, e);
         }
     }
 }
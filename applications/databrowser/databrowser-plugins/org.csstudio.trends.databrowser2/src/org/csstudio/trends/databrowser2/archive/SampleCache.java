@@ -0,0 +1,477 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.archive;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Level;
+
+import org.csstudio.archive.reader.ArchiveReader;
+import org.csstudio.archive.reader.ValueIterator;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.csstudio.trends.databrowser2.Activator;
+import org.csstudio.trends.databrowser2.model.RequestType;
+import org.csstudio.trends.databrowser2.preferences.Preferences;
+import org.diirt.vtype.VType;
+
+/** Local, size-limited disk cache for archived samples
+ *
+ *  <p>Samples are cached in time buckets, one file per
+ *  archive URL, archive key, channel, request type and bucket.
+ *  Raw data uses one-hour buckets.
+ *  Optimized data is cached for bin sizes that are powers of 2 seconds,
+ *  with {@link #BUCKET_BINS} bins per bucket.
+ *
+ *  <p>Only buckets that ended at least {@link #MIN_AGE} ago are cached,
+ *  assuming that the archive will rarely receive more data for them.
+ *  Since late data is still possible, for example from an
+ *  archive engine's buffer, cached buckets expire after a maximum age
+ *  and are then read again.
+ *  When fetching data, only the time ranges of buckets
+ *  that are not in the cache are requested from the archive reader.
+ *
+ *  <p>When the cache exceeds its size, the least recently used
+ *  buckets are deleted. After a restart, buckets are ordered
+ *  by the time they were written.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class SampleCache
+{
+    /** Size of raw data buckets */
+    final private static long RAW_BUCKET_SECS = 60*60;
+
+    /** Number of bins in optimized data buckets */
+    final public static int BUCKET_BINS = 256;
+
+    /** Minimum age of a bucket's end time to be cached */
+    final public static Duration MIN_AGE = Duration.ofHours(1);
+
+    /** Default maximum age of cached buckets */
+    final public static Duration DEFAULT_MAX_AGE = Duration.ofHours(24);
+
+    /** Suffix of cache files */
+    final private static String SUFFIX = ".dat";
+
+    /** Suffix of files that are being written */
+    final private static String TMP_SUFFIX = ".tmp";
+
+    /** Singleton, created on first use */
+    private static SampleCache instance = null;
+
+    private static boolean initialized = false;
+
+    /** Cache directory */
+    final private File directory;
+
+    /** Maximum size in bytes */
+    final private long max_size;
+
+    /** Maximum age of cached buckets, based on the time they were written */
+    final private Duration max_age;
+
+    /** Sizes of cached files in least-recently-used order.
+     *  Synchronize on access.
+     */
+    final private LinkedHashMap<File, Long> files = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size of cached files */
+    private long size = 0;
+
+    /** @return Cache configured via preferences or <code>null</code> if disabled */
+    public static synchronized SampleCache getInstance()
+    {
+        if (! initialized)
+        {
+            initialized = true;
+            final long max_size = Preferences.getSampleCacheSize() * 1024L * 1024L;
+            final Duration max_age = Duration.ofHours(Preferences.getSampleCacheMaxAge());
+            final File directory = Preferences.getSampleCacheDirectory();
+            if (max_size > 0  &&  directory != null)
+            {
+                try
+                {
+                    instance = new SampleCache(directory, max_size, max_age);
+                }
+                catch (Exception ex)
+                {
+                    Activator.getLogger().log(Level.WARNING, "Cannot use sample cache in " + directory, ex);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /** Initialize with default maximum age
+     *  @param directory Cache directory
+     *  @param max_size Maximum size in bytes
+     *  @throws Exception on error
+     */
+    public SampleCache(final File directory, final long max_size) throws Exception
+    {
+        this(directory, max_size, DEFAULT_MAX_AGE);
+    }
+
+    /** Initialize
+     *  @param directory Cache directory
+     *  @param max_size Maximum size in bytes
+     *  @param max_age Maximum age of cached buckets
+     *  @throws Exception on error
+     */
+    public SampleCache(final File directory, final long max_size, final Duration max_age) throws Exception
+    {
+        this.directory = directory;
+        this.max_size = max_size;
+        this.max_age = max_age;
+        if (! directory.isDirectory()  &&  ! directory.mkdirs())
+            throw new Exception("Cannot create " + directory);
+
+        // Locate existing files, oldest first,
+        // deleting expired files and left-over temporary files
+        final List<File> existing = new ArrayList<>();
+        final File[] dirs = directory.listFiles(File::isDirectory);
+        if (dirs != null)
+            for (File dir : dirs)
+            {
+                final File[] entries = dir.listFiles();
+                if (entries == null)
+                    continue;
+                for (File file : entries)
+                    if (file.getName().endsWith(SUFFIX)  &&  ! isExpired(file))
+                        existing.add(file);
+                    else if (file.getName().endsWith(SUFFIX)  ||  file.getName().endsWith(TMP_SUFFIX))
+                        file.delete();
+            }
+        existing.sort(Comparator.comparingLong(File::lastModified));
+        synchronized (files)
+        {
+            for (File file : existing)
+            {
+                files.put(file, file.length());
+                size += file.length();
+            }
+            evict();
+        }
+        Activator.getLogger().log(Level.CONFIG, "Sample cache in {0}, {1} files, {2} bytes",
+                                  new Object[] { directory, existing.size(), size });
+    }
+
+    /** @param file Cache file
+     *  @return <code>true</code> if file was written more than the maximum age ago
+     */
+    private boolean isExpired(final File file)
+    {
+        return file.lastModified() + max_age.toMillis() < System.currentTimeMillis();
+    }
+
+    /** @return Total size of cached files in bytes */
+    public long getSize()
+    {
+        synchronized (files)
+        {
+            return size;
+        }
+    }
+
+    /** Get samples, using cached data where possible
+     *  @param reader Reader for data that is not cached
+     *  @param url URL of the reader
+     *  @param key Archive key
+     *  @param name Channel name
+     *  @param type Request type
+     *  @param start Start time
+     *  @param end End time
+     *  @param bins Number of bins for optimized request
+     *  @param cancelled Indicates that the reader was cancelled, so received data may be incomplete
+     *  @return Samples in time order
+     *  @throws Exception on error, including UnknownChannelException from reader
+     */
+    public List<VType> getSamples(final ArchiveReader reader, final String url,
+            final int key, final String name, final RequestType type,
+            final Instant start, final Instant end, final int bins,
+            final BooleanSupplier cancelled) throws Exception
+    {
+        // Determine bucket size and cache key
+        final long bucket_secs;
+        final int bucket_bins;
+        final String cache_key;
+        if (type == RequestType.RAW)
+        {
+            bucket_secs = RAW_BUCKET_SECS;
+            bucket_bins = 0;
+            cache_key = url + "\n" + key + "\n" + name + "\nRAW";
+        }
+        else
+        {
+            final double bin_secs = Duration.between(start, end).toMillis() / 1000.0 / Math.max(1, bins);
+            final int level = Math.max(0, (int) Math.floor(Math.log(bin_secs) / Math.log(2)));
+            bucket_secs = (1L << Math.min(level, 40)) * BUCKET_BINS;
+            bucket_bins = BUCKET_BINS;
+            cache_key = url + "\n" + key + "\n" + name + "\nOPTIMIZED " + level;
+        }
+
+        // Load cached buckets
+        final Instant cache_limit = Instant.now().minus(MIN_AGE);
+        final long first = Math.floorDiv(start.getEpochSecond(), bucket_secs) * bucket_secs;
+        final List<Bucket> buckets = new ArrayList<>();
+        for (long b = first;  Instant.ofEpochSecond(b).isBefore(end)  ||  buckets.isEmpty();  b += bucket_secs)
+            buckets.add(new Bucket(b, bucket_secs));
+
+        // Nothing old enough to be cached?
+        if (buckets.get(0).getEnd().isAfter(cache_limit))
+            return read(type == RequestType.RAW
+                        ? reader.getRawValues(key, name, start, end)
+                        : reader.getOptimizedValues(key, name, start, end, bins));
+
+        for (Bucket bucket : buckets)
+            if (! bucket.getEnd().isAfter(cache_limit))
+            {
+                bucket.file = getFile(cache_key, bucket.start);
+                bucket.samples = load(bucket.file, cache_key);
+            }
+
+        // Fetch missing ranges, each covering consecutive buckets
+        int i = 0;
+        while (i < buckets.size())
+        {
+            if (buckets.get(i).samples != null)
+            {
+                ++i;
+                continue;
+            }
+            int n = i+1;
+            while (n < buckets.size()  &&  buckets.get(n).samples == null)
+                ++n;
+            fetch(reader, key, name, type, cache_key, buckets.subList(i, n), start, end, bucket_bins, cancelled);
+            i = n;
+        }
+
+        // Combine buckets, skipping the initial sample that each bucket carries
+        final List<VType> samples = new ArrayList<>();
+        for (Bucket bucket : buckets)
+            for (VType sample : bucket.samples)
+                if (samples.isEmpty()  ||
+                    ! VTypeHelper.getTimestamp(sample).isBefore(bucket.getStart()))
+                    samples.add(sample);
+
+        // Trim to time range, keeping the last sample before the start
+        int begin = 0;
+        while (begin < samples.size()-1  &&
+               ! VTypeHelper.getTimestamp(samples.get(begin+1)).isAfter(start))
+            ++begin;
+        int stop = samples.size();
+        while (stop > begin  &&  VTypeHelper.getTimestamp(samples.get(stop-1)).isAfter(end))
+            --stop;
+        return new ArrayList<>(samples.subList(begin, stop));
+    }
+
+    /** Time bucket */
+    private static class Bucket
+    {
+        final long start, secs;
+        File file = null;
+        /** Samples with time stamps within the bucket,
+         *  preceded by the last sample before the bucket if known.
+         */
+        List<VType> samples = null;
+
+        Bucket(final long start, final long secs)
+        {
+            this.start = start;
+            this.secs = secs;
+        }
+
+        Instant getStart()
+        {
+            return Instant.ofEpochSecond(start);
+        }
+
+        Instant getEnd()
+        {
+            return Instant.ofEpochSecond(start + secs);
+        }
+    }
+
+    /** Fetch samples for consecutive buckets from reader
+     *  and add to cache
+     */
+    private void fetch(final ArchiveReader reader, final int key, final String name, final RequestType type,
+                       final String cache_key, final List<Bucket> buckets,
+                       final Instant start, final Instant end, final int bucket_bins,
+                       final BooleanSupplier cancelled) throws Exception
+    {
+        // Fetch complete buckets if they are cached, else only what's requested
+        final Bucket first = buckets.get(0), last = buckets.get(buckets.size()-1);
+        final Instant fetch_start = first.file != null ? first.getStart() : start;
+        final Instant fetch_end = last.file != null ? last.getEnd() : end;
+        final List<VType> fetched = read(type == RequestType.RAW
+            ? reader.getRawValues(key, name, fetch_start, fetch_end)
+            : reader.getOptimizedValues(key, name, fetch_start, fetch_end, buckets.size() * bucket_bins));
+
+        // Split into buckets
+        VType initial = null;
+        int i = 0;
+        for (Bucket bucket : buckets)
+        {
+            final List<VType> samples = new ArrayList<>();
+            while (i < fetched.size()  &&
+                   VTypeHelper.getTimestamp(fetched.get(i)).isBefore(bucket.getStart()))
+                initial = fetched.get(i++);
+            if (initial != null)
+                samples.add(initial);
+            while (i < fetched.size()  &&
+                   VTypeHelper.getTimestamp(fetched.get(i)).isBefore(bucket.getEnd()))
+                samples.add(fetched.get(i++));
+            if (samples.size() > 0)
+                initial = samples.get(samples.size()-1);
+            bucket.samples = samples;
+            if (bucket.file != null  &&  ! cancelled.getAsBoolean())
+                store(bucket.file, cache_key, samples);
+        }
+    }
+
+    /** @param iter Iterator, will be closed
+     *  @return Samples
+     *  @throws Exception on error
+     */
+    static List<VType> read(final ValueIterator iter) throws Exception
+    {
+        final List<VType> samples = new ArrayList<>();
+        try
+        {
+            while (iter.hasNext())
+                samples.add(iter.next());
+        }
+        finally
+        {
+            iter.close();
+        }
+        return samples;
+    }
+
+    /** @param cache_key Cache key
+     *  @param bucket Bucket start
+     *  @return File for that bucket
+     */
+    private File getFile(final String cache_key, final long bucket) throws Exception
+    {
+        final byte[] digest = MessageDigest.getInstance("SHA-1").digest(cache_key.getBytes(StandardCharsets.UTF_8));
+        final StringBuilder dir = new StringBuilder();
+        for (int i=0; i<10; ++i)
+            dir.append(String.format("%02x", digest[i]));
+        return new File(new File(directory, dir.toString()), bucket + SUFFIX);
+    }
+
+    /** @param file Cache file
+     *  @param cache_key Cache key
+     *  @return Samples or <code>null</code> if not cached
+     */
+    private List<VType> load(final File file, final String cache_key)
+    {
+        synchronized (files)
+        {
+            if (files.get(file) == null)
+                return null;
+        }
+        try
+        {
+            if (! isExpired(file))
+            {
+                final List<VType> samples = SampleCacheFile.read(new FileInputStream(file), cache_key);
+                if (samples != null)
+                    return samples;
+            }
+        }
+        catch (Exception ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Cannot read " + file, ex);
+        }
+        remove(file);
+        return null;
+    }
+
+    /** @param file Cache file
+     *  @param cache_key Cache key
+     *  @param samples Samples to write
+     */
+    private void store(final File file, final String cache_key, final List<VType> samples)
+    {
+        for (VType sample : samples)
+            if (! SampleCacheFile.isSupported(sample))
+                return;
+        File tmp = null;
+        try
+        {
+            file.getParentFile().mkdirs();
+            // Unique temporary file in case several threads store the same bucket
+            tmp = File.createTempFile(file.getName(), TMP_SUFFIX, file.getParentFile());
+            SampleCacheFile.write(new FileOutputStream(tmp), cache_key, samples);
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            tmp = null;
+            synchronized (files)
+            {
+                final Long old = files.put(file, file.length());
+                if (old != null)
+                    size -= old;
+                size += file.length();
+                evict();
+            }
+        }
+        catch (Exception ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Cannot write " + file, ex);
+        }
+        finally
+        {
+            if (tmp != null)
+                tmp.delete();
+        }
+    }
+
+    /** @param file File to remove from cache */
+    private void remove(final File file)
+    {
+        synchronized (files)
+        {
+            final Long old = files.remove(file);
+            if (old != null)
+                size -= old;
+        }
+        file.delete();
+    }
+
+    /** Delete least recently used files until cache is within size limit.
+     *  Caller must synchronize on files.
+     */
+    private void evict()
+    {
+        final Iterator<Map.Entry<File, Long>> entries = files.entrySet().iterator();
+        while (size > max_size  &&  entries.hasNext())
+        {
+            final Map.Entry<File, Long> entry = entries.next();
+            size -= entry.getValue();
+            entries.remove();
+            entry.getKey().delete();
+        }
+    }
+}
@@ -0,0 +1,383 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.archive;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.csstudio.archive.vtype.ArchiveVEnum;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVNumberArray;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.ArchiveVString;
+import org.csstudio.archive.vtype.VTypeHelper;
+import org.diirt.util.array.ListNumber;
+import org.diirt.util.text.NumberFormats;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VEnum;
+import org.diirt.vtype.VNumber;
+import org.diirt.vtype.VNumberArray;
+import org.diirt.vtype.VStatistics;
+import org.diirt.vtype.VString;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+
+/** File format of the {@link SampleCache}
+ *
+ *  <p>Samples are stored by column:
+ *  First the sample types, then all time stamps as deltas,
+ *  then all severities, status indices into a table of status texts,
+ *  and finally the values, grouped by type.
+ *  Display information and enum labels are stored once per file.
+ *  The result is compressed.
+ *
+ *  <p>Only the sample types returned by archive readers are supported.
+ *
+ *  @author agent
+ */
+@SuppressWarnings("nls")
+public class SampleCacheFile
+{
+    /** Identifies the file format */
+    final private static int MAGIC = 0x44425343;
+
+    /** Version of the file format */
+    final private static short VERSION = 1;
+
+    /** Sample types */
+    final private static byte DOUBLE = 0, LONG = 1, STATISTICS = 2, ENUM = 3, STRING = 4, ARRAY = 5;
+
+    final private static AlarmSeverity[] SEVERITIES = AlarmSeverity.values();
+
+    /** @param sample Sample
+     *  @return <code>true</code> if the sample can be written
+     */
+    public static boolean isSupported(final VType sample)
+    {
+        return sample instanceof VStatistics  ||  sample instanceof VNumber  ||
+               sample instanceof VEnum  ||  sample instanceof VString  ||
+               sample instanceof VNumberArray;
+    }
+
+    /** Write samples
+     *  @param out Stream, will be closed
+     *  @param key Cache key, stored in the file to detect mismatches
+     *  @param samples Samples, all must be supported
+     *  @throws Exception on error
+     */
+    public static void write(final OutputStream out, final String key, final List<VType> samples) throws Exception
+    {
+        try
+        (
+            final DataOutputStream data = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(out)));
+        )
+        {
+            data.writeInt(MAGIC);
+            data.writeShort(VERSION);
+            data.writeUTF(key);
+            final int count = samples.size();
+            writeVarInt(data, count);
+
+            // Meta data
+            Display display = null;
+            List<String> labels = null;
+            for (VType sample : samples)
+            {
+                if (display == null  &&  sample instanceof Display)
+                    display = (Display) sample;
+                else if (labels == null  &&  sample instanceof VEnum)
+                    labels = ((VEnum) sample).getLabels();
+            }
+            writeDisplay(data, display);
+            if (labels == null)
+                writeVarInt(data, 0);
+            else
+            {
+                writeVarInt(data, labels.size() + 1);
+                for (String label : labels)
+                    data.writeUTF(label);
+            }
+
+            // Types
+            for (VType sample : samples)
+                data.writeByte(getType(sample));
+
+            // Time stamps: Seconds as delta to previous sample, nanoseconds
+            long last = 0;
+            for (VType sample : samples)
+            {
+                final Instant time = VTypeHelper.getTimestamp(sample);
+                writeVarLong(data, time.getEpochSecond() - last);
+                last = time.getEpochSecond();
+            }
+            for (VType sample : samples)
+                writeVarInt(data, VTypeHelper.getTimestamp(sample).getNano());
+
+            // Severities
+            for (VType sample : samples)
+                data.writeByte(VTypeHelper.getSeverity(sample).ordinal());
+
+            // Status: Table of texts, then index for each sample
+            final Map<String, Integer> status_index = new HashMap<>();
+            final List<String> stati = new ArrayList<>();
+            for (VType sample : samples)
+            {
+                final String status = VTypeHelper.getMessage(sample);
+                if (! status_index.containsKey(status))
+                {
+                    status_index.put(status, stati.size());
+                    stati.add(status);
+                }
+            }
+            writeVarInt(data, stati.size());
+            for (String status : stati)
+                data.writeUTF(status);
+            for (VType sample : samples)
+                writeVarInt(data, status_index.get(VTypeHelper.getMessage(sample)));
+
+            // Values, one column per type
+            for (VType sample : samples)
+                if (sample instanceof VStatistics)
+                    data.writeDouble(((VStatistics) sample).getAverage());
+                else if (getType(sample) == DOUBLE)
+                    data.writeDouble(((VNumber) sample).getValue().doubleValue());
+            for (VType sample : samples)
+                if (getType(sample) == LONG)
+                    writeVarLong(data, ((VNumber) sample).getValue().longValue());
+            for (VType sample : samples)
+                if (sample instanceof VStatistics)
+                {
+                    final VStatistics stats = (VStatistics) sample;
+                    data.writeDouble(stats.getMin());
+                    data.writeDouble(stats.getMax());
+                    data.writeDouble(stats.getStdDev());
+                    writeVarInt(data, stats.getNSamples());
+                }
+            for (VType sample : samples)
+                if (sample instanceof VEnum)
+                    writeVarInt(data, ((VEnum) sample).getIndex());
+            for (VType sample : samples)
+                if (sample instanceof VString)
+                    data.writeUTF(((VString) sample).getValue());
+            for (VType sample : samples)
+                if (sample instanceof VNumberArray)
+                {
+                    final ListNumber array = ((VNumberArray) sample).getData();
+                    writeVarInt(data, array.size());
+                    for (int i=0; i<array.size(); ++i)
+                        data.writeDouble(array.getDouble(i));
+                }
+        }
+    }
+
+    /** Read samples
+     *  @param in Stream, will be closed
+     *  @param key Expected cache key
+     *  @return Samples or <code>null</code> if the file is for a different key
+     *  @throws Exception on error
+     */
+    public static List<VType> read(final InputStream in, final String key) throws Exception
+    {
+        try
+        (
+            final DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        )
+        {
+            if (data.readInt() != MAGIC)
+                throw new IOException("Not a sample cache file");
+            if (data.readShort() != VERSION)
+                return null;
+            if (! key.equals(data.readUTF()))
+                return null;
+            final int count = readVarInt(data);
+
+            final Display display = readDisplay(data);
+            final int label_count = readVarInt(data) - 1;
+            List<String> labels = null;
+            if (label_count >= 0)
+            {
+                labels = new ArrayList<>(label_count);
+                for (int i=0; i<label_count; ++i)
+                    labels.add(data.readUTF());
+                labels = Collections.unmodifiableList(labels);
+            }
+
+            final byte[] types = new byte[count];
+            data.readFully(types);
+
+            final Instant[] times = new Instant[count];
+            final long[] seconds = new long[count];
+            long last = 0;
+            for (int i=0; i<count; ++i)
+                last = seconds[i] = last + readVarLong(data);
+            for (int i=0; i<count; ++i)
+                times[i] = Instant.ofEpochSecond(seconds[i], readVarInt(data));
+
+            final AlarmSeverity[] severities = new AlarmSeverity[count];
+            for (int i=0; i<count; ++i)
+                severities[i] = SEVERITIES[data.readUnsignedByte()];
+
+            final String[] stati = new String[readVarInt(data)];
+            for (int i=0; i<stati.length; ++i)
+                stati[i] = data.readUTF();
+            final String[] status = new String[count];
+            for (int i=0; i<count; ++i)
+                status[i] = stati[readVarInt(data)];
+
+            final double[] doubles = new double[count];
+            for (int i=0; i<count; ++i)
+                if (types[i] == DOUBLE  ||  types[i] == STATISTICS)
+                    doubles[i] = data.readDouble();
+            final long[] longs = new long[count];
+            for (int i=0; i<count; ++i)
+                if (types[i] == LONG)
+                    longs[i] = readVarLong(data);
+
+            final VType[] samples = new VType[count];
+            for (int i=0; i<count; ++i)
+                if (types[i] == STATISTICS)
+                    samples[i] = new ArchiveVStatistics(times[i], severities[i], status[i], display,
+                                                        doubles[i], data.readDouble(), data.readDouble(),
+                                                        data.readDouble(), readVarInt(data));
+                else if (types[i] == DOUBLE)
+                    samples[i] = new ArchiveVNumber(times[i], severities[i], status[i], display, doubles[i]);
+                else if (types[i] == LONG)
+                    samples[i] = new ArchiveVNumber(times[i], severities[i], status[i], display, longs[i]);
+            for (int i=0; i<count; ++i)
+                if (types[i] == ENUM)
+                    samples[i] = new ArchiveVEnum(times[i], severities[i], status[i], labels, readVarInt(data));
+            for (int i=0; i<count; ++i)
+                if (types[i] == STRING)
+                    samples[i] = new ArchiveVString(times[i], severities[i], status[i], data.readUTF());
+            for (int i=0; i<count; ++i)
+                if (types[i] == ARRAY)
+                {
+                    final double[] array = new double[readVarInt(data)];
+                    for (int e=0; e<array.length; ++e)
+                        array[e] = data.readDouble();
+                    samples[i] = new ArchiveVNumberArray(times[i], severities[i], status[i], display, array);
+                }
+
+            final List<VType> result = new ArrayList<>(count);
+            Collections.addAll(result, samples);
+            return result;
+        }
+    }
+
+    /** @param sample Sample
+     *  @return Type code
+     */
+    private static byte getType(final VType sample)
+    {
+        if (sample instanceof VStatistics)
+            return STATISTICS;
+        if (sample instanceof VNumber)
+        {
+            final Number number = ((VNumber) sample).getValue();
+            if (number instanceof Double  ||  number instanceof Float)
+                return DOUBLE;
+            return LONG;
+        }
+        if (sample instanceof VEnum)
+            return ENUM;
+        if (sample instanceof VString)
+            return STRING;
+        if (sample instanceof VNumberArray)
+            return ARRAY;
+        throw new IllegalArgumentException("Cannot cache " + sample.getClass().getName());
+    }
+
+    private static void writeDisplay(final DataOutputStream data, final Display display) throws IOException
+    {
+        data.writeBoolean(display != null);
+        if (display == null)
+            return;
+        data.writeDouble(display.getLowerDisplayLimit());
+        data.writeDouble(display.getLowerAlarmLimit());
+        data.writeDouble(display.getLowerWarningLimit());
+        data.writeUTF(display.getUnits() == null ? "" : display.getUnits());
+        data.writeInt(display.getFormat() == null ? 0 : display.getFormat().getMaximumFractionDigits());
+        data.writeDouble(display.getUpperWarningLimit());
+        data.writeDouble(display.getUpperAlarmLimit());
+        data.writeDouble(display.getUpperDisplayLimit());
+        data.writeDouble(display.getLowerCtrlLimit());
+        data.writeDouble(display.getUpperCtrlLimit());
+    }
+
+    private static Display readDisplay(final DataInputStream data) throws IOException
+    {
+        if (! data.readBoolean())
+            return null;
+        final double lower_disp = data.readDouble();
+        final double lower_alarm = data.readDouble();
+        final double lower_warn = data.readDouble();
+        final String units = data.readUTF();
+        final int precision = data.readInt();
+        final double upper_warn = data.readDouble();
+        final double upper_alarm = data.readDouble();
+        final double upper_disp = data.readDouble();
+        final double lower_ctrl = data.readDouble();
+        final double upper_ctrl = data.readDouble();
+        return ValueFactory.newDisplay(lower_disp, lower_alarm, lower_warn, units,
+                                       NumberFormats.format(precision),
+                                       upper_warn, upper_alarm, upper_disp, lower_ctrl, upper_ctrl);
+    }
+
+    /** Write zig-zag encoded variable-length number */
+    private static void writeVarLong(final DataOutputStream data, final long value) throws IOException
+    {
+        long bits = (value << 1) ^ (value >> 63);
+        while ((bits & ~0x7FL) != 0)
+        {
+            data.writeByte((int) ((bits & 0x7F) | 0x80));
+            bits >>>= 7;
+        }
+        data.writeByte((int) bits);
+    }
+
+    private static long readVarLong(final DataInputStream data) throws IOException
+    {
+        long bits = 0;
+        int shift = 0;
+        int b;
+        do
+        {
+            if (shift > 63)
+                throw new IOException("Malformed number");
+            b = data.readUnsignedByte();
+            bits |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        while ((b & 0x80) != 0);
+        return (bits >>> 1) ^ -(bits & 1);
+    }
+
+    private static void writeVarInt(final DataOutputStream data, final int value) throws IOException
+    {
+        writeVarLong(data, value);
+    }
+
+    private static int readVarInt(final DataInputStream data) throws IOException
+    {
+        return (int) readVarLong(data);
+    }
+}
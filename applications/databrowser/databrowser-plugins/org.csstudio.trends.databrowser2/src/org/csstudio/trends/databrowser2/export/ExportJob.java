@@ -7,20 +7,31 @@
  ******************************************************************************/
 package org.csstudio.trends.databrowser2.export;
 
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
 
 import org.csstudio.apputil.time.SecondsParser;
 import org.csstudio.archive.reader.ArchiveReader;
 import org.csstudio.archive.reader.ArchiveRepository;
 import org.csstudio.archive.reader.LinearValueIterator;
 import org.csstudio.archive.reader.MergingValueIterator;
+import org.csstudio.archive.reader.UnknownChannelException;
 import org.csstudio.archive.reader.ValueIterator;
 import org.csstudio.trends.databrowser2.Activator;
 import org.csstudio.trends.databrowser2.model.ArchiveDataSource;
@@ -41,6 +52,8 @@ import org.eclipse.core.runtime.jobs.Job;
 abstract public class ExportJob extends Job
 {
     final protected static int PROGRESS_UPDATE_LINES = 1000;
+    /** Size of file output buffer */
+    final private static int BUFFER_SIZE = 64*1024;
     final protected String comment;
     final protected Model model;
     final protected Instant start, end;
@@ -126,7 +139,7 @@ abstract public class ExportJob extends Job
             final PrintStream out;
             if (filename != null)
             {
-                out = new PrintStream(filename);
+                out = new PrintStream(createOutput(filename));
                 printExportInfo(out);
             }
             else
@@ -153,6 +166,18 @@ abstract public class ExportJob extends Job
         return Status.OK_STATUS;
     }
 
+    /** @param filename Name of file to create, gzip-compressed if it ends in ".gz"
+     *  @return Buffered stream for the file
+     *  @throws IOException on error
+     */
+    protected static OutputStream createOutput(final String filename) throws IOException
+    {
+        OutputStream out = new FileOutputStream(filename);
+        if (filename.endsWith(".gz"))
+            out = new GZIPOutputStream(out, BUFFER_SIZE);
+        return new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+
     /** Print file header, gets invoked before <code>performExport</code> */
     protected void printExportInfo(final PrintStream out)
     {
@@ -246,4 +271,129 @@ abstract public class ExportJob extends Job
         // Return a merging iterator
         return new MergingValueIterator(iters.toArray(new ValueIterator[iters.size()]));
     }
+
+    /** Create value iterators for several items.
+     *  <p>
+     *  Items that use the same archive data source
+     *  are fetched with one multi-channel request.
+     *  The iterators of one request may share a connection,
+     *  so they should be read interleaved by time,
+     *  for example by a {@link org.csstudio.archive.reader.SpreadsheetIterator}.
+     *
+     *  @param items ModelItems
+     *  @return ValueIterators for samples in the items, in order of the items
+     *  @throws Exception on error
+     */
+    protected List<ValueIterator> createValueIterators(final Iterable<ModelItem> items) throws Exception
+    {
+        // Group PV items by archive data source
+        final Map<ArchiveDataSource, List<PVItem>> requests = new LinkedHashMap<>();
+        if (source != Source.PLOT)
+            for (ModelItem item : items)
+                if (item instanceof PVItem)
+                    for (ArchiveDataSource archive : ((PVItem)item).getArchiveDataSources())
+                        requests.computeIfAbsent(archive, a -> new ArrayList<>()).add((PVItem)item);
+
+        // Start ValueIterators for each sub-archive
+        final Map<ModelItem, List<ValueIterator>> item_iters = new HashMap<>();
+        final Map<ModelItem, Exception> errors = new HashMap<>();
+        try
+        {
+            for (Map.Entry<ArchiveDataSource, List<PVItem>> request : requests.entrySet())
+            {
+                final ArchiveDataSource archive = request.getKey();
+                final List<PVItem> archive_items = request.getValue();
+                // Create reader, remember to close it when done
+                final ArchiveReader reader = ArchiveRepository.getInstance().getArchiveReader(archive.getUrl());
+                archive_readers.add(reader);
+                final List<String> names = new ArrayList<>();
+                for (PVItem item : archive_items)
+                    if (! names.contains(item.getResolvedName()))
+                        names.add(item.getResolvedName());
+                // Create ValueIterators
+                final Map<String, ValueIterator> iters;
+                try
+                {
+                    if (source == Source.OPTIMIZED_ARCHIVE  &&  optimize_parameter > 1)
+                        iters = reader.getOptimizedValues(archive.getKey(), names, start, end, (int)optimize_parameter);
+                    else
+                        iters = reader.getRawValues(archive.getKey(), names, start, end);
+                }
+                catch (Exception ex)
+                {
+                    Logger.getLogger(getClass().getName()).log(Level.FINE, "Export error for " + names, ex);
+                    for (PVItem item : archive_items)
+                        errors.putIfAbsent(item, ex);
+                    continue;
+                }
+                final Set<String> found = new HashSet<>(iters.keySet());
+                for (PVItem item : archive_items)
+                {
+                    ValueIterator iter = iters.remove(item.getResolvedName());
+                    if (iter == null  &&  ! found.contains(item.getResolvedName()))
+                    {
+                        errors.putIfAbsent(item, new UnknownChannelException(item.getResolvedName()));
+                        continue;
+                    }
+                    try
+                    {   // Iterator can only be used by one item.
+                        // Further items for the same channel get their own request.
+                        if (iter == null)
+                        {
+                            if (source == Source.OPTIMIZED_ARCHIVE  &&  optimize_parameter > 1)
+                                iter = reader.getOptimizedValues(archive.getKey(),
+                                        item.getResolvedName(), start, end, (int)optimize_parameter);
+                            else
+                                iter = reader.getRawValues(archive.getKey(), item.getResolvedName(), start, end);
+                        }
+                        if (source == Source.LINEAR_INTERPOLATION && optimize_parameter >= 1)
+                            iter = new LinearValueIterator(iter, TimeDuration.ofSeconds(optimize_parameter));
+                        item_iters.computeIfAbsent(item, i -> new ArrayList<>()).add(iter);
+                    }
+                    catch (Exception ex)
+                    {
+                        Logger.getLogger(getClass().getName()).log(Level.FINE, "Export error for " + item.getResolvedName(), ex);
+                        errors.putIfAbsent(item, ex);
+                    }
+                }
+            }
+
+            final List<ValueIterator> result = new ArrayList<>();
+            for (ModelItem item : items)
+            {
+                if (source == Source.PLOT || !(item instanceof PVItem))
+                {
+                    result.add(new ModelSampleIterator(item, start, end));
+                    continue;
+                }
+                final List<ValueIterator> iters = item_iters.getOrDefault(item, new ArrayList<>());
+                // If none of the iterators work out, report the first error that we found
+                final Exception error = errors.get(item);
+                if (iters.isEmpty()  &&  error != null)
+                    throw error;
+                // Return a merging iterator
+                result.add(new MergingValueIterator(iters.toArray(new ValueIterator[iters.size()])));
+            }
+            return result;
+        }
+        catch (Exception ex)
+        {
+            for (List<ValueIterator> iters : item_iters.values())
+                for (ValueIterator iter : iters)
+                    iter.close();
+            throw ex;
+        }
+    }
+
+    /** @return <code>true</code> if all archive readers used so far
+     *          may be called concurrently
+     *  @see ArchiveReader#isThreadSafe()
+     */
+    protected boolean readersAreThreadSafe()
+    {
+        for (ArchiveReader reader : archive_readers)
+            if (! reader.isThreadSafe())
+                return false;
+        return true;
+    }
 }
@@ -9,12 +9,16 @@ package org.csstudio.trends.databrowser2.export;
 
 import java.io.PrintStream;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+import org.csstudio.archive.reader.ParallelValueFetch;
+import org.csstudio.archive.reader.PrefetchingValueIterator;
 import org.csstudio.archive.reader.SpreadsheetIterator;
 import org.csstudio.archive.reader.ValueIterator;
 import org.csstudio.archive.vtype.TimestampHelper;
+import org.csstudio.swt.rtplot.util.NamedThreadFactory;
 import org.csstudio.trends.databrowser2.Messages;
 import org.csstudio.trends.databrowser2.model.Model;
 import org.csstudio.trends.databrowser2.model.ModelItem;
@@ -23,6 +27,10 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.osgi.util.NLS;
 
 /** Ecipse Job for exporting data from Model to file
+ *  <p>
+ *  Archived data for the items is fetched with one request per archive data source.
+ *  If the archive readers allow concurrent access, samples are read ahead
+ *  in the background while lines of the spreadsheet are written.
  *  @author Kay Kasemir
  */
 @SuppressWarnings("nls")
@@ -52,31 +60,49 @@ public class SpreadsheetExportJob extends PlainExportJob
             out.print(Messages.Export_Delimiter + item.getResolvedName() + " " + formatter.getHeader());
         out.println();
 
-        // Create speadsheet interpolation
-        final List<ValueIterator> iters = new ArrayList<>();
-        for (ModelItem item : model.getItems())
+        monitor.subTask("Fetching data");
+        final List<ValueIterator> iters = createValueIterators(model.getItems());
+        ExecutorService pool = null;
+        try
         {
-            monitor.subTask(NLS.bind("Fetching data for {0}", item.getResolvedName()));
-            iters.add(createValueIterator(item));
+            // Read ahead in the background unless that would
+            // access a reader concurrently with the spreadsheet
+            if (readersAreThreadSafe())
+            {
+                pool = Executors.newFixedThreadPool(ParallelValueFetch.THREADS,
+                                                    new NamedThreadFactory("DataBrowserExport"));
+                for (int i=0; i<iters.size(); ++i)
+                    iters.set(i, new PrefetchingValueIterator(iters.get(i), pool));
+            }
+            // Create speadsheet interpolation
+            final SpreadsheetIterator sheet = new SpreadsheetIterator(iters.toArray(new ValueIterator[iters.size()]));
+            // Dump the spreadsheet lines
+            final long start_ms = System.currentTimeMillis();
+            final StringBuilder buf = new StringBuilder();
+            long line_count = 0;
+            while (sheet.hasNext()  &&  !monitor.isCanceled())
+            {
+                final Instant time = sheet.getTime();
+                final VType line[] = sheet.next();
+                buf.setLength(0);
+                buf.append(TimestampHelper.format(time));
+                for (VType value : line)
+                    buf.append(Messages.Export_Delimiter).append(formatter.format(value));
+                out.println(buf);
+                ++line_count;
+                if ((line_count % PROGRESS_UPDATE_LINES) == 0)
+                {
+                    final long ms = Math.max(1, System.currentTimeMillis() - start_ms);
+                    monitor.subTask(NLS.bind("Wrote {0} lines, {1} lines/sec", line_count, line_count * 1000 / ms));
+                }
+            }
         }
-        final SpreadsheetIterator sheet = new SpreadsheetIterator(iters.toArray(new ValueIterator[iters.size()]));
-        // Dump the spreadsheet lines
-        long line_count = 0;
-
-        while (sheet.hasNext()  &&  !monitor.isCanceled())
+        finally
         {
-            final Instant time = sheet.getTime();
-            final VType line[] = sheet.next();
-            out.print(TimestampHelper.format(time));
-
-            for (int i=0; i<line.length; ++i)
-                out.print(Messages.Export_Delimiter + formatter.format(line[i]));
-            out.println();
-            ++line_count;
-            if ((line_count % PROGRESS_UPDATE_LINES) == 0)
-                monitor.subTask(NLS.bind("Wrote {0} samples", line_count));
-            if (monitor.isCanceled())
-                break;
+            for (ValueIterator iter : iters)
+                iter.close();
+            if (pool != null)
+                pool.shutdown();
         }
     }
 }
@@ -0,0 +1,332 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.csstudio.apputil.formula.CompiledFormula;
+import org.csstudio.apputil.formula.Formula;
+import org.csstudio.apputil.formula.VariableNode;
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.ArchiveVType;
+import org.csstudio.trends.databrowser2.Messages;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+import org.diirt.vtype.ValueFactory;
+
+/** Computation of formula samples from input columns
+ *  <p>
+ *  Iterates over the input samples in a manner of spreadsheet or
+ *  staircase-interpolation: An input with a time stamp is valid
+ *  until there's a sample with a greater time stamp.
+ *  <p>
+ *  Each input is read once into primitive time and value columns.
+ *  When re-computing, the new columns are compared with those
+ *  of the previous computation to find the earliest time
+ *  where an input changed.
+ *  The computation then resumes from a checkpoint before that time,
+ *  so when new live samples arrive, only the tail is re-computed.
+ *  <p>
+ *  A {@link CompiledFormula} may be used instead of
+ *  interpreting the formula for each row.
+ *  <p>
+ *  Not thread-safe, caller needs to synchronize.
+ *
+ *  @author agent
+ */
+public class FormulaComputation
+{
+    /** Number of result rows between checkpoints */
+    final private static int CHECKPOINT_ROWS = 1000;
+
+    final private static Display display = ValueFactory.displayNone();
+
+    /** Samples of one input as primitive columns */
+    static class Column
+    {
+        final int size;
+        final long[] time;
+        final double[] min, val, max;
+        final boolean[] stats;
+
+        /** @param size Number of samples */
+        Column(final int size)
+        {
+            this.size = size;
+            time = new long[size];
+            min = new double[size];
+            val = new double[size];
+            max = new double[size];
+            stats = new boolean[size];
+        }
+
+        /** @param samples Samples to read
+         *  @return Column with samples
+         */
+        static Column read(final PlotSamples samples)
+        {
+            samples.getLock().lock();
+            try
+            {
+                final Column column = new Column(samples.size());
+                for (int i=0; i<column.size; ++i)
+                {
+                    column.time[i] = samples.getTime(i);
+                    column.min[i] = samples.getMin(i);
+                    column.max[i] = samples.getMax(i);
+                    column.stats[i] = !Double.isNaN(column.min[i])  &&  !Double.isNaN(column.max[i]);
+                    column.val[i] = samples.getValue(i);
+                    // Use NaN for any non-number
+                    if (Double.isInfinite(column.val[i]))
+                        column.val[i] = Double.NaN;
+                }
+                return column;
+            }
+            finally
+            {
+                samples.getLock().unlock();
+            }
+        }
+
+        /** @param other Column with other samples
+         *  @return Earliest time at which result rows may differ,
+         *          <code>Long.MAX_VALUE</code> if columns are identical
+         */
+        long findChange(final Column other)
+        {
+            final int n = Math.min(size, other.size);
+            int i = 0;
+            while (i < n  &&  time[i] == other.time[i]  &&
+                   Double.compare(val[i], other.val[i]) == 0  &&
+                   Double.compare(min[i], other.min[i]) == 0  &&
+                   Double.compare(max[i], other.max[i]) == 0  &&
+                   stats[i] == other.stats[i])
+                ++i;
+            if (i < n)
+                return Math.min(time[i], other.time[i]);
+            if (size == other.size)
+                return Long.MAX_VALUE;
+            if (i == 0)
+                return Long.MIN_VALUE;
+            // Samples were added or removed at the end.
+            // Rows from the last common sample on may change,
+            // because an input is NaN after its last sample.
+            return time[i-1];
+        }
+    }
+
+    /** State of the computation before a result row */
+    private static class Checkpoint
+    {
+        /** Index of the next result row */
+        final int row;
+
+        /** Time of the previous result row */
+        final long last_time;
+
+        /** Per input: Index of next sample, current min/val/max */
+        final int[] next;
+        final double[] min, val, max;
+
+        Checkpoint(final int row, final long last_time, final int[] next,
+                   final double[] min, final double[] val, final double[] max)
+        {
+            this.row = row;
+            this.last_time = last_time;
+            this.next = next.clone();
+            this.min = min.clone();
+            this.val = val.clone();
+            this.max = max.clone();
+        }
+    }
+
+    /** Compiled formula, <code>null</code> to interpret the formula */
+    final private CompiledFormula compiled;
+
+    /** Create computation that interprets the formula */
+    public FormulaComputation()
+    {
+        this(null);
+    }
+
+    /** @param compiled Compiled formula, <code>null</code> to interpret the formula */
+    public FormulaComputation(final CompiledFormula compiled)
+    {
+        this.compiled = compiled;
+    }
+
+    /** Input columns of the last computation */
+    private Column[] columns = null;
+
+    /** Result of the last computation */
+    final private List<PlotSample> result = new ArrayList<>();
+
+    /** Checkpoints of the last computation, first one for row 0 */
+    final private List<Checkpoint> checkpoints = new ArrayList<>();
+
+    /** Compute formula
+     *  @param inputs Inputs
+     *  @param formula Formula
+     *  @param variables Variables of formula, elements correspond to inputs
+     *  @return Samples of the formula
+     */
+    public List<PlotSample> compute(final FormulaInput[] inputs, final Formula formula, final VariableNode[] variables)
+    {
+        final Column[] new_columns = new Column[inputs.length];
+        for (int i=0; i<inputs.length; ++i)
+            new_columns[i] = Column.read(inputs[i].getItem().getSamples());
+        return compute(new_columns, formula, variables);
+    }
+
+    /** Compute formula
+     *  @param new_columns Input columns
+     *  @param formula Formula
+     *  @param variables Variables of formula, elements correspond to inputs
+     *  @return Samples of the formula
+     */
+    List<PlotSample> compute(final Column[] new_columns, final Formula formula, final VariableNode[] variables)
+    {
+        final int N = new_columns.length;
+
+        // Find checkpoint from which to resume
+        Checkpoint start = null;
+        if (columns != null  &&  columns.length == N)
+        {
+            long change = Long.MAX_VALUE;
+            for (int i=0; i<N; ++i)
+                change = Math.min(change, columns[i].findChange(new_columns[i]));
+            if (change == Long.MAX_VALUE)
+                return new ArrayList<>(result);
+            for (int c=checkpoints.size()-1; c>=0; --c)
+                if (checkpoints.get(c).last_time < change)
+                {
+                    start = checkpoints.get(c);
+                    checkpoints.subList(c+1, checkpoints.size()).clear();
+                    result.subList(start.row, result.size()).clear();
+                    break;
+                }
+        }
+        columns = new_columns;
+
+        final int[] next;
+        final double[] min, val, max;
+        if (start == null)
+        {   // Initially, none have any data
+            result.clear();
+            checkpoints.clear();
+            next = new int[N];
+            min = new double[N];
+            val = new double[N];
+            max = new double[N];
+            Arrays.fill(min, Double.NaN);
+            Arrays.fill(val, Double.NaN);
+            Arrays.fill(max, Double.NaN);
+            checkpoints.add(new Checkpoint(0, Long.MIN_VALUE, next, min, val, max));
+        }
+        else
+        {
+            next = start.next.clone();
+            min = start.min.clone();
+            val = start.val.clone();
+            max = start.max.clone();
+        }
+
+        // Compute result for each 'line in the spreadsheet'
+        while (true)
+        {   // Find oldest time stamp of all the inputs
+            long time = Long.MAX_VALUE;
+            boolean more_input = false;
+            for (int i=0; i<N; ++i)
+                if (next[i] < columns[i].size  &&
+                    (! more_input  ||  columns[i].time[next[i]] < time))
+                {
+                    time = columns[i].time[next[i]];
+                    more_input = true;
+                }
+            if (! more_input)
+                break;
+
+            // 'time' now defines the current spreadsheet line.
+            // Set min/max/val to sample from each input for that time,
+            // moving to the next sample of those inputs.
+            boolean have_min_max = true;
+            for (int i=0; i<N; ++i)
+            {
+                final Column column = columns[i];
+                if (next[i] >= column.size) // No more data
+                {
+                    min[i] = val[i] = max[i] = Double.NaN;
+                    have_min_max = false;
+                }
+                else if (column.time[next[i]] <= time)
+                {   // Input is valid before-and-up-to 'time'
+                    final int s = next[i]++;
+                    min[i] = column.min[s];
+                    val[i] = column.val[s];
+                    max[i] = column.max[s];
+                    if (! column.stats[s])
+                        have_min_max = false;
+                }
+                else if (Double.isNaN(min[i])  ||  Double.isNaN(max[i]))
+                    have_min_max = false;
+            }
+
+            result.add(evaluate(time, formula, variables, min, val, max, have_min_max));
+            if (result.size() % CHECKPOINT_ROWS == 0)
+                checkpoints.add(new Checkpoint(result.size(), time, next, min, val, max));
+        }
+        return new ArrayList<>(result);
+    }
+
+    /** @param formula Formula
+     *  @param variables Variables of formula
+     *  @param values Values for the variables
+     *  @return Result of the formula
+     */
+    private double eval(final Formula formula, final VariableNode[] variables, final double[] values)
+    {
+        if (compiled != null)
+            return compiled.eval(values);
+        for (int i=0; i<variables.length; ++i)
+            variables[i].setValue(values[i]);
+        return formula.eval();
+    }
+
+    /** @return Sample of formula for one 'line in the spreadsheet' */
+    private PlotSample evaluate(final long nanos, final Formula formula, final VariableNode[] variables,
+                                final double[] min, final double[] val, final double[] max,
+                                final boolean have_min_max)
+    {
+        final Instant time = Instant.ofEpochSecond(0, nanos);
+        // Evaluate formula for these inputs
+        final double res_val = eval(formula, variables, val);
+        final VType value;
+        if (have_min_max)
+        {
+            final double res_min = eval(formula, variables, min);
+            final double res_max = eval(formula, variables, max);
+            value = new ArchiveVStatistics(time, AlarmSeverity.NONE, Messages.Formula,
+                    display, res_val, res_min, res_max, 0.0, 1);
+        }
+        else
+        {   // No min/max.
+            if (Double.isNaN(res_val))
+                value = new ArchiveVNumber(time, AlarmSeverity.INVALID, Messages.Formula,
+                            display, res_val);
+            else
+                value = new ArchiveVNumber(time, AlarmSeverity.NONE, ArchiveVType.STATUS_OK,
+                            display, res_val);
+        }
+        return new PlotSample(Messages.Formula, value);
+    }
+}
@@ -8,25 +8,18 @@
 package org.csstudio.trends.databrowser2.model;
 
 import java.io.PrintWriter;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.logging.Level;
 
+import org.csstudio.apputil.formula.CompiledFormula;
 import org.csstudio.apputil.formula.Formula;
 import org.csstudio.apputil.formula.VariableNode;
 import org.csstudio.apputil.xml.DOMHelper;
 import org.csstudio.apputil.xml.XMLWriter;
-import org.csstudio.archive.vtype.ArchiveVNumber;
-import org.csstudio.archive.vtype.ArchiveVStatistics;
-import org.csstudio.archive.vtype.ArchiveVType;
-import org.csstudio.archive.vtype.VTypeHelper;
-import org.csstudio.trends.databrowser2.Messages;
+import org.csstudio.trends.databrowser2.Activator;
 import org.csstudio.trends.databrowser2.persistence.XMLPersistence;
-import org.diirt.vtype.AlarmSeverity;
-import org.diirt.vtype.Display;
-import org.diirt.vtype.VStatistics;
-import org.diirt.vtype.VType;
-import org.diirt.vtype.ValueFactory;
+import org.csstudio.trends.databrowser2.preferences.Preferences;
 import org.w3c.dom.Element;
 
 /** A {@link Model} item that implements a formula.
@@ -67,6 +60,11 @@ public class FormulaItem extends ModelItem
      *  Access must synchronize on samples (done inside PlotSampleArray) */
     private PlotSampleArray samples = new PlotSampleArray();
 
+    /** Computation of samples, re-used to only compute what changed
+     *  @see #formula for synchronization
+     */
+    private FormulaComputation computation = new FormulaComputation();
+
     /** Initialize formula
      *  @param name Name of the Formula item
      *  @param expression Expression to evaluate
@@ -122,136 +120,39 @@ public class FormulaItem extends ModelItem
             for (int i=0; i<variables.length; ++i)
                 variables[i] = new VariableNode(inputs[i].getVariableName());
             this.formula = new Formula(expression, variables);
+            computation = new FormulaComputation(compile(formula));
         }
         fireItemLookChanged();
     }
 
+    /** @param formula Formula
+     *  @return Compiled formula or <code>null</code> to interpret the formula
+     */
+    private CompiledFormula compile(final Formula formula)
+    {
+        if (! Preferences.compileFormulas())
+            return null;
+        try
+        {
+            return formula.compile();
+        }
+        catch (Exception ex)
+        {
+            Activator.getLogger().log(Level.WARNING, "Cannot compile formula " + formula.getFormula(), ex);
+            return null;
+        }
+    }
+
     /** Evaluate formula for each input sample
-     *  <p>
-     *  Iterates over the input samples in a manner of spreadsheet or
-     *  staircase-interpolation: An input with a time stamp is valid
-     *  until there's a sample with a greater time stamp.
+     *  @see FormulaComputation
      */
     private void compute()
     {
-        final List<PlotSample> result = new ArrayList<PlotSample>();
-        final Display display = ValueFactory.displayNone();
+        final List<PlotSample> result;
         // Prevent changes to formula & inputs
         synchronized (this)
         {
-            // 'Current' value for each input or null when no more
-            // In computation loop, values is actually moved to the _next_
-            // value
-            final VType values[] = new VType[inputs.length];
-
-            // 'Current' numeric min/val/max of values
-            final double min[] = new double[inputs.length];
-            final double val[] = new double[inputs.length];
-            final double max[] = new double[inputs.length];
-
-            // Determine first sample for each input
-            boolean more_input = false;
-            for (int i = 0; i < values.length; i++)
-            {
-                // Initially, none have any data
-                min[i] = val[i] = max[i] = Double.NaN;
-                // Is there an initial value for any input?
-                values[i] = inputs[i].first();
-                if (values[i] != null)
-                    more_input = true;
-            }
-
-            // Compute result for each 'line in the spreadsheet'
-            Instant time;
-            while (more_input)
-            {   // Find oldest time stamp of all the inputs
-                time = null;
-                for (int i = 0; i < values.length; i++)
-                {
-                    if (values[i] == null)
-                        continue;
-                    final Instant sample_time = VTypeHelper.getTimestamp(values[i]);
-                    if (time == null  ||  sample_time.compareTo(time) < 0)
-                        time = sample_time;
-                }
-                if (time == null)
-                {   // No input left with any data
-                    more_input = false;
-                    break;
-                }
-
-                // 'time' now defines the current spreadsheet line.
-                // Set min/max/val to sample from each input for that time.
-                // This might move values[i] resp. the inputs' iterators
-                // to the 'next' sample
-                boolean have_min_max = true;
-                for (int i = 0; i < values.length; i++)
-                {
-                    if (values[i] == null) // No more data
-                    {
-                        min[i] = val[i] = max[i] = Double.NaN;
-                        have_min_max = false;
-                    }
-                    else if (VTypeHelper.getTimestamp(values[i]).compareTo(time) <= 0)
-                    {   // Input is valid before-and-up-to 'time'
-                        if (values[i] instanceof VStatistics)
-                        {
-                            final VStatistics mmv = (VStatistics)values[i];
-                            min[i] = mmv.getMin();
-                            val[i] = mmv.getAverage();
-                            max[i] = mmv.getMax();
-                        }
-                        else
-                        {
-                            min[i] = max[i] = Double.NaN;
-                            val[i] = VTypeHelper.toDouble(values[i]);
-                            // Use NaN for any non-number
-                            if (Double.isInfinite(val[i]))
-                                val[i] = Double.NaN;
-                            have_min_max = false;
-                        }
-                        // Move to next input sample
-                        values[i] = inputs[i].next();
-                    }
-                    else
-                    {   // values[i].getTime() > time, so leave min/max/val[i]
-                        // as is until 'time' catches up with the next input sample.
-                        // Just update the have_min_max flag
-                        if (Double.isNaN(min[i])  ||  Double.isNaN(max[i]))
-                            have_min_max = false;
-                    }
-                }
-
-                // Set variables[] from val to get res_val
-                for (int i = 0; i < values.length; i++)
-                    variables[i].setValue(val[i]);
-                // Evaluate formula for these inputs
-                final double res_val = formula.eval();
-                final VType value;
-
-                if (have_min_max)
-                {   // Set variables[] from min
-                    for (int i = 0; i < values.length; i++)
-                        variables[i].setValue(min[i]);
-                    final double res_min = formula.eval();
-                    // Set variables[] from max
-                    for (int i = 0; i < values.length; i++)
-                        variables[i].setValue(max[i]);
-                    final double res_max = formula.eval();
-                    value = new ArchiveVStatistics(time, AlarmSeverity.NONE, Messages.Formula,
-                            display, res_val, res_min, res_max, 0.0, 1);
-                }
-                else
-                {   // No min/max.
-                    if (Double.isNaN(res_val))
-                        value = new ArchiveVNumber(time, AlarmSeverity.INVALID, Messages.Formula,
-                                    display, res_val);
-                    else
-                        value = new ArchiveVNumber(time, AlarmSeverity.NONE, ArchiveVType.STATUS_OK,
-                                    display, res_val);
-                }
-                result.add(new PlotSample(Messages.Formula, value));
-            }
+            result = computation.compute(inputs, formula, variables);
         }
         // Update PlotSamples
         samples.set(result);
@@ -36,12 +36,12 @@ public class HistoricSamples extends PlotSamples
     // No locking in here, all access is via PVSamples
 
     /** "All" historic samples */
-    private PlotSample samples[] = new PlotSample[0];
+    final private PlotSampleBlocks samples = new PlotSampleBlocks();
 
     /** If set, samples beyond this time are hidden from access */
     private Optional<Instant> border_time = Optional.empty();
 
-    /** Subset of samples.length that's below border_time
+    /** Subset of samples.size() that's below border_time
      *  @see #computeVisibleSize()
      */
     private int visible_size = 0;
@@ -72,22 +72,66 @@ public class HistoricSamples extends PlotSamples
     {
         if (border_time.isPresent())
         {
-            final int last_index = PlotSampleSearch.findSampleLessThan(
-                    samples, border_time.get());
+            final int last_index = samples.findSampleLessThan(border_time.get());
             visible_size = (last_index < 0)   ?   0   :   last_index + 1;
         }
         else
-            visible_size = samples.length;
+            visible_size = samples.size();
     }
 
     /** {@inheritDoc} */
-    @SuppressWarnings("nls")
     @Override
     public PlotSample get(final int i)
+    {
+        checkIndex(i);
+        return samples.get(i);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Instant getPosition(final int i)
+    {
+        checkIndex(i);
+        return samples.getPosition(i);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getTime(final int i)
+    {
+        checkIndex(i);
+        return samples.getTime(i);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getValue(final int i)
+    {
+        checkIndex(i);
+        return samples.getValue(i);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMin(final int i)
+    {
+        checkIndex(i);
+        return samples.getMin(i);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMax(final int i)
+    {
+        checkIndex(i);
+        return samples.getMax(i);
+    }
+
+    @SuppressWarnings("nls")
+    private void checkIndex(final int i)
     {
         if (i >= visible_size)
             throw new IndexOutOfBoundsException("Index " + i + " exceeds visible size " + visible_size);
-        return samples[i];
     }
 
     /** {@inheritDoc} */
@@ -101,7 +145,7 @@ public class HistoricSamples extends PlotSamples
      * @return the number of samples, ignoring the border time
      */
     public int getRawSize() {
-        return samples.length;
+        return samples.size();
     }
 
     /**
@@ -111,7 +155,7 @@ public class HistoricSamples extends PlotSamples
      * @return the plot sample
      */
     public PlotSample getRawSample(int i) {
-        return samples[i];
+        return samples.get(i);
     }
 
     /** Merge newly received archive data into historic samples
@@ -123,22 +167,26 @@ public class HistoricSamples extends PlotSamples
         // Anything new at all?
         if (result.size() <= 0)
             return;
-        // Turn IValues into PlotSamples
-        final PlotSample new_samples[] = new PlotSample[result.size()];
-        for (int i=0; i<new_samples.length; ++i)
-            new_samples[i] = new PlotSample(waveform_index, source, result.get(i));
-        // Merge with existing samples
-        final PlotSample merged[] = PlotSampleMerger.merge(samples, new_samples);
-        if (merged == samples)
-            return;
-        samples = merged;
-        computeVisibleSize();
+        // Merge with existing samples,
+        // using compact columns for numeric data
+        final boolean merged;
+        if (PlotSampleColumns.isSupported(result))
+            merged = samples.merge(new PlotSampleColumns(waveform_index, source, result));
+        else
+        {   // Turn IValues into PlotSamples
+            final PlotSample new_samples[] = new PlotSample[result.size()];
+            for (int i=0; i<new_samples.length; ++i)
+                new_samples[i] = new PlotSample(waveform_index, source, result.get(i));
+            merged = samples.merge(new_samples);
+        }
+        if (merged)
+            computeVisibleSize();
     }
 
     /** Delete all samples */
     public void clear()
     {
         visible_size = 0;
-        samples = new PlotSample[0];
+        samples.clear();
     }
 }
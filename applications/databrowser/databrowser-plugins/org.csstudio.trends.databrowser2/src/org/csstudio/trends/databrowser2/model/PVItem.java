@@ -111,7 +111,11 @@ public class PVItem extends ModelItem implements PVReaderListener<List<VType>>
         if (index < 0)
             index = 0;
         if (waveform_index.getAndSet(index) != index)
+        {
+            // Plot needs to redraw the samples for the new index
+            samples.markChanged();
             fireItemDataConfigChanged();
+        }
     }
 
     /** Set new item name, which changes the underlying PV name
@@ -114,6 +114,54 @@ public class PVSamples extends PlotSamples
             return new PlotSample(sample.getSource(), VTypeHelper.transformTimestampToNow(sample.getVType()));
     }
 
+    // Historic samples are accessed without creating a PlotSample,
+    // live samples and the continuation until 'now' already are PlotSamples
+
+    /** {@inheritDoc} */
+    @Override
+    public Instant getPosition(final int index)
+    {
+        if (index < history.size())
+            return history.getPosition(index);
+        return get(index).getPosition();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getTime(final int index)
+    {
+        if (index < history.size())
+            return history.getTime(index);
+        return super.getTime(index);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getValue(final int index)
+    {
+        if (index < history.size())
+            return history.getValue(index);
+        return get(index).getValue();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMin(final int index)
+    {
+        if (index < history.size())
+            return history.getMin(index);
+        return get(index).getMin();
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMax(final int index)
+    {
+        if (index < history.size())
+            return history.getMax(index);
+        return get(index).getMax();
+    }
+
     /** Get 'raw' sample, no continuation until 'now'
      *  @param index 0... getRawSize()-1
      *  @return Sample from historic or live sample subsection
@@ -126,6 +174,14 @@ public class PVSamples extends PlotSamples
         return live.get(index - num_old);
     }
 
+    /** Mark samples as changed without new samples,
+     *  for example because the waveform index changed
+     */
+    void markChanged()
+    {
+        live.have_new_samples.set(true);
+    }
+
     /** Test if samples changed since the last time
      *  <code>testAndClearNewSamplesFlag</code> was called.
      *  @return <code>true</code> if there were new samples
@@ -0,0 +1,513 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.model;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** Time-ordered samples, stored in blocks.
+ *  <p>
+ *  Merging archived data into one large array
+ *  meant copying all samples for each new archive response.
+ *  Here, samples are kept in blocks of at most {@link #BLOCK_SIZE}.
+ *  A merge only copies the new samples and the (partial) blocks
+ *  at the edges of the merged time range.
+ *  Blocks before and after remain untouched,
+ *  only the index of block offsets is updated.
+ *  <p>
+ *  Access by sample index or by time is a binary search over
+ *  the blocks followed by a binary search within one block.
+ *  <p>
+ *  Blocks of numeric archive data are held as {@link PlotSampleColumns},
+ *  other samples as plain arrays of {@link PlotSample}.
+ *  <p>
+ *  New data is merged like {@link PlotSampleMerger}:
+ *  Where the time ranges overlap, the data replaces the old data.
+ *  <p>
+ *  Not thread-safe, access needs to be synchronized by caller.
+ *
+ *  @author agent
+ */
+public class PlotSampleBlocks
+{
+    /** Maximum number of samples per block */
+    final public static int BLOCK_SIZE = 4096;
+
+    /** Block of samples, sorted by time.
+     *  Blocks are never modified once created.
+     */
+    interface Block
+    {
+        /** @return Number of samples in block */
+        public int size();
+
+        /** @param i Sample index
+         *  @return Sample
+         */
+        public PlotSample get(int i);
+
+        /** @param i Sample index
+         *  @return Time stamp of sample
+         */
+        public Instant getPosition(int i);
+
+        /** @param i Sample index
+         *  @return Time stamp of sample in epoch nanoseconds
+         */
+        public long getTime(int i);
+
+        /** @param i Sample index
+         *  @return Value of sample
+         *  @see PlotSample#getValue()
+         */
+        public double getValue(int i);
+
+        /** @param i Sample index
+         *  @return Minimum of sample
+         *  @see PlotSample#getMin()
+         */
+        public double getMin(int i);
+
+        /** @param i Sample index
+         *  @return Maximum of sample
+         *  @see PlotSample#getMax()
+         */
+        public double getMax(int i);
+
+        /** @param start Index of first sample
+         *  @param end Index after last sample
+         *  @return Block with copy of the samples [start, end>
+         */
+        public Block slice(int start, int end);
+
+        /** @param other Other block
+         *  @return <code>true</code> if other block can be combined with this one
+         *  @see #concat(List)
+         */
+        public boolean isCompatible(Block other);
+
+        /** @param blocks Compatible blocks, starting with this block
+         *  @return Block with all the samples of the blocks
+         */
+        public Block concat(List<Block> blocks);
+    }
+
+    /** Block of {@link PlotSample} objects */
+    static class ArrayBlock implements Block
+    {
+        final private PlotSample[] samples;
+
+        ArrayBlock(final PlotSample[] samples)
+        {
+            this.samples = samples;
+        }
+
+        @Override
+        public int size()
+        {
+            return samples.length;
+        }
+
+        @Override
+        public PlotSample get(final int i)
+        {
+            return samples[i];
+        }
+
+        @Override
+        public Instant getPosition(final int i)
+        {
+            return samples[i].getPosition();
+        }
+
+        @Override
+        public long getTime(final int i)
+        {
+            final Instant time = samples[i].getPosition();
+            return time.getEpochSecond() * 1000000000L + time.getNano();
+        }
+
+        @Override
+        public double getValue(final int i)
+        {
+            return samples[i].getValue();
+        }
+
+        @Override
+        public double getMin(final int i)
+        {
+            return samples[i].getMin();
+        }
+
+        @Override
+        public double getMax(final int i)
+        {
+            return samples[i].getMax();
+        }
+
+        @Override
+        public Block slice(final int start, final int end)
+        {
+            return new ArrayBlock(Arrays.copyOfRange(samples, start, end));
+        }
+
+        @Override
+        public boolean isCompatible(final Block other)
+        {
+            return other instanceof ArrayBlock;
+        }
+
+        @Override
+        public Block concat(final List<Block> blocks)
+        {
+            int size = 0;
+            for (Block block : blocks)
+                size += block.size();
+            final PlotSample[] combined = new PlotSample[size];
+            int pos = 0;
+            for (Block block : blocks)
+            {
+                final PlotSample[] part = ((ArrayBlock) block).samples;
+                System.arraycopy(part, 0, combined, pos, part.length);
+                pos += part.length;
+            }
+            return new ArrayBlock(combined);
+        }
+    }
+
+    /** Blocks of samples, blocks in time order */
+    private List<Block> blocks = new ArrayList<>();
+
+    /** offsets[b] is index of first sample in blocks[b],
+     *  offsets[blocks.size()] is the total number of samples
+     */
+    private int[] offsets = new int[] { 0 };
+
+    /** Block used by last access by sample index,
+     *  speeding up sequential access
+     */
+    private int last_block = 0;
+
+    /** @return Number of samples */
+    public int size()
+    {
+        return offsets[blocks.size()];
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Sample
+     */
+    public PlotSample get(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).get(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Time stamp of sample
+     */
+    public Instant getPosition(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).getPosition(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Time stamp of sample in epoch nanoseconds
+     */
+    public long getTime(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).getTime(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Value of sample
+     */
+    public double getValue(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).getValue(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Minimum of sample
+     */
+    public double getMin(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).getMin(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Maximum of sample
+     */
+    public double getMax(final int i)
+    {
+        final int b = locate(i);
+        return blocks.get(b).getMax(i - offsets[b]);
+    }
+
+    /** @param i Sample index, 0 .. size()-1
+     *  @return Index of block that holds the sample
+     */
+    @SuppressWarnings("nls")
+    private int locate(final int i)
+    {
+        if (i < 0  ||  i >= size())
+            throw new IndexOutOfBoundsException("Index " + i + " exceeds size " + size());
+        int b = last_block;
+        if (b >= blocks.size()  ||  i < offsets[b]  ||  i >= offsets[b+1])
+        {
+            if (b+1 < blocks.size()  &&  i >= offsets[b+1]  &&  i < offsets[b+2])
+                ++b;
+            else
+                b = findBlock(i);
+            last_block = b;
+        }
+        return b;
+    }
+
+    /** @param i Sample index
+     *  @return Index of block that holds the sample
+     */
+    private int findBlock(final int i)
+    {
+        int b = Arrays.binarySearch(offsets, 0, blocks.size(), i);
+        if (b < 0)  // Not the first sample of a block: Use block before insertion point
+            return -b - 2;
+        return b;
+    }
+
+    /** @param block Block to search
+     *  @param goal The time to look for
+     *  @return Index of last sample in block smaller than goal, or -1
+     */
+    private static int findSampleLessThan(final Block block, final Instant goal)
+    {
+        int low = 0, high = block.size()-1, result = -1;
+        while (low <= high)
+        {
+            final int mid = (low + high) / 2;
+            if (block.getPosition(mid).compareTo(goal) < 0)
+            {
+                result = mid;
+                low = mid + 1;
+            }
+            else
+                high = mid - 1;
+        }
+        return result;
+    }
+
+    /** @param block Block to search
+     *  @param goal The time to look for
+     *  @return Index of first sample in block greater than goal, or -1
+     */
+    private static int findSampleGreaterThan(final Block block, final Instant goal)
+    {
+        int low = 0, high = block.size()-1, result = -1;
+        while (low <= high)
+        {
+            final int mid = (low + high) / 2;
+            if (block.getPosition(mid).compareTo(goal) > 0)
+            {
+                result = mid;
+                high = mid - 1;
+            }
+            else
+                low = mid + 1;
+        }
+        return result;
+    }
+
+    /** Find the last sample that's smaller than the given value
+     *  @param goal The time to look for
+     *  @return Returns index of sample smaller than given goal, or -1
+     *  @see PlotSampleSearch#findSampleLessThan(PlotSample[], Instant)
+     */
+    public int findSampleLessThan(final Instant goal)
+    {
+        // Locate last block that starts before goal
+        int low = 0, high = blocks.size()-1, b = -1;
+        while (low <= high)
+        {
+            final int mid = (low + high) / 2;
+            if (blocks.get(mid).getPosition(0).compareTo(goal) < 0)
+            {
+                b = mid;
+                low = mid + 1;
+            }
+            else
+                high = mid - 1;
+        }
+        if (b < 0)
+            return -1;
+        return offsets[b] + findSampleLessThan(blocks.get(b), goal);
+    }
+
+    /** Find the first sample that's greater than the given value
+     *  @param goal The time to look for
+     *  @return Returns index of sample greater than given goal, or -1
+     *  @see PlotSampleSearch#findSampleGreaterThan(PlotSample[], Instant)
+     */
+    public int findSampleGreaterThan(final Instant goal)
+    {
+        // Locate first block that ends after goal
+        int low = 0, high = blocks.size()-1, b = -1;
+        while (low <= high)
+        {
+            final int mid = (low + high) / 2;
+            final Block block = blocks.get(mid);
+            if (block.getPosition(block.size()-1).compareTo(goal) > 0)
+            {
+                b = mid;
+                high = mid - 1;
+            }
+            else
+                low = mid + 1;
+        }
+        if (b < 0)
+            return -1;
+        return offsets[b] + findSampleGreaterThan(blocks.get(b), goal);
+    }
+
+    /** Merge new samples.
+     *  @param add New samples, sorted by time.
+     *             Array may be used as is, must not be modified by caller.
+     *  @return <code>true</code> if samples were added
+     *  @see #merge(Block)
+     */
+    public boolean merge(final PlotSample add[])
+    {
+        if (add == null  ||  add.length <= 0)
+            return false;
+        return merge(new ArrayBlock(add));
+    }
+
+    /** Merge new samples.
+     *  <p>
+     *  Existing samples that fall into the time range of the new samples
+     *  are replaced.
+     *
+     *  @param add New samples, sorted by time
+     *  @return <code>true</code> if samples were added
+     */
+    boolean merge(final Block add)
+    {
+        if (add.size() <= 0)
+            return false;
+        final int N = size();
+
+        // Keep old[0 .. l] and old[r .. N-1]
+        final int l = findSampleLessThan(add.getPosition(0));
+        int r = findSampleGreaterThan(add.getPosition(add.size()-1));
+        if (r < 0)
+            r = N;
+
+        // Blocks that contain l resp. r will be split.
+        // Blocks between are replaced.
+        final int lb = l < 0 ? 0 : findBlock(l);
+        final int rb = r >= N ? blocks.size() : findBlock(r);
+
+        // Section [lb, rb> of blocks is replaced by 'section'
+        final List<Block> section = new ArrayList<>();
+        if (l >= 0)
+        {
+            final Block block = blocks.get(lb);
+            final int keep = l - offsets[lb] + 1;
+            section.add(keep == block.size() ? block : block.slice(0, keep));
+        }
+        section.add(add);
+        if (r < N)
+        {
+            final Block block = blocks.get(rb);
+            final int skip = r - offsets[rb];
+            section.add(skip == 0 ? block : block.slice(skip, block.size()));
+        }
+
+        final List<Block> merged = new ArrayList<>(blocks.size() + add.size() / BLOCK_SIZE + 3);
+        merged.addAll(blocks.subList(0, lb));
+        pack(section, merged);
+        merged.addAll(blocks.subList(r < N ? rb+1 : blocks.size(), blocks.size()));
+        setBlocks(merged);
+        return true;
+    }
+
+    /** Combine small blocks, split large blocks
+     *  @param section Blocks to pack
+     *  @param result List to which packed blocks are added
+     */
+    private static void pack(final List<Block> section, final List<Block> result)
+    {
+        final List<Block> pending = new ArrayList<>();
+        int pending_size = 0;
+        for (Block block : section)
+        {
+            if (pending_size + block.size() > BLOCK_SIZE  ||
+                (pending.size() > 0  &&  ! pending.get(0).isCompatible(block)))
+            {
+                flush(pending, result);
+                pending_size = 0;
+            }
+            if (block.size() >= BLOCK_SIZE)
+            {   // Split large block
+                for (int i=0; i<block.size(); i+=BLOCK_SIZE)
+                {
+                    final int end = Math.min(block.size(), i+BLOCK_SIZE);
+                    if (end - i < BLOCK_SIZE)
+                    {   // Remainder may be combined with next block
+                        pending.add(block.slice(i, end));
+                        pending_size += end - i;
+                    }
+                    else
+                        result.add(i == 0  &&  end == block.size()
+                                   ? block
+                                   : block.slice(i, end));
+                }
+            }
+            else
+            {
+                pending.add(block);
+                pending_size += block.size();
+            }
+        }
+        flush(pending, result);
+    }
+
+    /** @param pending Compatible blocks to concatenate, will be cleared
+     *  @param result List to which combined block is added
+     */
+    private static void flush(final List<Block> pending, final List<Block> result)
+    {
+        if (pending.size() == 1)
+            result.add(pending.get(0));
+        else if (pending.size() > 1)
+            result.add(pending.get(0).concat(pending));
+        pending.clear();
+    }
+
+    /** @param new_blocks New blocks, update offsets */
+    private void setBlocks(final List<Block> new_blocks)
+    {
+        final int[] new_offsets = new int[new_blocks.size() + 1];
+        for (int b=0; b<new_blocks.size(); ++b)
+            new_offsets[b+1] = new_offsets[b] + new_blocks.get(b).size();
+        blocks = new_blocks;
+        offsets = new_offsets;
+        last_block = 0;
+    }
+
+    /** Delete all samples */
+    public void clear()
+    {
+        setBlocks(new ArrayList<>());
+    }
+}
@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright (c) 2026 agent.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ ******************************************************************************/
+package org.csstudio.trends.databrowser2.model;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.csstudio.archive.vtype.ArchiveVNumber;
+import org.csstudio.archive.vtype.ArchiveVStatistics;
+import org.csstudio.archive.vtype.ArchiveVType;
+import org.diirt.vtype.AlarmSeverity;
+import org.diirt.vtype.Display;
+import org.diirt.vtype.VType;
+
+/** Block of numeric archive samples, stored by column.
+ *  <p>
+ *  Instead of a {@link PlotSample} with its {@link VType},
+ *  time stamp and boxed value for each sample,
+ *  a sample takes 20 bytes for time, value, severity, status
+ *  and type, plus 8 bytes for the exact value of integer samples
+ *  and 28 bytes for min/max/stddev/count of statistics.
+ *  Status texts are kept once per block,
+ *  source and display information once per block.
+ *  <p>
+ *  Plotting and computations read the primitive
+ *  time, value, minimum and maximum.
+ *  {@link PlotSample}s are only created when
+ *  accessing a complete sample.
+ *
+ *  @author agent
+ */
+public class PlotSampleColumns implements PlotSampleBlocks.Block
+{
+    /** Sample types */
+    final private static byte DOUBLE = 0, LONG = 1, STATISTICS = 2;
+
+    /** Severities by ordinal */
+    final private static AlarmSeverity[] severities = AlarmSeverity.values();
+
+    /** Maximum number of status texts per block */
+    final private static int MAX_STATUSES = 1 << 16;
+
+    /** Largest absolute epoch seconds that fit into epoch nanos */
+    final private static long MAX_SECONDS = Long.MAX_VALUE / 1000000000L - 1;
+
+    final private AtomicInteger waveform_index;
+    final private String source;
+    final private Display display;
+    final private String[] statuses;
+
+    final private long[] nanos;
+    /** Value, average for statistics */
+    final private double[] values;
+    /** Exact value of LONG samples, <code>null</code> if block has no LONG samples */
+    final private long[] longs;
+    final private byte[] types;
+    final private byte[] severity;
+    final private char[] status;
+
+    /** Statistics, <code>null</code> if block has no statistics */
+    final private double[] min, max, stddev;
+    final private int[] count;
+
+    /** @param samples Samples to check
+     *  @return <code>true</code> if samples can be held in columns
+     */
+    public static boolean isSupported(final List<VType> samples)
+    {
+        if (samples.isEmpty()  ||  getType(samples.get(0)) < 0)
+            return false;
+        final Display display = (Display) samples.get(0);
+        final Set<String> statuses = new HashSet<>();
+        for (VType sample : samples)
+        {
+            if (getType(sample) < 0  ||
+                ! isSameDisplay(display, (Display) sample))
+                return false;
+            final ArchiveVType archived = (ArchiveVType) sample;
+            if (Math.abs(archived.getTimestamp().getEpochSecond()) > MAX_SECONDS)
+                return false;
+            if (statuses.add(archived.getAlarmName())  &&
+                statuses.size() > MAX_STATUSES)
+                return false;
+        }
+        return true;
+    }
+
+    /** @param sample Sample
+     *  @return Sample type or -1 if not supported
+     */
+    private static int getType(final VType sample)
+    {
+        if (sample instanceof ArchiveVStatistics)
+            return STATISTICS;
+        if (sample instanceof ArchiveVNumber)
+        {
+            final Number number = ((ArchiveVNumber) sample).getValue();
+            if (number instanceof Double)
+                return DOUBLE;
+            if (number instanceof Long)
+                return LONG;
+        }
+        return -1;
+    }
+
+    /** @return <code>true</code> if both displays have the same units and limits */
+    private static boolean isSameDisplay(final Display a, final Display b)
+    {
+        if (a == b)
+            return true;
+        return Objects.equals(a.getUnits(), b.getUnits())  &&
+               Objects.equals(a.getFormat(), b.getFormat()) &&
+               Objects.equals(a.getLowerDisplayLimit(), b.getLowerDisplayLimit())  &&
+               Objects.equals(a.getUpperDisplayLimit(), b.getUpperDisplayLimit())  &&
+               Objects.equals(a.getLowerCtrlLimit(), b.getLowerCtrlLimit())  &&
+               Objects.equals(a.getUpperCtrlLimit(), b.getUpperCtrlLimit())  &&
+               Objects.equals(a.getLowerAlarmLimit(), b.getLowerAlarmLimit())  &&
+               Objects.equals(a.getUpperAlarmLimit(), b.getUpperAlarmLimit())  &&
+               Objects.equals(a.getLowerWarningLimit(), b.getLowerWarningLimit())  &&
+               Objects.equals(a.getUpperWarningLimit(), b.getUpperWarningLimit());
+    }
+
+    /** Initialize
+     *  @param waveform_index Waveform index
+     *  @param source Info about the source of the samples
+     *  @param samples Samples, must be supported
+     *  @see #isSupported(List)
+     */
+    public PlotSampleColumns(final AtomicInteger waveform_index, final String source, final List<VType> samples)
+    {
+        this.waveform_index = waveform_index;
+        this.source = source;
+        display = (Display) samples.get(0);
+
+        final int N = samples.size();
+        nanos = new long[N];
+        values = new double[N];
+        types = new byte[N];
+        severity = new byte[N];
+        status = new char[N];
+        final Map<String, Integer> status_texts = new HashMap<>();
+        boolean have_stats = false, have_longs = false;
+        for (int i=0; i<N; ++i)
+        {
+            final ArchiveVType sample = (ArchiveVType) samples.get(i);
+            final Instant time = sample.getTimestamp();
+            nanos[i] = time.getEpochSecond() * 1000000000L + time.getNano();
+            types[i] = (byte) getType(sample);
+            severity[i] = (byte) sample.getAlarmSeverity().ordinal();
+            status[i] = (char) getIndex(status_texts, sample.getAlarmName()).intValue();
+            if (types[i] == STATISTICS)
+            {
+                values[i] = ((ArchiveVStatistics) sample).getAverage();
+                have_stats = true;
+            }
+            else
+            {
+                values[i] = ((ArchiveVNumber) sample).getValue().doubleValue();
+                have_longs |= types[i] == LONG;
+            }
+        }
+        statuses = toArray(status_texts);
+
+        if (have_longs)
+        {
+            longs = new long[N];
+            for (int i=0; i<N; ++i)
+                if (types[i] == LONG)
+                    longs[i] = ((ArchiveVNumber) samples.get(i)).getValue().longValue();
+        }
+        else
+            longs = null;
+
+        if (have_stats)
+        {
+            min = new double[N];
+            max = new double[N];
+            stddev = new double[N];
+            count = new int[N];
+            for (int i=0; i<N; ++i)
+                if (types[i] == STATISTICS)
+                {
+                    final ArchiveVStatistics stats = (ArchiveVStatistics) samples.get(i);
+                    min[i] = stats.getMin();
+                    max[i] = stats.getMax();
+                    stddev[i] = stats.getStdDev();
+                    count[i] = stats.getNSamples();
+                }
+        }
+        else
+        {
+            min = max = stddev = null;
+            count = null;
+        }
+    }
+
+    /** @param texts Texts and their index
+     *  @param text Text to locate or add
+     *  @return Index of text
+     */
+    private static Integer getIndex(final Map<String, Integer> texts, final String text)
+    {
+        return texts.computeIfAbsent(text, t -> texts.size());
+    }
+
+    /** @param texts Texts and their index
+     *  @return Texts ordered by index
+     */
+    private static String[] toArray(final Map<String, Integer> texts)
+    {
+        final String[] result = new String[texts.size()];
+        for (Map.Entry<String, Integer> entry : texts.entrySet())
+            result[entry.getValue()] = entry.getKey();
+        return result;
+    }
+
+    /** Initialize with data from other block(s) */
+    private PlotSampleColumns(final PlotSampleColumns other, final String[] statuses,
+                              final long[] nanos, final double[] values, final long[] longs, final byte[] types,
+                              final byte[] severity, final char[] status,
+                              final double[] min, final double[] max, final double[] stddev, final int[] count)
+    {
+        this.waveform_index = other.waveform_index;
+        this.source = other.source;
+        this.display = other.display;
+        this.statuses = statuses;
+        this.nanos = nanos;
+        this.values = values;
+        this.longs = longs;
+        this.types = types;
+        this.severity = severity;
+        this.status = status;
+        this.min = min;
+        this.max = max;
+        this.stddev = stddev;
+        this.count = count;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public int size()
+    {
+        return nanos.length;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public Instant getPosition(final int i)
+    {
+        return Instant.ofEpochSecond(0, nanos[i]);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public long getTime(final int i)
+    {
+        return nanos[i];
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getValue(final int i)
+    {
+        // Like PlotSample, scalars have no value for other waveform elements
+        return waveform_index.get() == 0 ? values[i] : Double.NaN;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMin(final int i)
+    {
+        return (types[i] == STATISTICS  &&  waveform_index.get() == 0) ? min[i] : Double.NaN;
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public double getMax(final int i)
+    {
+        return (types[i] == STATISTICS  &&  waveform_index.get() == 0) ? max[i] : Double.NaN;
+    }
+
+    /** @param i Sample index
+     *  @return Control system value
+     */
+    public VType getVType(final int i)
+    {
+        final Instant time = getPosition(i);
+        final AlarmSeverity sevr = severities[severity[i]];
+        final String text = statuses[status[i]];
+        switch (types[i])
+        {
+        case STATISTICS:
+            return new ArchiveVStatistics(time, sevr, text, display,
+                                          values[i], min[i], max[i], stddev[i], count[i]);
+        case LONG:
+            return new ArchiveVNumber(time, sevr, text, display, longs[i]);
+        default:
+            return new ArchiveVNumber(time, sevr, text, display, values[i]);
+        }
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PlotSample get(final int i)
+    {
+        return new PlotSample(waveform_index, source, getVType(i));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PlotSampleBlocks.Block slice(final int start, final int end)
+    {
+        return new PlotSampleColumns(this, statuses,
+                Arrays.copyOfRange(nanos, start, end),
+                Arrays.copyOfRange(values, start, end),
+                longs == null ? null : Arrays.copyOfRange(longs, start, end),
+                Arrays.copyOfRange(types, start, end),
+                Arrays.copyOfRange(severity, start, end),
+                Arrays.copyOfRange(status, start, end),
+                min == null ? null : Arrays.copyOfRange(min, start, end),
+                max == null ? null : Arrays.copyOfRange(max, start, end),
+                stddev == null ? null : Arrays.copyOfRange(stddev, start, end),
+                count == null ? null : Arrays.copyOfRange(count, start, end));
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public boolean isCompatible(final PlotSampleBlocks.Block other)
+    {
+        if (! (other instanceof PlotSampleColumns))
+            return false;
+        final PlotSampleColumns columns = (PlotSampleColumns) other;
+        return waveform_index == columns.waveform_index  &&
+               Objects.equals(source, columns.source)  &&
+               isSameDisplay(display, columns.display);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public PlotSampleBlocks.Block concat(final List<PlotSampleBlocks.Block> blocks)
+    {
+        int N = 0;
+        boolean have_stats = false, have_longs = false;
+        for (PlotSampleBlocks.Block block : blocks)
+        {
+            N += block.size();
+            have_stats |= ((PlotSampleColumns) block).count != null;
+            have_longs |= ((PlotSampleColumns) block).longs != null;
+        }
+        final long[] nanos = new long[N];
+        final double[] values = new double[N];
+        final long[] longs = have_longs ? new long[N] : null;
+        final byte[] types = new byte[N];
+        final byte[] severity = new byte[N];
+        final char[] status = new char[N];
+        final double[] min = have_stats ? new double[N] : null;
+        final double[] max = have_stats ? new double[N] : null;
+        final double[] stddev = have_stats ? new double[N] : null;
+        final int[] count = have_stats ? new int[N] : null;
+        // Status texts of the combined block.
+        // Only texts that are actually used, so there are
+        // no more texts than samples
+        final Map<String, Integer> status_texts = new HashMap<>();
+        int pos = 0;
+        for (PlotSampleBlocks.Block block : blocks)
+        {
+            final PlotSampleColumns part = (PlotSampleColumns) block;
+            final int n = part.size();
+            System.arraycopy(part.nanos, 0, nanos, pos, n);
+            System.arraycopy(part.values, 0, values, pos, n);
+            System.arraycopy(part.types, 0, types, pos, n);
+            if (part.longs != null)
+                System.arraycopy(part.longs, 0, longs, pos, n);
+            System.arraycopy(part.severity, 0, severity, pos, n);
+            for (int i=0; i<n; ++i)
+                status[pos + i] = (char) getIndex(status_texts, part.statuses[part.status[i]]).intValue();
+            if (part.count != null)
+            {
+                System.arraycopy(part.min, 0, min, pos, n);
+                System.arraycopy(part.max, 0, max, pos, n);
+                System.arraycopy(part.stddev, 0, stddev, pos, n);
+                System.arraycopy(part.count, 0, count, pos, n);
+            }
+            pos += n;
+        }
+        return new PlotSampleColumns(this, toArray(status_texts), nanos, values, longs, types, severity, status, min, max, stddev, count);
+    }
+}
@@ -57,6 +57,15 @@ abstract public class PlotSamples implements PlotDataProvider<Instant>
     @Override
     abstract public PlotSample get(int index);
 
+    /** @param index Sample index
+     *  @return Time stamp of sample in epoch nanoseconds
+     */
+    public long getTime(final int index)
+    {
+        final Instant time = getPosition(index);
+        return time.getEpochSecond() * 1000000000L + time.getNano();
+    }
+
     /** Test if samples changed since the last time
      *  <code>testAndClearNewSamplesFlag</code> was called.
      *  @return <code>true</code> if there were new samples
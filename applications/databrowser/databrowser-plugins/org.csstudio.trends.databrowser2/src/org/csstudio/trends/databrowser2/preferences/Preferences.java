@@ -7,6 +7,7 @@
  ******************************************************************************/
 package org.csstudio.trends.databrowser2.preferences;
 
+import java.io.File;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -68,7 +69,11 @@ public class Preferences
             SCROLL_STEP = "scroll_step",
             USE_TRACE_NAMES = "use_trace_names",
             ALLOW_HIDE_TRACE = "allow_hide_trace",
-            ALLOW_REQUEST_RAW = "allow_request_raw";
+            ALLOW_REQUEST_RAW = "allow_request_raw",
+            SAMPLE_CACHE_SIZE = "sample_cache_size",
+            SAMPLE_CACHE_MAX_AGE = "sample_cache_max_age",
+            SAMPLE_CACHE_DIRECTORY = "sample_cache_directory",
+            COMPILE_FORMULAS = "compile_formulas";
 
     public static boolean isAutomaticHistoryRefresh()
     {
@@ -339,6 +344,40 @@ public class Preferences
         return prefs.getBoolean(Activator.PLUGIN_ID, SECURE_DATA_BROWSER, false, null);
     }
 
+    /** @return Maximum size of archived sample cache in MB, 0 to disable */
+    public static int getSampleCacheSize()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return 0;
+        return prefs.getInt(Activator.PLUGIN_ID, SAMPLE_CACHE_SIZE, 0, null);
+    }
+
+    /** @return Maximum age of cached samples in hours */
+    public static int getSampleCacheMaxAge()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null)
+            return 24;
+        return prefs.getInt(Activator.PLUGIN_ID, SAMPLE_CACHE_MAX_AGE, 24, null);
+    }
+
+    /** @return Directory for archived sample cache or <code>null</code> */
+    public static File getSampleCacheDirectory()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs != null)
+        {
+            final String dir = prefs.getString(Activator.PLUGIN_ID, SAMPLE_CACHE_DIRECTORY, "", null).trim();
+            if (! dir.isEmpty())
+                return new File(dir);
+        }
+        final Activator plugin = Activator.getDefault();
+        if (plugin == null)
+            return null;
+        return plugin.getStateLocation().append("sample_cache").toFile();
+    }
+
     public static boolean useTraceNames()
     {
         final IPreferencesService prefs = Platform.getPreferencesService();
@@ -347,4 +386,13 @@ public class Preferences
         return prefs.getBoolean(Activator.PLUGIN_ID, USE_TRACE_NAMES, Boolean.TRUE, null);
     }
 
+    /** @return <code>true</code> to compile formulas instead of interpreting them */
+    public static boolean compileFormulas()
+    {
+        final IPreferencesService prefs = Platform.getPreferencesService();
+        if (prefs == null) // Allow some JUnit tests without prefs
+            return Boolean.FALSE;
+        return prefs.getBoolean(Activator.PLUGIN_ID, COMPILE_FORMULAS, Boolean.FALSE, null);
+    }
+
 }
@@ -13,6 +13,7 @@ import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.Iterator;
 import java.util.List;
@@ -156,34 +157,34 @@ public class Controller
         }
 
         @Override
-        public void archiveFetchFailed(final ArchiveFetchJob job,
+        public void archiveFetchFailed(final ArchiveFetchJob job, final PVItem item,
                 final ArchiveDataSource archive, final Exception error)
         {
 
             if (Preferences.doPromptForErrors())
-                reportError(job.getPVItem().getResolvedDisplayName(), error);
+                reportError(item.getResolvedDisplayName(), error);
             else
                 Logger.getLogger(getClass().getName()).log(Level.WARNING,
-                        "No archived data for " + job.getPVItem().getDisplayName(), error);
+                        "No archived data for " + item.getDisplayName(), error);
             // always remove the problematic archive data source, but has to happen in UI thread
-            executeOnUIThread(e -> job.getPVItem().removeArchiveDataSource(archive));
+            executeOnUIThread(e -> item.removeArchiveDataSource(archive));
         }
 
         @Override
-        public void channelNotFound(final ArchiveFetchJob job, final boolean channelFoundAtLeastOnce,
+        public void channelNotFound(final ArchiveFetchJob job, final PVItem item, final boolean channelFoundAtLeastOnce,
             final ArchiveDataSource[] archivesThatFailed)
         {
             // no need to reuse this source if the channel is not in it, but it has to happen in the UI thread, because
             // of the way the listeners of the pv item are implemented
-            executeOnUIThread(e -> job.getPVItem().removeArchiveDataSource(archivesThatFailed));
+            executeOnUIThread(e -> item.removeArchiveDataSource(archivesThatFailed));
             // if channel was found at least once, we do not need to report anything
             if (!channelFoundAtLeastOnce)
             {
                 if (Preferences.doPromptForErrors())
-                    reportError(job.getPVItem().getResolvedDisplayName(), null);
+                    reportError(item.getResolvedDisplayName(), null);
                 else
                     Logger.getLogger(getClass().getName()).log(Level.FINE,
-                        "Channel " + job.getPVItem().getResolvedDisplayName() + " not found in any of the archived sources.");
+                        "Channel " + item.getResolvedDisplayName() + " not found in any of the archived sources.");
             }
         }
     };
@@ -700,10 +701,11 @@ public class Controller
      */
     private void getArchivedData()
     {
-        final Instant start = model.getStartTime();
-        final Instant end = model.getEndTime();
+        final List<PVItem> pv_items = new ArrayList<>();
         for (ModelItem item : model.getItems())
-            getArchivedData(item, start, end);
+            if (item instanceof PVItem)
+                pv_items.add((PVItem) item);
+        getArchivedData(pv_items, model.getStartTime(), model.getEndTime());
     }
 
     /** Initiate archive data retrieval for a specific model item
@@ -713,28 +715,53 @@ public class Controller
      */
     private void getArchivedData(final ModelItem item,
             final Instant start, final Instant end)
+    {
+        if (item instanceof PVItem)
+            getArchivedData(Collections.singletonList((PVItem) item), start, end);
+    }
+
+    /** Initiate archive data retrieval for model items
+     *
+     *  <p>Items are fetched by one job,
+     *  which reads the channels of each archive data source
+     *  in one request.
+     *
+     *  @param items PV items. Items without archive data source are ignored
+     *  @param start Start time
+     *  @param end End time
+     */
+    private void getArchivedData(final List<PVItem> items,
+            final Instant start, final Instant end)
     {
         // Only useful for PVItems with archive data source
-        if (!(item instanceof PVItem))
-            return;
-        final PVItem pv_item = (PVItem) item;
-        if (pv_item.getArchiveDataSources().length <= 0)
+        final List<PVItem> pv_items = new ArrayList<>();
+        for (PVItem pv_item : items)
+            if (pv_item.getArchiveDataSources().length > 0)
+                pv_items.add(pv_item);
+        if (pv_items.isEmpty())
             return;
 
-        // Determine ongoing jobs for this item
+        // Determine ongoing jobs for these items
         final List<ArchiveFetchJob> ongoing = new ArrayList<>();
-        final ArchiveFetchJob new_job = new ArchiveFetchJob(pv_item, start, end, archive_fetch_listener);
+        final ArchiveFetchJob new_job;
         synchronized (archive_fetch_jobs)
         {
             for (Iterator<ArchiveFetchJob> iter = archive_fetch_jobs.iterator();  iter.hasNext();  /**/)
             {
                 final ArchiveFetchJob job = iter.next();
-                if (job.getPVItem() == pv_item)
+                if (! Collections.disjoint(job.getPVItems(), pv_items))
                 {
                     ongoing.add(job);
                     iter.remove();
                 }
             }
+            // Cancelled jobs may also have been fetching other items,
+            // which are then fetched by the new job
+            for (ArchiveFetchJob job : ongoing)
+                for (PVItem pv_item : job.getPVItems())
+                    if (! pv_items.contains(pv_item))
+                        pv_items.add(pv_item);
+            new_job = new ArchiveFetchJob(pv_items, start, end, archive_fetch_listener);
             // Track new job
             archive_fetch_jobs.add(new_job);
         }